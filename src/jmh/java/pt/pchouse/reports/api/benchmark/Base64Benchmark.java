@@ -0,0 +1,108 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.pchouse.reports.api.util.Base64Stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the base64 decode of the request templates and datasources
+ * and of the encode of the generated reports
+ *
+ * @since 1.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Base64Benchmark {
+
+    /**
+     * The test resource to encode and decode
+     * @since 1.1.0
+     */
+    @Param({"jsondatasource/json_datasource.json", "sakila/sakila.jasper", "ticket/ticket.jasper"})
+    public String resource;
+
+    /**
+     * @since 1.1.0
+     */
+    private byte[] decoded;
+
+    /**
+     * @since 1.1.0
+     */
+    private String encoded;
+
+    /**
+     * @since 1.1.0
+     */
+    private final byte[] buffer = new byte[8192];
+
+    /**
+     * @since 1.1.0
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        decoded = BenchmarkContext.read(resource);
+        encoded = Base64.getEncoder().encodeToString(decoded);
+    }
+
+    /**
+     * @return The encoded resource
+     * @since 1.1.0
+     */
+    @Benchmark
+    public String encode() {
+        return Base64.getEncoder().encodeToString(decoded);
+    }
+
+    /**
+     * @return The decoded resource
+     * @since 1.1.0
+     */
+    @Benchmark
+    public byte[] decode() {
+        return Base64.getDecoder().decode(encoded);
+    }
+
+    /**
+     * Decode on the fly as the streaming datasources read the file datasource
+     *
+     * @param blackhole The blackhole
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    @Benchmark
+    public void decodeStream(Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = Base64Stream.decode(encoded)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                blackhole.consume(read);
+            }
+        }
+    }
+}
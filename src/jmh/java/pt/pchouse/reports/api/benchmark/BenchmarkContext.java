@@ -0,0 +1,132 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import pt.pchouse.reports.api.Start;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * The application context and the test resources shared by the benchmarks,
+ * the context is started without the web server and with the log level set to warn
+ *
+ * @since 1.1.0
+ */
+public final class BenchmarkContext {
+
+    /**
+     * @since 1.1.0
+     */
+    private static ConfigurableApplicationContext appContext;
+
+    /**
+     * @since 1.1.0
+     */
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Start the application context if not started
+     *
+     * @return The application context
+     * @since 1.1.0
+     */
+    public static synchronized ConfigurableApplicationContext start() {
+        if (appContext == null || !appContext.isActive()) {
+            appContext = new SpringApplicationBuilder(Start.class)
+                    .web(WebApplicationType.NONE)
+                    .logStartupInfo(false)
+                    .run("--logging.level.root=WARN", "--logging.level.pt.*=WARN");
+        }
+        return appContext;
+    }
+
+    /**
+     * Stop the application context
+     * @since 1.1.0
+     */
+    public static synchronized void stop() {
+        if (appContext != null) {
+            appContext.close();
+            appContext = null;
+        }
+    }
+
+    /**
+     * Read a test resource
+     *
+     * @param resource The resource path
+     * @return The resource content
+     * @since 1.1.0
+     */
+    public static byte[] read(String resource) {
+        URL url = Objects.requireNonNull(
+                BenchmarkContext.class.getClassLoader().getResource(resource),
+                String.format("Resource '%s' not found", resource)
+        );
+        try {
+            return Files.readAllBytes(Paths.get(url.toURI()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read a test resource as a base64 encoded string
+     *
+     * @param resource The resource path
+     * @return The base64 encoded content
+     * @since 1.1.0
+     */
+    public static String readBase64(String resource) {
+        return Base64.getEncoder().encodeToString(read(resource));
+    }
+
+    /**
+     * Read a report request json test resource
+     *
+     * @param resource The resource path
+     * @return The report request
+     * @since 1.1.0
+     */
+    public static ReportRequest readRequest(String resource) {
+        try (InputStream inputStream = Objects.requireNonNull(
+                BenchmarkContext.class.getClassLoader().getResourceAsStream(resource),
+                String.format("Resource '%s' not found", resource)
+        )) {
+            return new ObjectMapper().readValue(inputStream, ReportRequest.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
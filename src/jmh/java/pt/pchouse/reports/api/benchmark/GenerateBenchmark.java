@@ -0,0 +1,167 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationContext;
+import pt.pchouse.reports.api.generator.IGenerator;
+import pt.pchouse.reports.api.printer.Printer;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.request.datasource.JsonFile;
+
+import javax.print.DocFlavor;
+import javax.print.StreamPrintServiceFactory;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the full report generation, from the parse of the request to the base64 encoded report,
+ * of the json file datasource template. The print is done to a postscript file with a stream print service.
+ *
+ * @since 1.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerateBenchmark {
+
+    /**
+     * The report type
+     * @since 1.1.0
+     */
+    @Param({"PDF", "XLSX", "CSV", "PRINT"})
+    public ReportRequest.ReportType type;
+
+    /**
+     * @since 1.1.0
+     */
+    private ApplicationContext appContext;
+
+    /**
+     * @since 1.1.0
+     */
+    private String report;
+
+    /**
+     * @since 1.1.0
+     */
+    private String json;
+
+    /**
+     * The postscript file where the reports are printed
+     * @since 1.1.0
+     */
+    private Path printFile;
+
+    /**
+     * @since 1.1.0
+     */
+    private OutputStream printOutput;
+
+    /**
+     * The print service field of the printer bean
+     * @since 1.1.0
+     */
+    private Field printService;
+
+    /**
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        appContext = BenchmarkContext.start();
+        report = BenchmarkContext.readBase64("jsondatasource/report_json_file.jasper");
+        json = BenchmarkContext.readBase64("jsondatasource/json_datasource.json");
+        printService = Printer.class.getDeclaredField("printService");
+        printService.setAccessible(true);
+    }
+
+    /**
+     * Print to a new file in each iteration, so the file does not grow during the whole trial
+     *
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @Setup(Level.Iteration)
+    public void setupPrinter() throws Exception {
+        if (type != ReportRequest.ReportType.PRINT) {
+            return;
+        }
+
+        StreamPrintServiceFactory[] factories = StreamPrintServiceFactory.lookupStreamPrintServiceFactories(
+                DocFlavor.SERVICE_FORMATTED.PAGEABLE, DocFlavor.BYTE_ARRAY.POSTSCRIPT.getMimeType()
+        );
+        if (factories.length == 0) {
+            throw new IllegalStateException("No postscript stream print service available");
+        }
+
+        printFile = Files.createTempFile("benchmark", ".ps");
+        printOutput = Files.newOutputStream(printFile);
+        printService.set(appContext.getBean(Printer.class), factories[0].getPrintService(printOutput));
+    }
+
+    /**
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @TearDown(Level.Iteration)
+    public void tearDownPrinter() throws Exception {
+        if (printOutput == null) {
+            return;
+        }
+        printService.set(appContext.getBean(Printer.class), null);
+        printOutput.close();
+        Files.deleteIfExists(printFile);
+        printOutput = null;
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    /**
+     * @return The base64 encoded report or null if printed
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @Benchmark
+    public String generate() throws Exception {
+        JsonFile jsonFile = new JsonFile();
+        jsonFile.setJson(json);
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(type);
+        reportRequest.setReport(report);
+        reportRequest.setParameters(new ArrayList<>());
+        reportRequest.setJsonFile(jsonFile);
+
+        return appContext.getBean(IGenerator.class, reportRequest).generate();
+    }
+}
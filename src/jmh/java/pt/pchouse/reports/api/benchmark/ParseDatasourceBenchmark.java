@@ -0,0 +1,108 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationContext;
+import pt.pchouse.reports.api.generator.Generator;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the generator datasource parse of each datasource type,
+ * the file datasources include the base64 decode and the write of the datasource file
+ *
+ * @since 1.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseDatasourceBenchmark {
+
+    /**
+     * The datasource type, the report request test resource name
+     * @since 1.1.0
+     */
+    @Param({"DataBase", "JsonHttps", "JsonHttp", "XmlHttps", "XmlHttp", "JsonFile", "XmlFile"})
+    public String datasource;
+
+    /**
+     * @since 1.1.0
+     */
+    private Generator generator;
+
+    /**
+     * @since 1.1.0
+     */
+    private Method parseDatasource;
+
+    /**
+     * @since 1.1.0
+     */
+    private Method deleteTmpDir;
+
+    /**
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ApplicationContext appContext = BenchmarkContext.start();
+
+        parseDatasource = Generator.class.getDeclaredMethod("parseDatasource");
+        parseDatasource.setAccessible(true);
+        deleteTmpDir = Generator.class.getDeclaredMethod("deleteTmpDir");
+        deleteTmpDir.setAccessible(true);
+        Method createTmpDir = Generator.class.getDeclaredMethod("createTmpDir");
+        createTmpDir.setAccessible(true);
+
+        ReportRequest reportRequest = BenchmarkContext.readRequest(
+                String.format("reportRequestParse%sTest.json", datasource)
+        );
+        if (reportRequest.getJsonFile() != null) {
+            // Parse a real sized datasource, the fixture only has a short string
+            reportRequest.getJsonFile().setJson(BenchmarkContext.readBase64("jsondatasource/json_datasource.json"));
+        }
+        generator = appContext.getBean(Generator.class, reportRequest);
+        createTmpDir.invoke(generator);
+    }
+
+    /**
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        deleteTmpDir.invoke(generator);
+        BenchmarkContext.stop();
+    }
+
+    /**
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @Benchmark
+    public void parseDatasource() throws Exception {
+        parseDatasource.invoke(generator);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationContext;
+import pt.pchouse.reports.api.generator.Generator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the generator parse of the parameters of every parameter type
+ *
+ * @since 1.1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseParametersBenchmark {
+
+    /**
+     * @since 1.1.0
+     */
+    private Generator generator;
+
+    /**
+     * @since 1.1.0
+     */
+    private Method parseParameters;
+
+    /**
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ApplicationContext appContext = BenchmarkContext.start();
+        parseParameters = Generator.class.getDeclaredMethod("parseParameters");
+        parseParameters.setAccessible(true);
+        generator = appContext.getBean(
+                Generator.class, BenchmarkContext.readRequest("reportRequestParseParametersTest.json")
+        );
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    /**
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @Benchmark
+    public void parseParameters() throws Exception {
+        parseParameters.invoke(generator);
+    }
+}
@@ -20,16 +20,20 @@ package pt.pchouse.reports.api;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import pt.pchouse.reports.api.admission.AdmissionControl;
+import pt.pchouse.reports.api.admission.AdmissionException;
 import pt.pchouse.reports.api.response.ReportResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @since 1.0.0
@@ -47,7 +51,7 @@ public class ErrorHandler {
      * @param ex       The not handled exception
      * @param request  The request container
      * @param response The response container
-     * @return The Internal Error response
+     * @return The Internal Error response, or Service Unavailable with the Retry-After header if the executor rejected the request
      * @see <a href="https://stackoverflow.com/a/48509042">https://stackoverflow.com/a/48509042</a>
      * @since 1.0.0
      */
@@ -56,6 +60,14 @@ public class ErrorHandler {
         ReportResponse reportResponse = appContext.getBean(ReportResponse.class);
         reportResponse.setStatus(ReportResponse.Status.ERROR);
 
+        if (ex instanceof RejectedExecutionException) {
+            AdmissionException admissionException = appContext.getBean(AdmissionControl.class).rejected();
+            reportResponse.setMessage(admissionException.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionException.getRetryAfter()))
+                    .body(reportResponse);
+        }
+
         if (ex instanceof HttpMessageNotReadableException) {
             reportResponse.setMessage("Request body error. Possible empty or json wrong format.");
         } else if (ex instanceof HttpMediaTypeNotSupportedException) {
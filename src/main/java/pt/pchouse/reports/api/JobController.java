@@ -0,0 +1,314 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pt.pchouse.reports.api.auth.IAuth;
+import pt.pchouse.reports.api.job.Job;
+import pt.pchouse.reports.api.job.JobException;
+import pt.pchouse.reports.api.job.JobManager;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.response.JobResponse;
+import pt.pchouse.reports.api.response.ReportResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The report generation jobs controller, the report is generated in background
+ * and the client polls the job state and downloads the result
+ * @since 1.1.0
+ */
+@RestController
+public class JobController {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ApplicationContext appContext;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private Executor executor;
+
+    /**
+     * Submit a report generation job
+     * @param reportRequest The request
+     * @return The response with the job id, http status code 202 if queued or 503 if the queue is full
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/jobs", method = RequestMethod.POST)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<JobResponse>> submitJob(@RequestBody ReportRequest reportRequest) {
+
+        logger.debug("New job request");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            JobResponse response = appContext.getBean(JobResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                Job job = appContext.getBean(JobManager.class).submit(reportRequest);
+
+                response.setJob(job);
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(202).body(response);
+            } catch (JobException e) {
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(503).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Get the job state
+     * @param id The job id
+     * @return The response, http status code 404 if the job not exists or is expired
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/jobs/{id}", method = RequestMethod.GET)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<JobResponse>> getJob(@PathVariable("id") String id) {
+
+        logger.debug("Get job '{}'", id);
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            JobResponse response = appContext.getBean(JobResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                Job job = appContext.getBean(JobManager.class).get(id);
+
+                if (job == null) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage(String.format("Job with id '%s' not found", id));
+                    response.setDuration(startInstant, System.nanoTime());
+                    return ResponseEntity.status(404).body(response);
+                }
+
+                response.setJob(job);
+                boolean failed = job.getState() == Job.State.FAILED || job.getState() == Job.State.CANCELLED;
+                response.setStatus(failed ? ReportResponse.Status.ERROR : ReportResponse.Status.OK);
+                response.setMessage(job.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Download the generated report of a done job.
+     * The response status, message and duration are sent in the headers.
+     * @param id The job id
+     * @return The raw report, http status code 404 if the job not exists and 409 if the job is not done
+     * @since 1.1.0
+     */
+    @CrossOrigin(
+            origins = "*",
+            exposedHeaders = {
+                    ReportController.HEADER_STATUS, ReportController.HEADER_MESSAGE, ReportController.HEADER_DURATION
+            }
+    )
+    @RequestMapping(value = "/jobs/{id}/result", method = RequestMethod.GET)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getJobResult(@PathVariable("id") String id) {
+
+        logger.debug("Get job '{}' result", id);
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            JobResponse response = appContext.getBean(JobResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).headers(ReportController.responseHeaders(response)).build();
+                }
+
+                Job job = appContext.getBean(JobManager.class).get(id);
+
+                if (job == null) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage(String.format("Job with id '%s' not found", id));
+                    response.setDuration(startInstant, System.nanoTime());
+                    return ResponseEntity.status(404).headers(ReportController.responseHeaders(response)).build();
+                }
+
+                Path result = job.getResult();
+
+                if (job.getState() != Job.State.DONE || result == null || !Files.exists(result)) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage(String.format("Job with id '%s' has no result, state %s", id, job.getState()));
+                    response.setDuration(startInstant, System.nanoTime());
+                    return ResponseEntity.status(409).headers(ReportController.responseHeaders(response)).build();
+                }
+
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+
+                HttpHeaders headers = ReportController.responseHeaders(response);
+                ReportRequest.ReportType reportType = job.getReportType();
+                headers.setContentType(ReportController.contentType(reportType, job.getEncoding()));
+                headers.setContentLength(Files.size(result));
+                if (reportType != null) {
+                    headers.setContentDisposition(
+                            ContentDisposition.builder("attachment")
+                                    .filename("report." + reportType.getExtension())
+                                    .build()
+                    );
+                }
+
+                StreamingResponseBody body = outputStream -> Files.copy(result, outputStream);
+
+                return ResponseEntity.status(200).headers(headers).body(body);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).headers(ReportController.responseHeaders(response)).build();
+            }
+        }, executor);
+    }
+
+    /**
+     * Cancel a queued or running job, or remove a finished job and its result
+     * @param id The job id
+     * @return The response, http status code 404 if the job not exists
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/jobs/{id}", method = RequestMethod.DELETE)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<JobResponse>> cancelJob(@PathVariable("id") String id) {
+
+        logger.debug("Cancel job '{}'", id);
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            JobResponse response = appContext.getBean(JobResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                JobManager jobManager = appContext.getBean(JobManager.class);
+                Job job = jobManager.get(id);
+
+                if (job == null || !jobManager.cancel(id)) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage(String.format("Job with id '%s' not found", id));
+                    response.setDuration(startInstant, System.nanoTime());
+                    return ResponseEntity.status(404).body(response);
+                }
+
+                response.setJob(job);
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pt.pchouse.reports.api.auth.IAuth;
+import pt.pchouse.reports.api.printer.PrintJob;
+import pt.pchouse.reports.api.printer.PrintQueue;
+import pt.pchouse.reports.api.response.PrintJobResponse;
+import pt.pchouse.reports.api.response.ReportResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The print jobs controller, the print reports are sent to the printer queue
+ * and the client polls the print job state
+ * @since 1.1.0
+ */
+@RestController
+public class PrintController {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ApplicationContext appContext;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private Executor executor;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private PrintQueue printQueue;
+
+    /**
+     * Get the print job state
+     * @param id The print job id
+     * @return The response, http status code 404 if the job not exists or is expired
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/print/jobs/{id}", method = RequestMethod.GET)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<PrintJobResponse>> getPrintJob(@PathVariable("id") String id) {
+
+        logger.debug("Get print job '{}'", id);
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            PrintJobResponse response = appContext.getBean(PrintJobResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                PrintJob job = printQueue.get(id);
+
+                if (job == null) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage(String.format("Print job with id '%s' not found", id));
+                    response.setDuration(startInstant, System.nanoTime());
+                    return ResponseEntity.status(404).body(response);
+                }
+
+                response.setJob(job);
+                response.setStatus(
+                        job.getState() == PrintJob.State.FAILED ? ReportResponse.Status.ERROR : ReportResponse.Status.OK
+                );
+                response.setMessage(job.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+}
@@ -16,22 +16,54 @@
  */
 package pt.pchouse.reports.api;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pt.pchouse.reports.api.admission.AdmissionControl;
+import pt.pchouse.reports.api.admission.AdmissionException;
 import pt.pchouse.reports.api.auth.IAuth;
+import pt.pchouse.reports.api.coalesce.RequestCoalescer;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.deadline.DeadlineException;
+import pt.pchouse.reports.api.generator.BatchGenerator;
 import pt.pchouse.reports.api.generator.IGenerator;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.pool.ConnectionPoolRegistry;
+import pt.pchouse.reports.api.printer.PrintQueue;
 import pt.pchouse.reports.api.printer.Printer;
+import pt.pchouse.reports.api.request.BatchRequest;
 import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.request.Sign;
+import pt.pchouse.reports.api.response.AResponse;
+import pt.pchouse.reports.api.response.CacheResponse;
+import pt.pchouse.reports.api.response.PoolResponse;
 import pt.pchouse.reports.api.response.ReportResponse;
 import pt.pchouse.reports.api.response.Response;
+import pt.pchouse.reports.api.result.ResultCache;
+import pt.pchouse.reports.api.sign.BatchSigner;
+import pt.pchouse.reports.api.sign.SignException;
+import pt.pchouse.reports.api.template.TemplateCache;
+import pt.pchouse.reports.api.template.TemplateCompiler;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The request controller
@@ -40,6 +72,37 @@ import java.util.concurrent.Executor;
 @RestController
 public class ReportController {
 
+    /**
+     * The response status header of the binary report response
+     * @since 1.1.0
+     */
+    public static final String HEADER_STATUS = "X-Report-Status";
+
+    /**
+     * The response message header of the binary report response
+     * @since 1.1.0
+     */
+    public static final String HEADER_MESSAGE = "X-Report-Message";
+
+    /**
+     * The response duration header of the binary report response
+     * @since 1.1.0
+     */
+    public static final String HEADER_DURATION = "X-Report-Duration";
+
+    /**
+     * The request header with the maximum time in milliseconds to generate the report,
+     * overrides the report request timeout
+     * @since 1.1.0
+     */
+    public static final String HEADER_TIMEOUT = "X-Report-Timeout";
+
+    /**
+     * The response header with the print job id of the binary report response of a print report
+     * @since 1.1.0
+     */
+    public static final String HEADER_PRINT_JOB = "X-Report-Print-Job";
+
     /**
      * @since 1.0.0
      */
@@ -63,26 +126,78 @@ public class ReportController {
     @Autowired
     private Executor executor;
 
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    /**
+     * The default maximum time in milliseconds to generate a report, zero is no time limit
+     * @since 1.1.0
+     */
+    @Value("${report.deadline.default.ms}")
+    private long defaultTimeout;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ResultCache resultCache;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private PrintQueue printQueue;
+
     /**
      * Handler for report request
      * @param reportRequest The request
+     * @param timeout       The timeout header, overrides the request timeout
+     * @param ifNoneMatch   The If-None-Match header, the cached report entity tags of the client
+     * @param cacheControl  The Cache-Control header, overrides the request cache mode
      * @return The response
      * @since 1.0.0
      */
-    @CrossOrigin(origins = "*")
+    @CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG})
     @RequestMapping(value = "/report", method = RequestMethod.POST)
     @ResponseBody
-    public CompletableFuture<ResponseEntity<ReportResponse>> getReport(@RequestBody ReportRequest reportRequest) {
+    public CompletableFuture<ResponseEntity<ReportResponse>> getReport(
+            @RequestBody ReportRequest reportRequest,
+            @RequestHeader(value = HEADER_TIMEOUT, required = false) Long timeout,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl) {
         logger.debug("New report request");
         long startInstant = System.nanoTime();
+        Deadline deadline = deadline(reportRequest, timeout, startInstant);
         IAuth auth = appContext.getBean(IAuth.class);
         auth.catchRemoteIP();
 
-        return CompletableFuture.supplyAsync(() ->
+        AdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.acquire(auth.getRemoteIp());
+        } catch (AdmissionException e) {
+            ReportResponse reportResponse = appContext.getBean(ReportResponse.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(reportResponse, e, startInstant).body(reportResponse)
+            );
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() ->
                 {
                     ReportResponse reportResponse = appContext.getBean(ReportResponse.class);
 
                     try {
+                        permit.start();
+
                         if (!auth.isAuthorized()) {
                             reportResponse.setStatus(ReportResponse.Status.ERROR);
                             reportResponse.setMessage("Client not authorized");
@@ -91,31 +206,643 @@ public class ReportController {
                             return ResponseEntity.status(400).body(reportResponse);
                         }
 
+                        deadline.check(Deadline.STAGE_QUEUE);
+
+                        String resultKey = resultKey(reportRequest, cacheControl);
+                        ResultCache.Entry notModified = notModified(reportRequest, resultKey, ifNoneMatch);
+                        if (notModified != null) {
+                            logger.debug("Report not modified, respond with http status code 304");
+                            return ResponseEntity.status(304).eTag(notModified.getETag()).build();
+                        }
+
                         logger.debug("Going to generate the report");
-                        IGenerator generator = appContext.getBean(IGenerator.class, reportRequest);
 
-                        String generatorReport = generator.generate();
-                        reportResponse.setReport(generatorReport);
+                        // Identical concurrent requests share the same generation
+                        if (reportRequest.getReportTypes() == null || reportRequest.getReportTypes().isEmpty()) {
+                            IGenerator generator = generator(reportRequest, deadline, resultKey);
+                            reportResponse.setReport(requestCoalescer.execute(
+                                    reportRequest, resultKey, deadline, generator::generate
+                            ));
+                            // The print report is printed in the printer queue, the response is sent when queued
+                            if (generator.getPrintJob() != null) {
+                                reportResponse.setPrintJobId(generator.getPrintJob().getId());
+                            }
+                        } else {
+                            Map<ReportRequest.ReportType, String> reports = requestCoalescer.execute(
+                                    reportRequest, deadline, () -> generator(reportRequest, deadline, null).generateReports()
+                            );
+                            reportResponse.setReports(reports);
+                            reportResponse.setReport(reports.isEmpty() ? null : reports.values().iterator().next());
+                        }
                         reportResponse.setStatus(ReportResponse.Status.OK);
                         reportResponse.setDuration(startInstant, System.nanoTime());
                         logger.debug("Report generated elapsed time:" + reportResponse.getDuration());
-                        return ResponseEntity.status(200).body(reportResponse);
 
+                        ResultCache.Entry cached = resultKey == null ? null : resultCache.peek(resultKey);
+                        if (cached == null) {
+                            return ResponseEntity.status(200).body(reportResponse);
+                        }
+                        if (cached.matches(ifNoneMatch)) {
+                            logger.debug("Report not modified, respond with http status code 304");
+                            return ResponseEntity.status(304).eTag(cached.getETag()).build();
+                        }
+                        return ResponseEntity.status(200).eTag(cached.getETag()).body(reportResponse);
+
+                    } catch (AdmissionException e) {
+                        return serviceUnavailable(reportResponse, e, startInstant).body(reportResponse);
+                    } catch (DeadlineException e) {
+                        return gatewayTimeout(reportResponse, e, startInstant).body(reportResponse);
                     } catch (Exception e) {
                         logger.error(e.getMessage());
                         reportResponse.setStatus(ReportResponse.Status.ERROR);
                         reportResponse.setMessage(e.getMessage());
                         reportResponse.setDuration(startInstant, System.nanoTime());
                         return ResponseEntity.status(400).body(reportResponse);
+                    } finally {
+                        permit.close();
+                    }
+
+                },
+                executor
+            );
+        } catch (RejectedExecutionException e) {
+            permit.close();
+            ReportResponse reportResponse = appContext.getBean(ReportResponse.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(reportResponse, admissionControl.rejected(), startInstant).body(reportResponse)
+            );
+        }
+    }
+
+    /**
+     * Handler for report request that respond with the raw document streamed from the generated output,
+     * selected when the request has the header "Accept: application/octet-stream".
+     * The response status, message and duration are sent in the headers.
+     *
+     * @param reportRequest The request
+     * @param timeout       The timeout header, overrides the request timeout
+     * @param ifNoneMatch   The If-None-Match header, the cached report entity tags of the client
+     * @param cacheControl  The Cache-Control header, overrides the request cache mode
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*", exposedHeaders = {HEADER_STATUS, HEADER_MESSAGE, HEADER_DURATION, HEADER_PRINT_JOB, HttpHeaders.ETAG})
+    @RequestMapping(value = "/report", method = RequestMethod.POST, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getReportStream(
+            @RequestBody ReportRequest reportRequest,
+            @RequestHeader(value = HEADER_TIMEOUT, required = false) Long timeout,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl) {
+        logger.debug("New binary report request");
+        long startInstant = System.nanoTime();
+        Deadline deadline = deadline(reportRequest, timeout, startInstant);
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        AdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.acquire(auth.getRemoteIp());
+        } catch (AdmissionException e) {
+            Response response = appContext.getBean(Response.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(response, e, startInstant).headers(responseHeaders(response)).build()
+            );
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() ->
+                {
+                    Response response = appContext.getBean(Response.class);
+                    IGenerator generator = null;
+
+                    try {
+                        permit.start();
+
+                        if (!auth.isAuthorized()) {
+                            response.setStatus(ReportResponse.Status.ERROR);
+                            response.setMessage("Client not authorized");
+                            response.setDuration(startInstant, System.nanoTime());
+                            logger.debug("Client not authorized, respond with http status code 400");
+                            return ResponseEntity.status(400).headers(responseHeaders(response)).build();
+                        }
+
+                        if (hasOtherReportTypes(reportRequest)) {
+                            response.setStatus(ReportResponse.Status.ERROR);
+                            response.setMessage(
+                                    "The binary response has only one report type, request the report types without the binary response"
+                            );
+                            response.setDuration(startInstant, System.nanoTime());
+                            logger.debug("Many report types in the binary response, respond with http status code 400");
+                            return ResponseEntity.status(400).headers(responseHeaders(response)).build();
+                        }
+
+                        deadline.check(Deadline.STAGE_QUEUE);
+
+                        String resultKey = resultKey(reportRequest, cacheControl);
+                        ResultCache.Entry notModified = notModified(reportRequest, resultKey, ifNoneMatch);
+                        if (notModified != null) {
+                            response.setStatus(ReportResponse.Status.OK);
+                            response.setDuration(startInstant, System.nanoTime());
+                            logger.debug("Report not modified, respond with http status code 304");
+                            return ResponseEntity.status(304).headers(responseHeaders(response))
+                                    .eTag(notModified.getETag()).build();
+                        }
+
+                        logger.debug("Going to generate the report");
+                        generator = generator(reportRequest, deadline, resultKey);
+
+                        ReportOutput output = generator.generateOutput();
+                        response.setStatus(ReportResponse.Status.OK);
+                        response.setDuration(startInstant, System.nanoTime());
+                        logger.debug("Report generated elapsed time:" + response.getDuration());
+
+                        HttpHeaders headers = responseHeaders(response);
+
+                        if (output == null) {
+                            if (generator.getPrintJob() != null) {
+                                headers.set(HEADER_PRINT_JOB, generator.getPrintJob().getId());
+                            }
+                            generator.clean();
+                            return ResponseEntity.status(200).headers(headers).build();
+                        }
+
+                        ResultCache.Entry cached = resultKey == null ? null : resultCache.peek(resultKey);
+                        if (cached != null) {
+                            headers.setETag(cached.getETag());
+                            if (cached.matches(ifNoneMatch)) {
+                                generator.clean();
+                                logger.debug("Report not modified, respond with http status code 304");
+                                return ResponseEntity.status(304).headers(headers).build();
+                            }
+                        }
+
+                        ReportRequest.ReportType reportType = reportRequest.getReportType();
+                        headers.setContentType(contentType(reportType, reportRequest.getEncoding()));
+                        headers.setContentLength(output.size());
+                        if (reportType != null) {
+                            headers.setContentDisposition(
+                                    ContentDisposition.builder("inline")
+                                            .filename("report." + reportType.getExtension())
+                                            .build()
+                            );
+                        }
+
+                        IGenerator generated = generator;
+                        StreamingResponseBody body = outputStream -> {
+                            try {
+                                output.writeTo(outputStream);
+                            } finally {
+                                generated.clean();
+                            }
+                        };
+
+                        return ResponseEntity.status(200).headers(headers).body(body);
+
+                    } catch (AdmissionException e) {
+                        return serviceUnavailable(response, e, startInstant).headers(responseHeaders(response)).build();
+                    } catch (DeadlineException e) {
+                        if (generator != null) {
+                            generator.clean();
+                        }
+                        return gatewayTimeout(response, e, startInstant).headers(responseHeaders(response)).build();
+                    } catch (Exception e) {
+                        logger.error(e.getMessage());
+                        if (generator != null) {
+                            generator.clean();
+                        }
+                        response.setStatus(ReportResponse.Status.ERROR);
+                        response.setMessage(e.getMessage());
+                        response.setDuration(startInstant, System.nanoTime());
+                        return ResponseEntity.status(400).headers(responseHeaders(response)).build();
+                    } finally {
+                        permit.close();
+                    }
+
+                },
+                executor
+            );
+        } catch (RejectedExecutionException e) {
+            permit.close();
+            Response response = appContext.getBean(Response.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(response, admissionControl.rejected(), startInstant)
+                            .headers(responseHeaders(response))
+                            .build()
+            );
+        }
+    }
+
+    /**
+     * Handler for batch request, many reports of the same template generated in parallel.
+     * The reports are streamed as a zip or, if the request has the header "Accept: application/x-ndjson",
+     * as json lines, as each one finishes. A failed report does not abort the batch.
+     *
+     * @param batchRequest The request
+     * @param accept       The accept header
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*", exposedHeaders = {HEADER_STATUS, HEADER_MESSAGE, HEADER_DURATION})
+    @RequestMapping(value = "/report/batch", method = RequestMethod.POST)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getReportBatch(
+            @RequestBody BatchRequest batchRequest,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logger.debug("New batch report request");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        AdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.acquire(auth.getRemoteIp(), false);
+        } catch (AdmissionException e) {
+            Response response = appContext.getBean(Response.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(response, e, startInstant).headers(responseHeaders(response)).build()
+            );
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() ->
+                {
+                    Response response = appContext.getBean(Response.class);
+
+                    try {
+                        permit.start();
+
+                        if (!auth.isAuthorized()) {
+                            permit.close();
+                            response.setStatus(ReportResponse.Status.ERROR);
+                            response.setMessage("Client not authorized");
+                            response.setDuration(startInstant, System.nanoTime());
+                            logger.debug("Client not authorized, respond with http status code 400");
+                            return ResponseEntity.status(400).headers(responseHeaders(response)).build();
+                        }
+
+                        BatchGenerator batchGenerator = appContext.getBean(BatchGenerator.class, batchRequest);
+                        batchGenerator.prepare();
+
+                        response.setStatus(ReportResponse.Status.OK);
+                        response.setDuration(startInstant, System.nanoTime());
+
+                        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+                        HttpHeaders headers = responseHeaders(response);
+                        if (ndjson) {
+                            headers.setContentType(MediaType.APPLICATION_NDJSON);
+                        } else {
+                            headers.setContentType(MediaType.parseMediaType("application/zip"));
+                            headers.setContentDisposition(
+                                    ContentDisposition.builder("attachment").filename("reports.zip").build()
+                            );
+                        }
+
+                        StreamingResponseBody body = outputStream -> {
+                            try {
+                                if (ndjson) {
+                                    batchGenerator.writeNdjson(outputStream);
+                                } else {
+                                    batchGenerator.writeZip(outputStream);
+                                }
+                                logger.debug("Batch generated elapsed time: {}s", (System.nanoTime() - startInstant) / 1_000_000_000);
+                            } catch (IOException e) {
+                                throw e;
+                            } catch (Exception e) {
+                                throw new IOException(e.getMessage(), e);
+                            } finally {
+                                // The batch is generated while streamed, the permit is held until the end
+                                batchGenerator.release();
+                                permit.close();
+                            }
+                        };
+
+                        return ResponseEntity.status(200).headers(headers).body(body);
+
+                    } catch (AdmissionException e) {
+                        return serviceUnavailable(response, e, startInstant).headers(responseHeaders(response)).build();
+                    } catch (Exception e) {
+                        permit.close();
+                        logger.error(e.getMessage());
+                        response.setStatus(ReportResponse.Status.ERROR);
+                        response.setMessage(e.getMessage());
+                        response.setDuration(startInstant, System.nanoTime());
+                        return ResponseEntity.status(400).headers(responseHeaders(response)).build();
+                    }
+
+                },
+                executor
+            );
+        } catch (RejectedExecutionException e) {
+            permit.close();
+            Response response = appContext.getBean(Response.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(response, admissionControl.rejected(), startInstant)
+                            .headers(responseHeaders(response))
+                            .build()
+            );
+        }
+    }
+
+    /**
+     * Handler for batch sign request, many pdf documents signed with the same sign configuration in parallel.
+     * The documents are sent as multipart "files" parts or as a zip in the "zip" part, with the sign
+     * configuration json in the "sign" part. The signed documents are streamed as a zip as each one finishes,
+     * a failed document does not abort the batch.
+     *
+     * @param sign  The sign configuration
+     * @param files The pdf documents
+     * @param zip   The zip of pdf documents
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*", exposedHeaders = {HEADER_STATUS, HEADER_MESSAGE, HEADER_DURATION})
+    @RequestMapping(value = "/sign/batch", method = RequestMethod.POST, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> signBatch(
+            @RequestPart("sign") Sign sign,
+            @RequestPart(value = "files", required = false) MultipartFile[] files,
+            @RequestPart(value = "zip", required = false) MultipartFile zip) {
+        logger.debug("New batch sign request");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        AdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.acquire(auth.getRemoteIp(), false);
+        } catch (AdmissionException e) {
+            Response response = appContext.getBean(Response.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(response, e, startInstant).headers(responseHeaders(response)).build()
+            );
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() ->
+                {
+                    Response response = appContext.getBean(Response.class);
+
+                    try {
+                        permit.start();
+
+                        if (!auth.isAuthorized()) {
+                            permit.close();
+                            response.setStatus(ReportResponse.Status.ERROR);
+                            response.setMessage("Client not authorized");
+                            response.setDuration(startInstant, System.nanoTime());
+                            logger.debug("Client not authorized, respond with http status code 400");
+                            return ResponseEntity.status(400).headers(responseHeaders(response)).build();
+                        }
+
+                        if ((files == null || files.length == 0) && zip == null) {
+                            throw new SignException("The batch sign request must have the files or the zip");
+                        }
+
+                        BatchSigner batchSigner = appContext.getBean(BatchSigner.class, sign);
+                        batchSigner.prepare();
+
+                        response.setStatus(ReportResponse.Status.OK);
+                        response.setDuration(startInstant, System.nanoTime());
+
+                        HttpHeaders headers = responseHeaders(response);
+                        headers.setContentType(MediaType.parseMediaType("application/zip"));
+                        headers.setContentDisposition(
+                                ContentDisposition.builder("attachment").filename("signed.zip").build()
+                        );
+
+                        StreamingResponseBody body = outputStream -> {
+                            try {
+                                if (files != null && files.length > 0) {
+                                    int[] next = {0};
+                                    batchSigner.writeZip(() -> {
+                                        if (next[0] >= files.length) {
+                                            return null;
+                                        }
+                                        MultipartFile file = files[next[0]++];
+                                        if (batchSigner.isTooLarge(file.getSize())) {
+                                            return batchSigner.tooLarge(file.getOriginalFilename());
+                                        }
+                                        return new BatchSigner.Document(file.getOriginalFilename(), file.getBytes());
+                                    }, outputStream);
+                                } else {
+                                    try (InputStream inputStream = zip.getInputStream()) {
+                                        batchSigner.writeZip(batchSigner.zipSource(inputStream), outputStream);
+                                    }
+                                }
+                                logger.debug("Batch signed elapsed time: {}s", (System.nanoTime() - startInstant) / 1_000_000_000);
+                            } catch (IOException e) {
+                                throw e;
+                            } catch (Exception e) {
+                                throw new IOException(e.getMessage(), e);
+                            } finally {
+                                // The documents are signed while streamed, the permit is held until the end
+                                permit.close();
+                            }
+                        };
+
+                        return ResponseEntity.status(200).headers(headers).body(body);
+
+                    } catch (AdmissionException e) {
+                        return serviceUnavailable(response, e, startInstant).headers(responseHeaders(response)).build();
+                    } catch (Exception e) {
+                        permit.close();
+                        logger.error(e.getMessage());
+                        response.setStatus(ReportResponse.Status.ERROR);
+                        response.setMessage(e.getMessage());
+                        response.setDuration(startInstant, System.nanoTime());
+                        return ResponseEntity.status(400).headers(responseHeaders(response)).build();
                     }
 
                 },
                 executor
+            );
+        } catch (RejectedExecutionException e) {
+            permit.close();
+            Response response = appContext.getBean(Response.class);
+            return CompletableFuture.completedFuture(
+                    serviceUnavailable(response, admissionControl.rejected(), startInstant)
+                            .headers(responseHeaders(response))
+                            .build()
+            );
+        }
+    }
+
+    /**
+     * Set the response as not admitted and create the response builder
+     * with http status 503 and the Retry-After header
+     *
+     * @param response     The response
+     * @param e            The admission exception
+     * @param startInstant The request start instant in nanoseconds
+     * @return The response builder
+     * @since 1.1.0
+     */
+    static ResponseEntity.BodyBuilder serviceUnavailable(AResponse response, AdmissionException e, long startInstant) {
+        response.setStatus(ReportResponse.Status.ERROR);
+        response.setMessage(e.getMessage());
+        response.setDuration(startInstant, System.nanoTime());
+        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter()));
+    }
+
+    /**
+     * Set the response as timed out and create the response builder with http status 504
+     *
+     * @param response     The response
+     * @param e            The deadline exception
+     * @param startInstant The request start instant in nanoseconds
+     * @return The response builder
+     * @since 1.1.0
+     */
+    static ResponseEntity.BodyBuilder gatewayTimeout(AResponse response, DeadlineException e, long startInstant) {
+        response.setStatus(ReportResponse.Status.TIMEOUT);
+        response.setMessage(e.getMessage());
+        response.setDuration(startInstant, System.nanoTime());
+        return ResponseEntity.status(504);
+    }
+
+    /**
+     * Create the generator of the report request
+     *
+     * @param reportRequest The report request
+     * @param deadline      The request deadline
+     * @param resultKey     The key of the request in the results cache, null if not cached
+     * @return The generator
+     * @since 1.1.0
+     */
+    private IGenerator generator(ReportRequest reportRequest, Deadline deadline, String resultKey) {
+        IGenerator generator = appContext.getBean(IGenerator.class, reportRequest);
+        generator.setDeadline(deadline);
+        generator.setResultKey(resultKey);
+        return generator;
+    }
+
+    /**
+     * Get the key of the request in the results cache, the Cache-Control header overrides the request cache mode
+     *
+     * @param reportRequest The report request
+     * @param cacheControl  The Cache-Control header, can be null
+     * @return The key or null if the request is not cacheable
+     * @throws IOException If fail to compute the key
+     * @since 1.1.0
+     */
+    private String resultKey(ReportRequest reportRequest, String cacheControl) throws IOException {
+        ReportRequest.CacheMode cacheMode = ResultCache.cacheMode(cacheControl);
+        if (cacheMode != null) {
+            reportRequest.setCache(cacheMode);
+        }
+        return resultCache.isCacheable(reportRequest) ? RequestCoalescer.key(reportRequest) : null;
+    }
+
+    /**
+     * Get the cached result if the client already has it, checked before the generation
+     *
+     * @param reportRequest The report request
+     * @param resultKey     The key of the request in the results cache, null if not cached
+     * @param ifNoneMatch   The If-None-Match header, can be null
+     * @return The cached result or null if the report must be generated
+     * @since 1.1.0
+     */
+    private ResultCache.Entry notModified(ReportRequest reportRequest, String resultKey, String ifNoneMatch) {
+        if (resultKey == null || ifNoneMatch == null || reportRequest.getCache() == ReportRequest.CacheMode.REFRESH) {
+            return null;
+        }
+        ResultCache.Entry cached = resultCache.peek(resultKey);
+        return cached != null && cached.matches(ifNoneMatch) ? cached : null;
+    }
+
+    /**
+     * Create the deadline of the report request, the timeout header overrides the request timeout
+     * that overrides the configured default. The deadline is stored in the request attributes
+     * to be cancelled if the client disconnects.
+     *
+     * @param reportRequest The report request
+     * @param timeout       The timeout header, can be null
+     * @param startInstant  The request start instant in nanoseconds
+     * @return The deadline
+     * @since 1.1.0
+     */
+    private Deadline deadline(ReportRequest reportRequest, Long timeout, long startInstant) {
+        if (timeout == null) {
+            timeout = reportRequest.getTimeout() == null ? defaultTimeout : reportRequest.getTimeout();
+        }
+        Deadline deadline = new Deadline(timeout, startInstant);
+        RequestContextHolder.currentRequestAttributes().setAttribute(
+                Deadline.ATTRIBUTE, deadline, RequestAttributes.SCOPE_REQUEST
         );
+        return deadline;
+    }
+
+    /**
+     * Create the binary report response headers with the status, message and duration
+     *
+     * @param response The response
+     * @return The headers
+     * @since 1.1.0
+     */
+    static HttpHeaders responseHeaders(AResponse response) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HEADER_STATUS, response.getStatus().toString());
+        headers.set(HEADER_DURATION, response.getDuration());
+        if (StringUtils.isNotEmpty(response.getMessage())) {
+            // Header values must be single line latin-1
+            headers.set(
+                    HEADER_MESSAGE,
+                    response.getMessage().replaceAll("[\\r\\n]+", " ").replaceAll("[^\\x20-\\x7E]", "?")
+            );
+        }
+        return headers;
+    }
+
+    /**
+     * If the request has other report types than the report type, not allowed in the binary response
+     * that streams only the report type
+     *
+     * @param reportRequest The report request
+     * @return true if has other report types
+     * @since 1.1.0
+     */
+    static boolean hasOtherReportTypes(ReportRequest reportRequest) {
+        if (reportRequest.getReportTypes() == null) {
+            return false;
+        }
+        ReportRequest.ReportType reportType = reportRequest.getReportType();
+        for (ReportRequest.ReportType type : reportRequest.getReportTypes()) {
+            if (type == null) {
+                continue;
+            }
+            if (reportType == null) {
+                reportType = type;
+            } else if (type != reportType) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Handle to printer cut the paper
+     * Get the content type of the report type
+     *
+     * @param reportType The report type
+     * @param encoding   The report encoding, used as charset of the text content types
+     * @return The content type
+     * @since 1.1.0
+     */
+    static MediaType contentType(ReportRequest.ReportType reportType, String encoding) {
+        if (reportType == null || reportType.getContentType() == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+
+        MediaType mediaType = MediaType.parseMediaType(reportType.getContentType());
+        boolean isText = mediaType.getType().equals("text")
+                || mediaType.equals(MediaType.APPLICATION_JSON)
+                || mediaType.equals(MediaType.APPLICATION_XML);
+
+        if (isText && StringUtils.isNotEmpty(encoding)) {
+            return new MediaType(mediaType, Charset.forName(encoding));
+        }
+        return mediaType;
+    }
+
+    /**
+     * Handle to printer cut the paper, after the queued print jobs of the printer
      * @return The response
      * @since 1.0.0
      */
@@ -143,7 +870,8 @@ public class ReportController {
                     return ResponseEntity.status(400).body(response);
                 }
 
-                appContext.getBean(Printer.class).cutPaper();
+                Printer printer = appContext.getBean(Printer.class);
+                printQueue.submit(printer.getName(), printer::cutPaper).await();
 
                 response.setStatus(ReportResponse.Status.OK);
                 response.setDuration(startInstant, System.nanoTime());
@@ -161,7 +889,7 @@ public class ReportController {
     }
 
     /**
-     * Handler to printer cut paper and open cash drawer
+     * Handler to printer cut paper and open cash drawer, after the queued print jobs of the printer
      * @return The response
      * @since 1.0.0
      */
@@ -189,7 +917,8 @@ public class ReportController {
                     return ResponseEntity.status(400).body(response);
                 }
 
-                appContext.getBean(Printer.class).cutAndCashDrawer();
+                Printer printer = appContext.getBean(Printer.class);
+                printQueue.submit(printer.getName(), printer::cutAndCashDrawer).await();
 
                 response.setStatus(ReportResponse.Status.OK);
                 response.setDuration(startInstant, System.nanoTime());
@@ -207,7 +936,7 @@ public class ReportController {
     }
 
     /**
-     * Handle to printer open cash drawer
+     * Handle to printer open cash drawer, after the queued print jobs of the printer
      * @return The response
      * @since 1.0.0
      */
@@ -235,7 +964,8 @@ public class ReportController {
                     return ResponseEntity.status(400).body(response);
                 }
 
-                appContext.getBean(Printer.class).cashDrawer();
+                Printer printer = appContext.getBean(Printer.class);
+                printQueue.submit(printer.getName(), printer::cashDrawer).await();
 
                 response.setStatus(ReportResponse.Status.OK);
                 response.setDuration(startInstant, System.nanoTime());
@@ -297,6 +1027,246 @@ public class ReportController {
         }, executor);
     }
 
+    /**
+     * Get the compiled templates cache statistics
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/cache/templates", method = RequestMethod.GET)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<CacheResponse>> getTemplateCacheStats() {
+
+        logger.debug("Get template cache statistics");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            CacheResponse response = appContext.getBean(CacheResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                TemplateCache templateCache = appContext.getBean(TemplateCache.class);
+                response.setHits(templateCache.getHits());
+                response.setMisses(templateCache.getMisses());
+                response.setEvictions(templateCache.getEvictions());
+                response.setSize(templateCache.getSize());
+                response.setBytes(templateCache.getBytes());
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Get the report results cache statistics
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/cache/results", method = RequestMethod.GET)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<CacheResponse>> getResultCacheStats() {
+
+        logger.debug("Get result cache statistics");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            CacheResponse response = appContext.getBean(CacheResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                response.setHits(resultCache.getHits());
+                response.setMisses(resultCache.getMisses());
+                response.setEvictions(resultCache.getEvictions());
+                response.setSize(resultCache.getSize());
+                response.setBytes(resultCache.getBytes());
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Invalidate the report results cache, to be called when the data of the datasources changes
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/cache/results", method = RequestMethod.DELETE)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<Response>> clearResultCache() {
+
+        logger.debug("Clear result cache");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            Response response = appContext.getBean(Response.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                resultCache.clear();
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Get the server side jrxml compile cache statistics, the hits are the compiled templates
+     * found in memory or in the store and the misses the compilations
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/cache/compiled", method = RequestMethod.GET)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<CacheResponse>> getCompileCacheStats() {
+
+        logger.debug("Get compile cache statistics");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            CacheResponse response = appContext.getBean(CacheResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                TemplateCompiler templateCompiler = appContext.getBean(TemplateCompiler.class);
+                response.setHits(templateCompiler.getHits());
+                response.setMisses(templateCompiler.getMisses());
+                response.setEvictions(templateCompiler.getEvictions());
+                response.setSize(templateCompiler.getSize());
+                response.setBytes(templateCompiler.getBytes());
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Get the database connection pools statistics
+     * @return The response
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/pools/database", method = RequestMethod.GET)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<PoolResponse>> getDatabasePoolStats() {
+
+        logger.debug("Get database pools statistics");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            PoolResponse response = appContext.getBean(PoolResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                response.setPools(appContext.getBean(ConnectionPoolRegistry.class).getStats());
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
     /**
      * Catch all non-existent action path
      *
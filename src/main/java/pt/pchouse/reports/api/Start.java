@@ -22,6 +22,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import pt.pchouse.reports.api.metrics.GeneratorMetrics;
 
 import java.util.concurrent.Executor;
 
@@ -61,10 +62,11 @@ public class Start {
 
     /**
      * @since 1.0.0
+     * @param generatorMetrics The metrics where the tasks queue wait is recorded
      * @return The default Task Executor
      */
     @Bean
-    public Executor taskExecutor() {
+    public Executor taskExecutor(GeneratorMetrics generatorMetrics) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(taskExecutorCorePoolSize);
         executor.setMaxPoolSize(taskExecutorMaxPoolSize);
@@ -73,6 +75,13 @@ public class Start {
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAllowCoreThreadTimeOut(true);
         executor.setKeepAliveSeconds(60 * 5);
+        executor.setTaskDecorator(task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                generatorMetrics.recordQueueWait("task", System.nanoTime() - submitted);
+                task.run();
+            };
+        });
         executor.initialize();
         return executor;
     }
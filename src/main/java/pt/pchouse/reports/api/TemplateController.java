@@ -0,0 +1,225 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pt.pchouse.reports.api.auth.IAuth;
+import pt.pchouse.reports.api.request.TemplateRequest;
+import pt.pchouse.reports.api.response.ReportResponse;
+import pt.pchouse.reports.api.response.TemplateResponse;
+import pt.pchouse.reports.api.template.TemplateCompiler;
+import pt.pchouse.reports.api.template.TemplateRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The templates' registry controller
+ * @since 1.1.0
+ */
+@RestController
+public class TemplateController {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ApplicationContext appContext;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private Executor executor;
+
+    /**
+     * Register a template and its resources
+     * @param templateRequest The request
+     * @return The response with the template id
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/templates", method = RequestMethod.POST)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<TemplateResponse>> registerTemplate(@RequestBody TemplateRequest templateRequest) {
+
+        logger.debug("New template register request");
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            TemplateResponse response = appContext.getBean(TemplateResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                // The jrxml template and resources are compiled in the server
+                TemplateCompiler templateCompiler = appContext.getBean(TemplateCompiler.class);
+                String report = templateRequest.getReport();
+                if (StringUtils.isEmpty(report) && StringUtils.isNotEmpty(templateRequest.getJrxml())) {
+                    report = templateCompiler.compile(templateRequest.getJrxml());
+                }
+
+                String templateId = appContext.getBean(TemplateRegistry.class).register(
+                        report,
+                        templateCompiler.compileResources(templateRequest.getReportResources())
+                );
+
+                response.setTemplateId(templateId);
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Check if a template is registered
+     * @param id The template id
+     * @return The response, http status code 404 if not registered
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/templates/{id}", method = RequestMethod.GET)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<TemplateResponse>> getTemplate(@PathVariable("id") String id) {
+
+        logger.debug("Get template '{}'", id);
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            TemplateResponse response = appContext.getBean(TemplateResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                if (!appContext.getBean(TemplateRegistry.class).exists(id)) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage(String.format("Template with id '%s' not found", id));
+                    response.setDuration(startInstant, System.nanoTime());
+                    return ResponseEntity.status(404).body(response);
+                }
+
+                response.setTemplateId(id);
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+
+    /**
+     * Remove a registered template
+     * @param id The template id
+     * @return The response, http status code 404 if not registered
+     * @since 1.1.0
+     */
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/templates/{id}", method = RequestMethod.DELETE)
+    @ResponseBody
+    public CompletableFuture<ResponseEntity<TemplateResponse>> removeTemplate(@PathVariable("id") String id) {
+
+        logger.debug("Remove template '{}'", id);
+        long startInstant = System.nanoTime();
+        IAuth auth = appContext.getBean(IAuth.class);
+        auth.catchRemoteIP();
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            TemplateResponse response = appContext.getBean(TemplateResponse.class);
+
+            try {
+
+                if (!auth.isAuthorized()) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage("Client not authorized");
+                    response.setDuration(startInstant, System.nanoTime());
+                    logger.debug("Client not authorized, respond with http status code 400");
+                    return ResponseEntity.status(400).body(response);
+                }
+
+                if (!appContext.getBean(TemplateRegistry.class).remove(id)) {
+                    response.setStatus(ReportResponse.Status.ERROR);
+                    response.setMessage(String.format("Template with id '%s' not found", id));
+                    response.setDuration(startInstant, System.nanoTime());
+                    return ResponseEntity.status(404).body(response);
+                }
+
+                response.setTemplateId(id);
+                response.setStatus(ReportResponse.Status.OK);
+                response.setDuration(startInstant, System.nanoTime());
+                logger.debug("Elapsed time:" + response.getDuration());
+
+                return ResponseEntity.status(200).body(response);
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                response.setStatus(ReportResponse.Status.ERROR);
+                response.setMessage(e.getMessage());
+                response.setDuration(startInstant, System.nanoTime());
+                return ResponseEntity.status(400).body(response);
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control of the report requests in the task executor.
+ * A request is rejected, to be answered with http status 503 and the Retry-After header,
+ * if the estimated wait in the executor queue exceeds the queue time budget, if the executor is full
+ * or if the client ip has the maximum concurrent requests. A request admitted but that waited in the queue
+ * more than the budget is also rejected when it starts, the client has probably given up.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class AdmissionControl {
+
+    /**
+     * The weight of the last task in the moving average of the task service time
+     * @since 1.1.0
+     */
+    static final double SERVICE_WEIGHT = 0.2;
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The task executor
+     * @since 1.1.0
+     */
+    @Autowired
+    private Executor executor;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Enable the admission control, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.admission.enabled}")
+    private boolean enabled;
+
+    /**
+     * The maximum time in milliseconds a request should wait in the executor queue
+     * @since 1.1.0
+     */
+    @Value("${report.admission.queue.budget.ms}")
+    private long queueBudget;
+
+    /**
+     * The maximum concurrent requests of each client ip, zero or less is unlimited
+     * @since 1.1.0
+     */
+    @Value("${report.admission.client.max.concurrent}")
+    private int clientMaxConcurrent;
+
+    /**
+     * The concurrent requests of each client ip
+     * @since 1.1.0
+     */
+    private final ConcurrentHashMap<String, AtomicInteger> clients = new ConcurrentHashMap<>();
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * The moving average of the task service time in nanoseconds
+     * @since 1.1.0
+     */
+    private volatile double serviceNanos = 0;
+
+    /**
+     * The admission control
+     * @since 1.1.0
+     */
+    public AdmissionControl() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Register the executor active, queued and rejected tasks meters
+     * @since 1.1.0
+     */
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("reports.executor.active", this, AdmissionControl::getActive)
+                .description("Tasks running in the executor")
+                .tag("executor", "task")
+                .register(meterRegistry);
+        Gauge.builder("reports.executor.queued", this, AdmissionControl::getQueued)
+                .description("Tasks waiting in the executor queue")
+                .tag("executor", "task")
+                .register(meterRegistry);
+        FunctionCounter.builder("reports.executor.rejected", this, AdmissionControl::getRejected)
+                .description("Requests rejected by the admission control or by the executor")
+                .tag("executor", "task")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admit a request, the returned permit must be started when the task starts
+     * and closed when the task finish
+     *
+     * @param clientIp The client ip, can be null
+     * @return The permit
+     * @throws AdmissionException If the request is not admitted
+     * @since 1.1.0
+     */
+    public Permit acquire(String clientIp) throws AdmissionException {
+        return acquire(clientIp, true);
+    }
+
+    /**
+     * Admit a request, the returned permit must be started when the task starts
+     * and closed when the task finish
+     *
+     * @param clientIp      The client ip, can be null
+     * @param recordService If the permit service time is recorded in the average service time,
+     *                      false for the batches that hold the permit while many tasks run
+     * @return The permit
+     * @throws AdmissionException If the request is not admitted
+     * @since 1.1.0
+     */
+    public Permit acquire(String clientIp, boolean recordService) throws AdmissionException {
+        if (!enabled) {
+            return new Permit(null, recordService);
+        }
+
+        ThreadPoolTaskExecutor taskExecutor = getTaskExecutor();
+        if (taskExecutor != null
+                && taskExecutor.getActiveCount() >= taskExecutor.getMaxPoolSize()
+                && taskExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+            throw reject("The server is full, try again later", estimateQueueWait());
+        }
+
+        long wait = estimateQueueWait();
+        if (wait > TimeUnit.MILLISECONDS.toNanos(queueBudget)) {
+            throw reject(
+                    String.format("The estimated wait of %d ms exceeds the queue budget, try again later",
+                            TimeUnit.NANOSECONDS.toMillis(wait)),
+                    wait
+            );
+        }
+
+        if (clientIp == null || clientMaxConcurrent <= 0) {
+            return new Permit(null, recordService);
+        }
+
+        boolean[] admitted = {false};
+        clients.compute(clientIp, (ip, count) -> {
+            if (count == null) {
+                count = new AtomicInteger();
+            }
+            if (count.get() < clientMaxConcurrent) {
+                count.incrementAndGet();
+                admitted[0] = true;
+            }
+            return count.get() == 0 ? null : count;
+        });
+
+        if (!admitted[0]) {
+            throw reject(
+                    String.format("The client has the maximum of %d concurrent requests, try again later", clientMaxConcurrent),
+                    (long) serviceNanos
+            );
+        }
+
+        return new Permit(clientIp, recordService);
+    }
+
+    /**
+     * Count a request rejected by the executor
+     *
+     * @return The exception to respond
+     * @since 1.1.0
+     */
+    public AdmissionException rejected() {
+        return reject("The server is full, try again later", estimateQueueWait());
+    }
+
+    /**
+     * Count a rejected request
+     *
+     * @param message The message
+     * @param wait    The estimated wait in nanoseconds until the request can be admitted
+     * @return The exception to throw
+     * @since 1.1.0
+     */
+    private AdmissionException reject(String message, long wait) {
+        rejected.incrementAndGet();
+        logger.debug(message);
+        return new AdmissionException(message, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+    }
+
+    /**
+     * Estimate the time a new task will wait in the executor queue, the tasks in the queue
+     * times the average service time divided by the running threads
+     *
+     * @return The estimated wait in nanoseconds
+     * @since 1.1.0
+     */
+    public long estimateQueueWait() {
+        ThreadPoolTaskExecutor taskExecutor = getTaskExecutor();
+        if (taskExecutor == null) {
+            return 0;
+        }
+
+        int queued = taskExecutor.getThreadPoolExecutor().getQueue().size();
+        int active = taskExecutor.getActiveCount();
+        if (queued == 0 && active < taskExecutor.getPoolSize()) {
+            return 0;
+        }
+        return (long) ((queued + 1) * serviceNanos / Math.max(1, active));
+    }
+
+    /**
+     * Record the service time of a task in the moving average
+     *
+     * @param nanos The service time in nanoseconds
+     * @since 1.1.0
+     */
+    synchronized void recordService(long nanos) {
+        serviceNanos = serviceNanos == 0 ? nanos : serviceNanos + SERVICE_WEIGHT * (nanos - serviceNanos);
+    }
+
+    /**
+     * @return The task executor or null if the executor is not a thread pool
+     * @since 1.1.0
+     */
+    private ThreadPoolTaskExecutor getTaskExecutor() {
+        return executor instanceof ThreadPoolTaskExecutor ? (ThreadPoolTaskExecutor) executor : null;
+    }
+
+    /**
+     * Number of tasks running in the executor
+     *
+     * @return The active tasks
+     * @since 1.1.0
+     */
+    public int getActive() {
+        ThreadPoolTaskExecutor taskExecutor = getTaskExecutor();
+        return taskExecutor == null ? 0 : taskExecutor.getActiveCount();
+    }
+
+    /**
+     * Number of tasks waiting in the executor queue
+     *
+     * @return The queued tasks
+     * @since 1.1.0
+     */
+    public int getQueued() {
+        ThreadPoolTaskExecutor taskExecutor = getTaskExecutor();
+        return taskExecutor == null ? 0 : taskExecutor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    /**
+     * Maximum number of threads of the executor
+     *
+     * @return The maximum pool size
+     * @since 1.1.0
+     */
+    public int getMaxPoolSize() {
+        ThreadPoolTaskExecutor taskExecutor = getTaskExecutor();
+        return taskExecutor == null ? 0 : taskExecutor.getMaxPoolSize();
+    }
+
+    /**
+     * Capacity of the executor queue
+     *
+     * @return The queue capacity
+     * @since 1.1.0
+     */
+    public int getQueueCapacity() {
+        ThreadPoolTaskExecutor taskExecutor = getTaskExecutor();
+        if (taskExecutor == null) {
+            return 0;
+        }
+        BlockingQueue<Runnable> queue = taskExecutor.getThreadPoolExecutor().getQueue();
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    /**
+     * Number of rejected requests
+     *
+     * @return The rejected requests
+     * @since 1.1.0
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Number of concurrent requests of a client ip
+     *
+     * @param clientIp The client ip
+     * @return The concurrent requests
+     * @since 1.1.0
+     */
+    public int getClientConcurrent(String clientIp) {
+        AtomicInteger count = clients.get(clientIp);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * The average service time of the tasks
+     *
+     * @return The service time in nanoseconds
+     * @since 1.1.0
+     */
+    public long getServiceNanos() {
+        return (long) serviceNanos;
+    }
+
+    /**
+     * The admission of one request
+     * @since 1.1.0
+     */
+    public class Permit implements AutoCloseable {
+
+        /**
+         * The client ip, null if the client concurrency is not limited
+         * @since 1.1.0
+         */
+        private final String clientIp;
+
+        /**
+         * If the service time is recorded when the permit is closed
+         * @since 1.1.0
+         */
+        private final boolean recordService;
+
+        /**
+         * @since 1.1.0
+         */
+        private final long acquired = System.nanoTime();
+
+        /**
+         * @since 1.1.0
+         */
+        private long started = 0;
+
+        /**
+         * @since 1.1.0
+         */
+        private boolean closed = false;
+
+        /**
+         * @param clientIp      The client ip, null if the client concurrency is not limited
+         * @param recordService If the service time is recorded when the permit is closed
+         * @since 1.1.0
+         */
+        private Permit(String clientIp, boolean recordService) {
+            this.clientIp = clientIp;
+            this.recordService = recordService;
+        }
+
+        /**
+         * Start the task, the permit is closed if the task waited in the queue more than the queue budget
+         *
+         * @throws AdmissionException If the task waited in the queue more than the queue budget
+         * @since 1.1.0
+         */
+        public synchronized void start() throws AdmissionException {
+            long now = System.nanoTime();
+            if (enabled && now - acquired > TimeUnit.MILLISECONDS.toNanos(queueBudget)) {
+                close();
+                throw reject("The request waited in the queue more than the queue budget, try again later", estimateQueueWait());
+            }
+            started = now;
+        }
+
+        /**
+         * Release the permit and record the task service time if recorded, can be called more than once
+         * @since 1.1.0
+         */
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (started > 0 && recordService) {
+                recordService(System.nanoTime() - started);
+            }
+
+            if (clientIp != null) {
+                clients.computeIfPresent(clientIp, (ip, count) -> count.decrementAndGet() <= 0 ? null : count);
+            }
+        }
+    }
+}
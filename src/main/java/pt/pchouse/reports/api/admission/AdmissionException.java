@@ -0,0 +1,53 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.admission;
+
+/**
+ * The request was not admitted, the client should retry after the retry after seconds
+ *
+ * @since 1.1.0
+ */
+public class AdmissionException extends Exception {
+
+    /**
+     * The seconds the client should wait before retry
+     * @since 1.1.0
+     */
+    private final long retryAfter;
+
+    /**
+     *
+     * @param message    The message
+     * @param retryAfter The seconds the client should wait before retry
+     * @since 1.1.0
+     */
+    public AdmissionException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Get the seconds the client should wait before retry
+     *
+     * @return The seconds
+     * @since 1.1.0
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -93,6 +93,7 @@ public class Auth implements IAuth {
      * @return The client remote IP
      * @since 1.0.0
      */
+    @Override
     public String getRemoteIp() {
         return remoteIp;
     }
@@ -43,4 +43,12 @@ public interface IAuth {
      * @since 1.0.0
      */
     void catchRemoteIP();
+
+    /**
+     * Get the client ip address
+     *
+     * @return The client remote IP
+     * @since 1.1.0
+     */
+    String getRemoteIp();
 }
@@ -0,0 +1,279 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.coalesce;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.deadline.DeadlineException;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.util.Digest;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single flight of identical concurrent report requests, the duplicates of a request
+ * in generation wait and share its result instead of generating the report again.
+ * The requests are identified by the hash of their canonical json. The print requests
+ * are only coalesced if they opt in, because the print has physical side effects.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class RequestCoalescer {
+
+    /**
+     * The stage of the wait for the in flight generation
+     * @since 1.1.0
+     */
+    public static final String STAGE_COALESCE = "coalesce";
+
+    /**
+     * The mapper of the canonical json of the request, properties and map entries sorted
+     * @since 1.1.0
+     */
+    private static final ObjectMapper KEY_MAPPER = new ObjectMapper()
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+            .addMixIn(ReportRequest.class, KeyMixIn.class);
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Enable the coalescing of identical requests, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.coalesce.enabled}")
+    private boolean enabled;
+
+    /**
+     * The in flight generations by request key
+     * @since 1.1.0
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Number of requests that shared the result of an in flight generation
+     * @since 1.1.0
+     */
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * The request coalescer
+     * @since 1.1.0
+     */
+    public RequestCoalescer() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Register the in flight and coalesced requests meters
+     * @since 1.1.0
+     */
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("reports.coalesce.inflight", this, RequestCoalescer::getInFlight)
+                .description("Report generations that can be shared by identical requests")
+                .register(meterRegistry);
+        FunctionCounter.builder("reports.coalesce.shared", this, RequestCoalescer::getCoalesced)
+                .description("Requests that shared the result of an identical in flight request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * If the request can share the generation with identical requests,
+     * the print requests only if they opt in
+     *
+     * @param request The request
+     * @return true if coalesced
+     * @since 1.1.0
+     */
+    public boolean isCoalesced(ReportRequest request) {
+        if (!enabled) {
+            return false;
+        }
+        if (request.getCoalesce() != null) {
+            return request.getCoalesce();
+        }
+        return request.getReportType() != ReportRequest.ReportType.PRINT
+                && (request.getReportTypes() == null || !request.getReportTypes().contains(ReportRequest.ReportType.PRINT));
+    }
+
+    /**
+     * Get the key of the request, the SHA-256 of the request canonical json
+     * without the properties that do not change the generated report
+     *
+     * @param request The request
+     * @return The key
+     * @throws IOException If fail to serialize the request
+     * @since 1.1.0
+     */
+    public static String key(ReportRequest request) throws IOException {
+        MessageDigest digest = Digest.newMessageDigest();
+        KEY_MAPPER.writeValue(new OutputStream() {
+            @Override
+            public void write(int b) {
+                digest.update((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                digest.update(b, off, len);
+            }
+        }, request);
+        return Digest.toHex(digest.digest());
+    }
+
+    /**
+     * Generate the report or, if an identical request is in generation, wait for it and return its result.
+     * If the shared generation was stopped by the deadline of the other request,
+     * the report is generated again within this request deadline.
+     *
+     * @param request  The request
+     * @param deadline The deadline of this request, can be null
+     * @param work     The generation
+     * @param <T>      The result type
+     * @return The generation result
+     * @throws Exception If the generation fails or the deadline is exceeded while waiting
+     * @since 1.1.0
+     */
+    public <T> T execute(ReportRequest request, Deadline deadline, Callable<T> work) throws Exception {
+        return execute(request, null, deadline, work);
+    }
+
+    /**
+     * Generate the report or, if an identical request is in generation, wait for it and return its result,
+     * with the request key if already computed
+     *
+     * @param request  The request
+     * @param key      The request key, if null it is computed
+     * @param deadline The deadline of this request, can be null
+     * @param work     The generation
+     * @param <T>      The result type
+     * @return The generation result
+     * @throws Exception If the generation fails or the deadline is exceeded while waiting
+     * @since 1.1.0
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(ReportRequest request, String key, Deadline deadline, Callable<T> work) throws Exception {
+        if (!isCoalesced(request)) {
+            return work.call();
+        }
+
+        if (key == null) {
+            key = key(request);
+        }
+        while (true) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+
+            if (existing == null) {
+                try {
+                    T result = work.call();
+                    created.complete(result);
+                    return result;
+                } catch (Exception e) {
+                    created.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, created);
+                }
+            }
+
+            logger.debug("Identical request in flight, wait for the result of key '{}'", key);
+            coalesced.incrementAndGet();
+            try {
+                return (T) existing.get(
+                        deadline == null ? Long.MAX_VALUE : deadline.remainingNanos(), TimeUnit.NANOSECONDS
+                );
+            } catch (TimeoutException e) {
+                throw deadline.exception(STAGE_COALESCE);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof DeadlineException) {
+                    if (deadline != null) {
+                        deadline.check(STAGE_COALESCE);
+                    }
+                    logger.debug("The shared generation exceeded the other request deadline, generate again");
+                    continue;
+                }
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+    }
+
+    /**
+     * Number of generations in flight
+     *
+     * @return The in flight generations
+     * @since 1.1.0
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Number of requests that shared the result of an in flight generation
+     *
+     * @return The coalesced requests
+     * @since 1.1.0
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * The request properties that do not change the generated report, ignored in the key
+     * @since 1.1.0
+     */
+    @JsonIgnoreProperties({"timeout", "coalesce", "cache"})
+    private abstract static class KeyMixIn {
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.datasource;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRAbstractTextDataSource;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Json datasource that reads the records one by one with the jackson streaming parser.
+ * If the document root is an array each element is a record, otherwise the root is the only record.
+ * Only the current record is kept in memory, the fields are resolved by the json field expression
+ * property, the field description or the field name, as a dot separated path (ex: address.street, lines[0].code).
+ *
+ * @since 1.1.0
+ */
+public class JsonStreamDataSource extends JRAbstractTextDataSource implements Closeable {
+
+    /**
+     * The field property with the path expression, the same used by the JasperReports json datasource
+     * @since 1.1.0
+     */
+    public static final String PROPERTY_FIELD_EXPRESSION = "net.sf.jasperreports.json.field.expression";
+
+    /**
+     * @since 1.1.0
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * @since 1.1.0
+     */
+    private final JsonParser parser;
+
+    /**
+     * If the first token was read
+     * @since 1.1.0
+     */
+    private boolean started = false;
+
+    /**
+     * If the document root is an array
+     * @since 1.1.0
+     */
+    private boolean array = false;
+
+    /**
+     * The current record
+     * @since 1.1.0
+     */
+    private JsonNode current;
+
+    /**
+     * @param inputStream The json stream
+     * @throws JRException If fail to create the parser
+     * @since 1.1.0
+     */
+    public JsonStreamDataSource(InputStream inputStream) throws JRException {
+        try {
+            parser = MAPPER.getFactory().createParser(inputStream);
+        } catch (IOException e) {
+            throw new JRException(e);
+        }
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        try {
+            if (!started) {
+                started = true;
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    return false;
+                }
+                if (token != JsonToken.START_ARRAY) {
+                    current = MAPPER.readTree(parser);
+                    return current != null;
+                }
+                array = true;
+            }
+
+            if (!array) {
+                current = null;
+                return false;
+            }
+
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                current = null;
+                return false;
+            }
+            current = MAPPER.readTree(parser);
+            return true;
+        } catch (IOException e) {
+            throw new JRException(e);
+        }
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        if (current == null) {
+            return null;
+        }
+
+        JsonNode node = select(current, expression(field));
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+
+        Class<?> valueClass = field.getValueClass();
+
+        if (Object.class.equals(valueClass)) {
+            return node.isValueNode() ? node.asText() : node;
+        }
+
+        if (String.class.equals(valueClass)) {
+            return node.isValueNode() ? node.asText() : node.toString();
+        }
+
+        if (Boolean.class.equals(valueClass) && node.isBoolean()) {
+            return node.booleanValue();
+        }
+
+        if (Number.class.isAssignableFrom(valueClass) && node.isNumber()) {
+            return convertNumber(node.numberValue(), valueClass);
+        }
+
+        return convertStringValue(node.asText(), valueClass);
+    }
+
+    /**
+     * Get the path expression of the field
+     *
+     * @param field The field
+     * @return The expression
+     * @since 1.1.0
+     */
+    static String expression(JRField field) {
+        if (field.hasProperties()) {
+            String expression = field.getPropertiesMap().getProperty(PROPERTY_FIELD_EXPRESSION);
+            if (StringUtils.isNotBlank(expression)) {
+                return expression.trim();
+            }
+        }
+        if (StringUtils.isNotBlank(field.getDescription())) {
+            return field.getDescription().trim();
+        }
+        return field.getName();
+    }
+
+    /**
+     * Select the node of the dot separated path, the path segments can have an array index (ex: lines[0])
+     *
+     * @param node The record
+     * @param path The path
+     * @return The selected node or null if not exists
+     * @since 1.1.0
+     */
+    static JsonNode select(JsonNode node, String path) {
+        JsonNode selected = node;
+        for (String segment : StringUtils.split(path, '.')) {
+            int bracket = segment.indexOf('[');
+            String name = bracket < 0 ? segment : segment.substring(0, bracket);
+
+            if (!name.isEmpty()) {
+                selected = selected.get(name);
+            }
+
+            while (selected != null && bracket >= 0) {
+                int close = segment.indexOf(']', bracket);
+                if (close < 0) {
+                    return null;
+                }
+                try {
+                    selected = selected.get(Integer.parseInt(segment.substring(bracket + 1, close).trim()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                bracket = segment.indexOf('[', close);
+            }
+
+            if (selected == null) {
+                return null;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.datasource;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRAbstractTextDataSource;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Xml datasource that reads the records one by one with a StAX reader.
+ * Each child element of the document root is a record, only the current record is kept in memory.
+ * The fields are resolved by the field description or the field name as a path relative to the record
+ * element (ex: name, address/city, @id, address/@zip), if a path has many elements the first is used.
+ *
+ * @since 1.1.0
+ */
+public class XmlStreamDataSource extends JRAbstractTextDataSource implements Closeable {
+
+    /**
+     * @since 1.1.0
+     */
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    /**
+     * @since 1.1.0
+     */
+    private final XMLStreamReader reader;
+
+    /**
+     * If the document root element was read
+     * @since 1.1.0
+     */
+    private boolean started = false;
+
+    /**
+     * The values of the current record keyed by the path
+     * @since 1.1.0
+     */
+    private Map<String, String> current;
+
+    /**
+     * @param inputStream The xml stream
+     * @throws JRException If fail to create the reader
+     * @since 1.1.0
+     */
+    public XmlStreamDataSource(InputStream inputStream) throws JRException {
+        try {
+            reader = FACTORY.createXMLStreamReader(inputStream);
+        } catch (XMLStreamException e) {
+            throw new JRException(e);
+        }
+    }
+
+    /**
+     * Create the StAX factory, the DTDs and the external entities are not supported
+     *
+     * @return The factory
+     * @since 1.1.0
+     */
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        try {
+            if (!started) {
+                started = true;
+                if (!nextStartElement()) {
+                    current = null;
+                    return false;
+                }
+            }
+
+            // The next child of the root, the end of the root ends the records
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    current = new HashMap<>();
+                    readElement("");
+                    return true;
+                }
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    break;
+                }
+            }
+            current = null;
+            return false;
+        } catch (XMLStreamException e) {
+            throw new JRException(e);
+        }
+    }
+
+    /**
+     * Move the reader to the next start element
+     *
+     * @return false if the document has no more elements
+     * @throws XMLStreamException If fail
+     * @since 1.1.0
+     */
+    private boolean nextStartElement() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the element where the reader is positioned until the element end,
+     * the text and the attributes are put in the current record with the path prefix
+     *
+     * @param path The path of the element relative to the record, empty for the record element
+     * @throws XMLStreamException If fail
+     * @since 1.1.0
+     */
+    private void readElement(String path) throws XMLStreamException {
+        String prefix = path.isEmpty() ? "" : path + "/";
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            current.putIfAbsent(prefix + "@" + reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+
+        StringBuilder text = new StringBuilder();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    readElement(prefix + reader.getLocalName());
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    text.append(reader.getText());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    current.putIfAbsent(path.isEmpty() ? "." : path, text.toString().trim());
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        if (current == null) {
+            return null;
+        }
+
+        String text = current.get(path(field));
+        if (text == null) {
+            return null;
+        }
+
+        if (Object.class.equals(field.getValueClass()) || String.class.equals(field.getValueClass())) {
+            return text;
+        }
+
+        if (text.isEmpty()) {
+            return null;
+        }
+
+        return convertStringValue(text, field.getValueClass());
+    }
+
+    /**
+     * Get the path of the field relative to the record element
+     *
+     * @param field The field
+     * @return The path
+     * @since 1.1.0
+     */
+    static String path(JRField field) {
+        String path = StringUtils.isNotBlank(field.getDescription())
+                ? field.getDescription().trim()
+                : field.getName();
+
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+
+        if (path.isEmpty() || path.equals("text()")) {
+            return ".";
+        }
+
+        return StringUtils.removeEnd(path, "/text()");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
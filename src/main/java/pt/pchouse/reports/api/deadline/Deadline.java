@@ -0,0 +1,188 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.deadline;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline of a report request, counted from the request arrival.
+ * The deadline is also cancelled if the client disconnects, the cancel listeners
+ * stop the work in progress (the report fill).
+ *
+ * @since 1.1.0
+ */
+public class Deadline {
+
+    /**
+     * The request attribute where the deadline is stored
+     * @since 1.1.0
+     */
+    public static final String ATTRIBUTE = Deadline.class.getName();
+
+    /**
+     * The stage of the wait in the executor queue
+     * @since 1.1.0
+     */
+    public static final String STAGE_QUEUE = "queue";
+
+    /**
+     * The timeout in milliseconds, zero or less is no time limit
+     * @since 1.1.0
+     */
+    private final long timeout;
+
+    /**
+     * The instant of the deadline in nanoseconds
+     * @since 1.1.0
+     */
+    private final long deadlineNanos;
+
+    /**
+     * @since 1.1.0
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Invoked when the deadline is cancelled
+     * @since 1.1.0
+     */
+    private final List<Runnable> cancelListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param timeout      The timeout in milliseconds, zero or less is no time limit
+     * @param startInstant The request arrival instant from {@link System#nanoTime()}
+     * @since 1.1.0
+     */
+    public Deadline(long timeout, long startInstant) {
+        this.timeout = timeout;
+        this.deadlineNanos = startInstant + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeout));
+    }
+
+    /**
+     * Get the timeout in milliseconds
+     *
+     * @return The timeout, zero or less is no time limit
+     * @since 1.1.0
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * The nanoseconds until the deadline
+     *
+     * @return The remaining nanoseconds, {@link Long#MAX_VALUE} if no time limit
+     * @since 1.1.0
+     */
+    public long remainingNanos() {
+        if (timeout <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * If the deadline has passed
+     *
+     * @return true if expired
+     * @since 1.1.0
+     */
+    public boolean isExpired() {
+        return timeout > 0 && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * If the deadline was cancelled, the client disconnected
+     *
+     * @return true if cancelled
+     * @since 1.1.0
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancel the deadline and invoke the cancel listeners
+     * @since 1.1.0
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        cancelListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Add a listener invoked when the deadline is cancelled, invoked immediately if already cancelled
+     *
+     * @param listener The listener
+     * @since 1.1.0
+     */
+    public void addCancelListener(Runnable listener) {
+        cancelListeners.add(listener);
+        if (cancelled) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Remove a cancel listener
+     *
+     * @param listener The listener
+     * @since 1.1.0
+     */
+    public void removeCancelListener(Runnable listener) {
+        cancelListeners.remove(listener);
+    }
+
+    /**
+     * Check the deadline before starting a generation stage
+     *
+     * @param stage The stage
+     * @throws DeadlineException If the deadline passed or was cancelled
+     * @since 1.1.0
+     */
+    public void check(String stage) throws DeadlineException {
+        if (cancelled || isExpired()) {
+            throw exception(stage);
+        }
+    }
+
+    /**
+     * Create the exception of the deadline exceeded or cancelled in a stage
+     *
+     * @param stage The stage
+     * @return The exception
+     * @since 1.1.0
+     */
+    public DeadlineException exception(String stage) {
+        if (cancelled) {
+            return new DeadlineException(
+                    String.format("The client disconnected, the report was cancelled in the stage '%s'", stage),
+                    stage
+            );
+        }
+        return new DeadlineException(
+                String.format("The request deadline of %s ms was exceeded in the stage '%s'", timeout, stage),
+                stage
+        );
+    }
+}
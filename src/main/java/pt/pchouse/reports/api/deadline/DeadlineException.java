@@ -0,0 +1,53 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.deadline;
+
+/**
+ * The request deadline was exceeded or the client disconnected before the report was generated
+ *
+ * @since 1.1.0
+ */
+public class DeadlineException extends Exception {
+
+    /**
+     * The generation stage where the deadline was detected
+     * @since 1.1.0
+     */
+    private final String stage;
+
+    /**
+     *
+     * @param message The message
+     * @param stage   The generation stage where the deadline was detected
+     * @since 1.1.0
+     */
+    public DeadlineException(String message, String stage) {
+        super(message);
+        this.stage = stage;
+    }
+
+    /**
+     * Get the generation stage where the deadline was detected
+     *
+     * @return The stage
+     * @since 1.1.0
+     */
+    public String getStage() {
+        return stage;
+    }
+}
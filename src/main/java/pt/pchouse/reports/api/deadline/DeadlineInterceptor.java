@@ -0,0 +1,97 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.deadline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Cancel the deadline of the asynchronous report requests when the servlet container
+ * reports an error (the client disconnected) or a timeout of the async request
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class DeadlineInterceptor implements DeferredResultProcessingInterceptor, WebMvcConfigurer {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The deadline interceptor
+     * @since 1.1.0
+     */
+    public DeadlineInterceptor() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Register the interceptor of the asynchronous requests
+     *
+     * @param configurer The configurer
+     * @since 1.1.0
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerDeferredResultInterceptors(this);
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    @Override
+    public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        cancel(request);
+        return true;
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    @Override
+    public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> deferredResult, Throwable t) {
+        cancel(request);
+        return true;
+    }
+
+    /**
+     * Cancel the deadline of the request, if any
+     *
+     * @param request The request
+     * @since 1.1.0
+     */
+    void cancel(NativeWebRequest request) {
+        Object deadline = request.getAttribute(Deadline.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (deadline instanceof Deadline && !((Deadline) deadline).isCancelled()) {
+            logger.debug("Async request error or timeout, cancel the report generation");
+            ((Deadline) deadline).cancel();
+        }
+    }
+}
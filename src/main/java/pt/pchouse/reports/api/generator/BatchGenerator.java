@@ -0,0 +1,453 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.generator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.request.BatchItem;
+import pt.pchouse.reports.api.request.BatchRequest;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.response.AResponse;
+import pt.pchouse.reports.api.template.TemplateCompiler;
+import pt.pchouse.reports.api.template.TemplateRegistry;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generate the reports of a batch request in parallel in the task executor.
+ * The template is registered once and all items reference it by the template id,
+ * the results are written as each report finishes and a failed item does not abort the batch.
+ *
+ * @since 1.1.0
+ */
+@Service
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class BatchGenerator {
+
+    /**
+     * The valid client id to be used as result name
+     * @since 1.1.0
+     */
+    private static final Pattern ID_PATTERN = Pattern.compile("^[A-Za-z0-9._-]{1,100}$");
+
+    /**
+     * @since 1.1.0
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private Executor executor;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private TemplateRegistry templateRegistry;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private TemplateCompiler templateCompiler;
+
+    /**
+     * Maximum number of reports generated at the same time
+     * @since 1.1.0
+     */
+    @Value("${report.batch.parallelism}")
+    private int parallelism;
+
+    /**
+     * Maximum number of items of a batch
+     * @since 1.1.0
+     */
+    @Value("${report.batch.max.items}")
+    private int maxItems;
+
+    /**
+     * @since 1.1.0
+     */
+    private final BatchRequest batchRequest;
+
+    /**
+     * The id of the template registered by the batch, null if the batch used a registered template
+     * @since 1.1.0
+     */
+    private String temporaryTemplateId;
+
+    /**
+     * @param batchRequest The batch request
+     * @since 1.1.0
+     */
+    public BatchGenerator(BatchRequest batchRequest) {
+        logger.debug("New instance of " + this.getClass().getName());
+        this.batchRequest = batchRequest;
+    }
+
+    /**
+     * Validate the batch and register the template, must be invoked before write the results
+     * and the batch must be released after
+     *
+     * @throws Exception If the batch is not valid or fail to register the template
+     * @since 1.1.0
+     */
+    public void prepare() throws Exception {
+        ReportRequest request = batchRequest.getRequest();
+
+        if (request == null || batchRequest.getItems() == null || batchRequest.getItems().isEmpty()) {
+            throw new ParseException("The batch request must have the request and the items");
+        }
+
+        if (batchRequest.getItems().size() > maxItems) {
+            throw new ParseException(
+                    String.format("The batch has %s items, the maximum is %s", batchRequest.getItems().size(), maxItems)
+            );
+        }
+
+        if (request.getReportType() == null || request.getReportType().getExtension() == null) {
+            throw new ParseException("The batch report type must be an exported document type, print is not supported");
+        }
+
+        if (StringUtils.isEmpty(request.getTemplateId())) {
+            templateCompiler.compileRequest(request);
+            if (StringUtils.isEmpty(request.getReport())) {
+                throw new ParseException("The batch request must have the report, the jrxml or the template id");
+            }
+            temporaryTemplateId = templateRegistry.registerTemporary(request.getReport(), request.getReportResources());
+            request.setTemplateId(temporaryTemplateId);
+            logger.debug("Batch template registered with id '{}'", request.getTemplateId());
+        }
+        request.setReport(null);
+        request.setReportResources(null);
+    }
+
+    /**
+     * Release the template registered by the batch, removed if not used by other batch
+     * @since 1.1.0
+     */
+    public void release() {
+        if (temporaryTemplateId != null) {
+            templateRegistry.releaseTemporary(temporaryTemplateId);
+            temporaryTemplateId = null;
+        }
+    }
+
+    /**
+     * Generate the reports and write them as zip entries as each one finishes,
+     * a failed item is written as a text entry with the error message
+     *
+     * @param outputStream The output stream
+     * @throws Exception If fail to write
+     * @since 1.1.0
+     */
+    public void writeZip(OutputStream outputStream) throws Exception {
+        String extension = batchRequest.getRequest().getReportType().getExtension();
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        Set<String> names = new HashSet<>();
+
+        generate(result -> {
+            if (result.output == null) {
+                zip.putNextEntry(new ZipEntry(uniqueName(result.name + ".error.txt", result.index, names)));
+                zip.write(result.message.getBytes(StandardCharsets.UTF_8));
+            } else {
+                zip.putNextEntry(new ZipEntry(uniqueName(result.name + "." + extension, result.index, names)));
+                result.output.writeTo(zip);
+            }
+            zip.closeEntry();
+            zip.flush();
+        });
+
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * Get a zip entry name not used yet, a used name is prefixed with the item index
+     *
+     * @param name  The entry name
+     * @param index The item index
+     * @param names The used names, the returned name is added
+     * @return The unique name
+     * @since 1.1.0
+     */
+    static String uniqueName(String name, int index, Set<String> names) {
+        String unique = name;
+        while (!names.add(unique)) {
+            unique = index + "_" + unique;
+        }
+        return unique;
+    }
+
+    /**
+     * Generate the reports and write them as json lines as each one finishes,
+     * each line has the index, the id, the status, the message, the duration and the base64 encoded report
+     *
+     * @param outputStream The output stream
+     * @throws Exception If fail to write
+     * @since 1.1.0
+     */
+    public void writeNdjson(OutputStream outputStream) throws Exception {
+        generate(result -> {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("index", result.index);
+            line.put("id", result.id);
+            line.put("status", result.output == null ? AResponse.Status.ERROR : AResponse.Status.OK);
+            line.put("message", result.message);
+            line.put("duration", result.duration);
+            String json = MAPPER.writeValueAsString(line);
+
+            if (result.output == null) {
+                outputStream.write(json.getBytes(StandardCharsets.UTF_8));
+            } else {
+                // The report is encoded while written, without the whole base64 string in memory
+                outputStream.write(json.substring(0, json.length() - 1).getBytes(StandardCharsets.UTF_8));
+                outputStream.write(",\"report\":\"".getBytes(StandardCharsets.US_ASCII));
+                try (OutputStream base64 = Base64.getEncoder().wrap(new FilterOutputStream(outputStream) {
+                    @Override
+                    public void write(byte[] bytes, int off, int len) throws IOException {
+                        out.write(bytes, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                })) {
+                    result.output.writeTo(base64);
+                }
+                outputStream.write("\"}".getBytes(StandardCharsets.US_ASCII));
+            }
+            outputStream.write('\n');
+            outputStream.flush();
+        });
+    }
+
+    /**
+     * Generate the items in the task executor, at most the parallelism at the same time,
+     * and pass each result to the consumer in the finish order. If the consumer fails,
+     * no more items are submitted and the results in progress are released.
+     *
+     * @param consumer The results consumer
+     * @throws Exception If the consumer fails
+     * @since 1.1.0
+     */
+    private void generate(ResultConsumer consumer) throws Exception {
+        int size = batchRequest.getItems().size();
+        int window = Math.max(1, parallelism);
+        CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+        int next = 0;
+        int inFlight = 0;
+
+        try {
+            while (next < size || inFlight > 0) {
+                while (inFlight < window && next < size) {
+                    int index = next;
+                    try {
+                        completionService.submit(() -> generateItem(index));
+                    } catch (RejectedExecutionException e) {
+                        if (inFlight > 0) {
+                            // Wait for a running item before submit more
+                            break;
+                        }
+                        logger.debug("Task executor is full, batch item {} generated in the caller thread", index);
+                        Result result = generateItem(index);
+                        next++;
+                        try {
+                            consumer.accept(result);
+                        } finally {
+                            result.release();
+                        }
+                        continue;
+                    }
+                    next++;
+                    inFlight++;
+                }
+
+                if (inFlight == 0) {
+                    continue;
+                }
+
+                Result result = completionService.take().get();
+                inFlight--;
+                try {
+                    consumer.accept(result);
+                } finally {
+                    result.release();
+                }
+            }
+        } finally {
+            while (inFlight > 0) {
+                try {
+                    completionService.take().get().release();
+                } catch (Exception e) {
+                    logger.debug("Fail to release batch item: {}", e.getMessage());
+                }
+                inFlight--;
+            }
+        }
+    }
+
+    /**
+     * Generate the report of an item, never throws, the error is returned in the result
+     *
+     * @param index The item index
+     * @return The result
+     * @since 1.1.0
+     */
+    private Result generateItem(int index) {
+        long startInstant = System.nanoTime();
+        BatchItem item = batchRequest.getItems().get(index);
+        Result result = new Result(index, item == null ? null : item.getId());
+
+        try {
+            if (item == null) {
+                throw new ParseException("The batch item is null");
+            }
+            result.generator = applicationContext.getBean(IGenerator.class, batchRequest.itemRequest(index));
+            result.output = result.generator.generateOutput();
+        } catch (Exception e) {
+            logger.error("Batch item {} failed: {}", index, e.getMessage());
+            result.release();
+            result.message = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - startInstant);
+        result.duration = String.format("%ds.%s", duration.getSeconds(), duration.getNano());
+        return result;
+    }
+
+    /**
+     * The consumer of the generated items
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    private interface ResultConsumer {
+
+        /**
+         * @param result The generated item
+         * @throws Exception If fail
+         * @since 1.1.0
+         */
+        void accept(Result result) throws Exception;
+    }
+
+    /**
+     * The result of a generated item
+     * @since 1.1.0
+     */
+    private static class Result {
+
+        /**
+         * @since 1.1.0
+         */
+        private final int index;
+
+        /**
+         * @since 1.1.0
+         */
+        private final String id;
+
+        /**
+         * The result name, the client id if valid otherwise the index
+         * @since 1.1.0
+         */
+        private final String name;
+
+        /**
+         * @since 1.1.0
+         */
+        private IGenerator generator;
+
+        /**
+         * The generated report, null if failed
+         * @since 1.1.0
+         */
+        private ReportOutput output;
+
+        /**
+         * The error message
+         * @since 1.1.0
+         */
+        private String message = "";
+
+        /**
+         * @since 1.1.0
+         */
+        private String duration;
+
+        /**
+         * @param index The item index
+         * @param id    The client id
+         * @since 1.1.0
+         */
+        private Result(int index, String id) {
+            this.index = index;
+            this.id = id;
+            this.name = id != null && ID_PATTERN.matcher(id).matches() ? id : String.valueOf(index);
+        }
+
+        /**
+         * Release the generated report and the generator resources
+         * @since 1.1.0
+         */
+        private void release() {
+            if (generator != null) {
+                generator.clean();
+                generator = null;
+            }
+            output = null;
+        }
+    }
+}
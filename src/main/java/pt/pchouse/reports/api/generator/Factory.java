@@ -23,9 +23,7 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
-import rebelo.reports.core.NullNotAllowedException;
 import rebelo.reports.core.RRProperties;
-import rebelo.reports.core.Report;
 import rebelo.reports.core.datasource.*;
 import rebelo.reports.core.sign.RRSignPdfProperties;
 
@@ -146,15 +144,4 @@ public class Factory {
         return new Rectangle(upperX, upperY, rotation);
     }
 
-    /**
-     *
-     * @since 1.0.0
-     * @return The instance
-     */
-    @Bean
-    @Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
-    public Report reportFactory(RRProperties properties) throws NullNotAllowedException {
-        return new Report(properties);
-    }
-
 }
@@ -18,7 +18,11 @@
 
 package pt.pchouse.reports.api.generator;
 
-import com.itextpdf.text.Rectangle;
+import io.micrometer.core.instrument.Timer;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.export.Exporter;
 import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
 import org.apache.commons.lang3.StringUtils;
@@ -30,26 +34,48 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.deadline.DeadlineException;
+import pt.pchouse.reports.api.memory.InMemoryRepositoryService;
+import pt.pchouse.reports.api.memory.OutputBufferPool;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.metrics.GeneratorMetrics;
+import pt.pchouse.reports.api.metrics.StageTimer;
+import pt.pchouse.reports.api.printer.EscPosRaster;
+import pt.pchouse.reports.api.printer.PrintJob;
+import pt.pchouse.reports.api.printer.PrintQueue;
 import pt.pchouse.reports.api.printer.Printer;
-import pt.pchouse.reports.api.printer.PrinterConfig;
 import pt.pchouse.reports.api.request.*;
+import pt.pchouse.reports.api.result.ResultCache;
+import pt.pchouse.reports.api.sign.SignException;
+import pt.pchouse.reports.api.sign.SignService;
+import pt.pchouse.reports.api.template.TemplateCache;
+import pt.pchouse.reports.api.template.TemplateCompiler;
+import pt.pchouse.reports.api.template.TemplateException;
+import pt.pchouse.reports.api.template.TemplateRegistry;
+import pt.pchouse.reports.api.virtualizer.ReportVirtualizer;
+import pt.pchouse.reports.api.virtualizer.VirtualizerFactory;
 import rebelo.reports.core.*;
 import rebelo.reports.core.datasource.*;
-import rebelo.reports.core.sign.RRSignPdf;
 import rebelo.reports.core.sign.RRSignPdfProperties;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URL;
 import java.nio.file.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @since 1.0.0
@@ -67,6 +93,28 @@ public class Generator implements IGenerator {
     @Value("${report.tmpdir}")
     private String configTmpDir;
 
+    /**
+     * Generate the report in memory without the tmp dir, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.memory.enabled}")
+    private boolean memoryEnabled;
+
+    /**
+     * Decode the json and xml file datasources while filling, with the streaming datasources,
+     * without writing the datasource file, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.datasource.streaming}")
+    private boolean dataSourceStreaming;
+
+    /**
+     * The maximum in memory output size, bigger outputs spill to a tmp file
+     * @since 1.1.0
+     */
+    @Value("${report.memory.max.output.bytes}")
+    private long memoryMaxOutputBytes;
+
     /**
      * The tmp dir to be used
      * @since 1.0.0
@@ -87,12 +135,144 @@ public class Generator implements IGenerator {
     @Autowired
     private RRProperties properties;
 
+    /**
+     * The loaded compiled templates cache
+     * @since 1.1.0
+     */
+    @Autowired
+    private TemplateCache templateCache;
+
+    /**
+     * The registered templates
+     * @since 1.1.0
+     */
+    @Autowired
+    private TemplateRegistry templateRegistry;
+
+    /**
+     * The server side jrxml compiler
+     * @since 1.1.0
+     */
+    @Autowired
+    private TemplateCompiler templateCompiler;
+
+    /**
+     * The in memory output buffers pool
+     * @since 1.1.0
+     */
+    @Autowired
+    private OutputBufferPool outputBufferPool;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private GeneratorMetrics generatorMetrics;
+
+    /**
+     * The task executor where the other report types are exported
+     * @since 1.1.0
+     */
+    @Autowired
+    private Executor executor;
+
+    /**
+     * The timer of the generation stages, created when the generation starts
+     * @since 1.1.0
+     */
+    private StageTimer stageTimer;
+
     /**
      * The report request
      * @since 1.0.0
      */
     private final ReportRequest reportRequest;
 
+    /**
+     * The loaded template
+     * @since 1.1.0
+     */
+    private JasperReport jasperReport;
+
+    /**
+     * The directory where the template resources are, the tmp dir
+     * or the registered template directory
+     * @since 1.1.0
+     */
+    private Path resourcesDir;
+
+    /**
+     * The in memory resources and datasource files, null if generating in the tmp dir
+     * @since 1.1.0
+     */
+    private InMemoryRepositoryService memoryRepository;
+
+    /**
+     * The base64 encoded file datasource when the streaming datasources are enabled
+     * @since 1.1.0
+     */
+    private String dataSourceBase64;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private VirtualizerFactory virtualizerFactory;
+
+    /**
+     * The request deadline, null if no deadline
+     * @since 1.1.0
+     */
+    private Deadline deadline;
+
+    /**
+     * The generated report output
+     * @since 1.1.0
+     */
+    private ReportOutput output;
+
+    /**
+     * The other requested report types, exported from the same filled report
+     * @since 1.1.0
+     */
+    private final List<ReportRequest.ReportType> otherReportTypes = new ArrayList<>();
+
+    /**
+     * The generated outputs of the other report types
+     * @since 1.1.0
+     */
+    private final Map<ReportRequest.ReportType, ReportOutput> otherOutputs = new LinkedHashMap<>();
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ResultCache resultCache;
+
+    /**
+     * The key of the request in the results cache, null if not cached
+     * @since 1.1.0
+     */
+    private String resultKey;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private PrintQueue printQueue;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private SignService signService;
+
+    /**
+     * The print job of the print report, null if not printed
+     * @since 1.1.0
+     */
+    private PrintJob printJob;
+
     /**
      * Generated the report for the ReportRequest
      *
@@ -165,31 +345,222 @@ public class Generator implements IGenerator {
             Exception {
 
         try {
-            logger.debug("Start the report generator");
+            if (generateOutput() == null) {
+                return null;
+            }
 
-            createTmpDir();
-            parseProperties();
-            invokeReportExporter();
+            checkDeadline(GeneratorMetrics.STAGE_ENCODE);
+            Timer.Sample sample = startStage();
+            String encoded = readAndEncodeGeneratedReport();
+            stopStage(sample, GeneratorMetrics.STAGE_ENCODE);
+            return encoded;
 
-            if (properties.getType().equals(RRProperties.Types.print)) {
-                return null;
+        } finally {
+            clean();
+        }
+    }
+
+    /**
+     * Generate the report of each requested type, the report is filled once
+     *
+     * @return The reports as base64 encoded string by type, the report type first, empty if type is print
+     * @throws Exception If error
+     * @since 1.1.0
+     */
+    @Override
+    public Map<ReportRequest.ReportType, String> generateReports() throws
+            Exception {
+
+        try {
+            Map<ReportRequest.ReportType, String> reports = new LinkedHashMap<>();
+            if (generateOutput() == null) {
+                return reports;
             }
 
-            return readAndEncodeGeneratedReport();
+            checkDeadline(GeneratorMetrics.STAGE_ENCODE);
+            Timer.Sample sample = startStage();
+            for (Map.Entry<ReportRequest.ReportType, ReportOutput> entry : getOutputs().entrySet()) {
+                reports.put(entry.getKey(), Base64.getEncoder().encodeToString(entry.getValue().toByteArray()));
+            }
+            stopStage(sample, GeneratorMetrics.STAGE_ENCODE);
+            return reports;
 
         } finally {
-            CompletableFuture.supplyAsync(() -> {
-                long init = (new Date()).getTime();
-                do {
-                    deleteTmpDir();
-                } while (Files.exists(tmpDir) && ((new Date()).getTime() - init) < 3000);
-                return null;
-            });
+            clean();
+        }
+    }
+
+    /**
+     * Get the generated output of each requested type, available after the report is generated
+     *
+     * @return The outputs by type, the report type first
+     * @since 1.1.0
+     */
+    @Override
+    public Map<ReportRequest.ReportType, ReportOutput> getOutputs() {
+        Map<ReportRequest.ReportType, ReportOutput> outputs = new LinkedHashMap<>();
+        if (output != null) {
+            outputs.put(reportRequest.getReportType(), output);
+        }
+        outputs.putAll(otherOutputs);
+        return outputs;
+    }
+
+    /**
+     * Generate the report, in memory if enabled otherwise to the output file in the tmp dir
+     *
+     * @return The generated report or null if type is print
+     * @throws Exception If error
+     * @since 1.1.0
+     */
+    @Override
+    public ReportOutput generateOutput() throws
+            Exception {
+
+        logger.debug("Start the report generator");
+
+        checkDeadline(GeneratorMetrics.STAGE_GENERATE);
+        parseReportTypes();
+        stageTimer = generatorMetrics.stageTimer(reportRequest);
+        Timer.Sample generateSample = startStage();
+
+        if (resultKey != null && reportRequest.getCache() != ReportRequest.CacheMode.REFRESH) {
+            ResultCache.Entry cached = resultCache.get(resultKey);
+            if (cached != null) {
+                output = cachedOutput(cached);
+                stopStage(generateSample, GeneratorMetrics.STAGE_GENERATE);
+                return output;
+            }
+        }
+
+        if (StringUtils.isEmpty(reportRequest.getTemplateId())) {
+            checkDeadline(GeneratorMetrics.STAGE_TEMPLATE);
+            Timer.Sample compileSample = startStage();
+            templateCompiler.compileRequest(reportRequest);
+            stopStage(compileSample, GeneratorMetrics.STAGE_TEMPLATE);
+        }
+
+        if (isInMemory()) {
+            logger.debug("Generate the report in memory");
+            memoryRepository = new InMemoryRepositoryService(DefaultJasperReportsContext.getInstance());
+        } else {
+            createTmpDir();
+        }
+
+        parseProperties();
+
+        checkDeadline(GeneratorMetrics.STAGE_TEMPLATE);
+        Timer.Sample sample = startStage();
+        loadTemplate();
+        stopStage(sample, GeneratorMetrics.STAGE_TEMPLATE);
+
+        invokeReportExporter();
+
+        if (properties.getType().equals(RRProperties.Types.print)) {
+            stopStage(generateSample, GeneratorMetrics.STAGE_GENERATE);
+            return null;
+        }
+
+        if (output == null) {
+            output = ReportOutput.ofFile(Paths.get(properties.getOutputFile()));
+        }
+
+        if (resultKey != null) {
+            resultCache.put(resultKey, output);
+        }
+
+        stopStage(generateSample, GeneratorMetrics.STAGE_GENERATE);
+        return output;
+    }
+
+    /**
+     * Get the output of a retained cached result, the file of the result is read in place
+     * and the result is released with the output
+     *
+     * @param cached The retained cached result
+     * @return The output
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    private ReportOutput cachedOutput(ResultCache.Entry cached) throws IOException {
+        if (!cached.isInMemory()) {
+            try {
+                return ReportOutput.ofFile(cached.getFile(), cached::release);
+            } catch (IOException e) {
+                cached.release();
+                throw e;
+            }
+        }
+        try {
+            ReportOutput cachedOutput = new ReportOutput(outputBufferPool, Long.MAX_VALUE, null);
+            cachedOutput.write(cached.getContent());
+            return cachedOutput;
+        } finally {
+            cached.release();
+        }
+    }
+
+    /**
+     * Start timing a stage, if the stage timer is set
+     *
+     * @return The sample or null if the stage timer is not set
+     * @since 1.1.0
+     */
+    private Timer.Sample startStage() {
+        return stageTimer == null ? null : stageTimer.start();
+    }
+
+    /**
+     * Stop timing a stage
+     *
+     * @param sample The started sample, can be null
+     * @param stage  The stage
+     * @since 1.1.0
+     */
+    private void stopStage(Timer.Sample sample, String stage) {
+        if (sample != null) {
+            stageTimer.stop(sample, stage);
+        }
+    }
+
+    /**
+     * If the report is generated in memory
+     *
+     * @return true if in memory
+     * @since 1.1.0
+     */
+    private boolean isInMemory() {
+        return memoryEnabled;
+    }
+
+    /**
+     * Release the report output and delete the tmp dir asynchronously
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void clean() {
+        if (output != null) {
+            output.release();
+        }
+
+        otherOutputs.values().forEach(ReportOutput::release);
+
+        if (tmpDir == null) {
+            return;
         }
+
+        CompletableFuture.supplyAsync(() -> {
+            long init = (new Date()).getTime();
+            do {
+                deleteTmpDir();
+            } while (Files.exists(tmpDir) && ((new Date()).getTime() - init) < 3000);
+            return null;
+        });
     }
 
     /**
-     * Invoke the reposts core to create the report file or print the reports
+     * Fill the loaded template and export it to the report file or print the reports
      *
      * @throws NullNotAllowedException If properties report type is null
      * @since 1.0.0
@@ -197,74 +568,350 @@ public class Generator implements IGenerator {
     private void invokeReportExporter() throws
             Exception {
 
-        Report report = applicationContext.getBean(Report.class, properties);
+        ReportFiller filler = applicationContext.getBean(
+                ReportFiller.class, properties, jasperReport, resourcesDir
+        );
+        filler.setMemoryRepository(memoryRepository);
+        filler.setDataSourceBase64(dataSourceBase64);
+        filler.setStageTimer(stageTimer);
+        filler.setDeadline(deadline);
+
+        // The swapped pages are needed until the report is exported to all types
+        try (ReportVirtualizer virtualizer = virtualizerFactory.create(
+                reportRequest.getVirtualizer(), dataSourceBytes(), virtualizerFactory.estimatePages(jasperReport)
+        )) {
+            if (virtualizer != null) {
+                filler.setVirtualizer(virtualizer.getVirtualizer());
+            }
 
-        if (properties.getType().equals(RRProperties.Types.print)) {
-            // Set the printer name
-            PrinterConfig printerConfig = applicationContext.getBean(PrinterConfig.class);
-            RRPrintProperties printProperties = (RRPrintProperties) properties.getTypeProperties();
-            printProperties.setSelectedPrinter(printerConfig.getName());
+            Timer.Sample sample = startStage();
+            JasperPrint jasperPrint = filler.fill();
+            stopStage(sample, GeneratorMetrics.STAGE_FILL);
+            virtualizerFactory.recordPages(jasperReport, jasperPrint.getPages().size());
 
-            // print
-            report.exportReport();
+            if (virtualizer != null) {
+                virtualizer.setReadOnly();
+            }
 
-            int afterPrint = reportRequest.getAfterPrintOperations();
+            checkDeadline(GeneratorMetrics.STAGE_EXPORT);
 
-            if ((afterPrint & ReportRequest.AFTER_PRINT_CUT_PAPER) == ReportRequest.AFTER_PRINT_CUT_PAPER) {
-                applicationContext.getBean(Printer.class).cutPaper();
+            // The other types are exported in the executor while the report type is exported in this thread,
+            // the virtualized pages are not shared between threads
+            List<OtherTypeExport> otherExports = startOtherTypesExport(jasperPrint, virtualizer == null);
+            Exception exportException = null;
+            try {
+                exportReport(jasperPrint);
+            } catch (Exception e) {
+                exportException = e;
             }
 
-            if ((afterPrint & ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER) == ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER) {
-                applicationContext.getBean(Printer.class).cashDrawer();
+            Exception otherException = awaitOtherTypesExport(otherExports);
+            if (exportException != null) {
+                throw exportException;
+            }
+            if (otherException != null) {
+                throw otherException;
             }
 
-            return;
+            // The virtualized pages are deleted when the virtualizer is closed
+            if (printJob != null && virtualizer != null
+                    && !applicationContext.getBean(Printer.class).isRaster(reportRequest.getPrintMode())) {
+                printJob.await();
+            }
         }
+    }
 
-        @SuppressWarnings("rawtypes") Exporter exporter = report.getExporter();
+    /**
+     * The size in bytes of the request file datasource, the base64 encoded size times 3/4
+     *
+     * @return The size, zero if not a file datasource
+     * @since 1.1.0
+     */
+    private long dataSourceBytes() {
+        String base64 = null;
+        if (reportRequest.getJsonFile() != null) {
+            base64 = reportRequest.getJsonFile().getJson();
+        } else if (reportRequest.getXmlFile() != null) {
+            base64 = reportRequest.getXmlFile().getXml();
+        }
+        return base64 == null ? 0 : base64.length() / 4L * 3L;
+    }
 
-        if (reportRequest.getMetadata() != null) {
+    /**
+     * Export the filled report to the report type file or print the reports
+     *
+     * @param jasperPrint The filled report
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    private void exportReport(JasperPrint jasperPrint) throws
+            Exception {
 
-            Class<?> parent = exporter.getClass();
-            Field[] fields = exporter.getClass().getDeclaredFields();
-            Optional<Field> exporterOutputOptional;
-            do {
-                exporterOutputOptional = Arrays.stream(fields).filter(
-                        f -> f.getName().equals("exporterConfiguration")
-                ).findFirst();
+        Timer.Sample sample;
+        ReportExporter report = applicationContext.getBean(ReportExporter.class, properties, jasperPrint);
 
-                if (exporterOutputOptional.isPresent()) {
-                    Field exporterOutput = exporterOutputOptional.get();
-                    exporterOutput.setAccessible(true);
-                    parseMetadata(exporterOutput.get(exporter));
+        if (memoryRepository != null && !properties.getType().equals(RRProperties.Types.print)) {
+            output = new ReportOutput(
+                    outputBufferPool,
+                    memoryMaxOutputBytes,
+                    StringUtils.isNotEmpty(configTmpDir) ? Paths.get(configTmpDir) : null
+            );
+            report.setOutputStream(output);
+        }
 
-                } else {
-                    parent = parent.getSuperclass();
-                    if (parent != null) {
-                        fields = parent.getDeclaredFields();
-                    }
+        if (properties.getType().equals(RRProperties.Types.print)
+                && applicationContext.getBean(Printer.class).isRaster(reportRequest.getPrintMode())) {
+            // The pages are rendered in this thread, so the virtualized pages are not needed by the printer queue,
+            // the raster and the after print operations are sent in a single raw job
+            Printer printer = applicationContext.getBean(Printer.class);
+            sample = startStage();
+            byte[] raster = applicationContext.getBean(EscPosRaster.class)
+                    .toBytes(jasperPrint, reportRequest.getAfterPrintOperations());
+            stopStage(sample, GeneratorMetrics.STAGE_EXPORT);
+
+            printJob = printQueue.submit(printer.getName(), () -> printer.printRaw(raster));
+            return;
+        }
+
+        if (properties.getType().equals(RRProperties.Types.print)) {
+            // The exporter is created here to fail fast if the printer not exist,
+            // the report and the after print operations are printed together in the printer queue
+            report.getExporter();
+            Printer printer = applicationContext.getBean(Printer.class);
+            byte[] afterPrint = printer.afterPrintBytes(reportRequest.getAfterPrintOperations());
+            StageTimer printTimer = stageTimer;
+
+            printJob = printQueue.submit(printer.getName(), () -> {
+                Timer.Sample printSample = printTimer == null ? null : printTimer.start();
+                report.exportReport();
+                if (printSample != null) {
+                    printTimer.stop(printSample, GeneratorMetrics.STAGE_EXPORT);
+                }
+                if (afterPrint != null) {
+                    printer.printRaw(afterPrint);
                 }
+            });
+            return;
+        }
 
-            } while (parent != null && !exporterOutputOptional.isPresent());
+        if (reportRequest.getMetadata() != null) {
+            parseExporterMetadata(report.getExporter());
         }
 
+        sample = startStage();
         report.exportReport();
 
+        if (output != null) {
+            output.close();
+        }
+        stopStage(sample, GeneratorMetrics.STAGE_EXPORT);
+
         if (reportRequest.getReportType().equals(ReportRequest.ReportType.PDF) && reportRequest.getSign() != null) {
+            RRSignPdfProperties signProperties = ((RRPdfProperties) properties.getTypeProperties()).getSignProp();
+
+            checkDeadline(GeneratorMetrics.STAGE_SIGN);
+            sample = startStage();
+            if (output != null) {
+                ReportOutput signed = new ReportOutput(
+                        outputBufferPool,
+                        memoryMaxOutputBytes,
+                        StringUtils.isNotEmpty(configTmpDir) ? Paths.get(configTmpDir) : null
+                );
+                try {
+                    signService.sign(signProperties, output.toByteArray(), signed);
+                    signed.close();
+                } catch (Exception e) {
+                    signed.release();
+                    throw e;
+                }
+                output.release();
+                output = signed;
+            } else {
+                String signedFile = properties.getOutputFile() + "_sign";
+                try (OutputStream signedStream = new BufferedOutputStream(Files.newOutputStream(Paths.get(signedFile)))) {
+                    signService.sign(
+                            signProperties, Files.readAllBytes(Paths.get(properties.getOutputFile())), signedStream
+                    );
+                }
+                properties.setOutputFile(signedFile);
+            }
+            stopStage(sample, GeneratorMetrics.STAGE_SIGN);
+        }
 
-            RRSignPdf signPdf = new RRSignPdf(
-                    report.getSignProp(),
-                    report.getProperties().getOutputFile(),
-                    report.getProperties().getOutputFile() + "_sign"
-            );
+    }
 
-            signPdf.signPdf();
+    /**
+     * Parse the requested report types, the report type is the first type if not set,
+     * the other types are exported from the same filled report
+     *
+     * @throws pt.pchouse.reports.api.generator.ParseException If the types can not be exported together
+     * @since 1.1.0
+     */
+    private void parseReportTypes() throws pt.pchouse.reports.api.generator.ParseException {
+        otherReportTypes.clear();
+        if (reportRequest.getReportTypes() == null || reportRequest.getReportTypes().isEmpty()) {
+            return;
+        }
 
-            properties.setOutputFile(
-                    properties.getOutputFile() + "_sign"
+        if (reportRequest.getReportType() == null) {
+            reportRequest.setReportType(reportRequest.getReportTypes().get(0));
+        }
+
+        for (ReportRequest.ReportType type : reportRequest.getReportTypes()) {
+            if (type != null && type != reportRequest.getReportType() && !otherReportTypes.contains(type)) {
+                otherReportTypes.add(type);
+            }
+        }
+
+        if (otherReportTypes.isEmpty()) {
+            return;
+        }
+
+        if (reportRequest.getReportType() == ReportRequest.ReportType.PRINT
+                || otherReportTypes.contains(ReportRequest.ReportType.PRINT)) {
+            throw new pt.pchouse.reports.api.generator.ParseException(
+                    "The print type can not be exported with other report types"
             );
         }
 
+        if (reportRequest.getSign() != null && otherReportTypes.contains(ReportRequest.ReportType.PDF)) {
+            throw new pt.pchouse.reports.api.generator.ParseException(
+                    "To sign the pdf it must be the report type"
+            );
+        }
+    }
+
+    /**
+     * Start the export of the filled report to the other report types in the task executor,
+     * the exporters are created and configured in this thread
+     *
+     * @param jasperPrint The filled report
+     * @param parallel    Export in the executor, if false the exports run in this thread when awaited
+     * @return The started exports
+     * @throws Exception If fail to create the exporters
+     * @since 1.1.0
+     */
+    private List<OtherTypeExport> startOtherTypesExport(JasperPrint jasperPrint, boolean parallel) throws
+            Exception {
+
+        List<OtherTypeExport> exports = new ArrayList<>();
+        for (ReportRequest.ReportType type : otherReportTypes) {
+            RRProperties typeProperties = applicationContext.getBean(RRProperties.class);
+            typeProperties.setType(RRProperties.Types.valueOf(type.toString().toLowerCase()));
+            typeProperties.setCopies(properties.getCopies());
+            typeProperties.setEncoding(properties.getEncoding());
+            if (tmpDir != null) {
+                typeProperties.setOutputFile(
+                        Paths.get(tmpDir.toFile().getAbsolutePath(), "output." + type.getExtension())
+                                .toFile()
+                                .getAbsolutePath()
+                );
+            }
+            parseExporterProperties(typeProperties);
+
+            ReportExporter report = applicationContext.getBean(ReportExporter.class, typeProperties, jasperPrint);
+            ReportOutput typeOutput = null;
+            if (memoryRepository != null) {
+                typeOutput = new ReportOutput(
+                        outputBufferPool,
+                        memoryMaxOutputBytes,
+                        StringUtils.isNotEmpty(configTmpDir) ? Paths.get(configTmpDir) : null
+                );
+                report.setOutputStream(typeOutput);
+            }
+
+            if (reportRequest.getMetadata() != null) {
+                parseExporterMetadata(report.getExporter());
+            }
+
+            ReportOutput exportOutput = typeOutput;
+            exports.add(new OtherTypeExport(type, exportOutput, new FutureTask<>(() -> {
+                checkDeadline(GeneratorMetrics.STAGE_EXPORT);
+                Timer.Sample sample = startStage();
+                report.exportReport();
+                ReportOutput result = exportOutput;
+                if (result != null) {
+                    result.close();
+                } else {
+                    result = ReportOutput.ofFile(Paths.get(typeProperties.getOutputFile()));
+                }
+                stopStage(sample, GeneratorMetrics.STAGE_EXPORT);
+                return result;
+            })));
+        }
+
+        if (!parallel) {
+            return exports;
+        }
+
+        for (OtherTypeExport export : exports) {
+            try {
+                executor.execute(export.task);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Executor is full, the {} export runs in the request thread", export.type);
+            }
+        }
+        return exports;
+    }
+
+    /**
+     * Wait for the export of the other report types, the exports not yet started
+     * by the executor are run in this thread
+     *
+     * @param exports The started exports
+     * @return The first export exception or null if all succeed
+     * @throws InterruptedException If interrupted while waiting
+     * @since 1.1.0
+     */
+    private Exception awaitOtherTypesExport(List<OtherTypeExport> exports) throws InterruptedException {
+        Exception exception = null;
+        for (OtherTypeExport export : exports) {
+            // Does nothing if the task was already run by the executor
+            export.task.run();
+            try {
+                otherOutputs.put(export.type, export.task.get());
+            } catch (ExecutionException e) {
+                if (export.output != null) {
+                    export.output.release();
+                }
+                logger.error("Fail to export the {} report: {}", export.type, e.getCause().getMessage());
+                if (exception == null) {
+                    exception = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        return exception;
+    }
+
+    /**
+     * Parse the documents metadata to the exporter configuration
+     *
+     * @param exporter The exporter
+     * @throws IllegalAccessException If the configuration field is not accessible
+     * @since 1.1.0
+     */
+    private void parseExporterMetadata(@SuppressWarnings("rawtypes") Exporter exporter) throws IllegalAccessException {
+        Class<?> parent = exporter.getClass();
+        Field[] fields = exporter.getClass().getDeclaredFields();
+        Optional<Field> exporterOutputOptional;
+        do {
+            exporterOutputOptional = Arrays.stream(fields).filter(
+                    f -> f.getName().equals("exporterConfiguration")
+            ).findFirst();
+
+            if (exporterOutputOptional.isPresent()) {
+                Field exporterOutput = exporterOutputOptional.get();
+                exporterOutput.setAccessible(true);
+                parseMetadata(exporterOutput.get(exporter));
+
+            } else {
+                parent = parent.getSuperclass();
+                if (parent != null) {
+                    fields = parent.getDeclaredFields();
+                }
+            }
+
+        } while (parent != null && !exporterOutputOptional.isPresent());
     }
 
     /**
@@ -312,6 +959,53 @@ public class Generator implements IGenerator {
         }
     }
 
+    /**
+     * Set the request deadline, checked before each generation stage, the fill is cancelled if it passes
+     *
+     * @param deadline The deadline
+     * @since 1.1.0
+     */
+    @Override
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Get the print job of the print report, the report is printed after the previous jobs of the printer
+     *
+     * @return The print job, null if the report is not printed
+     * @since 1.1.0
+     */
+    @Override
+    public PrintJob getPrintJob() {
+        return printJob;
+    }
+
+    /**
+     * Set the key of the request in the results cache, the cached result is returned if not expired
+     * and the generated report is cached. Only set if the request is cacheable.
+     *
+     * @param resultKey The request key, null to not use the cache
+     * @since 1.1.0
+     */
+    @Override
+    public void setResultKey(String resultKey) {
+        this.resultKey = resultKey;
+    }
+
+    /**
+     * Check the request deadline, if set, before starting a stage
+     *
+     * @param stage The stage
+     * @throws DeadlineException If the deadline passed or the client disconnected
+     * @since 1.1.0
+     */
+    private void checkDeadline(String stage) throws DeadlineException {
+        if (deadline != null) {
+            deadline.check(stage);
+        }
+    }
+
     /**
      * Get the report request
      *
@@ -504,7 +1198,7 @@ public class Generator implements IGenerator {
                 RRDsFileJson dsFileJson = applicationContext.getBean(RRDsFileJson.class);
                 dsFileJson.setDatePattern(reportRequest.getJsonFile().getDatePattern());
                 dsFileJson.setNumberPattern(reportRequest.getJsonFile().getNumberPattern());
-                Path path = createFileFromBase64EncodedString(
+                Path path = createDataSourceFile(
                         reportRequest.getJsonFile().getJson(), "datasource.json"
                 );
                 dsFileJson.setFile(path.toFile());
@@ -517,7 +1211,7 @@ public class Generator implements IGenerator {
                 RRDsFileXml dsFileXml = applicationContext.getBean(RRDsFileXml.class);
                 dsFileXml.setDatePattern(reportRequest.getXmlFile().getDatePattern());
                 dsFileXml.setNumberPattern(reportRequest.getXmlFile().getNumberPattern());
-                Path path = createFileFromBase64EncodedString(
+                Path path = createDataSourceFile(
                         reportRequest.getXmlFile().getXml(), "datasource.xml"
                 );
                 dsFileXml.setFile(path.toFile());
@@ -546,7 +1240,7 @@ public class Generator implements IGenerator {
      * @throws NullNotAllowedException                         If null on non null allow
      * @since 1.0.0
      */
-    private void parsePdfProperties() throws pt.pchouse.reports.api.generator.ParseException, RRPropertiesException, NullNotAllowedException, MalformedURLException {
+    private void parsePdfProperties(RRProperties properties) throws pt.pchouse.reports.api.generator.ParseException, RRPropertiesException, NullNotAllowedException, MalformedURLException {
 
         RRPdfProperties pdfProperties = (RRPdfProperties) properties.getTypeProperties();
         pdfProperties.isSignPDF(reportRequest.getSign() != null);
@@ -579,43 +1273,11 @@ public class Generator implements IGenerator {
             return;
         }
 
-        Sign reqSign = reportRequest.getSign();
-        RRSignPdfProperties sign = applicationContext.getBean(RRSignPdfProperties.class);
-        sign.setCertificateName(reqSign.getCertificateName());
-        sign.setCertificatePassword(reqSign.getCertificatePassword());
-        sign.setJavaKeyStorePassword(reqSign.getKeyStorePassword());
-
-        Path extKeyStore = Paths.get(Paths.get("").toAbsolutePath().toString(), "keystore.ks");
-
-        if (!Files.exists(extKeyStore)) {
-            throw new pt.pchouse.reports.api.generator.ParseException(
-                    String.format("Keystore file '%s' not found.", extKeyStore.toAbsolutePath())
-            );
-        }
-
-        URL keystorePath = extKeyStore.toUri().toURL();
-
-        sign.setJavaKeyStorePath(keystorePath.getFile());
-        sign.setType(RRSignPdfProperties.Type.valueOf(reqSign.getCertificateType().toString()));
-        sign.setLevel(RRSignPdfProperties.Level.valueOf(reqSign.getLevel().toString()));
-        sign.setLocation(reqSign.getLocation());
-        sign.setContact(reqSign.getContact());
-        sign.isVisible(reqSign.isVisible());
-        sign.setReazon(reqSign.getReason());
-
-        if (reqSign.getSignRectangle() != null) {
-
-            Rectangle rectangle = applicationContext.getBean(
-                    Rectangle.class,
-                    reqSign.getSignRectangle().getX() + reqSign.getSignRectangle().getWidth(),
-                    reqSign.getSignRectangle().getY(),
-                    reqSign.getSignRectangle().getRotation()
-            );
-
-            rectangle.setLeft(reqSign.getSignRectangle().getX());
-            rectangle.setBottom(reqSign.getSignRectangle().getY() + reqSign.getSignRectangle().getHeight());
-
-            sign.setRectangle(rectangle);
+        RRSignPdfProperties sign;
+        try {
+            sign = signService.signProperties(reportRequest.getSign());
+        } catch (SignException e) {
+            throw new pt.pchouse.reports.api.generator.ParseException(e.getMessage());
         }
 
         pdfProperties.setSignProp(sign);
@@ -625,7 +1287,7 @@ public class Generator implements IGenerator {
      * Parse DOCX properties
      * @since 1.0.0
      */
-    private void parseDocxProperties() throws RRPropertiesException, NullNotAllowedException {
+    private void parseDocxProperties(RRProperties properties) throws RRPropertiesException, NullNotAllowedException {
         ((RRDocxProperties) properties.getTypeProperties()).getSimpleDocxExporterConfiguration().setEmbedFonts(true);
     }
 
@@ -653,7 +1315,7 @@ public class Generator implements IGenerator {
      * Parse PPTX properties
      * @since 1.0.0
      */
-    private void parsePptxProperties() throws RRPropertiesException, NullNotAllowedException {
+    private void parsePptxProperties(RRProperties properties) throws RRPropertiesException, NullNotAllowedException {
         RRPptxProperties pptxProperties = (RRPptxProperties) properties.getTypeProperties();
         pptxProperties.getSimplePptxExporterConfiguration().setEmbedFonts(true);
         // Todo future version create properties in request for pptx
@@ -698,14 +1360,14 @@ public class Generator implements IGenerator {
      * @throws pt.pchouse.reports.api.generator.ParseException When parse error
      * @since 1.0.0
      */
-    private void parseExporterProperties() throws NullNotAllowedException, RRPropertiesException, pt.pchouse.reports.api.generator.ParseException, MalformedURLException {
+    private void parseExporterProperties(RRProperties properties) throws NullNotAllowedException, RRPropertiesException, pt.pchouse.reports.api.generator.ParseException, MalformedURLException {
 
         switch (properties.getType()) {
             case pdf:
-                this.parsePdfProperties();
+                this.parsePdfProperties(properties);
                 return;
             case docx:
-                this.parseDocxProperties();
+                this.parseDocxProperties(properties);
                 return;
             case html:
                 this.parseHtmlProperties();
@@ -714,7 +1376,7 @@ public class Generator implements IGenerator {
                 this.parseOdsProperties();
                 return;
             case pptx:
-                this.parsePptxProperties();
+                this.parsePptxProperties(properties);
                 return;
             case xls:
                 this.parseXlsProperties();
@@ -730,7 +1392,7 @@ public class Generator implements IGenerator {
      * @since 1.0.0
      */
     private void parseReportResources() throws IOException {
-        if (reportRequest.getReportResources() == null) {
+        if (reportRequest.getReportResources() == null || StringUtils.isNotEmpty(reportRequest.getTemplateId())) {
             return;
         }
 
@@ -758,9 +1420,17 @@ public class Generator implements IGenerator {
             IOException,
             pt.pchouse.reports.api.generator.ParseException {
 
+        Timer.Sample sample = startStage();
         parseParameters();
+        stopStage(sample, GeneratorMetrics.STAGE_PARSE_PARAMETERS);
+
+        sample = startStage();
         parseDatasource();
+        stopStage(sample, GeneratorMetrics.STAGE_PARSE_DATASOURCE);
+
+        sample = startStage();
         parseReportResources();
+        stopStage(sample, GeneratorMetrics.STAGE_PARSE_RESOURCES);
 
         properties.setType(RRProperties.Types.valueOf(reportRequest.getReportType().toString().toLowerCase()));
         properties.setCopies(reportRequest.getCopies());
@@ -771,23 +1441,60 @@ public class Generator implements IGenerator {
             properties.setEncoding("UTF-8");
         }
 
-        String jasper = createFileFromBase64EncodedString(reportRequest.getReport(), "report.jasper")
-                .toFile()
-                .getAbsolutePath();
+        if (tmpDir != null) {
+            properties.setOutputFile(
+                    Paths.get(tmpDir.toFile().getAbsolutePath(), "output")
+                            .toFile()
+                            .getAbsolutePath()
+            );
+        }
 
-        properties.setJasperFile(jasper);
+        sample = startStage();
+        parseExporterProperties(properties);
+        stopStage(sample, GeneratorMetrics.STAGE_PARSE_EXPORTER);
+    }
 
-        properties.setOutputFile(
-                Paths.get(tmpDir.toFile().getAbsolutePath(), "output")
-                        .toFile()
-                        .getAbsolutePath()
-        );
+    /**
+     * Load the compiled template, if the request has a template id the template
+     * is loaded from the templates' registry, otherwise from the templates cache,
+     * in case of cache miss the template is decoded and loaded from the request
+     *
+     * @throws JRException       If fail to load the template
+     * @throws TemplateException If the template id is not registered
+     * @throws IOException       If fail to read the templates' registry
+     * @since 1.1.0
+     */
+    private void loadTemplate() throws JRException, TemplateException, IOException {
+        if (StringUtils.isNotEmpty(reportRequest.getTemplateId())) {
+            jasperReport = templateRegistry.getReport(reportRequest.getTemplateId());
+            resourcesDir = templateRegistry.getResourcesDir(reportRequest.getTemplateId());
+            return;
+        }
+        jasperReport = templateCache.getReport(reportRequest.getReport());
+        resourcesDir = tmpDir;
+    }
 
-        parseExporterProperties();
+    /**
+     * Create the file datasource, if the streaming datasources are enabled the base64 string
+     * is kept to be decoded while filling and no file is written
+     *
+     * @param base64   The base64 encoded string
+     * @param fileName The file name
+     * @return The file path
+     * @throws IOException If fail create or write to the file
+     * @since 1.1.0
+     */
+    private Path createDataSourceFile(String base64, String fileName) throws IOException {
+        if (dataSourceStreaming) {
+            dataSourceBase64 = base64;
+            return Paths.get(fileName);
+        }
+        return createFileFromBase64EncodedString(base64, fileName);
     }
 
     /**
-     * Create the file in the temporary directory
+     * Create the file in the temporary directory,
+     * if generating in memory the file is kept in the in memory resources
      *
      * @param base64   The base64 encoded string
      * @param fileName The file name
@@ -798,6 +1505,10 @@ public class Generator implements IGenerator {
     private Path createFileFromBase64EncodedString(String base64, String fileName) throws IOException {
         try {
             byte[] decode = Base64.getDecoder().decode(base64);
+            if (memoryRepository != null) {
+                memoryRepository.put(fileName, decode);
+                return Paths.get(fileName);
+            }
             return Files.write(
                     Paths.get(tmpDir.toFile().getAbsolutePath(), fileName),
                     decode,
@@ -818,8 +1529,42 @@ public class Generator implements IGenerator {
      * @since 1.0.0
      */
     private String readAndEncodeGeneratedReport() throws NullNotAllowedException, IOException {
-        byte[] report = Files.readAllBytes(Paths.get(properties.getOutputFile()));
-        return Base64.getEncoder().encodeToString(report);
+        return Base64.getEncoder().encodeToString(output.toByteArray());
+    }
+
+    /**
+     * The export of the filled report to one of the other report types
+     * @since 1.1.0
+     */
+    private static class OtherTypeExport {
+
+        /**
+         * @since 1.1.0
+         */
+        private final ReportRequest.ReportType type;
+
+        /**
+         * The in memory output, null if exported to a file
+         * @since 1.1.0
+         */
+        private final ReportOutput output;
+
+        /**
+         * @since 1.1.0
+         */
+        private final FutureTask<ReportOutput> task;
+
+        /**
+         * @param type   The report type
+         * @param output The in memory output, null if exported to a file
+         * @param task   The export task
+         * @since 1.1.0
+         */
+        private OtherTypeExport(ReportRequest.ReportType type, ReportOutput output, FutureTask<ReportOutput> task) {
+            this.type = type;
+            this.output = output;
+            this.task = task;
+        }
     }
 
 }
@@ -20,8 +20,13 @@ package pt.pchouse.reports.api.generator;
 
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.annotation.RequestScope;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.printer.PrintJob;
 import pt.pchouse.reports.api.request.ReportRequest;
 
+import java.util.Map;
+
 /**
  *
  * @since 1.0.0
@@ -38,6 +43,61 @@ public interface IGenerator {
      */
     String generate() throws Exception;
 
+    /**
+     * Generate the report without encoding it, the caller must invoke {@link #clean()} after read the output
+     *
+     * @return The generated report or null if the report type is print
+     * @since 1.1.0
+     */
+    ReportOutput generateOutput() throws Exception;
+
+    /**
+     * Generate the report of each requested type, the report is filled once
+     *
+     * @return The reports as base64 encoded string by type, the report type first, empty if the report type is print
+     * @since 1.1.0
+     */
+    Map<ReportRequest.ReportType, String> generateReports() throws Exception;
+
+    /**
+     * Get the generated output of each requested type, available after {@link #generateOutput()}
+     *
+     * @return The outputs by type, the report type first
+     * @since 1.1.0
+     */
+    Map<ReportRequest.ReportType, ReportOutput> getOutputs();
+
+    /**
+     * Release the output and delete the temporary files of the generated report
+     *
+     * @since 1.1.0
+     */
+    void clean();
+
+    /**
+     * Set the request deadline, the generation is stopped if the deadline passes or the client disconnects
+     *
+     * @param deadline The deadline
+     * @since 1.1.0
+     */
+    void setDeadline(Deadline deadline);
+
+    /**
+     * Set the key of the request in the results cache, null to not use the cache
+     *
+     * @param resultKey The request key
+     * @since 1.1.0
+     */
+    void setResultKey(String resultKey);
+
+    /**
+     * Get the print job of the print report
+     *
+     * @return The print job, null if the report is not printed
+     * @since 1.1.0
+     */
+    PrintJob getPrintJob();
+
     /**
      * Get the ReportRequest passed in the constructor
      *
@@ -0,0 +1,355 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.generator;
+
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.*;
+import net.sf.jasperreports.engine.export.oasis.JROdsExporter;
+import net.sf.jasperreports.engine.export.oasis.JROdtExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRDocxExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRPptxExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.export.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import pt.pchouse.reports.api.printer.Printer;
+import rebelo.reports.core.RRProperties;
+
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.Copies;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+
+/**
+ * Export a filled report to the type and output defined in the report properties
+ *
+ * @since 1.1.0
+ */
+@Service
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class ReportExporter {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private Printer printer;
+
+    /**
+     * The parsed report properties
+     * @since 1.1.0
+     */
+    private final RRProperties properties;
+
+    /**
+     * The filled report
+     * @since 1.1.0
+     */
+    private final JasperPrint jasperPrint;
+
+    /**
+     * The exporter, lazy created
+     * @since 1.1.0
+     */
+    @SuppressWarnings("rawtypes")
+    private Exporter exporter;
+
+    /**
+     * The output stream, if null the report is exported to the properties output file
+     * @since 1.1.0
+     */
+    private OutputStream outputStream;
+
+    /**
+     * @param properties  The parsed report properties
+     * @param jasperPrint The filled report
+     * @since 1.1.0
+     */
+    public ReportExporter(RRProperties properties, JasperPrint jasperPrint) {
+        logger.debug("New instance of " + this.getClass().getName());
+        this.properties = properties;
+        this.jasperPrint = jasperPrint;
+    }
+
+    /**
+     * Get the exporter of the report type with the input and output set
+     *
+     * @return The exporter
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @SuppressWarnings("rawtypes")
+    public Exporter getExporter() throws Exception {
+        if (exporter == null) {
+            exporter = createExporter(properties.getType());
+            if (outputStream == null) {
+                configureOutput(exporter, new File(properties.getOutputFile()));
+            } else {
+                configureOutput(exporter, outputStream);
+            }
+        }
+        return exporter;
+    }
+
+    /**
+     * Export the report to the output file or to the printer
+     *
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    public void exportReport() throws Exception {
+        logger.debug("Export report as {}", properties.getType());
+        getExporter().exportReport();
+    }
+
+    /**
+     * Create the exporter of the report type with the input and the configuration set
+     *
+     * @param type The report type
+     * @return The exporter
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    protected Exporter createExporter(RRProperties.Types type) throws Exception {
+        Exporter created;
+        switch (type) {
+            case csv:
+                created = new JRCsvExporter();
+                break;
+            case docx:
+                created = new JRDocxExporter();
+                break;
+            case html:
+                created = new HtmlExporter();
+                break;
+            case json:
+                created = new JsonMetadataExporter();
+                break;
+            case ods:
+                created = new JROdsExporter();
+                break;
+            case odt:
+                created = new JROdtExporter();
+                break;
+            case pdf:
+                created = new JRPdfExporter();
+                break;
+            case pptx:
+                created = new JRPptxExporter();
+                break;
+            case rtf:
+                created = new JRRtfExporter();
+                break;
+            case text:
+                created = new JRTextExporter();
+                break;
+            case xls:
+                created = new JRXlsExporter();
+                break;
+            case xlsx:
+                created = new JRXlsxExporter();
+                break;
+            case xml:
+                created = new JRXmlExporter();
+                break;
+            case print:
+                created = new JRPrintServiceExporter();
+                break;
+            default:
+                throw new ParseException(String.format("No exporter for type '%s'", type));
+        }
+
+        configure(created);
+
+        created.setExporterInput(new SimpleExporterInput(jasperPrint));
+        return created;
+    }
+
+    /**
+     * Set the exporter and the report configurations of the report type properties,
+     * the same configurations that the core library set, so the output of each type
+     * is the same of the core Report
+     *
+     * @param exporter The exporter
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void configure(Exporter exporter) throws Exception {
+        Object typeProperties = properties.getTypeProperties();
+        SimplePrintServiceExporterConfiguration printConfiguration = null;
+
+        if (typeProperties != null) {
+            for (Method method : typeProperties.getClass().getMethods()) {
+                if (method.getParameterCount() != 0 || !method.getName().startsWith("get")) {
+                    continue;
+                }
+
+                Class<?> returnType = method.getReturnType();
+                if (!ReportExportConfiguration.class.isAssignableFrom(returnType)
+                        && !ExporterConfiguration.class.isAssignableFrom(returnType)) {
+                    continue;
+                }
+
+                Object configuration = method.invoke(typeProperties);
+                if (configuration == null) {
+                    continue;
+                }
+
+                logger.debug("Set the {} of the {} properties", returnType.getSimpleName(), properties.getType());
+
+                if (configuration instanceof ReportExportConfiguration) {
+                    exporter.setConfiguration((ReportExportConfiguration) configuration);
+                }
+
+                if (configuration instanceof ExporterConfiguration) {
+                    exporter.setConfiguration((ExporterConfiguration) configuration);
+                }
+
+                if (configuration instanceof SimplePrintServiceExporterConfiguration) {
+                    printConfiguration = (SimplePrintServiceExporterConfiguration) configuration;
+                }
+            }
+        }
+
+        if (!properties.getType().equals(RRProperties.Types.print)) {
+            return;
+        }
+
+        // The printer is selected by the api printer configuration
+        if (printConfiguration == null) {
+            printConfiguration = new SimplePrintServiceExporterConfiguration();
+            exporter.setConfiguration(printConfiguration);
+        }
+
+        PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+        attributes.add(new Copies(Math.max(1, properties.getCopies())));
+        printConfiguration.setPrintService(printer.getPrintService());
+        printConfiguration.setPrintRequestAttributeSet(attributes);
+        printConfiguration.setDisplayPageDialog(false);
+        printConfiguration.setDisplayPrintDialog(false);
+    }
+
+    /**
+     * Set the exporter output to a file
+     *
+     * @param exporter The exporter
+     * @param file     The output file
+     * @since 1.1.0
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void configureOutput(Exporter exporter, File file) {
+        String encoding = properties.getEncoding();
+        switch (properties.getType()) {
+            case print:
+                return;
+            case csv:
+            case rtf:
+            case text:
+                exporter.setExporterOutput(new SimpleWriterExporterOutput(file, encoding));
+                return;
+            case html:
+                exporter.setExporterOutput(new SimpleHtmlExporterOutput(file, encoding));
+                return;
+            case json:
+                exporter.setExporterOutput(new SimpleJsonExporterOutput(file, encoding));
+                return;
+            case xml:
+                exporter.setExporterOutput(new SimpleXmlExporterOutput(file, encoding));
+                return;
+            default:
+                exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(file));
+        }
+    }
+
+    /**
+     * Set the exporter output to a stream
+     *
+     * @param exporter     The exporter
+     * @param outputStream The output stream
+     * @since 1.1.0
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void configureOutput(Exporter exporter, OutputStream outputStream) {
+        String encoding = properties.getEncoding();
+        switch (properties.getType()) {
+            case print:
+                return;
+            case csv:
+            case rtf:
+            case text:
+                exporter.setExporterOutput(new SimpleWriterExporterOutput(outputStream, encoding));
+                return;
+            case html:
+                exporter.setExporterOutput(new SimpleHtmlExporterOutput(outputStream, encoding));
+                return;
+            case json:
+                exporter.setExporterOutput(new SimpleJsonExporterOutput(outputStream, encoding));
+                return;
+            case xml:
+                exporter.setExporterOutput(new SimpleXmlExporterOutput(outputStream, encoding));
+                return;
+            default:
+                exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
+        }
+    }
+
+    /**
+     * Set the stream where the report is exported, must be set before the exporter is created,
+     * if not set the report is exported to the properties output file
+     *
+     * @param outputStream The output stream
+     * @since 1.1.0
+     */
+    public void setOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Get the filled report
+     *
+     * @return The filled report
+     * @since 1.1.0
+     */
+    public JasperPrint getJasperPrint() {
+        return jasperPrint;
+    }
+
+    /**
+     * Get the report properties
+     *
+     * @return The properties
+     * @since 1.1.0
+     */
+    public RRProperties getProperties() {
+        return properties;
+    }
+}
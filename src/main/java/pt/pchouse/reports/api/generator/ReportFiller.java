@@ -0,0 +1,628 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.generator;
+
+import io.micrometer.core.instrument.Timer;
+import net.sf.jasperreports.engine.*;
+import net.sf.jasperreports.engine.data.JsonDataSource;
+import net.sf.jasperreports.engine.fill.AsynchronousFillHandle;
+import net.sf.jasperreports.engine.fill.AsynchronousFilllListener;
+import net.sf.jasperreports.engine.data.JRXmlDataSource;
+import net.sf.jasperreports.engine.query.JRXPathQueryExecuterFactory;
+import net.sf.jasperreports.engine.query.JsonQueryExecuterFactory;
+import net.sf.jasperreports.engine.util.JRXmlUtils;
+import net.sf.jasperreports.repo.FileRepositoryService;
+import net.sf.jasperreports.repo.RepositoryService;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import pt.pchouse.reports.api.datasource.JsonStreamDataSource;
+import pt.pchouse.reports.api.datasource.XmlStreamDataSource;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.http.HttpDatasourceClient;
+import pt.pchouse.reports.api.memory.InMemoryRepositoryService;
+import pt.pchouse.reports.api.metrics.GeneratorMetrics;
+import pt.pchouse.reports.api.metrics.StageTimer;
+import pt.pchouse.reports.api.pool.ConnectionPoolRegistry;
+import pt.pchouse.reports.api.util.Base64Stream;
+import rebelo.reports.core.RRProperties;
+import rebelo.reports.core.datasource.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fill a loaded template with the datasource and parameters of the report properties
+ *
+ * @since 1.1.0
+ */
+@Service
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class ReportFiller {
+
+    /**
+     * The maximum time in milliseconds to wait for a cancelled fill to stop
+     * @since 1.1.0
+     */
+    static final long CANCEL_GRACE_MS = 5000;
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The database connection pools
+     * @since 1.1.0
+     */
+    @Autowired
+    private ConnectionPoolRegistry connectionPoolRegistry;
+
+    /**
+     * The shared http client of the http(s) datasources
+     * @since 1.1.0
+     */
+    @Autowired
+    private HttpDatasourceClient httpDatasourceClient;
+
+    /**
+     * The parsed report properties
+     * @since 1.1.0
+     */
+    private final RRProperties properties;
+
+    /**
+     * The loaded template
+     * @since 1.1.0
+     */
+    private final JasperReport jasperReport;
+
+    /**
+     * The directory where the report resources (sub reports, images) are
+     * @since 1.1.0
+     */
+    private final Path resourcesDir;
+
+    /**
+     * The in memory resources, if set it is resolved before the resources directory
+     * @since 1.1.0
+     */
+    private InMemoryRepositoryService memoryRepository;
+
+    /**
+     * The timer of the generation stages, can be null
+     * @since 1.1.0
+     */
+    private StageTimer stageTimer;
+
+    /**
+     * The base64 encoded file datasource, if set it is decoded while filling
+     * and read by the streaming datasources
+     * @since 1.1.0
+     */
+    private String dataSourceBase64;
+
+    /**
+     * The virtualizer of the filled pages, if null all pages are kept in memory
+     * @since 1.1.0
+     */
+    private JRVirtualizer virtualizer;
+
+    /**
+     * The request deadline, if set the fill is cancelled when it passes
+     * @since 1.1.0
+     */
+    private Deadline deadline;
+
+    /**
+     * @param properties   The parsed report properties
+     * @param jasperReport The loaded template
+     * @param resourcesDir The directory where the report resources are, can be null
+     * @since 1.1.0
+     */
+    public ReportFiller(RRProperties properties, JasperReport jasperReport, Path resourcesDir) {
+        logger.debug("New instance of " + this.getClass().getName());
+        this.properties = properties;
+        this.jasperReport = jasperReport;
+        this.resourcesDir = resourcesDir;
+    }
+
+    /**
+     * Create the JasperReports context, the in memory resources and the resources directory
+     * are resolved before the default repositories
+     *
+     * @return The context
+     * @since 1.1.0
+     */
+    protected SimpleJasperReportsContext createContext() {
+        SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+        if (resourcesDir != null || memoryRepository != null) {
+            List<RepositoryService> repositories = new ArrayList<>();
+            if (memoryRepository != null) {
+                repositories.add(memoryRepository);
+            }
+            if (resourcesDir != null) {
+                repositories.add(new FileRepositoryService(context, resourcesDir.toFile().getAbsolutePath(), true));
+            }
+            repositories.addAll(DefaultJasperReportsContext.getInstance().getExtensions(RepositoryService.class));
+            context.setExtensions(RepositoryService.class, repositories);
+        }
+        return context;
+    }
+
+    /**
+     * Fill the report
+     *
+     * @return The filled report
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    public JasperPrint fill() throws Exception {
+        JasperReportsContext context = createContext();
+        Map<String, Object> parameters = new HashMap<>(properties.getParameters());
+        if (virtualizer != null) {
+            parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        }
+        Object dataSource = properties.getDataSourceProperties();
+
+        if (dataSource instanceof RRDsDatabase) {
+            RRDsDatabase dsDatabase = (RRDsDatabase) dataSource;
+            try (Connection connection = openConnection(dsDatabase)) {
+                logger.debug("Fill report with database datasource");
+                return fillReport(context, parameters, connection);
+            }
+        }
+
+        if (dataSource instanceof RRDsHttpsJson) {
+            RRDsHttpsJson ds = (RRDsHttpsJson) dataSource;
+            try (InputStream inputStream = openUrl(ds.getUrl(), ds.getType())) {
+                return fillJson(context, parameters, inputStream, ds.getDatePattern(), ds.getNumberPattern(), false);
+            }
+        }
+
+        if (dataSource instanceof RRDsHttpJson) {
+            RRDsHttpJson ds = (RRDsHttpJson) dataSource;
+            try (InputStream inputStream = openUrl(ds.getUrl(), ds.getType())) {
+                return fillJson(context, parameters, inputStream, ds.getDatePattern(), ds.getNumberPattern(), false);
+            }
+        }
+
+        if (dataSource instanceof RRDsHttpsXml) {
+            RRDsHttpsXml ds = (RRDsHttpsXml) dataSource;
+            try (InputStream inputStream = openUrl(ds.getUrl(), ds.getType())) {
+                return fillXml(context, parameters, inputStream, ds.getDatePattern(), ds.getNumberPattern(), false);
+            }
+        }
+
+        if (dataSource instanceof RRDsHttpXml) {
+            RRDsHttpXml ds = (RRDsHttpXml) dataSource;
+            try (InputStream inputStream = openUrl(ds.getUrl(), ds.getType())) {
+                return fillXml(context, parameters, inputStream, ds.getDatePattern(), ds.getNumberPattern(), false);
+            }
+        }
+
+        if (dataSource instanceof RRDsFileJson) {
+            RRDsFileJson ds = (RRDsFileJson) dataSource;
+            try (InputStream inputStream = openFile(ds.getFile())) {
+                return fillJson(
+                        context, parameters, inputStream, ds.getDatePattern(), ds.getNumberPattern(), dataSourceBase64 != null
+                );
+            }
+        }
+
+        if (dataSource instanceof RRDsFileXml) {
+            RRDsFileXml ds = (RRDsFileXml) dataSource;
+            try (InputStream inputStream = openFile(ds.getFile())) {
+                return fillXml(
+                        context, parameters, inputStream, ds.getDatePattern(), ds.getNumberPattern(), dataSourceBase64 != null
+                );
+            }
+        }
+
+        String msg = "No datasource defined to fill the report";
+        logger.error(msg);
+        throw new DataSourceException(msg);
+    }
+
+    /**
+     * Open a database connection, borrowed from the connection pool if the pools are enabled
+     *
+     * @param dsDatabase The database datasource
+     * @return The connection
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    protected Connection openConnection(RRDsDatabase dsDatabase) throws Exception {
+        Timer.Sample sample = startDatasourceTimer();
+        try {
+            if (connectionPoolRegistry.isEnabled()) {
+                return connectionPoolRegistry.getConnection(
+                        dsDatabase.getConnString(),
+                        dsDatabase.getDriver(),
+                        dsDatabase.getUser(),
+                        dsDatabase.getPassword()
+                );
+            }
+
+            if (StringUtils.isNotEmpty(dsDatabase.getDriver())) {
+                Class.forName(dsDatabase.getDriver());
+            }
+            return DriverManager.getConnection(
+                    dsDatabase.getConnString(),
+                    dsDatabase.getUser(),
+                    dsDatabase.getPassword()
+            );
+        } finally {
+            stopDatasourceTimer(sample);
+        }
+    }
+
+    /**
+     * Open the stream of the file datasource, decoded on the fly if the base64 datasource is set,
+     * otherwise from the in memory resources if exists or from the file
+     *
+     * @param file The file
+     * @return The file content
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    protected InputStream openFile(File file) throws IOException {
+        Timer.Sample sample = startDatasourceTimer();
+        try {
+            if (dataSourceBase64 != null) {
+                return Base64Stream.decode(dataSourceBase64);
+            }
+            if (memoryRepository != null && memoryRepository.contains(file.getName())) {
+                return memoryRepository.getInputStream(file.getName());
+            }
+            return new FileInputStream(file);
+        } finally {
+            stopDatasourceTimer(sample);
+        }
+    }
+
+    /**
+     * Open the stream of the http(s) datasource with the shared http client
+     *
+     * @param url  The url
+     * @param type The request verb
+     * @return The response body
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    protected InputStream openUrl(URL url, ARRDsHttp.Type type) throws IOException {
+        Timer.Sample sample = startDatasourceTimer();
+        try {
+            return httpDatasourceClient.open(url, type);
+        } finally {
+            stopDatasourceTimer(sample);
+        }
+    }
+
+    /**
+     * Start timing the datasource open, if the stage timer is set
+     *
+     * @return The sample or null if the stage timer is not set
+     * @since 1.1.0
+     */
+    private Timer.Sample startDatasourceTimer() {
+        return stageTimer == null ? null : stageTimer.start();
+    }
+
+    /**
+     * Stop timing the datasource open
+     *
+     * @param sample The started sample, can be null
+     * @since 1.1.0
+     */
+    private void stopDatasourceTimer(Timer.Sample sample) {
+        if (sample != null) {
+            stageTimer.stop(sample, GeneratorMetrics.STAGE_DATASOURCE);
+        }
+    }
+
+    /**
+     * Fill the report with a json datasource
+     *
+     * @param context       The JasperReports context
+     * @param parameters    The report parameters
+     * @param inputStream   The json stream
+     * @param datePattern   The date pattern
+     * @param numberPattern The number pattern
+     * @param streaming     Read the records one by one with the streaming datasource
+     * @return The filled report
+     * @throws Exception If fail, or if the deadline is exceeded while filling
+     * @since 1.1.0
+     */
+    private JasperPrint fillJson(JasperReportsContext context, Map<String, Object> parameters, InputStream inputStream, String datePattern, String numberPattern, boolean streaming) throws Exception {
+        if (hasQuery()) {
+            logger.debug("Fill report with json query executer");
+            parameters.put(JsonQueryExecuterFactory.JSON_INPUT_STREAM, inputStream);
+            parameters.put(JsonQueryExecuterFactory.JSON_DATE_PATTERN, datePattern);
+            parameters.put(JsonQueryExecuterFactory.JSON_NUMBER_PATTERN, numberPattern);
+            return fillReport(context, parameters, null);
+        }
+
+        if (streaming) {
+            logger.debug("Fill report with json streaming datasource");
+            try (JsonStreamDataSource jsonDataSource = new JsonStreamDataSource(inputStream)) {
+                jsonDataSource.setDatePattern(datePattern);
+                jsonDataSource.setNumberPattern(numberPattern);
+                return fillReport(context, parameters, jsonDataSource);
+            }
+        }
+
+        logger.debug("Fill report with json datasource");
+        JsonDataSource jsonDataSource = new JsonDataSource(inputStream);
+        jsonDataSource.setDatePattern(datePattern);
+        jsonDataSource.setNumberPattern(numberPattern);
+        return fillReport(context, parameters, jsonDataSource);
+    }
+
+    /**
+     * Fill the report with a xml datasource
+     *
+     * @param context       The JasperReports context
+     * @param parameters    The report parameters
+     * @param inputStream   The xml stream
+     * @param datePattern   The date pattern
+     * @param numberPattern The number pattern
+     * @param streaming     Read the records one by one with the streaming datasource
+     * @return The filled report
+     * @throws Exception If fail, or if the deadline is exceeded while filling
+     * @since 1.1.0
+     */
+    private JasperPrint fillXml(JasperReportsContext context, Map<String, Object> parameters, InputStream inputStream, String datePattern, String numberPattern, boolean streaming) throws Exception {
+        if (hasQuery()) {
+            logger.debug("Fill report with xpath query executer");
+            parameters.put(JRXPathQueryExecuterFactory.PARAMETER_XML_DATA_DOCUMENT, JRXmlUtils.parse(inputStream));
+            parameters.put(JRXPathQueryExecuterFactory.XML_DATE_PATTERN, datePattern);
+            parameters.put(JRXPathQueryExecuterFactory.XML_NUMBER_PATTERN, numberPattern);
+            return fillReport(context, parameters, null);
+        }
+
+        if (streaming) {
+            logger.debug("Fill report with xml streaming datasource");
+            try (XmlStreamDataSource xmlDataSource = new XmlStreamDataSource(inputStream)) {
+                xmlDataSource.setDatePattern(datePattern);
+                xmlDataSource.setNumberPattern(numberPattern);
+                return fillReport(context, parameters, xmlDataSource);
+            }
+        }
+
+        logger.debug("Fill report with xml datasource");
+        JRXmlDataSource xmlDataSource = new JRXmlDataSource(inputStream);
+        xmlDataSource.setDatePattern(datePattern);
+        xmlDataSource.setNumberPattern(numberPattern);
+        return fillReport(context, parameters, xmlDataSource);
+    }
+
+    /**
+     * Fill the report, if the deadline is set the report is filled with an asynchronous fill handle
+     * that is cancelled when the deadline passes or the client disconnects
+     *
+     * @param context    The JasperReports context
+     * @param parameters The report parameters
+     * @param dataSource The datasource, a {@link JRDataSource}, a {@link Connection} or null to fill with the template query
+     * @return The filled report
+     * @throws Exception If fail, or if the deadline is exceeded while filling
+     * @since 1.1.0
+     */
+    private JasperPrint fillReport(JasperReportsContext context, Map<String, Object> parameters, Object dataSource) throws
+            Exception {
+
+        if (deadline == null) {
+            JasperFillManager fillManager = JasperFillManager.getInstance(context);
+            if (dataSource instanceof Connection) {
+                return fillManager.fill(jasperReport, parameters, (Connection) dataSource);
+            }
+            if (dataSource instanceof JRDataSource) {
+                return fillManager.fill(jasperReport, parameters, (JRDataSource) dataSource);
+            }
+            return fillManager.fill(jasperReport, parameters);
+        }
+
+        deadline.check(GeneratorMetrics.STAGE_FILL);
+
+        AsynchronousFillHandle handle;
+        if (dataSource instanceof Connection) {
+            handle = AsynchronousFillHandle.createHandle(context, jasperReport, parameters, (Connection) dataSource);
+        } else if (dataSource instanceof JRDataSource) {
+            handle = AsynchronousFillHandle.createHandle(context, jasperReport, parameters, (JRDataSource) dataSource);
+        } else {
+            handle = AsynchronousFillHandle.createHandle(context, jasperReport, parameters);
+        }
+        return awaitFill(handle, dataSource instanceof Connection ? (Connection) dataSource : null);
+    }
+
+    /**
+     * Start the asynchronous fill and wait until it finishes, the deadline passes or the client disconnects.
+     * If cancelled waits, at most the cancel grace time, for the fill to stop
+     * before the datasource is closed or returned to the pool, if the fill did not stop the
+     * database connection is aborted so it is not returned to the pool while still in use.
+     *
+     * @param handle     The fill handle
+     * @param connection The database connection of the fill, can be null
+     * @return The filled report
+     * @throws Exception If the fill fails or the deadline is exceeded
+     * @since 1.1.0
+     */
+    private JasperPrint awaitFill(AsynchronousFillHandle handle, Connection connection) throws Exception {
+        CompletableFuture<JasperPrint> filled = new CompletableFuture<>();
+        handle.addListener(new AsynchronousFilllListener() {
+            @Override
+            public void reportFinished(JasperPrint jasperPrint) {
+                filled.complete(jasperPrint);
+            }
+
+            @Override
+            public void reportCancelled() {
+                filled.cancel(false);
+            }
+
+            @Override
+            public void reportFillError(Throwable t) {
+                filled.completeExceptionally(t);
+            }
+        });
+
+        Runnable cancel = () -> {
+            try {
+                handle.cancellFill();
+            } catch (JRException e) {
+                logger.debug("Fail to cancel the fill: {}", e.getMessage());
+            }
+        };
+
+        deadline.addCancelListener(cancel);
+        try {
+            handle.startFill();
+            return filled.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            logger.debug("Report fill cancelled, deadline expired or client disconnected");
+            cancel.run();
+            try {
+                filled.get(CANCEL_GRACE_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | CancellationException | ExecutionException ignore) {
+                // The fill stopped or did not stop in the grace time, the deadline exception is thrown anyway
+            }
+            if (!filled.isDone()) {
+                abortConnection(connection);
+            }
+            throw deadline.exception(GeneratorMetrics.STAGE_FILL);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            deadline.removeCancelListener(cancel);
+        }
+    }
+
+    /**
+     * Abort the connection of a fill that did not stop in the cancel grace time, the pooled connection
+     * is evicted from the pool instead of returned to be borrowed while the statement is still running
+     *
+     * @param connection The connection, can be null
+     * @since 1.1.0
+     */
+    protected void abortConnection(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        logger.warn("The report fill did not stop in {} ms, abort the database connection", CANCEL_GRACE_MS);
+        try {
+            if (connectionPoolRegistry.isEnabled()) {
+                connectionPoolRegistry.evictConnection(connection);
+            } else {
+                connection.abort(Runnable::run);
+            }
+        } catch (SQLException e) {
+            logger.debug("Fail to abort the connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * If the template has a query that must be executed by the query executer
+     *
+     * @return true if has query
+     * @since 1.1.0
+     */
+    private boolean hasQuery() {
+        return jasperReport.getQuery() != null && StringUtils.isNotBlank(jasperReport.getQuery().getText());
+    }
+
+    /**
+     * Set the in memory resources repository
+     *
+     * @param memoryRepository The repository
+     * @since 1.1.0
+     */
+    public void setMemoryRepository(InMemoryRepositoryService memoryRepository) {
+        this.memoryRepository = memoryRepository;
+    }
+
+    /**
+     * Set the base64 encoded file datasource to be decoded while filling with the streaming datasources
+     *
+     * @param dataSourceBase64 The base64 encoded json or xml
+     * @since 1.1.0
+     */
+    public void setDataSourceBase64(String dataSourceBase64) {
+        this.dataSourceBase64 = dataSourceBase64;
+    }
+
+    /**
+     * Set the virtualizer of the filled pages, the pages above the virtualizer threshold are swapped to disk
+     *
+     * @param virtualizer The virtualizer
+     * @since 1.1.0
+     */
+    public void setVirtualizer(JRVirtualizer virtualizer) {
+        this.virtualizer = virtualizer;
+    }
+
+    /**
+     * Set the request deadline, the fill is cancelled when the deadline passes or the client disconnects
+     *
+     * @param deadline The deadline
+     * @since 1.1.0
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Set the timer of the generation stages, the open of the datasource is timed if set
+     *
+     * @param stageTimer The stage timer
+     * @since 1.1.0
+     */
+    public void setStageTimer(StageTimer stageTimer) {
+        this.stageTimer = stageTimer;
+    }
+
+    /**
+     * Get the loaded template
+     *
+     * @return The template
+     * @since 1.1.0
+     */
+    public JasperReport getJasperReport() {
+        return jasperReport;
+    }
+}
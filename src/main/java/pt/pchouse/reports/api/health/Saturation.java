@@ -0,0 +1,240 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.health;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.admission.AdmissionControl;
+import pt.pchouse.reports.api.printer.PrintQueue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The saturation of the service, the health indicator 'saturation' of the readiness group.
+ * The indicator only reads counters, it does not lock nor use the task executor, so it answers
+ * while the executor is saturated. It is out of service when a threshold is crossed
+ * so the load balancer routes the requests to other nodes until the saturation drops.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class Saturation implements HealthIndicator {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private PrintQueue printQueue;
+
+    /**
+     * The tmp dir defined in the application.properties,
+     * if empty the system tmp dir is used
+     * @since 1.1.0
+     */
+    @Value("${report.tmpdir}")
+    private String configTmpDir;
+
+    /**
+     * The maximum ratio of the executor queue in use, zero or less disable the check
+     * @since 1.1.0
+     */
+    @Value("${report.health.executor.queue.max.ratio}")
+    private double executorQueueMaxRatio;
+
+    /**
+     * The minimum free bytes of the tmp dir, zero or less disable the check
+     * @since 1.1.0
+     */
+    @Value("${report.health.tmpdir.min.free.bytes}")
+    private long tmpDirMinFreeBytes;
+
+    /**
+     * The minimum ratio of the maximum heap free after the last garbage collection, zero or less disable the check
+     * @since 1.1.0
+     */
+    @Value("${report.health.heap.min.free.ratio}")
+    private double heapMinFreeRatio;
+
+    /**
+     * The maximum ratio of a printer queue in use, zero or less disable the check
+     * @since 1.1.0
+     */
+    @Value("${report.health.print.queue.max.ratio}")
+    private double printQueueMaxRatio;
+
+    /**
+     * The saturation health indicator
+     * @since 1.1.0
+     */
+    public Saturation() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * The saturation health, out of service if a threshold is crossed
+     *
+     * @return The health
+     * @since 1.1.0
+     */
+    @Override
+    public Health health() {
+        List<String> saturated = new ArrayList<>();
+
+        Map<String, Object> executor = new LinkedHashMap<>();
+        int queued = admissionControl.getQueued();
+        int queueCapacity = admissionControl.getQueueCapacity();
+        executor.put("active", admissionControl.getActive());
+        executor.put("maxPoolSize", admissionControl.getMaxPoolSize());
+        executor.put("queued", queued);
+        executor.put("queueCapacity", queueCapacity);
+        executor.put("rejected", admissionControl.getRejected());
+        if (exceeds(queued, queueCapacity, executorQueueMaxRatio)) {
+            saturated.add(String.format("executor queue %d of %d", queued, queueCapacity));
+        }
+
+        Map<String, Object> tmpDir = new LinkedHashMap<>();
+        File dir = getTmpDir();
+        long freeBytes = dir.getUsableSpace();
+        tmpDir.put("path", dir.getAbsolutePath());
+        tmpDir.put("freeBytes", freeBytes);
+        if (tmpDirMinFreeBytes > 0 && freeBytes < tmpDirMinFreeBytes) {
+            saturated.add(String.format("tmp dir free %d bytes", freeBytes));
+        }
+
+        Map<String, Object> heap = new LinkedHashMap<>();
+        Runtime runtime = Runtime.getRuntime();
+        long max = runtime.maxMemory();
+        long live = getHeapLive();
+        heap.put("maxBytes", max);
+        heap.put("usedBytes", runtime.totalMemory() - runtime.freeMemory());
+        heap.put("liveBytes", live);
+        heap.put("headroomBytes", max - live);
+        if (heapMinFreeRatio > 0 && max - live < max * heapMinFreeRatio) {
+            saturated.add(String.format("heap headroom %d of %d bytes", max - live, max));
+        }
+
+        Map<String, Object> print = new LinkedHashMap<>();
+        Map<String, Integer> printQueued = printQueue.getQueued();
+        print.put("printing", printQueue.getPrinting());
+        print.put("queueCapacity", printQueue.getQueueCapacity());
+        print.put("queued", printQueued);
+        printQueued.forEach((printer, printerQueued) -> {
+            if (exceeds(printerQueued, printQueue.getQueueCapacity(), printQueueMaxRatio)) {
+                saturated.add(String.format(
+                        "print queue of '%s' %d of %d", printer, printerQueued, printQueue.getQueueCapacity()
+                ));
+            }
+        });
+
+        if (!saturated.isEmpty()) {
+            logger.debug("Service saturated: {}", StringUtils.join(saturated, ", "));
+        }
+
+        Health.Builder builder = saturated.isEmpty() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("executor", executor)
+                .withDetail("tmpDir", tmpDir)
+                .withDetail("heap", heap)
+                .withDetail("printQueue", print)
+                .withDetail("saturated", saturated)
+                .build();
+    }
+
+    /**
+     * If the used ratio of a capacity is equal or greater than the maximum ratio
+     *
+     * @param used     The used
+     * @param capacity The capacity
+     * @param maxRatio The maximum ratio, zero or less is never exceeded
+     * @return true if exceeded
+     * @since 1.1.0
+     */
+    static boolean exceeds(int used, int capacity, double maxRatio) {
+        return maxRatio > 0 && capacity > 0 && used >= capacity * maxRatio;
+    }
+
+    /**
+     * The heap in use after the last garbage collection of each heap pool,
+     * the current heap in use if the pools do not report it
+     *
+     * @return The live heap bytes
+     * @since 1.1.0
+     */
+    static long getHeapLive() {
+        long live = 0;
+        boolean collected = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null && usage.getUsed() > 0) {
+                live += usage.getUsed();
+                collected = true;
+            }
+        }
+
+        if (collected) {
+            return live;
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The dir where the reports are generated
+     *
+     * @return The tmp dir
+     * @since 1.1.0
+     */
+    File getTmpDir() {
+        return new File(
+                StringUtils.isNotEmpty(configTmpDir) ? configTmpDir : System.getProperty("java.io.tmpdir")
+        );
+    }
+}
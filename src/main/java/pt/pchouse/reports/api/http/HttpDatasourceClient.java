@@ -0,0 +1,314 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.cache.CacheResponseStatus;
+import org.apache.http.client.cache.HttpCacheContext;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.cache.CacheConfig;
+import org.apache.http.impl.client.cache.CachingHttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import rebelo.reports.core.datasource.ARRDsHttp;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared http client of the http(s) datasources, the connections are pooled and kept alive
+ * between reports and the responses are cached honouring the ETag, Last-Modified and Cache-Control headers
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class HttpDatasourceClient {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The maximum pooled connections
+     * @since 1.1.0
+     */
+    @Value("${report.http.pool.max.total}")
+    private int maxTotal;
+
+    /**
+     * The maximum pooled connections for each host
+     * @since 1.1.0
+     */
+    @Value("${report.http.pool.max.per.route}")
+    private int maxPerRoute;
+
+    /**
+     * The time in milliseconds that an idle connection is kept alive
+     * @since 1.1.0
+     */
+    @Value("${report.http.pool.idle.timeout.ms}")
+    private long idleTimeout;
+
+    /**
+     * The connect timeout in milliseconds
+     * @since 1.1.0
+     */
+    @Value("${report.http.connect.timeout.ms}")
+    private int connectTimeout;
+
+    /**
+     * The socket read timeout in milliseconds
+     * @since 1.1.0
+     */
+    @Value("${report.http.socket.timeout.ms}")
+    private int socketTimeout;
+
+    /**
+     * If the responses are cached
+     * @since 1.1.0
+     */
+    @Value("${report.http.cache.enabled}")
+    private boolean cacheEnabled;
+
+    /**
+     * The maximum cached responses
+     * @since 1.1.0
+     */
+    @Value("${report.http.cache.max.entries}")
+    private int cacheMaxEntries;
+
+    /**
+     * The maximum size in bytes of a cached response
+     * @since 1.1.0
+     */
+    @Value("${report.http.cache.max.object.bytes}")
+    private long cacheMaxObjectBytes;
+
+    /**
+     * The http client
+     * @since 1.1.0
+     */
+    private CloseableHttpClient httpClient;
+
+    /**
+     * Responses served from the cache without request to the server
+     * @since 1.1.0
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Cached responses validated by the server (304 Not Modified)
+     * @since 1.1.0
+     */
+    private final AtomicLong validated = new AtomicLong();
+
+    /**
+     * Responses fetched from the server
+     * @since 1.1.0
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * The http datasource client
+     * @since 1.1.0
+     */
+    public HttpDatasourceClient() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Create the http client
+     * @since 1.1.0
+     */
+    @PostConstruct
+    public void init() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(Math.max(1, maxTotal));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, maxPerRoute));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .build();
+
+        HttpClientBuilder builder;
+        if (cacheEnabled) {
+            builder = CachingHttpClients.custom().setCacheConfig(
+                    CacheConfig.custom()
+                            .setMaxCacheEntries(Math.max(1, cacheMaxEntries))
+                            .setMaxObjectSize(cacheMaxObjectBytes)
+                            .setSharedCache(false)
+                            .build()
+            );
+        } else {
+            builder = HttpClients.custom();
+        }
+
+        httpClient = builder
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Close the http client and the pooled connections
+     *
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    /**
+     * Open the stream of the http(s) datasource, the connection is returned to the pool when the stream is closed
+     *
+     * @param url  The url
+     * @param type The request verb
+     * @return The response body
+     * @throws IOException If fail or the server respond with a non 2xx status
+     * @since 1.1.0
+     */
+    public InputStream open(URL url, ARRDsHttp.Type type) throws IOException {
+        logger.debug("Open datasource url '{}'", url);
+
+        HttpUriRequest request;
+        try {
+            request = ARRDsHttp.Type.POST.equals(type) ?
+                    new HttpPost(url.toURI()) :
+                    new HttpGet(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        HttpCacheContext context = HttpCacheContext.create();
+        CloseableHttpResponse response = httpClient.execute(request, context);
+        count(context.getCacheResponseStatus());
+
+        int status = response.getStatusLine().getStatusCode();
+        if (status < 200 || status > 299) {
+            // Consume the body so the connection can be reused
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+            throw new IOException(String.format("Datasource url '%s' respond with status %s", url, status));
+        }
+
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            response.close();
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        return new FilterInputStream(entity.getContent()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    response.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Count the cache response status
+     *
+     * @param status The cache response status, null if the cache is disabled
+     * @since 1.1.0
+     */
+    private void count(CacheResponseStatus status) {
+        if (status == null) {
+            misses.incrementAndGet();
+            return;
+        }
+        switch (status) {
+            case CACHE_HIT:
+            case CACHE_MODULE_RESPONSE:
+                hits.incrementAndGet();
+                logger.debug("Datasource response served from cache");
+                break;
+            case VALIDATED:
+                validated.incrementAndGet();
+                logger.debug("Datasource cached response validated by the server");
+                break;
+            default:
+                misses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Responses served from the cache without request to the server
+     *
+     * @return The hits
+     * @since 1.1.0
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Cached responses validated by the server
+     *
+     * @return The validated
+     * @since 1.1.0
+     */
+    public long getValidated() {
+        return validated.get();
+    }
+
+    /**
+     * Responses fetched from the server
+     *
+     * @return The misses
+     * @since 1.1.0
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
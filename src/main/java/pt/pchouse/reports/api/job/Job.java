@@ -0,0 +1,306 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.job;
+
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+/**
+ * A report generation job, the state transitions are synchronized
+ * because the job is changed by the job thread and by the cancel requests
+ *
+ * @since 1.1.0
+ */
+public class Job {
+
+    /**
+     * The job states
+     * @since 1.1.0
+     */
+    public enum State {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED,
+        CANCELLED
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    private final String id;
+
+    /**
+     * The report type of the job request
+     * @since 1.1.0
+     */
+    private final ReportRequest.ReportType reportType;
+
+    /**
+     * The encoding of the job request
+     * @since 1.1.0
+     */
+    private final String encoding;
+
+    /**
+     * @since 1.1.0
+     */
+    private final Instant submitted;
+
+    /**
+     * @since 1.1.0
+     */
+    private Instant started;
+
+    /**
+     * @since 1.1.0
+     */
+    private Instant finished;
+
+    /**
+     * @since 1.1.0
+     */
+    private State state = State.QUEUED;
+
+    /**
+     * The error message of a failed job
+     * @since 1.1.0
+     */
+    private String message = "";
+
+    /**
+     * The generated report file, null if not generated or if the report is printed
+     * @since 1.1.0
+     */
+    private Path result;
+
+    /**
+     * The generated report size in bytes
+     * @since 1.1.0
+     */
+    private long size;
+
+    /**
+     * The future of the job task
+     * @since 1.1.0
+     */
+    private Future<?> future;
+
+    /**
+     * The deadline of the job generation without time limit, cancelled to stop the fill when the job is cancelled
+     * @since 1.1.0
+     */
+    private final Deadline deadline = new Deadline(0, System.nanoTime());
+
+    /**
+     * @param id         The job id
+     * @param reportType The report type
+     * @param encoding   The report encoding
+     * @since 1.1.0
+     */
+    public Job(String id, ReportRequest.ReportType reportType, String encoding) {
+        this.id = id;
+        this.reportType = reportType;
+        this.encoding = encoding;
+        this.submitted = Instant.now();
+    }
+
+    /**
+     * Change the state from queued to running
+     *
+     * @return false if the job is not queued (cancelled before start)
+     * @since 1.1.0
+     */
+    synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        started = Instant.now();
+        return true;
+    }
+
+    /**
+     * Change the state from running to done
+     *
+     * @param result The generated report file, null if printed
+     * @param size   The generated report size
+     * @return false if the job is not running (cancelled while running)
+     * @since 1.1.0
+     */
+    synchronized boolean done(Path result, long size) {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        this.result = result;
+        this.size = size;
+        state = State.DONE;
+        finished = Instant.now();
+        return true;
+    }
+
+    /**
+     * Change the state from running to failed
+     *
+     * @param message The error message
+     * @since 1.1.0
+     */
+    synchronized void fail(String message) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        this.message = message == null ? "" : message;
+        state = State.FAILED;
+        finished = Instant.now();
+    }
+
+    /**
+     * Change the state from queued or running to cancelled
+     *
+     * @return false if the job is already finished
+     * @since 1.1.0
+     */
+    synchronized boolean cancel() {
+        if (state != State.QUEUED && state != State.RUNNING) {
+            return false;
+        }
+        state = State.CANCELLED;
+        message = "Job cancelled";
+        finished = Instant.now();
+        return true;
+    }
+
+    /**
+     * If the job is finished (done, failed or cancelled)
+     *
+     * @return true if finished
+     * @since 1.1.0
+     */
+    public synchronized boolean isFinished() {
+        return finished != null;
+    }
+
+    /**
+     * @return The job id
+     * @since 1.1.0
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The report type
+     * @since 1.1.0
+     */
+    public ReportRequest.ReportType getReportType() {
+        return reportType;
+    }
+
+    /**
+     * @return The report encoding
+     * @since 1.1.0
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return The submit instant
+     * @since 1.1.0
+     */
+    public Instant getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * @return The start instant, null if not started
+     * @since 1.1.0
+     */
+    public synchronized Instant getStarted() {
+        return started;
+    }
+
+    /**
+     * @return The finish instant, null if not finished
+     * @since 1.1.0
+     */
+    public synchronized Instant getFinished() {
+        return finished;
+    }
+
+    /**
+     * @return The state
+     * @since 1.1.0
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return The error message
+     * @since 1.1.0
+     */
+    public synchronized String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The generated report file, null if not generated or printed
+     * @since 1.1.0
+     */
+    public synchronized Path getResult() {
+        return result;
+    }
+
+    /**
+     * @return The generated report size in bytes
+     * @since 1.1.0
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return The future of the job task
+     * @since 1.1.0
+     */
+    synchronized Future<?> getFuture() {
+        return future;
+    }
+
+    /**
+     * @param future The future of the job task
+     * @since 1.1.0
+     */
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * @return The deadline of the job generation
+     * @since 1.1.0
+     */
+    Deadline getDeadline() {
+        return deadline;
+    }
+}
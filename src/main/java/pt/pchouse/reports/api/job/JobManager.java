@@ -0,0 +1,404 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.job;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.generator.IGenerator;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.metrics.GeneratorMetrics;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Run the report generation jobs in a bounded executor, separated from the request threads.
+ * The generated reports are kept in the result directory until the result ttl expires.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class JobManager {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ApplicationContext appContext;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private GeneratorMetrics generatorMetrics;
+
+    /**
+     * Number of threads generating the jobs
+     * @since 1.1.0
+     */
+    @Value("${report.job.pool.size}")
+    private int poolSize;
+
+    /**
+     * Maximum number of queued jobs waiting for a thread
+     * @since 1.1.0
+     */
+    @Value("${report.job.queue}")
+    private int queueCapacity;
+
+    /**
+     * The result dir defined in the application.properties,
+     * if empty the system tmp dir is used
+     * @since 1.1.0
+     */
+    @Value("${report.job.result.dir}")
+    private String configResultDir;
+
+    /**
+     * Time to keep the finished jobs and their results
+     * @since 1.1.0
+     */
+    @Value("${report.job.result.ttl.ms}")
+    private long resultTtl;
+
+    /**
+     * Interval between the purges of the expired jobs
+     * @since 1.1.0
+     */
+    @Value("${report.job.purge.interval.ms}")
+    private long purgeInterval;
+
+    /**
+     * The jobs by id
+     * @since 1.1.0
+     */
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * @since 1.1.0
+     */
+    private ThreadPoolExecutor jobExecutor;
+
+    /**
+     * @since 1.1.0
+     */
+    private ScheduledExecutorService purgeExecutor;
+
+    /**
+     * The job manager
+     * @since 1.1.0
+     */
+    public JobManager() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Create the job executor and schedule the purge of the expired jobs
+     *
+     * @throws IOException If fail to create the result directory
+     * @since 1.1.0
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        jobExecutor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ReportsJob-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        jobExecutor.allowCoreThreadTimeOut(true);
+
+        purgeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ReportsJobPurge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purgeExecutor.scheduleWithFixedDelay(
+                this::purge, purgeInterval, purgeInterval, TimeUnit.MILLISECONDS
+        );
+
+        purgeOrphanResults();
+    }
+
+    /**
+     * Get the result directory, created if not exists
+     *
+     * @return The result directory
+     * @throws IOException If fail to create the directory
+     * @since 1.1.0
+     */
+    public Path getResultDir() throws IOException {
+        Path dir = StringUtils.isNotEmpty(configResultDir) ?
+                Paths.get(configResultDir) :
+                Paths.get(System.getProperty("java.io.tmpdir"), "reports_jobs");
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * Submit a report generation job
+     *
+     * @param reportRequest The report request
+     * @return The queued job
+     * @throws JobException If the job queue is full
+     * @since 1.1.0
+     */
+    public Job submit(ReportRequest reportRequest) throws JobException {
+        Job job = new Job(UUID.randomUUID().toString(), reportRequest.getReportType(), reportRequest.getEncoding());
+        jobs.put(job.getId(), job);
+        long submitted = System.nanoTime();
+        try {
+            // Synchronized so the task can not finish before the future is set
+            synchronized (job) {
+                job.setFuture(jobExecutor.submit(() -> run(job, reportRequest, submitted)));
+            }
+            logger.debug("Job '{}' submitted", job.getId());
+            return job;
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            String msg = "The job queue is full, try again later";
+            logger.error(msg);
+            throw new JobException(msg);
+        }
+    }
+
+    /**
+     * Generate the report of the job and write it to the result directory
+     *
+     * @param job           The job
+     * @param reportRequest The report request
+     * @param submitted     The submit time in nanoseconds
+     * @since 1.1.0
+     */
+    private void run(Job job, ReportRequest reportRequest, long submitted) {
+        if (!job.start()) {
+            logger.debug("Job '{}' cancelled before start", job.getId());
+            return;
+        }
+
+        generatorMetrics.recordQueueWait("job", System.nanoTime() - submitted);
+
+        logger.debug("Job '{}' started", job.getId());
+        IGenerator generator = null;
+        Path result = null;
+        try {
+            generator = appContext.getBean(IGenerator.class, reportRequest);
+            // With a deadline the fill is asynchronous and stopped when the job is cancelled
+            generator.setDeadline(job.getDeadline());
+            ReportOutput output = generator.generateOutput();
+
+            long size = 0;
+            if (output != null) {
+                ReportRequest.ReportType reportType = reportRequest.getReportType();
+                String extension = reportType == null || reportType.getExtension() == null ?
+                        "bin" : reportType.getExtension();
+                Path dir = getResultDir();
+                Path tmp = Files.createTempFile(dir, job.getId(), ".tmp");
+                try (OutputStream outputStream = Files.newOutputStream(tmp)) {
+                    output.writeTo(outputStream);
+                }
+                result = Files.move(
+                        tmp, dir.resolve(job.getId() + "." + extension), StandardCopyOption.ATOMIC_MOVE
+                );
+                size = Files.size(result);
+            }
+
+            if (!job.done(result, size)) {
+                deleteResult(result);
+                logger.debug("Job '{}' cancelled while running", job.getId());
+                return;
+            }
+            logger.debug("Job '{}' done", job.getId());
+        } catch (Exception e) {
+            logger.error("Job '{}' failed: {}", job.getId(), e.getMessage());
+            deleteResult(result);
+            job.fail(e.getMessage());
+        } finally {
+            if (generator != null) {
+                generator.clean();
+            }
+        }
+    }
+
+    /**
+     * Get a job
+     *
+     * @param id The job id
+     * @return The job or null if not exists or expired
+     * @since 1.1.0
+     */
+    public Job get(String id) {
+        return id == null ? null : jobs.get(id);
+    }
+
+    /**
+     * Cancel a queued or running job, a finished job is removed with its result
+     *
+     * @param id The job id
+     * @return false if the job not exists
+     * @since 1.1.0
+     */
+    public boolean cancel(String id) {
+        Job job = get(id);
+        if (job == null) {
+            return false;
+        }
+
+        if (job.cancel()) {
+            job.getDeadline().cancel();
+            Future<?> future = job.getFuture();
+            if (future != null) {
+                future.cancel(true);
+            }
+            logger.debug("Job '{}' cancelled", id);
+            return true;
+        }
+
+        jobs.remove(id);
+        deleteResult(job.getResult());
+        logger.debug("Job '{}' removed", id);
+        return true;
+    }
+
+    /**
+     * Remove the finished jobs and their results older than the result ttl
+     * @since 1.1.0
+     */
+    public void purge() {
+        Instant expired = Instant.now().minus(Duration.ofMillis(resultTtl));
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            Instant finished = job.getFinished();
+            if (finished != null && finished.isBefore(expired)) {
+                iterator.remove();
+                deleteResult(job.getResult());
+                logger.debug("Job '{}' expired", job.getId());
+            }
+        }
+    }
+
+    /**
+     * Delete the result files older than the result ttl left by a previous run
+     * @since 1.1.0
+     */
+    private void purgeOrphanResults() {
+        long expired = System.currentTimeMillis() - resultTtl;
+        try (Stream<Path> files = Files.list(getResultDir())) {
+            files.filter(file -> {
+                try {
+                    return Files.getLastModifiedTime(file).toMillis() < expired;
+                } catch (IOException e) {
+                    return false;
+                }
+            }).forEach(this::deleteResult);
+        } catch (IOException e) {
+            logger.error("Fail to purge the job results: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete a result file
+     *
+     * @param result The result file, can be null
+     * @since 1.1.0
+     */
+    private void deleteResult(Path result) {
+        if (result == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(result);
+        } catch (IOException e) {
+            logger.error("Fail to delete the job result '{}': {}", result, e.getMessage());
+        }
+    }
+
+    /**
+     * Number of jobs waiting for a thread
+     *
+     * @return The queued jobs
+     * @since 1.1.0
+     */
+    public int getQueued() {
+        return jobExecutor.getQueue().size();
+    }
+
+    /**
+     * Number of jobs being generated
+     *
+     * @return The running jobs
+     * @since 1.1.0
+     */
+    public int getRunning() {
+        return jobExecutor.getActiveCount();
+    }
+
+    /**
+     * Number of jobs kept, including the finished not expired
+     *
+     * @return The jobs
+     * @since 1.1.0
+     */
+    public int getSize() {
+        return jobs.size();
+    }
+
+    /**
+     * Stop the job executor and the purge
+     * @since 1.1.0
+     */
+    @PreDestroy
+    public void close() {
+        purgeExecutor.shutdownNow();
+        jobExecutor.shutdownNow();
+    }
+}
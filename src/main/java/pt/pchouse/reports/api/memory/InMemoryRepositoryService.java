@@ -0,0 +1,130 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.memory;
+
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.repo.DefaultRepositoryService;
+import net.sf.jasperreports.repo.RepositoryContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JasperReports repository that serves the report resources (sub reports, images, datasources)
+ * from memory, resolved by the resource name as referenced in the template
+ *
+ * @since 1.1.0
+ */
+public class InMemoryRepositoryService extends DefaultRepositoryService {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The resources by name
+     * @since 1.1.0
+     */
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+
+    /**
+     * @param jasperReportsContext The JasperReports context
+     * @since 1.1.0
+     */
+    public InMemoryRepositoryService(JasperReportsContext jasperReportsContext) {
+        super(jasperReportsContext);
+    }
+
+    /**
+     * Add a resource
+     *
+     * @param name  The resource name
+     * @param bytes The resource content
+     * @since 1.1.0
+     */
+    public void put(String name, byte[] bytes) {
+        resources.put(name, bytes);
+    }
+
+    /**
+     * Check if a resource exists
+     *
+     * @param name The resource name
+     * @return true if exists
+     * @since 1.1.0
+     */
+    public boolean contains(String name) {
+        return resources.containsKey(normalize(name));
+    }
+
+    @Override
+    public InputStream getInputStream(String uri) {
+        return find(uri);
+    }
+
+    @Override
+    public InputStream getInputStream(RepositoryContext context, String uri) {
+        return find(uri);
+    }
+
+    /**
+     * The in memory repository is read only
+     */
+    @Override
+    public OutputStream getOutputStream(String uri) {
+        return null;
+    }
+
+    /**
+     * Find a resource
+     *
+     * @param uri The resource uri
+     * @return The resource stream or null if not exists, so the next repository is used
+     * @since 1.1.0
+     */
+    private InputStream find(String uri) {
+        byte[] bytes = uri == null ? null : resources.get(normalize(uri));
+        if (bytes == null) {
+            return null;
+        }
+        logger.debug("Resource '{}' served from memory", uri);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Normalize the uri to the resource name
+     *
+     * @param uri The uri
+     * @return The name
+     * @since 1.1.0
+     */
+    private String normalize(String uri) {
+        String name = uri;
+        while (name.startsWith("./")) {
+            name = name.substring(2);
+        }
+        return name;
+    }
+}
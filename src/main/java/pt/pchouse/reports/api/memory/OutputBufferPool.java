@@ -0,0 +1,117 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of the in memory output buffers, the buffers are reused between
+ * requests to avoid growing a new buffer for each generated report
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class OutputBufferPool {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The initial capacity of a new buffer
+     * @since 1.1.0
+     */
+    @Value("${report.memory.buffer.initial.bytes}")
+    private int initialBytes;
+
+    /**
+     * Buffers that grew bigger than this size are not returned to the pool
+     * @since 1.1.0
+     */
+    @Value("${report.memory.buffer.retain.bytes}")
+    private int retainBytes;
+
+    /**
+     * The idle buffers
+     * @since 1.1.0
+     */
+    private final BlockingQueue<ByteArrayOutputStream> buffers;
+
+    /**
+     * @param poolSize The maximum number of idle buffers
+     * @since 1.1.0
+     */
+    public OutputBufferPool(@Value("${report.memory.buffer.pool.size}") int poolSize) {
+        logger.debug("New instance of {}", this.getClass().getName());
+        buffers = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    /**
+     * Borrow a buffer from the pool, a new one is created if the pool is empty
+     *
+     * @return The empty buffer
+     * @since 1.1.0
+     */
+    public ByteArrayOutputStream borrow() {
+        ByteArrayOutputStream buffer = buffers.poll();
+        if (buffer == null) {
+            logger.debug("Output buffer pool empty, create a new buffer");
+            return new ByteArrayOutputStream(Math.max(32, initialBytes));
+        }
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool, the buffer is discarded if the pool is full
+     * or if it grew more than the retain size
+     *
+     * @param buffer The buffer
+     * @since 1.1.0
+     */
+    public void giveBack(ByteArrayOutputStream buffer) {
+        if (buffer == null || buffer.size() > retainBytes) {
+            return;
+        }
+        buffer.reset();
+        if (!buffers.offer(buffer)) {
+            logger.debug("Output buffer pool full, buffer discarded");
+        }
+    }
+
+    /**
+     * Number of idle buffers in the pool
+     *
+     * @return The idle buffers
+     * @since 1.1.0
+     */
+    public int getIdle() {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The generated report output, written to a pooled in memory buffer
+ * that spills to a temporary file when the output exceeds the threshold.
+ * Can also wrap an already generated report file.
+ *
+ * @since 1.1.0
+ */
+public class ReportOutput extends OutputStream {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The buffer pool, null if the output is a file
+     * @since 1.1.0
+     */
+    private final OutputBufferPool pool;
+
+    /**
+     * The maximum bytes kept in memory
+     * @since 1.1.0
+     */
+    private final long threshold;
+
+    /**
+     * The directory of the spill file, if null the system tmp dir is used
+     * @since 1.1.0
+     */
+    private final Path spillDir;
+
+    /**
+     * The in memory buffer, null after spill or release
+     * @since 1.1.0
+     */
+    private ByteArrayOutputStream buffer;
+
+    /**
+     * The output file
+     * @since 1.1.0
+     */
+    private Path file;
+
+    /**
+     * If the file is a spill file to be deleted on release
+     * @since 1.1.0
+     */
+    private boolean spilled = false;
+
+    /**
+     * The spill file stream
+     * @since 1.1.0
+     */
+    private OutputStream fileStream;
+
+    /**
+     * The number of written bytes
+     * @since 1.1.0
+     */
+    private long size = 0;
+
+    /**
+     * Run once when the output is released, null if none
+     * @since 1.1.0
+     */
+    private Runnable onRelease;
+
+    /**
+     * In memory output
+     *
+     * @param pool      The buffer pool
+     * @param threshold The maximum bytes kept in memory before spill to a file
+     * @param spillDir  The directory of the spill file, if null the system tmp dir is used
+     * @since 1.1.0
+     */
+    public ReportOutput(OutputBufferPool pool, long threshold, Path spillDir) {
+        this.pool = pool;
+        this.threshold = threshold;
+        this.spillDir = spillDir;
+        this.buffer = pool.borrow();
+    }
+
+    /**
+     * @param file The generated report file
+     * @since 1.1.0
+     */
+    private ReportOutput(Path file) throws IOException {
+        this.pool = null;
+        this.threshold = 0;
+        this.spillDir = null;
+        this.file = file;
+        this.size = Files.size(file);
+    }
+
+    /**
+     * Wrap an already generated report file
+     *
+     * @param file The report file
+     * @return The output
+     * @throws IOException If fail to read the file size
+     * @since 1.1.0
+     */
+    public static ReportOutput ofFile(Path file) throws IOException {
+        return new ReportOutput(file);
+    }
+
+    /**
+     * Wrap an already generated report file owned by other, the owner is notified when the output is released
+     *
+     * @param file      The report file
+     * @param onRelease Run once when the output is released
+     * @return The output
+     * @throws IOException If fail to read the file size
+     * @since 1.1.0
+     */
+    public static ReportOutput ofFile(Path file, Runnable onRelease) throws IOException {
+        ReportOutput output = new ReportOutput(file);
+        output.onRelease = onRelease;
+        return output;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        if (buffer != null && size + len > threshold) {
+            spill();
+        }
+
+        if (buffer != null) {
+            buffer.write(bytes, off, len);
+        } else if (fileStream != null) {
+            fileStream.write(bytes, off, len);
+        } else {
+            throw new IOException("The report output is closed");
+        }
+        size += len;
+    }
+
+    /**
+     * Move the buffered bytes to the spill file, the next writes go to the file
+     *
+     * @throws IOException If fail to create or write the file
+     * @since 1.1.0
+     */
+    private void spill() throws IOException {
+        file = spillDir == null ?
+                Files.createTempFile("report", ".out") :
+                Files.createTempFile(spillDir, "report", ".out");
+        spilled = true;
+        logger.debug("Report output exceeds {} bytes, spill to '{}'", threshold, file);
+        fileStream = new BufferedOutputStream(Files.newOutputStream(file));
+        buffer.writeTo(fileStream);
+        pool.giveBack(buffer);
+        buffer = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileStream != null) {
+            fileStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileStream != null) {
+            fileStream.close();
+            fileStream = null;
+        }
+    }
+
+    /**
+     * If the output is kept in memory
+     *
+     * @return true if in memory
+     * @since 1.1.0
+     */
+    public boolean isInMemory() {
+        return buffer != null;
+    }
+
+    /**
+     * The output size in bytes
+     *
+     * @return The size
+     * @since 1.1.0
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the output file, null if the output is in memory
+     *
+     * @return The file
+     * @since 1.1.0
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Write the output to the stream
+     *
+     * @param outputStream The stream
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        close();
+        if (buffer != null) {
+            buffer.writeTo(outputStream);
+            return;
+        }
+        if (file != null) {
+            Files.copy(file, outputStream);
+        }
+    }
+
+    /**
+     * Get the output as byte array
+     *
+     * @return The bytes
+     * @throws IOException If fail to read the file
+     * @since 1.1.0
+     */
+    public byte[] toByteArray() throws IOException {
+        close();
+        if (buffer != null) {
+            return buffer.toByteArray();
+        }
+        return file == null ? new byte[0] : Files.readAllBytes(file);
+    }
+
+    /**
+     * Return the buffer to the pool and delete the spill file
+     * @since 1.1.0
+     */
+    public void release() {
+        try {
+            close();
+            if (buffer != null) {
+                pool.giveBack(buffer);
+                buffer = null;
+            }
+            if (spilled) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.debug("Fail to release the report output with error: {}", e.getMessage());
+        } finally {
+            if (onRelease != null) {
+                Runnable released = onRelease;
+                onRelease = null;
+                released.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The report generation latency timers, one timer per stage tagged by report type and datasource kind,
+ * exposed by the actuator metrics and prometheus endpoints
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class GeneratorMetrics {
+
+    /**
+     * The generator stages timer name
+     * @since 1.1.0
+     */
+    public static final String STAGE_TIMER = "reports.generator.stage";
+
+    /**
+     * The executors queue wait timer name
+     * @since 1.1.0
+     */
+    public static final String QUEUE_WAIT_TIMER = "reports.executor.queue.wait";
+
+    /**
+     * The whole generation, from the parse to the generated output
+     * @since 1.1.0
+     */
+    public static final String STAGE_GENERATE = "generate";
+
+    /**
+     * @since 1.1.0
+     */
+    public static final String STAGE_PARSE_PARAMETERS = "parse.parameters";
+
+    /**
+     * Includes the decode of the file datasources
+     * @since 1.1.0
+     */
+    public static final String STAGE_PARSE_DATASOURCE = "parse.datasource";
+
+    /**
+     * @since 1.1.0
+     */
+    public static final String STAGE_PARSE_RESOURCES = "parse.resources";
+
+    /**
+     * @since 1.1.0
+     */
+    public static final String STAGE_PARSE_EXPORTER = "parse.exporter";
+
+    /**
+     * The decode and load of the template or the cache lookup
+     * @since 1.1.0
+     */
+    public static final String STAGE_TEMPLATE = "template";
+
+    /**
+     * Open the database connection or the datasource stream
+     * @since 1.1.0
+     */
+    public static final String STAGE_DATASOURCE = "datasource";
+
+    /**
+     * @since 1.1.0
+     */
+    public static final String STAGE_FILL = "fill";
+
+    /**
+     * @since 1.1.0
+     */
+    public static final String STAGE_EXPORT = "export";
+
+    /**
+     * @since 1.1.0
+     */
+    public static final String STAGE_SIGN = "sign";
+
+    /**
+     * The base64 encode of the generated report
+     * @since 1.1.0
+     */
+    public static final String STAGE_ENCODE = "encode";
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Publish the percentile histogram buckets, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.metrics.histogram}")
+    private boolean histogram;
+
+    /**
+     * The generator metrics
+     * @since 1.1.0
+     */
+    public GeneratorMetrics() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Create the stage timer of a report request
+     *
+     * @param reportRequest The report request
+     * @return The stage timer
+     * @since 1.1.0
+     */
+    public StageTimer stageTimer(ReportRequest reportRequest) {
+        return new StageTimer(
+                this,
+                reportRequest.getReportType() == null ? "none" : reportRequest.getReportType().toString().toLowerCase(),
+                datasourceKind(reportRequest)
+        );
+    }
+
+    /**
+     * Get the datasource kind of the report request
+     *
+     * @param reportRequest The report request
+     * @return The datasource kind
+     * @since 1.1.0
+     */
+    public static String datasourceKind(ReportRequest reportRequest) {
+        if (reportRequest.getDatabase() != null) {
+            return "database";
+        }
+        if (reportRequest.getJsonHttps() != null) {
+            return "json_https";
+        }
+        if (reportRequest.getJsonHttp() != null) {
+            return "json_http";
+        }
+        if (reportRequest.getXmlHttps() != null) {
+            return "xml_https";
+        }
+        if (reportRequest.getXmlHttp() != null) {
+            return "xml_http";
+        }
+        if (reportRequest.getJsonFile() != null) {
+            return "json_file";
+        }
+        if (reportRequest.getXmlFile() != null) {
+            return "xml_file";
+        }
+        return "none";
+    }
+
+    /**
+     * Get the timer of a stage
+     *
+     * @param stage      The stage
+     * @param type       The report type
+     * @param datasource The datasource kind
+     * @return The timer
+     * @since 1.1.0
+     */
+    public Timer stage(String stage, String type, String datasource) {
+        return Timer.builder(STAGE_TIMER)
+                .description("Report generation stage latency")
+                .tag("stage", stage)
+                .tag("type", type)
+                .tag("datasource", datasource)
+                .publishPercentileHistogram(histogram)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the time a task waited in the executor queue
+     *
+     * @param executor The executor name
+     * @param nanos    The wait time in nanoseconds
+     * @since 1.1.0
+     */
+    public void recordQueueWait(String executor, long nanos) {
+        Timer.builder(QUEUE_WAIT_TIMER)
+                .description("Time waiting in the executor queue")
+                .tag("executor", executor)
+                .publishPercentileHistogram(histogram)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the meter registry
+     *
+     * @return The registry
+     * @since 1.1.0
+     */
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.metrics;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Time the stages of one report generation, with the report type and datasource kind tags
+ *
+ * @since 1.1.0
+ */
+public class StageTimer {
+
+    /**
+     * @since 1.1.0
+     */
+    private final GeneratorMetrics metrics;
+
+    /**
+     * The report type tag
+     * @since 1.1.0
+     */
+    private final String type;
+
+    /**
+     * The datasource kind tag
+     * @since 1.1.0
+     */
+    private final String datasource;
+
+    /**
+     * @param metrics    The generator metrics
+     * @param type       The report type tag
+     * @param datasource The datasource kind tag
+     * @since 1.1.0
+     */
+    public StageTimer(GeneratorMetrics metrics, String type, String datasource) {
+        this.metrics = metrics;
+        this.type = type;
+        this.datasource = datasource;
+    }
+
+    /**
+     * Start timing a stage
+     *
+     * @return The sample to stop
+     * @since 1.1.0
+     */
+    public Timer.Sample start() {
+        return Timer.start(metrics.getMeterRegistry());
+    }
+
+    /**
+     * Stop timing a stage and record the time
+     *
+     * @param sample The started sample
+     * @param stage  The stage
+     * @return The recorded time in nanoseconds
+     * @since 1.1.0
+     */
+    public long stop(Timer.Sample sample, String stage) {
+        return sample.stop(metrics.stage(stage, type, datasource));
+    }
+
+    /**
+     * @return The report type tag
+     * @since 1.1.0
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return The datasource kind tag
+     * @since 1.1.0
+     */
+    public String getDatasource() {
+        return datasource;
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.util.Digest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of the database connection pools, one pool for each
+ * connection string, user, password and driver
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class ConnectionPoolRegistry {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * If the pools are enabled, if not a new connection is opened for each report
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.enabled}")
+    private boolean enabled;
+
+    /**
+     * The maximum connections of each pool
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.max.size}")
+    private int maxSize;
+
+    /**
+     * The minimum idle connections of each pool
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.min.idle}")
+    private int minIdle;
+
+    /**
+     * The time in milliseconds that a connection can be idle before evicted
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.idle.timeout.ms}")
+    private long idleTimeout;
+
+    /**
+     * The maximum lifetime in milliseconds of a connection
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.max.lifetime.ms}")
+    private long maxLifetime;
+
+    /**
+     * The time in milliseconds to wait for a connection from the pool
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.connection.timeout.ms}")
+    private long connectionTimeout;
+
+    /**
+     * The time in milliseconds to wait for the connection validation
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.validation.timeout.ms}")
+    private long validationTimeout;
+
+    /**
+     * The maximum number of pools, the least recently used pool is closed when exceeded
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.max.pools}")
+    private int maxPools;
+
+    /**
+     * The interval in milliseconds of the close of the idle pools
+     * @since 1.1.0
+     */
+    @Value("${report.db.pool.housekeeping.ms}")
+    private long housekeepingInterval;
+
+    /**
+     * The pools in access order
+     * @since 1.1.0
+     */
+    private final LinkedHashMap<Key, Pool> pools = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Pool name sequence
+     * @since 1.1.0
+     */
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * @since 1.1.0
+     */
+    private ScheduledExecutorService housekeepingExecutor;
+
+    /**
+     * The pool of the borrowed connections, to evict a connection that is still in use
+     * @since 1.1.0
+     */
+    private final Map<Connection, HikariDataSource> borrowed = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The connection pool registry
+     * @since 1.1.0
+     */
+    public ConnectionPoolRegistry() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Schedule the close of the idle pools
+     * @since 1.1.0
+     */
+    @PostConstruct
+    public void init() {
+        housekeepingExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ReportsDbPoolHousekeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, housekeepingInterval);
+        housekeepingExecutor.scheduleWithFixedDelay(this::housekeeping, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * If the pools are enabled
+     *
+     * @return true if enabled
+     * @since 1.1.0
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Borrow a connection from the pool of the connection string, user, password and driver,
+     * the pool is created if not exists. The connection must be closed to be returned to the pool.
+     *
+     * @param connectionString The jdbc connection string
+     * @param driver           The driver class name, can be empty
+     * @param user             The user
+     * @param password         The password
+     * @return The connection
+     * @throws SQLException If fail to get the connection
+     * @since 1.1.0
+     */
+    public Connection getConnection(String connectionString, String driver, String user, String password) throws SQLException {
+        Pool pool = getPool(connectionString, driver, user, password);
+        try {
+            Connection connection = pool.dataSource.getConnection();
+            borrowed.put(connection, pool.dataSource);
+            return connection;
+        } finally {
+            pool.borrowing.decrementAndGet();
+        }
+    }
+
+    /**
+     * Evict a borrowed connection that is still in use, the physical connection is closed
+     * and it is not returned to the pool when closed
+     *
+     * @param connection The borrowed connection
+     * @since 1.1.0
+     */
+    public void evictConnection(Connection connection) {
+        HikariDataSource dataSource = borrowed.remove(connection);
+        if (dataSource != null) {
+            logger.debug("Evict connection from pool '{}'", dataSource.getPoolName());
+            dataSource.evictConnection(connection);
+        }
+    }
+
+    /**
+     * Get the pool of the connection string, user, password and driver marked as borrowing, a request
+     * with other password gets its own pool so the pool of the other clients is not closed.
+     * Only the idle pools are closed when the maximum of pools is exceeded, the busy pools are
+     * closed by the housekeeping when idle.
+     *
+     * @param connectionString The jdbc connection string
+     * @param driver           The driver class name, can be empty
+     * @param user             The user
+     * @param password         The password
+     * @return The pool
+     * @since 1.1.0
+     */
+    private Pool getPool(String connectionString, String driver, String user, String password) {
+        Key key = new Key(connectionString, user, driver, Digest.sha256Hex(password == null ? "" : password));
+        List<Pool> toClose = new ArrayList<>();
+        Pool pool;
+
+        synchronized (pools) {
+            pool = pools.get(key);
+            boolean created = pool == null;
+            if (created) {
+                pool = new Pool(createDataSource(key, password));
+                pools.put(key, pool);
+            }
+            pool.borrowing.incrementAndGet();
+            pool.lastUsed = System.nanoTime();
+            if (created) {
+                toClose.addAll(removeIdle(false));
+            }
+        }
+
+        closePools(toClose);
+        return pool;
+    }
+
+    /**
+     * Remove the least recently used idle pools while the maximum of pools is exceeded,
+     * must be called holding the pools lock
+     *
+     * @param expired Remove also the pools not used for more than the idle timeout
+     * @return The removed pools to be closed
+     * @since 1.1.0
+     */
+    private List<Pool> removeIdle(boolean expired) {
+        List<Pool> removed = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Key, Pool>> iterator = pools.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Pool pool = iterator.next().getValue();
+            boolean exceeded = pools.size() > Math.max(1, maxPools);
+            boolean isExpired = expired
+                    && now - pool.lastUsed > TimeUnit.MILLISECONDS.toNanos(Math.max(0, idleTimeout));
+            if ((exceeded || isExpired) && pool.isIdle()) {
+                iterator.remove();
+                removed.add(pool);
+            } else if (!exceeded && !expired) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Close the idle pools exceeding the maximum of pools and the pools not used for more than the idle timeout
+     * @since 1.1.0
+     */
+    void housekeeping() {
+        List<Pool> toClose;
+        synchronized (pools) {
+            toClose = removeIdle(true);
+        }
+        closePools(toClose);
+    }
+
+    /**
+     * Close the removed pools, outside the lock
+     *
+     * @param toClose The pools to close
+     * @since 1.1.0
+     */
+    private void closePools(List<Pool> toClose) {
+        for (Pool pool : toClose) {
+            logger.debug("Close pool '{}'", pool.dataSource.getPoolName());
+            pool.dataSource.close();
+        }
+    }
+
+    /**
+     * Create the pool
+     *
+     * @param key      The pool key
+     * @param password The password
+     * @return The pool
+     * @since 1.1.0
+     */
+    private HikariDataSource createDataSource(Key key, String password) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("reports-db-" + sequence.incrementAndGet());
+        config.setJdbcUrl(key.connectionString);
+        config.setUsername(key.user);
+        config.setPassword(password);
+        if (StringUtils.isNotEmpty(key.driver)) {
+            config.setDriverClassName(key.driver);
+        }
+        config.setMaximumPoolSize(Math.max(1, maxSize));
+        config.setMinimumIdle(Math.max(0, Math.min(minIdle, maxSize)));
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setValidationTimeout(validationTimeout);
+        logger.debug("Create pool '{}' for '{}'", config.getPoolName(), maskPassword(key.connectionString));
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Get the statistics of each pool
+     *
+     * @return The statistics
+     * @since 1.1.0
+     */
+    public List<PoolStats> getStats() {
+        List<Map.Entry<Key, Pool>> entries;
+        synchronized (pools) {
+            entries = new ArrayList<>(pools.entrySet());
+        }
+
+        List<PoolStats> stats = new ArrayList<>();
+        for (Map.Entry<Key, Pool> entry : entries) {
+            PoolStats poolStats = new PoolStats();
+            poolStats.setConnectionString(maskPassword(entry.getKey().connectionString));
+            poolStats.setUser(entry.getKey().user);
+            poolStats.setDriver(entry.getKey().driver);
+            HikariPoolMXBean mxBean = entry.getValue().dataSource.getHikariPoolMXBean();
+            if (mxBean != null) {
+                poolStats.setActive(mxBean.getActiveConnections());
+                poolStats.setIdle(mxBean.getIdleConnections());
+                poolStats.setTotal(mxBean.getTotalConnections());
+                poolStats.setWaiting(mxBean.getThreadsAwaitingConnection());
+            }
+            stats.add(poolStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Number of pools
+     *
+     * @return The number of pools
+     * @since 1.1.0
+     */
+    public int getSize() {
+        synchronized (pools) {
+            return pools.size();
+        }
+    }
+
+    /**
+     * Close all pools
+     * @since 1.1.0
+     */
+    @PreDestroy
+    public void close() {
+        if (housekeepingExecutor != null) {
+            housekeepingExecutor.shutdownNow();
+        }
+        List<Pool> toClose;
+        synchronized (pools) {
+            toClose = new ArrayList<>(pools.values());
+            pools.clear();
+        }
+        toClose.forEach(pool -> pool.dataSource.close());
+    }
+
+    /**
+     * Mask the password in the connection string
+     *
+     * @param connectionString The connection string
+     * @return The masked connection string
+     * @since 1.1.0
+     */
+    public static String maskPassword(String connectionString) {
+        if (connectionString == null) {
+            return null;
+        }
+        return connectionString.replaceAll("(?i)(password=)[^&;]*", "$1***");
+    }
+
+    /**
+     * The pool key
+     * @since 1.1.0
+     */
+    private static class Key {
+
+        /**
+         * @since 1.1.0
+         */
+        private final String connectionString;
+
+        /**
+         * @since 1.1.0
+         */
+        private final String user;
+
+        /**
+         * @since 1.1.0
+         */
+        private final String driver;
+
+        /**
+         * @since 1.1.0
+         */
+        private final String passwordHash;
+
+        /**
+         * @param connectionString The connection string
+         * @param user             The user
+         * @param driver           The driver
+         * @param passwordHash     The password hash
+         * @since 1.1.0
+         */
+        private Key(String connectionString, String user, String driver, String passwordHash) {
+            this.connectionString = connectionString;
+            this.user = user;
+            this.driver = driver;
+            this.passwordHash = passwordHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(connectionString, key.connectionString)
+                    && Objects.equals(user, key.user)
+                    && Objects.equals(driver, key.driver)
+                    && Objects.equals(passwordHash, key.passwordHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(connectionString, user, driver, passwordHash);
+        }
+    }
+
+    /**
+     * The pool and its usage
+     * @since 1.1.0
+     */
+    private static class Pool {
+
+        /**
+         * @since 1.1.0
+         */
+        private final HikariDataSource dataSource;
+
+        /**
+         * The requests getting a connection from the pool
+         * @since 1.1.0
+         */
+        private final AtomicInteger borrowing = new AtomicInteger();
+
+        /**
+         * The nano time of the last use
+         * @since 1.1.0
+         */
+        private volatile long lastUsed = System.nanoTime();
+
+        /**
+         * @param dataSource The pool
+         * @since 1.1.0
+         */
+        private Pool(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * If no connection is borrowed or being borrowed, a busy pool is never closed
+         *
+         * @return true if idle
+         * @since 1.1.0
+         */
+        private boolean isIdle() {
+            if (borrowing.get() > 0) {
+                return false;
+            }
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            return mxBean == null
+                    || (mxBean.getActiveConnections() == 0 && mxBean.getThreadsAwaitingConnection() == 0);
+        }
+    }
+}
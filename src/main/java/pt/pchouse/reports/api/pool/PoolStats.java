@@ -0,0 +1,209 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.pool;
+
+import java.util.Objects;
+
+/**
+ * The statistics of a database connection pool
+ *
+ * @since 1.1.0
+ */
+public class PoolStats {
+
+    /**
+     * The connection string, with the password masked
+     * @since 1.1.0
+     */
+    private String connectionString;
+
+    /**
+     * The database user
+     * @since 1.1.0
+     */
+    private String user;
+
+    /**
+     * The driver class name
+     * @since 1.1.0
+     */
+    private String driver;
+
+    /**
+     * Connections in use
+     * @since 1.1.0
+     */
+    private int active;
+
+    /**
+     * Idle connections
+     * @since 1.1.0
+     */
+    private int idle;
+
+    /**
+     * Total connections
+     * @since 1.1.0
+     */
+    private int total;
+
+    /**
+     * Threads waiting for a connection
+     * @since 1.1.0
+     */
+    private int waiting;
+
+    /**
+     * The pool statistics
+     * @since 1.1.0
+     */
+    public PoolStats() {
+    }
+
+    /**
+     * @return The connection string, with the password masked
+     * @since 1.1.0
+     */
+    public String getConnectionString() {
+        return connectionString;
+    }
+
+    /**
+     * @param connectionString The connection string, with the password masked
+     * @since 1.1.0
+     */
+    public void setConnectionString(String connectionString) {
+        this.connectionString = connectionString;
+    }
+
+    /**
+     * @return The database user
+     * @since 1.1.0
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * @param user The database user
+     * @since 1.1.0
+     */
+    public void setUser(String user) {
+        this.user = user;
+    }
+
+    /**
+     * @return The driver class name
+     * @since 1.1.0
+     */
+    public String getDriver() {
+        return driver;
+    }
+
+    /**
+     * @param driver The driver class name
+     * @since 1.1.0
+     */
+    public void setDriver(String driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * @return Connections in use
+     * @since 1.1.0
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * @param active Connections in use
+     * @since 1.1.0
+     */
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    /**
+     * @return Idle connections
+     * @since 1.1.0
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @param idle Idle connections
+     * @since 1.1.0
+     */
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    /**
+     * @return Total connections
+     * @since 1.1.0
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @param total Total connections
+     * @since 1.1.0
+     */
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    /**
+     * @return Threads waiting for a connection
+     * @since 1.1.0
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @param waiting Threads waiting for a connection
+     * @since 1.1.0
+     */
+    public void setWaiting(int waiting) {
+        this.waiting = waiting;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PoolStats poolStats = (PoolStats) o;
+        return active == poolStats.active
+                && idle == poolStats.idle
+                && total == poolStats.total
+                && waiting == poolStats.waiting
+                && Objects.equals(connectionString, poolStats.connectionString)
+                && Objects.equals(user, poolStats.user)
+                && Objects.equals(driver, poolStats.driver);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(connectionString, user, driver, active, idle, total, waiting);
+    }
+}
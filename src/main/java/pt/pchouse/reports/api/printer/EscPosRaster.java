@@ -0,0 +1,217 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.printer;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.JRGraphics2DExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleGraphics2DExporterOutput;
+import net.sf.jasperreports.export.SimpleGraphics2DReportConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Render the filled report pages to a 1-bit monochrome bitmap at the printer dot width
+ * and encode them as ESC/POS raster bit image commands (GS v 0), to be sent to
+ * the receipt printer as one raw job without the OS print service rasterization.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class EscPosRaster {
+
+    /**
+     * The maximum rows of each GS v 0 command, the bitmap is sent in bands
+     * because the printers limit the size of a raster command
+     * @since 1.1.0
+     */
+    public static final int BAND_ROWS = 256;
+
+    /**
+     * The gray level below which the dot is printed
+     * @since 1.1.0
+     */
+    public static final int THRESHOLD = 128;
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private PrinterConfig printerConfig;
+
+    /**
+     * The ESC/POS raster encoder
+     * @since 1.1.0
+     */
+    public EscPosRaster() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Get the raw printer job of the filled report, the init command, the raster of each page
+     * and the after print operations commands
+     *
+     * @param jasperPrint          The filled report
+     * @param afterPrintOperations The bitwise after print operations
+     * @return The raw printer bytes
+     * @throws JRException If fail to render the report
+     * @throws IOException If fail to write
+     * @since 1.1.0
+     */
+    public byte[] toBytes(JasperPrint jasperPrint, int afterPrintOperations) throws JRException, IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        write(jasperPrint, afterPrintOperations, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Write the raw printer job of the filled report, the init command, the raster of each page
+     * and the after print operations commands
+     *
+     * @param jasperPrint          The filled report
+     * @param afterPrintOperations The bitwise after print operations
+     * @param outputStream         The stream where to write
+     * @throws JRException If fail to render the report
+     * @throws IOException If fail to write
+     * @since 1.1.0
+     */
+    public void write(JasperPrint jasperPrint, int afterPrintOperations, OutputStream outputStream)
+            throws JRException, IOException {
+
+        outputStream.write(printerConfig.getInitBytes());
+
+        for (int pageIndex = 0; pageIndex < jasperPrint.getPages().size(); pageIndex++) {
+            writeRaster(render(jasperPrint, pageIndex, printerConfig.getDotWidth()), outputStream);
+        }
+
+        if ((afterPrintOperations & ReportRequest.AFTER_PRINT_CUT_PAPER) == ReportRequest.AFTER_PRINT_CUT_PAPER) {
+            outputStream.write(printerConfig.getCutBytes());
+        }
+
+        if ((afterPrintOperations & ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER)
+                == ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER) {
+            outputStream.write(printerConfig.getCashDrawerBytes());
+        }
+    }
+
+    /**
+     * Render a page of the filled report to a gray image scaled to the dot width
+     *
+     * @param jasperPrint The filled report
+     * @param pageIndex   The page index
+     * @param dotWidth    The image width in dots
+     * @return The page image
+     * @throws JRException If fail to render
+     * @since 1.1.0
+     */
+    public static BufferedImage render(JasperPrint jasperPrint, int pageIndex, int dotWidth) throws JRException {
+        float zoom = (float) dotWidth / jasperPrint.getPageWidth();
+        int height = Math.max(1, (int) Math.ceil(jasperPrint.getPageHeight() * zoom));
+
+        BufferedImage image = new BufferedImage(dotWidth, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, dotWidth, height);
+
+            JRGraphics2DExporter exporter = new JRGraphics2DExporter(DefaultJasperReportsContext.getInstance());
+            exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+
+            SimpleGraphics2DExporterOutput output = new SimpleGraphics2DExporterOutput();
+            output.setGraphics2D(graphics);
+            exporter.setExporterOutput(output);
+
+            SimpleGraphics2DReportConfiguration configuration = new SimpleGraphics2DReportConfiguration();
+            configuration.setPageIndex(pageIndex);
+            configuration.setZoomRatio(zoom);
+            exporter.setConfiguration(configuration);
+
+            exporter.exportReport();
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Encode a gray image as 1-bit GS v 0 raster commands, the dots darker than the threshold are printed.
+     * The blank rows at the bottom are not sent to not waste paper.
+     *
+     * @param image        The gray image
+     * @param outputStream The stream where to write
+     * @throws IOException If fail to write
+     * @since 1.1.0
+     */
+    public static void writeRaster(BufferedImage image, OutputStream outputStream) throws IOException {
+        int width = image.getWidth();
+        int bytesPerRow = (width + 7) / 8;
+        Raster raster = image.getRaster();
+        int[] samples = new int[width];
+
+        byte[][] rows = new byte[image.getHeight()][];
+        int height = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            raster.getSamples(0, y, width, 1, 0, samples);
+            byte[] row = new byte[bytesPerRow];
+            boolean ink = false;
+            for (int x = 0; x < width; x++) {
+                if (samples[x] < THRESHOLD) {
+                    row[x >> 3] |= (byte) (0x80 >> (x & 7));
+                    ink = true;
+                }
+            }
+            rows[y] = row;
+            if (ink) {
+                height = y + 1;
+            }
+        }
+
+        for (int band = 0; band < height; band += BAND_ROWS) {
+            int bandRows = Math.min(BAND_ROWS, height - band);
+            // GS v 0 m xL xH yL yH, m = 0 normal density
+            outputStream.write(new byte[]{
+                    0x1D, 0x76, 0x30, 0x00,
+                    (byte) (bytesPerRow & 0xFF), (byte) ((bytesPerRow >> 8) & 0xFF),
+                    (byte) (bandRows & 0xFF), (byte) ((bandRows >> 8) & 0xFF)
+            });
+            for (int y = band; y < band + bandRows; y++) {
+                outputStream.write(rows[y]);
+            }
+        }
+    }
+}
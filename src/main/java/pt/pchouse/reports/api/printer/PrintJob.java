@@ -0,0 +1,197 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.printer;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A job of a printer queue, the report print and its after print operations
+ * are printed together, the state transitions are synchronized
+ * because the job is changed by the printer thread and read by the requests
+ * @since 1.1.0
+ */
+public class PrintJob {
+
+    /**
+     * The print job states
+     * @since 1.1.0
+     */
+    public enum State {
+        QUEUED,
+        PRINTING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    private final String id;
+
+    /**
+     * The printer name
+     * @since 1.1.0
+     */
+    private final String printer;
+
+    /**
+     * @since 1.1.0
+     */
+    private final Instant submitted;
+
+    /**
+     * @since 1.1.0
+     */
+    private Instant started;
+
+    /**
+     * @since 1.1.0
+     */
+    private Instant finished;
+
+    /**
+     * @since 1.1.0
+     */
+    private State state = State.QUEUED;
+
+    /**
+     * The error message of a failed job
+     * @since 1.1.0
+     */
+    private String message = "";
+
+    /**
+     * Completed when the job is finished, exceptionally if failed
+     * @since 1.1.0
+     */
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /**
+     * @param id      The job id
+     * @param printer The printer name
+     * @since 1.1.0
+     */
+    public PrintJob(String id, String printer) {
+        this.id = id;
+        this.printer = printer;
+        this.submitted = Instant.now();
+    }
+
+    /**
+     * Change the state from queued to printing
+     * @since 1.1.0
+     */
+    synchronized void start() {
+        state = State.PRINTING;
+        started = Instant.now();
+    }
+
+    /**
+     * Change the state from printing to done
+     * @since 1.1.0
+     */
+    synchronized void done() {
+        state = State.DONE;
+        finished = Instant.now();
+        completion.complete(null);
+    }
+
+    /**
+     * Change the state to failed
+     * @param exception The print error
+     * @since 1.1.0
+     */
+    synchronized void fail(Exception exception) {
+        this.message = exception.getMessage() == null ? "" : exception.getMessage();
+        state = State.FAILED;
+        finished = Instant.now();
+        completion.completeExceptionally(exception);
+    }
+
+    /**
+     * Wait until the job is printed
+     *
+     * @throws Exception The print error if the job failed
+     * @since 1.1.0
+     */
+    public void await() throws Exception {
+        try {
+            completion.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * @return The job id
+     * @since 1.1.0
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The printer name
+     * @since 1.1.0
+     */
+    public String getPrinter() {
+        return printer;
+    }
+
+    /**
+     * @return The submit instant
+     * @since 1.1.0
+     */
+    public Instant getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * @return The print start instant, null if queued
+     * @since 1.1.0
+     */
+    public synchronized Instant getStarted() {
+        return started;
+    }
+
+    /**
+     * @return The finish instant, null if not finished
+     * @since 1.1.0
+     */
+    public synchronized Instant getFinished() {
+        return finished;
+    }
+
+    /**
+     * @return The job state
+     * @since 1.1.0
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return The error message of a failed job
+     * @since 1.1.0
+     */
+    public synchronized String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.printer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * The print queues, one ordered queue and one thread per printer. The jobs of a printer
+ * are printed one at a time in the submit order, so the tickets printed concurrently
+ * do not interleave and the request threads do not wait for the printer spooler.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class PrintQueue {
+
+    /**
+     * The print of a job, runs in the printer thread
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    public interface Task {
+
+        /**
+         * Print
+         *
+         * @throws Exception If fail
+         * @since 1.1.0
+         */
+        void print() throws Exception;
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Maximum number of jobs waiting in the queue of each printer
+     * @since 1.1.0
+     */
+    @Value("${report.print.queue}")
+    private int queueCapacity;
+
+    /**
+     * Time to keep the finished jobs
+     * @since 1.1.0
+     */
+    @Value("${report.print.job.ttl.ms}")
+    private long jobTtl;
+
+    /**
+     * The printer threads by printer name
+     * @since 1.1.0
+     */
+    private final Map<String, ThreadPoolExecutor> printers = new ConcurrentHashMap<>();
+
+    /**
+     * The jobs by id
+     * @since 1.1.0
+     */
+    private final Map<String, PrintJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * The print queues
+     * @since 1.1.0
+     */
+    public PrintQueue() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Submit a job to the queue of the printer
+     *
+     * @param printer The printer name
+     * @param task    The print of the job
+     * @return The queued job
+     * @throws PrinterException If the queue of the printer is full
+     * @since 1.1.0
+     */
+    public PrintJob submit(String printer, Task task) throws PrinterException {
+        purge();
+        String name = printer == null ? "" : printer;
+        PrintJob job = new PrintJob(UUID.randomUUID().toString(), name);
+        jobs.put(job.getId(), job);
+        try {
+            printers.computeIfAbsent(name, this::createPrinterThread).execute(() -> run(job, task));
+            logger.debug("Print job '{}' submitted to printer '{}'", job.getId(), name);
+            return job;
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            String msg = String.format("The print queue of the printer '%s' is full, try again later", name);
+            logger.error(msg);
+            throw new PrinterException(msg);
+        }
+    }
+
+    /**
+     * Create the thread of a printer, the thread ends when the printer is idle
+     *
+     * @param printer The printer name
+     * @return The printer executor
+     * @since 1.1.0
+     */
+    private ThreadPoolExecutor createPrinterThread(String printer) {
+        ThreadPoolExecutor printerExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ReportsPrint-" + printer);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        printerExecutor.allowCoreThreadTimeOut(true);
+        return printerExecutor;
+    }
+
+    /**
+     * Print a job
+     *
+     * @param job  The job
+     * @param task The print of the job
+     * @since 1.1.0
+     */
+    private void run(PrintJob job, Task task) {
+        job.start();
+        logger.debug("Print job '{}' started", job.getId());
+        try {
+            task.print();
+            job.done();
+            logger.debug("Print job '{}' done", job.getId());
+        } catch (Exception e) {
+            logger.error("Print job '{}' failed: {}", job.getId(), e.getMessage());
+            job.fail(e);
+        }
+    }
+
+    /**
+     * Get a job
+     *
+     * @param id The job id
+     * @return The job or null if not exists or expired
+     * @since 1.1.0
+     */
+    public PrintJob get(String id) {
+        return id == null ? null : jobs.get(id);
+    }
+
+    /**
+     * Remove the finished jobs older than the job ttl
+     * @since 1.1.0
+     */
+    public void purge() {
+        Instant expired = Instant.now().minus(Duration.ofMillis(jobTtl));
+        Iterator<PrintJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Instant finished = iterator.next().getFinished();
+            if (finished != null && finished.isBefore(expired)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Number of jobs waiting in the queue of a printer, not including the job printing
+     *
+     * @param printer The printer name
+     * @return The queued jobs
+     * @since 1.1.0
+     */
+    public int getQueued(String printer) {
+        ThreadPoolExecutor printerExecutor = printers.get(printer == null ? "" : printer);
+        return printerExecutor == null ? 0 : printerExecutor.getQueue().size();
+    }
+
+    /**
+     * Number of jobs waiting in the queue of each printer, not including the jobs printing
+     *
+     * @return The queued jobs by printer name
+     * @since 1.1.0
+     */
+    public Map<String, Integer> getQueued() {
+        Map<String, Integer> queued = new TreeMap<>();
+        printers.forEach((name, printerExecutor) -> queued.put(name, printerExecutor.getQueue().size()));
+        return queued;
+    }
+
+    /**
+     * Number of jobs printing, at most one by printer
+     *
+     * @return The printing jobs
+     * @since 1.1.0
+     */
+    public int getPrinting() {
+        int printing = 0;
+        for (ThreadPoolExecutor printerExecutor : printers.values()) {
+            printing += printerExecutor.getActiveCount();
+        }
+        return printing;
+    }
+
+    /**
+     * Maximum number of jobs waiting in the queue of each printer
+     *
+     * @return The queue capacity
+     * @since 1.1.0
+     */
+    public int getQueueCapacity() {
+        return Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Number of jobs kept, including the finished not expired
+     *
+     * @return The jobs
+     * @since 1.1.0
+     */
+    public int getSize() {
+        return jobs.size();
+    }
+
+    /**
+     * Stop the printer threads after the queued jobs
+     * @since 1.1.0
+     */
+    @PreDestroy
+    public void close() {
+        printers.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+}
@@ -25,8 +25,14 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.ReportRequest;
 
 import javax.print.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -59,10 +65,27 @@ public class Printer {
     private PrinterConfig printerConfig;
 
     /**
-     *
+     * The network printer transport
+     * @since 1.1.0
+     */
+    @Autowired
+    private RawSocketTransport rawSocketTransport;
+
+    /**
+     * The print service, resolved on the first use
      * @since 1.0.0
      */
-    private static PrintService printService;
+    private volatile PrintService printService;
+
+    /**
+     * Get the configured printer name
+     *
+     * @return The printer name
+     * @since 1.1.0
+     */
+    public String getName() {
+        return printerConfig.getName();
+    }
 
     /**
      *
@@ -72,45 +95,134 @@ public class Printer {
      */
     public PrintService getPrintService() throws PrinterException {
         if (printService == null) {
+            synchronized (this) {
+                if (printService == null) {
+                    printService = lookupPrintService();
+                }
+            }
+        }
+        return printService;
+    }
 
-            Optional<PrintService> optional = Arrays.stream(PrintServiceLookup
-                    .lookupPrintServices(null, null))
-                    .filter(prtService -> prtService.getName().equals(printerConfig.getName()))
-                    .findFirst();
+    /**
+     * Find the print service of the configured printer name
+     *
+     * @return The printer service
+     * @throws PrinterException If the printer not exist
+     * @since 1.1.0
+     */
+    private PrintService lookupPrintService() throws PrinterException {
+        Optional<PrintService> optional = Arrays.stream(PrintServiceLookup
+                .lookupPrintServices(null, null))
+                .filter(prtService -> prtService.getName().equals(printerConfig.getName()))
+                .findFirst();
+
+        if (!optional.isPresent()) {
+            String msg = String.format(
+                    "Printer with name '%s' not exist, if exists please restart the APi Reports service",
+                    printerConfig.getName()
+            );
+            logger.error(msg);
+            throw new PrinterException(msg);
+        }
+        logger.debug("Printer service set to printer name '{}'", printerConfig.getName());
+        return optional.get();
+    }
 
-            if (!optional.isPresent()) {
-                String msg = String.format(
-                        "Printer with name '%s' not exist, if exists please restart the APi Reports service",
-                        printerConfig.getName()
-                );
-                logger.error(msg);
-                throw new PrinterException(msg);
-            }
-            logger.debug("Printer service set to printer name '{}'", printerConfig.getName());
-            printService = optional.get();
+    /**
+     * Get if the report is printed as ESC/POS raster
+     *
+     * @param printMode The request print mode, if null the configured mode is used
+     * @return True if raster, always true for a network printer
+     * @since 1.1.0
+     */
+    public boolean isRaster(ReportRequest.PrintMode printMode) {
+        // The network printer only receives raw bytes
+        if (printerConfig.isNetwork()) {
+            return true;
         }
+        if (printMode != null) {
+            return printMode == ReportRequest.PrintMode.RASTER;
+        }
+        return "raster".equalsIgnoreCase(printerConfig.getMode());
+    }
 
-        return printService;
+    /**
+     * Get the ESC/POS commands of the bitwise after print operations, to be sent in a single raw job
+     *
+     * @param operations The bitwise after print operations
+     * @return The commands or null if no operation
+     * @since 1.1.0
+     */
+    public byte[] afterPrintBytes(int operations) {
+        boolean cut = (operations & ReportRequest.AFTER_PRINT_CUT_PAPER) == ReportRequest.AFTER_PRINT_CUT_PAPER;
+        boolean cashDrawer = (operations & ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER)
+                == ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER;
+        if (!cut && !cashDrawer) {
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(printerConfig.getInitBytes(), 0, printerConfig.getInitBytes().length);
+        if (cut) {
+            bytes.write(printerConfig.getCutBytes(), 0, printerConfig.getCutBytes().length);
+        }
+        if (cashDrawer) {
+            bytes.write(printerConfig.getCashDrawerBytes(), 0, printerConfig.getCashDrawerBytes().length);
+        }
+        return bytes.toByteArray();
     }
 
     /**
-     * Cut the paper
+     * Send raw bytes to the printer in a single job,
+     * if the capture file is configured the bytes are appended to the file instead
+     * and if the printer is a network printer the bytes are sent to the printer socket
      *
+     * @param bytes The raw bytes
      * @throws PrintException   If fails
      * @throws PrinterException If fails
-     * @since 1.0.0
+     * @since 1.1.0
      */
-    public void cutPaper() throws PrintException, PrinterException {
-        String esc = new String(printerConfig.getInitBytes());
-        esc += new String(printerConfig.getCutBytes());
+    public void printRaw(byte[] bytes) throws PrintException, PrinterException {
+        String capture = printerConfig.getCapture();
+        if (capture != null && !capture.trim().isEmpty()) {
+            logger.debug("Capture {} raw bytes to '{}'", bytes.length, capture);
+            try {
+                Files.write(
+                        Paths.get(capture.trim()), bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+                );
+            } catch (IOException e) {
+                throw new PrinterException(
+                        String.format("Fail to capture the raw bytes to '%s': %s", capture, e.getMessage())
+                );
+            }
+            return;
+        }
+
+        if (printerConfig.isNetwork()) {
+            rawSocketTransport.send(bytes);
+            return;
+        }
+
         Doc doc = new SimpleDoc(
-                esc.getBytes(),
+                bytes,
                 DocFlavor.BYTE_ARRAY.AUTOSENSE,
                 null
         );
         getPrintService().createPrintJob().print(doc, null);
     }
 
+    /**
+     * Cut the paper
+     *
+     * @throws PrintException   If fails
+     * @throws PrinterException If fails
+     * @since 1.0.0
+     */
+    public void cutPaper() throws PrintException, PrinterException {
+        printRaw(afterPrintBytes(ReportRequest.AFTER_PRINT_CUT_PAPER));
+    }
+
     /**
      * Open the cash drawer
      *
@@ -119,14 +231,7 @@ public class Printer {
      * @since 1.0.0
      */
     public void cashDrawer() throws PrintException, PrinterException {
-        String esc = new String(printerConfig.getInitBytes());
-        esc += new String(printerConfig.getCashDrawerBytes());
-        Doc doc = new SimpleDoc(
-                esc.getBytes(),
-                DocFlavor.BYTE_ARRAY.AUTOSENSE,
-                null
-        );
-        getPrintService().createPrintJob().print(doc, null);
+        printRaw(afterPrintBytes(ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER));
     }
 
     /**
@@ -137,15 +242,9 @@ public class Printer {
      * @since 1.0.0
      */
     public void cutAndCashDrawer() throws PrintException, PrinterException {
-        String esc = new String(printerConfig.getInitBytes());
-        esc += new String(printerConfig.getCutBytes());
-        esc += new String(printerConfig.getCashDrawerBytes());
-        Doc doc = new SimpleDoc(
-                esc.getBytes(),
-                DocFlavor.BYTE_ARRAY.AUTOSENSE,
-                null
-        );
-        getPrintService().createPrintJob().print(doc, null);
+        printRaw(afterPrintBytes(
+                ReportRequest.AFTER_PRINT_CUT_PAPER | ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER
+        ));
     }
 
 }
@@ -111,6 +111,72 @@ public class PrinterConfig {
      */
     private static byte[] _cashDrawer;
 
+    /**
+     * The printer print mode, 'service' to print with the OS print service
+     * or 'raster' to send the report rendered as ESC/POS raster
+     * @since 1.1.0
+     */
+    @Value("${print_mode}")
+    private String mode;
+
+    /**
+     * The printable width in dots of the printer, the width of the ESC/POS raster
+     * @since 1.1.0
+     */
+    @Value("${dot_width}")
+    private int dotWidth;
+
+    /**
+     * The file where the raw printer bytes are appended instead of being printed, empty to print
+     * @since 1.1.0
+     */
+    @Value("${capture}")
+    private String capture;
+
+    /**
+     * The network printer host, the raw bytes are sent to the printer socket
+     * without the OS print service, empty to use the OS print service
+     * @since 1.1.0
+     */
+    @Value("${network_host}")
+    private String host;
+
+    /**
+     * The network printer raw port
+     * @since 1.1.0
+     */
+    @Value("${network_port}")
+    private int port;
+
+    /**
+     * The network printer connect timeout in milliseconds
+     * @since 1.1.0
+     */
+    @Value("${connect_timeout_ms}")
+    private int connectTimeout;
+
+    /**
+     * The network printer write timeout in milliseconds
+     * @since 1.1.0
+     */
+    @Value("${write_timeout_ms}")
+    private long writeTimeout;
+
+    /**
+     * The wait in milliseconds before reconnect after a connection failure,
+     * doubled on each consecutive failure
+     * @since 1.1.0
+     */
+    @Value("${reconnect_backoff_ms}")
+    private long reconnectBackoff;
+
+    /**
+     * The maximum wait in milliseconds before reconnect
+     * @since 1.1.0
+     */
+    @Value("${reconnect_backoff_max_ms}")
+    private long reconnectBackoffMax;
+
     /**
      * Printer configuration
      * @since 1.0.0
@@ -227,6 +293,196 @@ public class PrinterConfig {
         this.cashDrawer = cashDrawer;
     }
 
+    /**
+     * Get the printer print mode, 'service' or 'raster'
+     *
+     * @return The print mode
+     * @since 1.1.0
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Set the printer print mode, 'service' or 'raster'
+     *
+     * @param mode The print mode
+     * @since 1.1.0
+     */
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Get the printable width in dots of the printer
+     *
+     * @return The width in dots
+     * @since 1.1.0
+     */
+    public int getDotWidth() {
+        return dotWidth;
+    }
+
+    /**
+     * Set the printable width in dots of the printer
+     *
+     * @param dotWidth The width in dots
+     * @since 1.1.0
+     */
+    public void setDotWidth(int dotWidth) {
+        this.dotWidth = dotWidth;
+    }
+
+    /**
+     * Get the file where the raw printer bytes are captured
+     *
+     * @return The file path, empty if the bytes are printed
+     * @since 1.1.0
+     */
+    public String getCapture() {
+        return capture;
+    }
+
+    /**
+     * Set the file where the raw printer bytes are captured
+     *
+     * @param capture The file path, empty to print
+     * @since 1.1.0
+     */
+    public void setCapture(String capture) {
+        this.capture = capture;
+    }
+
+    /**
+     * Get the network printer host
+     *
+     * @return The host, empty if the OS print service is used
+     * @since 1.1.0
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Set the network printer host
+     *
+     * @param host The host, empty to use the OS print service
+     * @since 1.1.0
+     */
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Get the network printer raw port
+     *
+     * @return The port
+     * @since 1.1.0
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Set the network printer raw port
+     *
+     * @param port The port
+     * @since 1.1.0
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Get the network printer connect timeout in milliseconds
+     *
+     * @return The timeout
+     * @since 1.1.0
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Set the network printer connect timeout in milliseconds
+     *
+     * @param connectTimeout The timeout
+     * @since 1.1.0
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Get the network printer write timeout in milliseconds
+     *
+     * @return The timeout
+     * @since 1.1.0
+     */
+    public long getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    /**
+     * Set the network printer write timeout in milliseconds
+     *
+     * @param writeTimeout The timeout
+     * @since 1.1.0
+     */
+    public void setWriteTimeout(long writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    /**
+     * Get the wait in milliseconds before reconnect after a connection failure
+     *
+     * @return The wait
+     * @since 1.1.0
+     */
+    public long getReconnectBackoff() {
+        return reconnectBackoff;
+    }
+
+    /**
+     * Set the wait in milliseconds before reconnect after a connection failure
+     *
+     * @param reconnectBackoff The wait
+     * @since 1.1.0
+     */
+    public void setReconnectBackoff(long reconnectBackoff) {
+        this.reconnectBackoff = reconnectBackoff;
+    }
+
+    /**
+     * Get the maximum wait in milliseconds before reconnect
+     *
+     * @return The wait
+     * @since 1.1.0
+     */
+    public long getReconnectBackoffMax() {
+        return reconnectBackoffMax;
+    }
+
+    /**
+     * Set the maximum wait in milliseconds before reconnect
+     *
+     * @param reconnectBackoffMax The wait
+     * @since 1.1.0
+     */
+    public void setReconnectBackoffMax(long reconnectBackoffMax) {
+        this.reconnectBackoffMax = reconnectBackoffMax;
+    }
+
+    /**
+     * Get if the printer is a network printer, the raw bytes are sent to the printer socket
+     *
+     * @return True if the host is configured
+     * @since 1.1.0
+     */
+    public boolean isNetwork() {
+        return host != null && !host.trim().isEmpty();
+    }
+
     /**
      * The printer initialization ESC/POS command as byte array
      *
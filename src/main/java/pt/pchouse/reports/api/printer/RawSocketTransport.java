@@ -0,0 +1,284 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.printer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Send the raw bytes to a network printer raw port (9100) without the OS print service.
+ * The connection is kept open between jobs, a connection closed by the printer is reopened
+ * and after a connection failure the reconnection waits a growing backoff.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class RawSocketTransport {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private PrinterConfig printerConfig;
+
+    /**
+     * Close the socket of the writes that exceed the write timeout
+     * @since 1.1.0
+     */
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ReportsPrintWatchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The open connection, null if not connected
+     * @since 1.1.0
+     */
+    private Socket socket;
+
+    /**
+     * Number of consecutive failures
+     * @since 1.1.0
+     */
+    private int failures = 0;
+
+    /**
+     * The time in milliseconds before which no connection is tried
+     * @since 1.1.0
+     */
+    private long retryAt = 0;
+
+    /**
+     * The raw socket printer transport
+     * @since 1.1.0
+     */
+    public RawSocketTransport() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Send the raw bytes to the printer, if the reused connection was closed by the printer
+     * the bytes are sent again in a new connection
+     *
+     * @param bytes The raw bytes
+     * @throws PrinterException If fail to connect or to write
+     * @since 1.1.0
+     */
+    public synchronized void send(byte[] bytes) throws PrinterException {
+        boolean reused = socket != null && !isClosedByPeer(socket);
+        if (!reused) {
+            close();
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            Socket connected = connect();
+            try {
+                write(connected, bytes);
+                failures = 0;
+                return;
+            } catch (IOException e) {
+                close();
+                if (e instanceof SocketTimeoutException || !reused || attempt > 0) {
+                    backoff();
+                    throw new PrinterException(String.format(
+                            "Fail to write to printer '%s:%d': %s",
+                            printerConfig.getHost(), printerConfig.getPort(), e.getMessage()
+                    ));
+                }
+                logger.debug("Connection to printer '{}' lost, reconnecting", printerConfig.getHost());
+            }
+        }
+    }
+
+    /**
+     * Get if there is an open connection
+     *
+     * @return True if connected
+     * @since 1.1.0
+     */
+    public synchronized boolean isConnected() {
+        return socket != null;
+    }
+
+    /**
+     * Close the connection
+     * @since 1.1.0
+     */
+    public synchronized void close() {
+        if (socket != null) {
+            closeQuietly(socket);
+            socket = null;
+        }
+    }
+
+    /**
+     * Close the connection and stop the watchdog
+     * @since 1.1.0
+     */
+    @PreDestroy
+    public void shutdown() {
+        close();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Get the open connection or connect to the printer
+     *
+     * @return The connection
+     * @throws PrinterException If in the backoff wait or fail to connect
+     * @since 1.1.0
+     */
+    private Socket connect() throws PrinterException {
+        if (socket != null) {
+            return socket;
+        }
+
+        long wait = retryAt - System.currentTimeMillis();
+        if (wait > 0) {
+            throw new PrinterException(String.format(
+                    "Printer '%s:%d' not available, reconnect in %d ms",
+                    printerConfig.getHost(), printerConfig.getPort(), wait
+            ));
+        }
+
+        Socket created = new Socket();
+        try {
+            created.setTcpNoDelay(true);
+            created.setKeepAlive(true);
+            created.connect(
+                    new InetSocketAddress(printerConfig.getHost().trim(), printerConfig.getPort()),
+                    printerConfig.getConnectTimeout()
+            );
+        } catch (IOException e) {
+            closeQuietly(created);
+            backoff();
+            throw new PrinterException(String.format(
+                    "Fail to connect to printer '%s:%d': %s",
+                    printerConfig.getHost(), printerConfig.getPort(), e.getMessage()
+            ));
+        }
+
+        logger.debug("Connected to printer '{}:{}'", printerConfig.getHost(), printerConfig.getPort());
+        socket = created;
+        return socket;
+    }
+
+    /**
+     * Write the bytes, the socket is closed by the watchdog if the write timeout is exceeded
+     *
+     * @param connected The connection
+     * @param bytes     The raw bytes
+     * @throws IOException If fail to write, SocketTimeoutException if the write timeout is exceeded
+     * @since 1.1.0
+     */
+    private void write(Socket connected, byte[] bytes) throws IOException {
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+            timedOut.set(true);
+            closeQuietly(connected);
+        }, printerConfig.getWriteTimeout(), TimeUnit.MILLISECONDS);
+
+        try {
+            OutputStream outputStream = connected.getOutputStream();
+            outputStream.write(bytes);
+            outputStream.flush();
+        } catch (IOException e) {
+            if (timedOut.get()) {
+                throw new SocketTimeoutException(
+                        String.format("Write timeout of %d ms exceeded", printerConfig.getWriteTimeout())
+                );
+            }
+            throw e;
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    /**
+     * Check if the printer closed the idle connection, the status bytes sent by the printer are discarded
+     *
+     * @param connected The connection
+     * @return True if closed
+     * @since 1.1.0
+     */
+    private boolean isClosedByPeer(Socket connected) {
+        try {
+            InputStream inputStream = connected.getInputStream();
+            while (inputStream.available() > 0) {
+                if (inputStream.skip(inputStream.available()) <= 0) {
+                    break;
+                }
+            }
+            connected.setSoTimeout(1);
+            return inputStream.read() == -1;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Set the time of the next connection, the backoff is doubled on each consecutive failure
+     * @since 1.1.0
+     */
+    private void backoff() {
+        long wait = Math.min(
+                printerConfig.getReconnectBackoffMax(),
+                printerConfig.getReconnectBackoff() << Math.min(failures, 16)
+        );
+        failures++;
+        retryAt = System.currentTimeMillis() + wait;
+        logger.debug("Printer '{}' reconnect backoff of {} ms", printerConfig.getHost(), wait);
+    }
+
+    /**
+     * @param toClose The socket to close
+     * @since 1.1.0
+     */
+    private static void closeQuietly(Socket toClose) {
+        try {
+            toClose.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.datasource.*;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * A report of the batch request, the parameters and the datasource of one report
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonFormat(with = JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+public class BatchItem {
+
+    /**
+     *
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The client id of the item, used as the result name
+     * @since 1.1.0
+     */
+    private String id;
+
+    /**
+     * The item parameters, override the batch parameters with the same name
+     * @since 1.1.0
+     */
+    private ArrayList<Parameter> parameters;
+
+    /**
+     * @since 1.1.0
+     */
+    private Database database;
+
+    /**
+     * @since 1.1.0
+     */
+    private JsonHttp jsonHttp;
+
+    /**
+     * @since 1.1.0
+     */
+    private JsonHttps jsonHttps;
+
+    /**
+     * @since 1.1.0
+     */
+    private XmlHttp xmlHttp;
+
+    /**
+     * @since 1.1.0
+     */
+    private XmlHttps xmlHttps;
+
+    /**
+     * @since 1.1.0
+     */
+    private JsonFile jsonFile;
+
+    /**
+     * @since 1.1.0
+     */
+    private XmlFile xmlFile;
+
+    /**
+     * Batch item definition
+     * @since 1.1.0
+     */
+    public BatchItem() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * If the item has its own datasource
+     *
+     * @return true if has datasource
+     * @since 1.1.0
+     */
+    public boolean hasDatasource() {
+        return database != null
+                || jsonHttp != null
+                || jsonHttps != null
+                || xmlHttp != null
+                || xmlHttps != null
+                || jsonFile != null
+                || xmlFile != null;
+    }
+
+    /**
+     * @return The client id of the item
+     * @since 1.1.0
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @param id The client id of the item
+     * @since 1.1.0
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The item parameters
+     * @since 1.1.0
+     */
+    public ArrayList<Parameter> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @param parameters The item parameters
+     * @since 1.1.0
+     */
+    public void setParameters(ArrayList<Parameter> parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * @return The database datasource
+     * @since 1.1.0
+     */
+    public Database getDatabase() {
+        return database;
+    }
+
+    /**
+     * @param database The database datasource
+     * @since 1.1.0
+     */
+    public void setDatabase(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * @return The json http datasource
+     * @since 1.1.0
+     */
+    public JsonHttp getJsonHttp() {
+        return jsonHttp;
+    }
+
+    /**
+     * @param jsonHttp The json http datasource
+     * @since 1.1.0
+     */
+    public void setJsonHttp(JsonHttp jsonHttp) {
+        this.jsonHttp = jsonHttp;
+    }
+
+    /**
+     * @return The json https datasource
+     * @since 1.1.0
+     */
+    public JsonHttps getJsonHttps() {
+        return jsonHttps;
+    }
+
+    /**
+     * @param jsonHttps The json https datasource
+     * @since 1.1.0
+     */
+    public void setJsonHttps(JsonHttps jsonHttps) {
+        this.jsonHttps = jsonHttps;
+    }
+
+    /**
+     * @return The xml http datasource
+     * @since 1.1.0
+     */
+    public XmlHttp getXmlHttp() {
+        return xmlHttp;
+    }
+
+    /**
+     * @param xmlHttp The xml http datasource
+     * @since 1.1.0
+     */
+    public void setXmlHttp(XmlHttp xmlHttp) {
+        this.xmlHttp = xmlHttp;
+    }
+
+    /**
+     * @return The xml https datasource
+     * @since 1.1.0
+     */
+    public XmlHttps getXmlHttps() {
+        return xmlHttps;
+    }
+
+    /**
+     * @param xmlHttps The xml https datasource
+     * @since 1.1.0
+     */
+    public void setXmlHttps(XmlHttps xmlHttps) {
+        this.xmlHttps = xmlHttps;
+    }
+
+    /**
+     * @return The json file datasource
+     * @since 1.1.0
+     */
+    public JsonFile getJsonFile() {
+        return jsonFile;
+    }
+
+    /**
+     * @param jsonFile The json file datasource
+     * @since 1.1.0
+     */
+    public void setJsonFile(JsonFile jsonFile) {
+        this.jsonFile = jsonFile;
+    }
+
+    /**
+     * @return The xml file datasource
+     * @since 1.1.0
+     */
+    public XmlFile getXmlFile() {
+        return xmlFile;
+    }
+
+    /**
+     * @param xmlFile The xml file datasource
+     * @since 1.1.0
+     */
+    public void setXmlFile(XmlFile xmlFile) {
+        this.xmlFile = xmlFile;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchItem that = (BatchItem) o;
+        return Objects.equals(id, that.id)
+                && Objects.equals(parameters, that.parameters)
+                && Objects.equals(database, that.database)
+                && Objects.equals(jsonHttp, that.jsonHttp)
+                && Objects.equals(jsonHttps, that.jsonHttps)
+                && Objects.equals(xmlHttp, that.xmlHttp)
+                && Objects.equals(xmlHttps, that.xmlHttps)
+                && Objects.equals(jsonFile, that.jsonFile)
+                && Objects.equals(xmlFile, that.xmlFile);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, parameters, database, jsonHttp, jsonHttps, xmlHttp, xmlHttps, jsonFile, xmlFile);
+    }
+}
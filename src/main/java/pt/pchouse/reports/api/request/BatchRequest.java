@@ -0,0 +1,172 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The batch request, many reports of the same template. The request defines the template,
+ * the report type and the common parameters and datasource, each item defines the parameters
+ * and the datasource of one report.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonFormat(with = JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+public class BatchRequest {
+
+    /**
+     *
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The report request shared by all items
+     * @since 1.1.0
+     */
+    private ReportRequest request;
+
+    /**
+     * The reports to generate
+     * @since 1.1.0
+     */
+    private ArrayList<BatchItem> items;
+
+    /**
+     * Batch request definition
+     * @since 1.1.0
+     */
+    public BatchRequest() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Create the report request of an item, a copy of the shared request with the item parameters
+     * merged and the item datasource replacing the shared datasource if defined
+     *
+     * @param index The item index
+     * @return The report request
+     * @since 1.1.0
+     */
+    public ReportRequest itemRequest(int index) {
+        BatchItem item = items.get(index);
+        ReportRequest itemRequest = new ReportRequest();
+
+        itemRequest.setReport(request.getReport());
+        itemRequest.setReportResources(request.getReportResources());
+        itemRequest.setTemplateId(request.getTemplateId());
+        itemRequest.setReportType(request.getReportType());
+        itemRequest.setSign(request.getSign());
+        itemRequest.setCopies(request.getCopies());
+        itemRequest.setEncoding(request.getEncoding());
+        itemRequest.setAfterPrintOperations(request.getAfterPrintOperations());
+        itemRequest.setMetadata(request.getMetadata());
+        itemRequest.setPdfProperties(request.getPdfProperties());
+        itemRequest.setVirtualizer(request.getVirtualizer());
+
+        Map<String, Parameter> parameters = new LinkedHashMap<>();
+        if (request.getParameters() != null) {
+            request.getParameters().forEach(parameter -> parameters.put(parameter.getName(), parameter));
+        }
+        if (item.getParameters() != null) {
+            item.getParameters().forEach(parameter -> parameters.put(parameter.getName(), parameter));
+        }
+        itemRequest.setParameters(new ArrayList<>(parameters.values()));
+
+        if (item.hasDatasource()) {
+            itemRequest.setDatabase(item.getDatabase());
+            itemRequest.setJsonHttp(item.getJsonHttp());
+            itemRequest.setJsonHttps(item.getJsonHttps());
+            itemRequest.setXmlHttp(item.getXmlHttp());
+            itemRequest.setXmlHttps(item.getXmlHttps());
+            itemRequest.setJsonFile(item.getJsonFile());
+            itemRequest.setXmlFile(item.getXmlFile());
+        } else {
+            itemRequest.setDatabase(request.getDatabase());
+            itemRequest.setJsonHttp(request.getJsonHttp());
+            itemRequest.setJsonHttps(request.getJsonHttps());
+            itemRequest.setXmlHttp(request.getXmlHttp());
+            itemRequest.setXmlHttps(request.getXmlHttps());
+            itemRequest.setJsonFile(request.getJsonFile());
+            itemRequest.setXmlFile(request.getXmlFile());
+        }
+
+        return itemRequest;
+    }
+
+    /**
+     * @return The report request shared by all items
+     * @since 1.1.0
+     */
+    public ReportRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @param request The report request shared by all items
+     * @since 1.1.0
+     */
+    public void setRequest(ReportRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * @return The reports to generate
+     * @since 1.1.0
+     */
+    public ArrayList<BatchItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @param items The reports to generate
+     * @since 1.1.0
+     */
+    public void setItems(ArrayList<BatchItem> items) {
+        this.items = items;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchRequest that = (BatchRequest) o;
+        return Objects.equals(request, that.request)
+                && Objects.equals(items, that.items);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(request, items);
+    }
+}
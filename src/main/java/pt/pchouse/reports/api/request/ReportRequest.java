@@ -62,20 +62,101 @@ public class ReportRequest {
      * @since 1.0.0
      */
     public enum ReportType {
-        CSV,
-        DOCX,
-        HTML,
-        JSON,
-        ODS,
-        ODT,
-        PDF,
-        PPTX,
-        RTF,
-        TEXT,
-        XLS,
-        XLSX,
-        XML,
-        PRINT
+        CSV("text/csv", "csv"),
+        DOCX("application/vnd.openxmlformats-officedocument.wordprocessingml.document", "docx"),
+        HTML("text/html", "html"),
+        JSON("application/json", "json"),
+        ODS("application/vnd.oasis.opendocument.spreadsheet", "ods"),
+        ODT("application/vnd.oasis.opendocument.text", "odt"),
+        PDF("application/pdf", "pdf"),
+        PPTX("application/vnd.openxmlformats-officedocument.presentationml.presentation", "pptx"),
+        RTF("application/rtf", "rtf"),
+        TEXT("text/plain", "txt"),
+        XLS("application/vnd.ms-excel", "xls"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
+        XML("application/xml", "xml"),
+        PRINT(null, null);
+
+        /**
+         * The document content type
+         * @since 1.1.0
+         */
+        private final String contentType;
+
+        /**
+         * The document file extension
+         * @since 1.1.0
+         */
+        private final String extension;
+
+        /**
+         * @param contentType The document content type
+         * @param extension   The document file extension
+         * @since 1.1.0
+         */
+        ReportType(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        /**
+         * Get the document content type, null if the report is sent to the printer
+         *
+         * @return The content type
+         * @since 1.1.0
+         */
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Get the document file extension, null if the report is sent to the printer
+         *
+         * @return The extension
+         * @since 1.1.0
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * The use of the report results cache
+     * @since 1.1.0
+     */
+    public enum CacheMode {
+        /**
+         * The cached result is returned if not expired, otherwise the generated report is cached
+         * @since 1.1.0
+         */
+        USE,
+        /**
+         * The report is always generated and replaces the cached result
+         * @since 1.1.0
+         */
+        REFRESH,
+        /**
+         * The report is always generated and not cached
+         * @since 1.1.0
+         */
+        BYPASS
+    }
+
+    /**
+     * The way the print report is sent to the printer
+     * @since 1.1.0
+     */
+    public enum PrintMode {
+        /**
+         * The report is printed with the OS print service
+         * @since 1.1.0
+         */
+        SERVICE,
+        /**
+         * The report is rendered to a monochrome bitmap and sent as ESC/POS raster commands in a single raw job
+         * @since 1.1.0
+         */
+        RASTER
     }
 
     /**
@@ -84,18 +165,39 @@ public class ReportRequest {
      */
     private String report;
 
+    /**
+     * The JasperReports template source (.jrxml) as base64 encoded, compiled in the server,
+     * used instead of the report
+     * @since 1.1.0
+     */
+    private String jrxml;
+
     /**
      * The JasperReports sub reports files
      * @since 1.0.0
      */
     private ArrayList<ReportResources> reportResources;
 
+    /**
+     * The id of a template registered in the templates' registry,
+     * when set replaces the report and the report resources
+     * @since 1.1.0
+     */
+    private String templateId;
+
     /**
      * The type of report that should be generated.
      * @since 1.0.0
      */
     private ReportType reportType;
 
+    /**
+     * The types to export the report, the report is filled once and exported to each type.
+     * The report type, or the first type if the report type is not set, is the main type.
+     * @since 1.1.0
+     */
+    private ArrayList<ReportType> reportTypes;
+
     /**
      * The list of report parameters
      * @since 1.0.0
@@ -181,6 +283,37 @@ public class ReportRequest {
      */
     private PdfProperties pdfProperties;
 
+    /**
+     * The virtualizer of the filled report pages, if null the configured virtualizer is used
+     * @since 1.1.0
+     */
+    private Virtualizer virtualizer;
+
+    /**
+     * The maximum time in milliseconds to generate the report, counted from the request arrival,
+     * if null the configured default is used
+     * @since 1.1.0
+     */
+    private Long timeout;
+
+    /**
+     * Share the generation with identical concurrent requests, if null only the not print requests are shared
+     * @since 1.1.0
+     */
+    private Boolean coalesce;
+
+    /**
+     * The use of the report results cache, if null the cached result is used
+     * @since 1.1.0
+     */
+    private CacheMode cache;
+
+    /**
+     * The print mode, if null the printer configured mode is used
+     * @since 1.1.0
+     */
+    private PrintMode printMode;
+
     /**
      * Report request definition
      * @since 1.0.0
@@ -189,6 +322,26 @@ public class ReportRequest {
         logger.debug("New instance of {}", this.getClass().getName());
     }
 
+    /**
+     * Get the base64 encoded jrxml template, compiled in the server
+     *
+     * @return The base64 encoded jrxml template
+     * @since 1.1.0
+     */
+    public String getJrxml() {
+        return jrxml;
+    }
+
+    /**
+     * Set the base64 encoded jrxml template, compiled in the server, used instead of the report
+     *
+     * @param jrxml The base64 encoded jrxml template
+     * @since 1.1.0
+     */
+    public void setJrxml(String jrxml) {
+        this.jrxml = jrxml;
+    }
+
     /**
      * The base64 encoded jasper report (jasper file compiled from jrxml file)
      *
@@ -231,6 +384,27 @@ public class ReportRequest {
         logger.debug("ReportType set to {}", this.reportType == null ? "null" : this.reportType.toString());
     }
 
+    /**
+     * The types to export the report, the report is filled once and exported to each type.
+     *
+     * @return The types
+     * @since 1.1.0
+     */
+    public ArrayList<ReportType> getReportTypes() {
+        return reportTypes;
+    }
+
+    /**
+     * The types to export the report, the report is filled once and exported to each type.
+     * The report type, or the first type if the report type is not set, is the main type.
+     *
+     * @param reportTypes The types
+     * @since 1.1.0
+     */
+    public void setReportTypes(ArrayList<ReportType> reportTypes) {
+        this.reportTypes = reportTypes;
+    }
+
     /**
      * The report parameters
      *
@@ -478,6 +652,24 @@ public class ReportRequest {
         this.reportResources = reportResources;
     }
 
+    /**
+     * Get the registered template id
+     * @return The template id
+     * @since 1.1.0
+     */
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    /**
+     * Set the registered template id, replaces the report and the report resources
+     * @param templateId The template id
+     * @since 1.1.0
+     */
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+    }
+
     /**
      * Get the bitwise after print operations
      *
@@ -534,6 +726,99 @@ public class ReportRequest {
         this.pdfProperties = pdfProperties;
     }
 
+    /**
+     * Get the virtualizer of the filled report pages
+     * @return The virtualizer, null if the configured virtualizer is used
+     * @since 1.1.0
+     */
+    public Virtualizer getVirtualizer() {
+        return virtualizer;
+    }
+
+    /**
+     * Set the virtualizer of the filled report pages, used to bound the memory of large reports
+     * @param virtualizer The virtualizer
+     * @since 1.1.0
+     */
+    public void setVirtualizer(Virtualizer virtualizer) {
+        this.virtualizer = virtualizer;
+    }
+
+    /**
+     * Get the maximum time in milliseconds to generate the report
+     * @return The timeout, null if the configured default is used
+     * @since 1.1.0
+     */
+    public Long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Set the maximum time in milliseconds to generate the report, counted from the request arrival,
+     * zero or less is no time limit
+     * @param timeout The timeout
+     * @since 1.1.0
+     */
+    public void setTimeout(Long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Get if the generation is shared with identical concurrent requests
+     * @return The coalesce option, null if only the not print requests are shared
+     * @since 1.1.0
+     */
+    public Boolean getCoalesce() {
+        return coalesce;
+    }
+
+    /**
+     * Set if the generation is shared with identical concurrent requests,
+     * the print requests must opt in because the print has physical side effects
+     * @param coalesce The coalesce option
+     * @since 1.1.0
+     */
+    public void setCoalesce(Boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    /**
+     * Get the use of the report results cache
+     * @return The cache mode, null if the cached result is used
+     * @since 1.1.0
+     */
+    public CacheMode getCache() {
+        return cache;
+    }
+
+    /**
+     * Set the use of the report results cache, the datasources whose data changes
+     * should refresh or bypass the cached result
+     * @param cache The cache mode
+     * @since 1.1.0
+     */
+    public void setCache(CacheMode cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Get the print mode
+     * @return The print mode, null if the printer configured mode is used
+     * @since 1.1.0
+     */
+    public PrintMode getPrintMode() {
+        return printMode;
+    }
+
+    /**
+     * Set the print mode, only used in the print report type
+     * @param printMode The print mode
+     * @since 1.1.0
+     */
+    public void setPrintMode(PrintMode printMode) {
+        this.printMode = printMode;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -542,8 +827,11 @@ public class ReportRequest {
         return copies == request.copies
                 && afterPrintOperations == request.afterPrintOperations
                 && Objects.equals(report, request.report)
+                && Objects.equals(jrxml, request.jrxml)
                 && Objects.equals(reportResources, request.reportResources)
+                && Objects.equals(templateId, request.templateId)
                 && reportType == request.reportType
+                && Objects.equals(reportTypes, request.reportTypes)
                 && Objects.equals(parameters, request.parameters)
                 && Objects.equals(database, request.database)
                 && Objects.equals(jsonHttp, request.jsonHttp)
@@ -554,15 +842,23 @@ public class ReportRequest {
                 && Objects.equals(xmlFile, request.xmlFile)
                 && Objects.equals(sign, request.sign)
                 && Objects.equals(encoding, request.encoding)
-                && Objects.equals(metadata, request.metadata);
+                && Objects.equals(metadata, request.metadata)
+                && Objects.equals(virtualizer, request.virtualizer)
+                && Objects.equals(timeout, request.timeout)
+                && Objects.equals(coalesce, request.coalesce)
+                && cache == request.cache
+                && printMode == request.printMode;
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(
                 report,
+                jrxml,
                 reportResources,
+                templateId,
                 reportType,
+                reportTypes,
                 parameters,
                 database,
                 jsonHttp,
@@ -575,7 +871,12 @@ public class ReportRequest {
                 copies,
                 encoding,
                 afterPrintOperations,
-                metadata
+                metadata,
+                virtualizer,
+                timeout,
+                coalesce,
+                cache,
+                printMode
         );
     }
 }
@@ -0,0 +1,150 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * The template upload request, a template is uploaded once
+ * and referenced by the returned id in the report requests
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonFormat(with = JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+public class TemplateRequest {
+
+    /**
+     *
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The JasperReports file, the compiled jrxml file (.jasper) as base64 encoded
+     * @since 1.1.0
+     */
+    private String report;
+
+    /**
+     * The JasperReports template source (.jrxml) as base64 encoded, compiled in the server,
+     * used instead of the report
+     * @since 1.1.0
+     */
+    private String jrxml;
+
+    /**
+     * The JasperReports sub reports and images files
+     * @since 1.1.0
+     */
+    private ArrayList<ReportResources> reportResources;
+
+    /**
+     * Template upload request definition
+     * @since 1.1.0
+     */
+    public TemplateRequest() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Get the base64 encoded jrxml template, compiled in the server
+     *
+     * @return The base64 encoded jrxml template
+     * @since 1.1.0
+     */
+    public String getJrxml() {
+        return jrxml;
+    }
+
+    /**
+     * Set the base64 encoded jrxml template, compiled in the server, used instead of the report
+     *
+     * @param jrxml The base64 encoded jrxml template
+     * @since 1.1.0
+     */
+    public void setJrxml(String jrxml) {
+        this.jrxml = jrxml;
+    }
+
+    /**
+     * The base64 encoded jasper report (jasper file compiled from jrxml file)
+     *
+     * @return The the base64 encoded jasper report
+     * @since 1.1.0
+     */
+    public String getReport() {
+        return report;
+    }
+
+    /**
+     * The base64 encoded jasper report (jasper file compiled from jrxml file)
+     *
+     * @param report The the base64 encoded jasper report
+     * @since 1.1.0
+     */
+    public void setReport(String report) {
+        this.report = report;
+        logger.debug("Report was set");
+    }
+
+    /**
+     * Get the report resources
+     * @return The report resources
+     * @since 1.1.0
+     */
+    public ArrayList<ReportResources> getReportResources() {
+        return reportResources;
+    }
+
+    /**
+     * Set the report resources
+     * @param reportResources The report resources
+     * @since 1.1.0
+     */
+    public void setReportResources(ArrayList<ReportResources> reportResources) {
+        this.reportResources = reportResources;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TemplateRequest that = (TemplateRequest) o;
+        return Objects.equals(report, that.report)
+                && Objects.equals(jrxml, that.jrxml)
+                && Objects.equals(reportResources, that.reportResources);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(report, jrxml, reportResources);
+    }
+}
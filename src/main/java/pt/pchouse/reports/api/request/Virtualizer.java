@@ -0,0 +1,144 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * The virtualizer of the filled report pages, the values not set are the configured defaults
+ *
+ * @since 1.1.0
+ */
+@Component()
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonFormat(with = JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+public class Virtualizer {
+
+    /**
+     * The virtualizer types
+     * @since 1.1.0
+     */
+    public enum Type {
+        /**
+         * All pages are kept in memory
+         * @since 1.1.0
+         */
+        NONE,
+        /**
+         * The pages above the threshold are written one file per page
+         * @since 1.1.0
+         */
+        FILE,
+        /**
+         * The pages above the threshold are written to a single swap file
+         * @since 1.1.0
+         */
+        SWAP,
+        /**
+         * The pages are virtualized when the datasource size or the page count crosses the limits
+         * @since 1.1.0
+         */
+        AUTO
+    }
+
+    /**
+     *
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The virtualizer type
+     * @since 1.1.0
+     */
+    private Type type;
+
+    /**
+     * The maximum number of pages kept in memory
+     * @since 1.1.0
+     */
+    private Integer pages;
+
+    /**
+     * The virtualizer of the filled report pages
+     * @since 1.1.0
+     */
+    public Virtualizer() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Get the virtualizer type
+     * @return The type, null if not set
+     * @since 1.1.0
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Set the virtualizer type
+     * @param type The type
+     * @since 1.1.0
+     */
+    public void setType(Type type) {
+        this.type = type;
+        logger.debug("Type set to {}", this.type);
+    }
+
+    /**
+     * Get the maximum number of pages kept in memory
+     * @return The pages, null if not set
+     * @since 1.1.0
+     */
+    public Integer getPages() {
+        return pages;
+    }
+
+    /**
+     * Set the maximum number of pages kept in memory
+     * @param pages The pages
+     * @since 1.1.0
+     */
+    public void setPages(Integer pages) {
+        this.pages = pages;
+        logger.debug("Pages set to {}", this.pages);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Virtualizer that = (Virtualizer) o;
+        return type == that.type && Objects.equals(pages, that.pages);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, pages);
+    }
+}
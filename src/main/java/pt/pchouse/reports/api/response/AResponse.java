@@ -37,6 +37,7 @@ abstract public class AResponse {
     public enum Status {
         OK,
         ERROR,
+        TIMEOUT,
     }
 
     /**
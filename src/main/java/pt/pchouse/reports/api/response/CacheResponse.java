@@ -0,0 +1,193 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * The cache statistics response
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class CacheResponse extends AResponse {
+
+    /**
+     * Number of cache hits
+     * @since 1.1.0
+     */
+    private long hits;
+
+    /**
+     * Number of cache misses
+     * @since 1.1.0
+     */
+    private long misses;
+
+    /**
+     * Number of evicted entries
+     * @since 1.1.0
+     */
+    private long evictions;
+
+    /**
+     * Number of entries in the cache
+     * @since 1.1.0
+     */
+    private long size;
+
+    /**
+     * The sum of the entries size in bytes
+     * @since 1.1.0
+     */
+    private long bytes;
+
+    /**
+     * The cache statistics response
+     * @since 1.1.0
+     */
+    public CacheResponse() {
+        super();
+    }
+
+    /**
+     * Get the number of cache hits
+     *
+     * @return The hits
+     * @since 1.1.0
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Set the number of cache hits
+     *
+     * @param hits The hits
+     * @since 1.1.0
+     */
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * Get the number of cache misses
+     *
+     * @return The misses
+     * @since 1.1.0
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Set the number of cache misses
+     *
+     * @param misses The misses
+     * @since 1.1.0
+     */
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * Get the number of evicted entries
+     *
+     * @return The evictions
+     * @since 1.1.0
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Set the number of evicted entries
+     *
+     * @param evictions The evictions
+     * @since 1.1.0
+     */
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    /**
+     * Get the number of entries in the cache
+     *
+     * @return The size
+     * @since 1.1.0
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Set the number of entries in the cache
+     *
+     * @param size The size
+     * @since 1.1.0
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * Get the sum of the entries size in bytes
+     *
+     * @return The bytes
+     * @since 1.1.0
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Set the sum of the entries size in bytes
+     *
+     * @param bytes The bytes
+     * @since 1.1.0
+     */
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheResponse that = (CacheResponse) o;
+        return status == that.status
+                && hits == that.hits
+                && misses == that.misses
+                && evictions == that.evictions
+                && size == that.size
+                && bytes == that.bytes
+                && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, message, hits, misses, evictions, size, bytes);
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.job.Job;
+
+import java.util.Objects;
+
+/**
+ * The report generation job response
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class JobResponse extends AResponse {
+
+    /**
+     *
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The job id
+     * @since 1.1.0
+     */
+    private String jobId;
+
+    /**
+     * The job state
+     * @since 1.1.0
+     */
+    private Job.State state;
+
+    /**
+     * The generated report size in bytes
+     * @since 1.1.0
+     */
+    private long size;
+
+    /**
+     * The Job Response
+     * @since 1.1.0
+     */
+    public JobResponse() {
+        super();
+    }
+
+    /**
+     * Set the job id, state and size from the job
+     *
+     * @param job The job
+     * @since 1.1.0
+     */
+    public void setJob(Job job) {
+        setJobId(job.getId());
+        setState(job.getState());
+        setSize(job.getSize());
+    }
+
+    /**
+     * Get the job id
+     *
+     * @return The job id
+     * @since 1.1.0
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Set the job id
+     *
+     * @param jobId The job id
+     * @since 1.1.0
+     */
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+        logger.debug("Job id set to {}", jobId);
+    }
+
+    /**
+     * Get the job state
+     *
+     * @return The state
+     * @since 1.1.0
+     */
+    public Job.State getState() {
+        return state;
+    }
+
+    /**
+     * Set the job state
+     *
+     * @param state The state
+     * @since 1.1.0
+     */
+    public void setState(Job.State state) {
+        this.state = state;
+    }
+
+    /**
+     * Get the generated report size in bytes
+     *
+     * @return The size
+     * @since 1.1.0
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Set the generated report size in bytes
+     *
+     * @param size The size
+     * @since 1.1.0
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobResponse that = (JobResponse) o;
+        return status == that.status
+                && size == that.size
+                && state == that.state
+                && Objects.equals(message, that.message)
+                && Objects.equals(jobId, that.jobId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, message, jobId, state, size);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.pool.PoolStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The database connection pools statistics response
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class PoolResponse extends AResponse {
+
+    /**
+     * The statistics of each pool
+     * @since 1.1.0
+     */
+    private List<PoolStats> pools = new ArrayList<>();
+
+    /**
+     * The pools statistics response
+     * @since 1.1.0
+     */
+    public PoolResponse() {
+        super();
+    }
+
+    /**
+     * Get the statistics of each pool
+     *
+     * @return The pools statistics
+     * @since 1.1.0
+     */
+    public List<PoolStats> getPools() {
+        return pools;
+    }
+
+    /**
+     * Set the statistics of each pool
+     *
+     * @param pools The pools statistics
+     * @since 1.1.0
+     */
+    public void setPools(List<PoolStats> pools) {
+        this.pools = pools;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PoolResponse that = (PoolResponse) o;
+        return status == that.status
+                && Objects.equals(message, that.message)
+                && Objects.equals(pools, that.pools);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, message, pools);
+    }
+
+}
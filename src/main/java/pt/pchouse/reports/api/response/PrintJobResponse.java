@@ -0,0 +1,160 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.printer.PrintJob;
+
+import java.util.Objects;
+
+/**
+ * The print job response
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class PrintJobResponse extends AResponse {
+
+    /**
+     *
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The print job id
+     * @since 1.1.0
+     */
+    private String jobId;
+
+    /**
+     * The printer name
+     * @since 1.1.0
+     */
+    private String printer;
+
+    /**
+     * The print job state
+     * @since 1.1.0
+     */
+    private PrintJob.State state;
+
+    /**
+     * The Print Job Response
+     * @since 1.1.0
+     */
+    public PrintJobResponse() {
+        super();
+    }
+
+    /**
+     * Set the job id, printer and state from the print job
+     *
+     * @param job The print job
+     * @since 1.1.0
+     */
+    public void setJob(PrintJob job) {
+        setJobId(job.getId());
+        setPrinter(job.getPrinter());
+        setState(job.getState());
+    }
+
+    /**
+     * Get the print job id
+     *
+     * @return The job id
+     * @since 1.1.0
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Set the print job id
+     *
+     * @param jobId The job id
+     * @since 1.1.0
+     */
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+        logger.debug("Print job id set to {}", jobId);
+    }
+
+    /**
+     * Get the printer name
+     *
+     * @return The printer
+     * @since 1.1.0
+     */
+    public String getPrinter() {
+        return printer;
+    }
+
+    /**
+     * Set the printer name
+     *
+     * @param printer The printer
+     * @since 1.1.0
+     */
+    public void setPrinter(String printer) {
+        this.printer = printer;
+    }
+
+    /**
+     * Get the print job state
+     *
+     * @return The state
+     * @since 1.1.0
+     */
+    public PrintJob.State getState() {
+        return state;
+    }
+
+    /**
+     * Set the print job state
+     *
+     * @param state The state
+     * @since 1.1.0
+     */
+    public void setState(PrintJob.State state) {
+        this.state = state;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PrintJobResponse that = (PrintJobResponse) o;
+        return status == that.status
+                && state == that.state
+                && Objects.equals(message, that.message)
+                && Objects.equals(jobId, that.jobId)
+                && Objects.equals(printer, that.printer);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, message, jobId, printer, state);
+    }
+
+}
@@ -23,7 +23,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.ReportRequest;
 
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -46,6 +48,18 @@ public class ReportResponse extends AResponse {
      */
     private String report;
 
+    /**
+     * The reports of each requested type in base64 encode, null if only one type was requested
+     * @since 1.1.0
+     */
+    private Map<ReportRequest.ReportType, String> reports;
+
+    /**
+     * The print job id of the print report, the response is sent when the job is queued
+     * @since 1.1.0
+     */
+    private String printJobId;
+
     /**
      * The Report Response
      * @since 1.0.0
@@ -75,6 +89,46 @@ public class ReportResponse extends AResponse {
         logger.debug("Report was set");
     }
 
+    /**
+     * Get the generated reports of each requested type as base64 encoded
+     *
+     * @return The generated reports, null if only one type was requested
+     * @since 1.1.0
+     */
+    public Map<ReportRequest.ReportType, String> getReports() {
+        return reports;
+    }
+
+    /**
+     * Set the generated reports of each requested type as base64 encoded
+     *
+     * @param reports The generated reports
+     * @since 1.1.0
+     */
+    public void setReports(Map<ReportRequest.ReportType, String> reports) {
+        this.reports = reports;
+    }
+
+    /**
+     * Get the print job id of the print report
+     *
+     * @return The print job id, null if the report is not printed
+     * @since 1.1.0
+     */
+    public String getPrintJobId() {
+        return printJobId;
+    }
+
+    /**
+     * Set the print job id of the print report
+     *
+     * @param printJobId The print job id
+     * @since 1.1.0
+     */
+    public void setPrintJobId(String printJobId) {
+        this.printJobId = printJobId;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -82,12 +136,14 @@ public class ReportResponse extends AResponse {
         ReportResponse that = (ReportResponse) o;
         return status == that.status
                 && Objects.equals(message, that.message)
-                && Objects.equals(report, that.report);
+                && Objects.equals(report, that.report)
+                && Objects.equals(reports, that.reports)
+                && Objects.equals(printJobId, that.printJobId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(status, message, report);
+        return Objects.hash(status, message, report, reports, printJobId);
     }
 
 }
@@ -0,0 +1,94 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * The registered template response
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class TemplateResponse extends AResponse {
+
+    /**
+     *
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The registered template id
+     * @since 1.1.0
+     */
+    private String templateId;
+
+    /**
+     * The Template Response
+     * @since 1.1.0
+     */
+    public TemplateResponse() {
+        super();
+    }
+
+    /**
+     * Get the registered template id
+     *
+     * @return The template id
+     * @since 1.1.0
+     */
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    /**
+     * Set the registered template id
+     *
+     * @param templateId The template id
+     * @since 1.1.0
+     */
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+        logger.debug("Template id set to {}", templateId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TemplateResponse that = (TemplateResponse) o;
+        return status == that.status
+                && Objects.equals(message, that.message)
+                && Objects.equals(templateId, that.templateId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, message, templateId);
+    }
+
+}
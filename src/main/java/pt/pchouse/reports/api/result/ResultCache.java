@@ -0,0 +1,617 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.result;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.util.Digest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short lived LRU cache of the generated reports, keyed by the request key (template, parameters
+ * and datasource definition). The entries expire after the time to live and are evicted when
+ * the bytes limit is exceeded, the bigger entries are kept in files instead of in memory.
+ * Only the not print requests of a single report type are cached.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class ResultCache {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Enable the results cache, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.result.cache.enabled}")
+    private boolean enabled;
+
+    /**
+     * The time to live in milliseconds of the cached results
+     * @since 1.1.0
+     */
+    @Value("${report.result.cache.ttl.ms}")
+    private long ttlMs;
+
+    /**
+     * The maximum sum of the cached results size in bytes
+     * @since 1.1.0
+     */
+    @Value("${report.result.cache.max.bytes}")
+    private long maxBytes;
+
+    /**
+     * The results bigger than this size are kept in a file
+     * @since 1.1.0
+     */
+    @Value("${report.result.cache.memory.entry.bytes}")
+    private long memoryEntryBytes;
+
+    /**
+     * The tmp dir defined in the application.properties, if empty the system tmp dir is used
+     * @since 1.1.0
+     */
+    @Value("${report.tmpdir}")
+    private String configTmpDir;
+
+    /**
+     * The directory of the results kept in files, lazy created
+     * @since 1.1.0
+     */
+    private Path directory;
+
+    /**
+     * The cached results in access order, the eldest is the least recently used
+     * @since 1.1.0
+     */
+    private final LinkedHashMap<String, Entry> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The sum of the cached results size
+     * @since 1.1.0
+     */
+    private long bytes = 0;
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * The report results cache
+     * @since 1.1.0
+     */
+    public ResultCache() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Get the cache mode of the request Cache-Control header,
+     * 'no-store' bypass the cache and 'no-cache' or 'max-age=0' refresh the cached result
+     *
+     * @param cacheControl The Cache-Control header value, can be null
+     * @return The cache mode or null if the header has no cache directive
+     * @since 1.1.0
+     */
+    public static ReportRequest.CacheMode cacheMode(String cacheControl) {
+        if (StringUtils.isBlank(cacheControl)) {
+            return null;
+        }
+        ReportRequest.CacheMode mode = null;
+        for (String directive : cacheControl.split(",")) {
+            String trimmed = directive.trim().toLowerCase();
+            if (trimmed.equals("no-store")) {
+                return ReportRequest.CacheMode.BYPASS;
+            }
+            if (trimmed.equals("no-cache") || trimmed.replace(" ", "").equals("max-age=0")) {
+                mode = ReportRequest.CacheMode.REFRESH;
+            }
+        }
+        return mode;
+    }
+
+    /**
+     * If the generated report of the request can be cached
+     *
+     * @param request The request
+     * @return true if cacheable
+     * @since 1.1.0
+     */
+    public boolean isCacheable(ReportRequest request) {
+        return enabled
+                && request.getCache() != ReportRequest.CacheMode.BYPASS
+                && request.getReportType() != null
+                && request.getReportType() != ReportRequest.ReportType.PRINT
+                && (request.getReportTypes() == null || request.getReportTypes().isEmpty());
+    }
+
+    /**
+     * Get a not expired result from the cache, the result is retained and must be released after read,
+     * the file of a retained result is only deleted when released
+     *
+     * @param key The request key
+     * @return The retained result or null if not cached
+     * @since 1.1.0
+     */
+    public Entry get(String key) {
+        Entry entry = lookup(key, true);
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            logger.debug("Result cache miss for key '{}'", key);
+            return null;
+        }
+
+        hits.incrementAndGet();
+        logger.debug("Result cache hit for key '{}'", key);
+        return entry;
+    }
+
+    /**
+     * Get a not expired result from the cache without counting a hit or a miss,
+     * the result is not retained so the content file must not be read
+     *
+     * @param key The request key
+     * @return The result or null if not cached
+     * @since 1.1.0
+     */
+    public Entry peek(String key) {
+        return lookup(key, false);
+    }
+
+    /**
+     * Get a not expired result, the expired result is removed
+     *
+     * @param key    The request key
+     * @param retain Retain the result, in the results lock so it is not deleted before retained
+     * @return The result or null if not cached
+     * @since 1.1.0
+     */
+    private Entry lookup(String key, boolean retain) {
+        Entry expired;
+        synchronized (results) {
+            Entry entry = results.get(key);
+            if (entry == null || !entry.isExpired()) {
+                if (entry != null && retain) {
+                    entry.retain();
+                }
+                return entry;
+            }
+            results.remove(key);
+            bytes -= entry.size;
+            expired = entry;
+        }
+        evictions.incrementAndGet();
+        logger.debug("Result with key '{}' expired", key);
+        expired.delete();
+        return null;
+    }
+
+    /**
+     * Put a generated report in the cache, evicting the expired results and the least recently used
+     * results if the bytes limit is exceeded
+     *
+     * @param key    The request key
+     * @param output The generated report
+     * @return The cached result or null if not cached
+     * @throws IOException If fail to write the result file
+     * @since 1.1.0
+     */
+    public Entry put(String key, ReportOutput output) throws IOException {
+        if (!enabled || output == null || output.size() > maxBytes) {
+            return null;
+        }
+
+        Entry entry;
+        long expires = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        if (output.size() <= memoryEntryBytes) {
+            byte[] content = output.toByteArray();
+            entry = new Entry(eTag(Digest.sha256Hex(content)), content, null, content.length, expires);
+        } else {
+            Path file = Files.createTempFile(directory(), "result", ".tmp");
+            MessageDigest digest = Digest.newMessageDigest();
+            try (OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+                output.writeTo(outputStream);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            entry = new Entry(eTag(Digest.toHex(digest.digest())), null, file, output.size(), expires);
+        }
+
+        List<Entry> removed = new ArrayList<>();
+        synchronized (results) {
+            Entry old = results.put(key, entry);
+            if (old != null) {
+                bytes -= old.size;
+                removed.add(old);
+            }
+            bytes += entry.size;
+
+            Iterator<Map.Entry<String, Entry>> iterator = results.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                if (bytes > maxBytes || eldest.getValue().isExpired()) {
+                    bytes -= eldest.getValue().size;
+                    iterator.remove();
+                    removed.add(eldest.getValue());
+                    evictions.incrementAndGet();
+                    logger.debug("Result with key '{}' evicted from cache", eldest.getKey());
+                }
+            }
+        }
+
+        removed.forEach(Entry::delete);
+        return entry;
+    }
+
+    /**
+     * Remove a result from the cache
+     *
+     * @param key The request key
+     * @since 1.1.0
+     */
+    public void remove(String key) {
+        Entry old;
+        synchronized (results) {
+            old = results.remove(key);
+            if (old != null) {
+                bytes -= old.size;
+            }
+        }
+        if (old != null) {
+            old.delete();
+        }
+    }
+
+    /**
+     * Remove all results from the cache
+     * @since 1.1.0
+     */
+    public void clear() {
+        List<Entry> removed;
+        synchronized (results) {
+            removed = new ArrayList<>(results.values());
+            results.clear();
+            bytes = 0;
+        }
+        removed.forEach(Entry::delete);
+    }
+
+    /**
+     * Get the directory of the results kept in files, created if not exists
+     *
+     * @return The directory
+     * @throws IOException If fail to create the directory
+     * @since 1.1.0
+     */
+    private synchronized Path directory() throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            directory = StringUtils.isNotEmpty(configTmpDir)
+                    ? Files.createTempDirectory(Paths.get(configTmpDir), "results")
+                    : Files.createTempDirectory("results");
+        }
+        return directory;
+    }
+
+    /**
+     * Quote the content hash as a strong entity tag
+     *
+     * @param hash The content hash
+     * @return The entity tag
+     * @since 1.1.0
+     */
+    private static String eTag(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    /**
+     * Number of cache hits
+     *
+     * @return The hits
+     * @since 1.1.0
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of cache misses
+     *
+     * @return The misses
+     * @since 1.1.0
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of expired and evicted results
+     *
+     * @return The evictions
+     * @since 1.1.0
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Number of cached results
+     *
+     * @return The size
+     * @since 1.1.0
+     */
+    public int getSize() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    /**
+     * The sum of the cached results size in bytes
+     *
+     * @return The bytes
+     * @since 1.1.0
+     */
+    public long getBytes() {
+        synchronized (results) {
+            return bytes;
+        }
+    }
+
+    /**
+     * The cached result, the content is in memory or in a file
+     * @since 1.1.0
+     */
+    public static class Entry {
+
+        /**
+         * @since 1.1.0
+         */
+        private final String eTag;
+
+        /**
+         * The content, null if in a file
+         * @since 1.1.0
+         */
+        private final byte[] content;
+
+        /**
+         * The content file, null if in memory
+         * @since 1.1.0
+         */
+        private final Path file;
+
+        /**
+         * @since 1.1.0
+         */
+        private final long size;
+
+        /**
+         * The expiry in System.nanoTime
+         * @since 1.1.0
+         */
+        private final long expires;
+
+        /**
+         * Number of readers that retain the result
+         * @since 1.1.0
+         */
+        private int references = 0;
+
+        /**
+         * If the result was removed from the cache, the file is deleted when the last reader release it
+         * @since 1.1.0
+         */
+        private boolean removed = false;
+
+        /**
+         * @param eTag    The entity tag
+         * @param content The content, null if in a file
+         * @param file    The content file, null if in memory
+         * @param size    The content size
+         * @param expires The expiry in System.nanoTime
+         * @since 1.1.0
+         */
+        private Entry(String eTag, byte[] content, Path file, long size, long expires) {
+            this.eTag = eTag;
+            this.content = content;
+            this.file = file;
+            this.size = size;
+            this.expires = expires;
+        }
+
+        /**
+         * Get the entity tag, the quoted SHA-256 of the content
+         *
+         * @return The entity tag
+         * @since 1.1.0
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * If the entity tag is in the If-None-Match header value
+         *
+         * @param ifNoneMatch The If-None-Match header value, can be null
+         * @return true if match
+         * @since 1.1.0
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (StringUtils.isBlank(ifNoneMatch)) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String trimmed = tag.trim();
+                if (trimmed.startsWith("W/")) {
+                    trimmed = trimmed.substring(2);
+                }
+                if (trimmed.equals("*") || trimmed.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * If the content is in memory
+         *
+         * @return true if in memory
+         * @since 1.1.0
+         */
+        public boolean isInMemory() {
+            return content != null;
+        }
+
+        /**
+         * Get the content, null if in a file
+         *
+         * @return The content
+         * @since 1.1.0
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * Get the content file, null if in memory
+         *
+         * @return The file
+         * @since 1.1.0
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Get the content size in bytes
+         *
+         * @return The size
+         * @since 1.1.0
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * If the time to live passed
+         *
+         * @return true if expired
+         * @since 1.1.0
+         */
+        public boolean isExpired() {
+            return System.nanoTime() - expires >= 0;
+        }
+
+        /**
+         * Retain the result while it is read
+         * @since 1.1.0
+         */
+        private synchronized void retain() {
+            references++;
+        }
+
+        /**
+         * Release a retained result, the content file is deleted if the result was removed
+         * from the cache and this is the last reader
+         * @since 1.1.0
+         */
+        public void release() {
+            synchronized (this) {
+                if (references > 0) {
+                    references--;
+                }
+                if (!removed || references > 0) {
+                    return;
+                }
+            }
+            deleteFile();
+        }
+
+        /**
+         * The result was removed from the cache, the content file is deleted now or when the last reader release it
+         * @since 1.1.0
+         */
+        private void delete() {
+            synchronized (this) {
+                removed = true;
+                if (references > 0) {
+                    return;
+                }
+            }
+            deleteFile();
+        }
+
+        /**
+         * Delete the content file, if any
+         * @since 1.1.0
+         */
+        private void deleteFile() {
+            if (file == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LoggerFactory.getLogger(ResultCache.class).debug(
+                        "Fail to delete result file '{}' with error: {}", file, e.getMessage()
+                );
+            }
+        }
+    }
+}
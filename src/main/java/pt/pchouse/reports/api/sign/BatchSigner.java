@@ -0,0 +1,415 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.sign;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import pt.pchouse.reports.api.request.Sign;
+import rebelo.reports.core.sign.RRSignPdfProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Sign many pdf documents with the same sign configuration in parallel in the task executor.
+ * The key is unlocked once for all documents, the signed documents are written as zip entries
+ * as each one finishes and a failed document does not abort the batch.
+ *
+ * @since 1.1.0
+ */
+@Service
+@Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+public class BatchSigner {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private Executor executor;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private SignService signService;
+
+    /**
+     * Maximum number of documents signed at the same time, zero or less is the number of processors
+     * @since 1.1.0
+     */
+    @Value("${report.sign.batch.parallelism}")
+    private int parallelism;
+
+    /**
+     * Maximum number of documents of a batch
+     * @since 1.1.0
+     */
+    @Value("${report.sign.batch.max.documents}")
+    private int maxDocuments;
+
+    /**
+     * Maximum size in bytes of a document, zero or less is no limit
+     * @since 1.1.0
+     */
+    @Value("${report.sign.batch.max.document.bytes}")
+    private long maxDocumentBytes;
+
+    /**
+     * @since 1.1.0
+     */
+    private final Sign sign;
+
+    /**
+     * The sign properties, created in the prepare
+     * @since 1.1.0
+     */
+    private RRSignPdfProperties signProperties;
+
+    /**
+     * @param sign The sign configuration of all documents
+     * @since 1.1.0
+     */
+    public BatchSigner(Sign sign) {
+        logger.debug("New instance of {}", this.getClass().getName());
+        this.sign = sign;
+    }
+
+    /**
+     * Validate the sign configuration and unlock the key, must be invoked before sign the documents
+     *
+     * @throws SignException If the sign configuration is not valid or fail to unlock the key
+     * @since 1.1.0
+     */
+    public void prepare() throws SignException {
+        if (sign == null) {
+            throw new SignException("The batch sign request must have the sign configuration");
+        }
+        signProperties = signService.signProperties(sign);
+        signService.getSigningKey(
+                signProperties.getJavaKeyStorePath(),
+                signProperties.getCertificateName(),
+                signProperties.getJavaKeyStorePassword(),
+                signProperties.getCertificatePassword()
+        );
+    }
+
+    /**
+     * Get the documents source of a zip stream, each file entry is a document. An entry larger than
+     * the maximum document size is not read to memory, it is returned as a failed document.
+     *
+     * @param inputStream The zip stream
+     * @return The source
+     * @since 1.1.0
+     */
+    public DocumentSource zipSource(InputStream inputStream) {
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        return () -> {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (isTooLarge(entry.getSize())) {
+                    return tooLarge(entry.getName());
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = zip.read(buffer)) != -1) {
+                    // The rest of the entry is skipped by the next entry read, without buffering
+                    if (isTooLarge((long) bytes.size() + read)) {
+                        return tooLarge(entry.getName());
+                    }
+                    bytes.write(buffer, 0, read);
+                }
+                return new Document(entry.getName(), bytes.toByteArray());
+            }
+            return null;
+        };
+    }
+
+    /**
+     * If the document size exceeds the maximum document size
+     *
+     * @param size The size in bytes, -1 if unknown
+     * @return true if too large
+     * @since 1.1.0
+     */
+    public boolean isTooLarge(long size) {
+        return maxDocumentBytes > 0 && size > maxDocumentBytes;
+    }
+
+    /**
+     * Get the failed document of a document larger than the maximum document size
+     *
+     * @param name The document name
+     * @return The failed document
+     * @since 1.1.0
+     */
+    public Document tooLarge(String name) {
+        String message = String.format("The document is larger than the maximum of %s bytes", maxDocumentBytes);
+        logger.debug("Batch sign of '{}' skipped: {}", name, message);
+        return new Document(name, null, message);
+    }
+
+    /**
+     * Sign the documents and write them as zip entries with the document name as each one finishes,
+     * a failed document is written as a text entry with the error message. The documents are read
+     * from the source only when there is room in the parallelism window.
+     *
+     * @param source       The documents
+     * @param outputStream The output stream
+     * @throws Exception If fail to read the documents or to write
+     * @since 1.1.0
+     */
+    public void writeZip(DocumentSource source, OutputStream outputStream) throws Exception {
+        if (signProperties == null) {
+            throw new SignException("The batch signer is not prepared");
+        }
+
+        int window = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        Set<String> names = new HashSet<>();
+        int index = 0;
+        int inFlight = 0;
+        boolean more = true;
+
+        try {
+            while (more || inFlight > 0) {
+                while (more && inFlight < window) {
+                    Document document = source.next();
+                    if (document == null) {
+                        more = false;
+                        break;
+                    }
+                    if (index >= maxDocuments) {
+                        throw new SignException(
+                                String.format("The batch has more than %s documents", maxDocuments)
+                        );
+                    }
+                    String name = uniqueName(document.name, index++, names);
+                    if (document.message != null) {
+                        writeResult(zip, new Result(name, null, document.message));
+                        continue;
+                    }
+                    try {
+                        completionService.submit(() -> signDocument(name, document.bytes));
+                        inFlight++;
+                    } catch (RejectedExecutionException e) {
+                        logger.debug("Task executor is full, document '{}' signed in the caller thread", name);
+                        writeResult(zip, signDocument(name, document.bytes));
+                    }
+                }
+
+                if (inFlight == 0) {
+                    continue;
+                }
+
+                Result result = completionService.take().get();
+                inFlight--;
+                writeResult(zip, result);
+            }
+        } finally {
+            while (inFlight > 0) {
+                try {
+                    completionService.take().get();
+                } catch (Exception e) {
+                    logger.debug("Fail to wait the batch document: {}", e.getMessage());
+                }
+                inFlight--;
+            }
+        }
+
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * Sign a document, never throws, the error is returned in the result
+     *
+     * @param name The document name
+     * @param pdf  The document
+     * @return The result
+     * @since 1.1.0
+     */
+    private Result signDocument(String name, byte[] pdf) {
+        ByteArrayOutputStream signed = new ByteArrayOutputStream(pdf.length + 16384);
+        try {
+            signService.sign(signProperties, pdf, signed);
+            return new Result(name, signed.toByteArray(), null);
+        } catch (Exception e) {
+            logger.error("Batch sign of '{}' failed: {}", name, e.getMessage());
+            return new Result(name, null, e.getMessage() == null ? e.getClass().getName() : e.getMessage());
+        }
+    }
+
+    /**
+     * @param zip    The zip stream
+     * @param result The signed document
+     * @throws IOException If fail to write
+     * @since 1.1.0
+     */
+    private void writeResult(ZipOutputStream zip, Result result) throws IOException {
+        if (result.signed == null) {
+            zip.putNextEntry(new ZipEntry(result.name + ".error.txt"));
+            zip.write(result.message.getBytes(StandardCharsets.UTF_8));
+        } else {
+            zip.putNextEntry(new ZipEntry(result.name));
+            zip.write(result.signed);
+        }
+        zip.closeEntry();
+        zip.flush();
+    }
+
+    /**
+     * Get the entry name of the document, the file name without the path,
+     * prefixed with the index if empty or already used
+     *
+     * @param name  The document name
+     * @param index The document index
+     * @param names The used names
+     * @return The entry name
+     * @since 1.1.0
+     */
+    static String uniqueName(String name, int index, Set<String> names) {
+        String fileName = name == null ? "" : name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        if (fileName.isEmpty()) {
+            fileName = index + ".pdf";
+        }
+        if (!names.add(fileName)) {
+            fileName = index + "_" + fileName;
+            names.add(fileName);
+        }
+        return fileName;
+    }
+
+    /**
+     * The source of the documents to sign, read one at a time
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    public interface DocumentSource {
+
+        /**
+         * @return The next document, null if no more documents
+         * @throws IOException If fail to read
+         * @since 1.1.0
+         */
+        Document next() throws IOException;
+    }
+
+    /**
+     * A document to sign
+     * @since 1.1.0
+     */
+    public static class Document {
+
+        /**
+         * @since 1.1.0
+         */
+        private final String name;
+
+        /**
+         * @since 1.1.0
+         */
+        private final byte[] bytes;
+
+        /**
+         * The error message of a document that is not signed, null if the document is to sign
+         * @since 1.1.0
+         */
+        private final String message;
+
+        /**
+         * @param name  The document name
+         * @param bytes The pdf
+         * @since 1.1.0
+         */
+        public Document(String name, byte[] bytes) {
+            this(name, bytes, null);
+        }
+
+        /**
+         * @param name    The document name
+         * @param bytes   The pdf, null if failed
+         * @param message The error message, null if not failed
+         * @since 1.1.0
+         */
+        private Document(String name, byte[] bytes, String message) {
+            this.name = name;
+            this.bytes = bytes;
+            this.message = message;
+        }
+    }
+
+    /**
+     * The result of a signed document
+     * @since 1.1.0
+     */
+    private static class Result {
+
+        /**
+         * @since 1.1.0
+         */
+        private final String name;
+
+        /**
+         * The signed document, null if failed
+         * @since 1.1.0
+         */
+        private final byte[] signed;
+
+        /**
+         * The error message
+         * @since 1.1.0
+         */
+        private final String message;
+
+        /**
+         * @param name    The document name
+         * @param signed  The signed document
+         * @param message The error message
+         * @since 1.1.0
+         */
+        private Result(String name, byte[] signed, String message) {
+            this.name = name;
+            this.signed = signed;
+            this.message = message;
+        }
+    }
+}
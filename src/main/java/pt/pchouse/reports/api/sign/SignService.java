@@ -0,0 +1,334 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.sign;
+
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSignatureAppearance;
+import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.security.DigestAlgorithms;
+import com.itextpdf.text.pdf.security.ExternalDigest;
+import com.itextpdf.text.pdf.security.ExternalSignature;
+import com.itextpdf.text.pdf.security.MakeSignature;
+import com.itextpdf.text.pdf.security.PrivateKeySignature;
+import com.itextpdf.text.pdf.security.ProviderDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import pt.pchouse.reports.api.request.Sign;
+import pt.pchouse.reports.api.util.Digest;
+import rebelo.reports.core.sign.RRSignPdfProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sign the pdf reports with the keys of the keystore. The keystore is loaded and the private key
+ * unlocked once by certificate name and passwords, and loaded again when the keystore file changes.
+ * The pdf is signed from memory to a stream.
+ *
+ * @since 1.1.0
+ */
+@Service
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class SignService {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The keystore file name, in the working dir
+     * @since 1.1.0
+     */
+    public static final String KEY_STORE_FILE = "keystore.ks";
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    /**
+     * The unlocked keys by keystore path, certificate name and passwords hash
+     * @since 1.1.0
+     */
+    private final Map<String, SigningKey> signingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * The pdf sign service
+     * @since 1.1.0
+     */
+    public SignService() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Get the keystore path, the keystore file in the working dir
+     *
+     * @return The path
+     * @since 1.1.0
+     */
+    public static Path keyStorePath() {
+        return Paths.get(Paths.get("").toAbsolutePath().toString(), KEY_STORE_FILE);
+    }
+
+    /**
+     * Create the sign properties of the request sign with the working dir keystore
+     *
+     * @param reqSign The request sign
+     * @return The sign properties
+     * @throws SignException If the keystore file not exist
+     * @since 1.1.0
+     */
+    public RRSignPdfProperties signProperties(Sign reqSign) throws SignException {
+        Path extKeyStore = keyStorePath();
+
+        if (!Files.exists(extKeyStore)) {
+            throw new SignException(
+                    String.format("Keystore file '%s' not found.", extKeyStore.toAbsolutePath())
+            );
+        }
+
+        RRSignPdfProperties sign = applicationContext.getBean(RRSignPdfProperties.class);
+        try {
+            sign.setCertificateName(reqSign.getCertificateName());
+            sign.setCertificatePassword(reqSign.getCertificatePassword());
+            sign.setJavaKeyStorePassword(reqSign.getKeyStorePassword());
+            sign.setJavaKeyStorePath(extKeyStore.toUri().toURL().getFile());
+            sign.setType(RRSignPdfProperties.Type.valueOf(reqSign.getCertificateType().toString()));
+            sign.setLevel(RRSignPdfProperties.Level.valueOf(reqSign.getLevel().toString()));
+            sign.setLocation(reqSign.getLocation());
+            sign.setContact(reqSign.getContact());
+            sign.isVisible(reqSign.isVisible());
+            sign.setReazon(reqSign.getReason());
+        } catch (Exception e) {
+            throw new SignException(String.format("Invalid sign properties: %s", e.getMessage()));
+        }
+
+        if (reqSign.getSignRectangle() != null) {
+
+            Rectangle rectangle = applicationContext.getBean(
+                    Rectangle.class,
+                    reqSign.getSignRectangle().getX() + reqSign.getSignRectangle().getWidth(),
+                    reqSign.getSignRectangle().getY(),
+                    reqSign.getSignRectangle().getRotation()
+            );
+
+            rectangle.setLeft(reqSign.getSignRectangle().getX());
+            rectangle.setBottom(reqSign.getSignRectangle().getY() + reqSign.getSignRectangle().getHeight());
+
+            sign.setRectangle(rectangle);
+        }
+
+        return sign;
+    }
+
+    /**
+     * Get the cache key of the keystore entry, the passwords are hashed to not be kept in the key
+     *
+     * @param keyStorePath        The keystore path
+     * @param certificateName     The certificate name (alias)
+     * @param keyStorePassword    The keystore password
+     * @param certificatePassword The certificate password
+     * @return The key
+     * @since 1.1.0
+     */
+    static String key(String keyStorePath, String certificateName, String keyStorePassword, String certificatePassword) {
+        return keyStorePath + "\n" + certificateName + "\n" + Digest.sha256Hex(
+                (keyStorePassword == null ? "" : keyStorePassword)
+                        + "\u0000"
+                        + (certificatePassword == null ? "" : certificatePassword)
+        );
+    }
+
+    /**
+     * Get the unlocked key of the keystore entry, loaded from the keystore if not cached or if the file changed
+     *
+     * @param keyStorePath        The keystore path
+     * @param certificateName     The certificate name (alias)
+     * @param keyStorePassword    The keystore password
+     * @param certificatePassword The certificate password
+     * @return The signing key
+     * @throws SignException If the keystore can not be loaded or the entry is not a private key with a certificate
+     * @since 1.1.0
+     */
+    public SigningKey getSigningKey(
+            String keyStorePath, String certificateName, String keyStorePassword, String certificatePassword
+    ) throws SignException {
+
+        Path path = Paths.get(keyStorePath);
+        FileTime lastModified;
+        long fileSize;
+        try {
+            lastModified = Files.getLastModifiedTime(path);
+            fileSize = Files.size(path);
+        } catch (IOException e) {
+            throw new SignException(String.format("Keystore file '%s' not found.", keyStorePath));
+        }
+
+        String key = key(keyStorePath, certificateName, keyStorePassword, certificatePassword);
+        SigningKey signingKey = signingKeys.get(key);
+        if (signingKey != null && signingKey.isCurrent(lastModified, fileSize)) {
+            return signingKey;
+        }
+
+        signingKey = load(path, certificateName, keyStorePassword, certificatePassword, lastModified, fileSize);
+        signingKeys.put(key, signingKey);
+        return signingKey;
+    }
+
+    /**
+     * Load the keystore and unlock the private key of the entry
+     *
+     * @since 1.1.0
+     */
+    private SigningKey load(
+            Path path, String certificateName, String keyStorePassword, String certificatePassword,
+            FileTime lastModified, long fileSize
+    ) throws SignException {
+
+        logger.debug("Load keystore '{}' entry '{}'", path, certificateName);
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            keyStore.load(inputStream, keyStorePassword == null ? null : keyStorePassword.toCharArray());
+
+            Key key = keyStore.getKey(
+                    certificateName, certificatePassword == null ? new char[0] : certificatePassword.toCharArray()
+            );
+            if (!(key instanceof PrivateKey)) {
+                throw new SignException(
+                        String.format("The keystore has no private key with name '%s'", certificateName)
+                );
+            }
+
+            Certificate[] chain = keyStore.getCertificateChain(certificateName);
+            if (chain == null || chain.length == 0) {
+                throw new SignException(
+                        String.format("The keystore has no certificate chain with name '%s'", certificateName)
+                );
+            }
+
+            return new SigningKey((PrivateKey) key, chain, lastModified, fileSize);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new SignException(String.format("Fail to load the keystore '%s': %s", path, e.getMessage()));
+        }
+    }
+
+    /**
+     * Sign the pdf
+     *
+     * @param signProperties The sign properties
+     * @param pdf            The pdf to sign
+     * @param outputStream   The stream where the signed pdf is written
+     * @throws SignException If fail to load the key or to sign
+     * @since 1.1.0
+     */
+    public void sign(RRSignPdfProperties signProperties, byte[] pdf, OutputStream outputStream)
+            throws SignException {
+
+        SigningKey signingKey = getSigningKey(
+                signProperties.getJavaKeyStorePath(),
+                signProperties.getCertificateName(),
+                signProperties.getJavaKeyStorePassword(),
+                signProperties.getCertificatePassword()
+        );
+
+        try {
+            PdfReader reader = new PdfReader(pdf);
+            PdfStamper stamper = PdfStamper.createSignature(reader, outputStream, '\0');
+            PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
+            appearance.setReason(signProperties.getReazon());
+            appearance.setLocation(signProperties.getLocation());
+            appearance.setContact(signProperties.getContact());
+            appearance.setCertificationLevel(certificationLevel(signProperties.getLevel()));
+            if (signProperties.isVisible() && signProperties.getRectangle() != null) {
+                appearance.setVisibleSignature(signProperties.getRectangle(), 1, null);
+            }
+
+            ExternalDigest digest = new ProviderDigest(null);
+            ExternalSignature signature = new PrivateKeySignature(
+                    signingKey.getPrivateKey(), DigestAlgorithms.SHA256, null
+            );
+            MakeSignature.signDetached(
+                    appearance, digest, signature, signingKey.getChain(),
+                    null, null, null, 0, MakeSignature.CryptoStandard.CMS
+            );
+        } catch (IOException | DocumentException | GeneralSecurityException e) {
+            throw new SignException(String.format("Fail to sign the pdf: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the pdf certification level
+     *
+     * @param level The sign level
+     * @return The certification level
+     * @since 1.1.0
+     */
+    static int certificationLevel(RRSignPdfProperties.Level level) {
+        if (level == null) {
+            return PdfSignatureAppearance.NOT_CERTIFIED;
+        }
+        switch (level) {
+            case CERTIFIED_FORM_FILLING:
+                return PdfSignatureAppearance.CERTIFIED_FORM_FILLING;
+            case CERTIFIED_FORM_FILLING_AND_ANNOTATIONS:
+                return PdfSignatureAppearance.CERTIFIED_FORM_FILLING_AND_ANNOTATIONS;
+            case CERTIFIED_NO_CHANGES_ALLOWED:
+            default:
+                return PdfSignatureAppearance.CERTIFIED_NO_CHANGES_ALLOWED;
+        }
+    }
+
+    /**
+     * Remove all the unlocked keys
+     * @since 1.1.0
+     */
+    public void clear() {
+        signingKeys.clear();
+    }
+
+    /**
+     * Number of unlocked keys
+     *
+     * @return The size
+     * @since 1.1.0
+     */
+    public int getSize() {
+        return signingKeys.size();
+    }
+}
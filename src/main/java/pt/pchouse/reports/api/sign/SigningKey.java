@@ -0,0 +1,99 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.sign;
+
+import java.nio.file.attribute.FileTime;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+
+/**
+ * The unlocked private key and certificate chain of a keystore entry,
+ * with the keystore file state to detect a changed file
+ *
+ * @since 1.1.0
+ */
+public class SigningKey {
+
+    /**
+     * @since 1.1.0
+     */
+    private final PrivateKey privateKey;
+
+    /**
+     * @since 1.1.0
+     */
+    private final Certificate[] chain;
+
+    /**
+     * The keystore file last modified time when loaded
+     * @since 1.1.0
+     */
+    private final FileTime lastModified;
+
+    /**
+     * The keystore file size when loaded
+     * @since 1.1.0
+     */
+    private final long fileSize;
+
+    /**
+     * @param privateKey   The unlocked private key
+     * @param chain        The certificate chain
+     * @param lastModified The keystore file last modified time
+     * @param fileSize     The keystore file size
+     * @since 1.1.0
+     */
+    public SigningKey(PrivateKey privateKey, Certificate[] chain, FileTime lastModified, long fileSize) {
+        this.privateKey = privateKey;
+        this.chain = chain;
+        this.lastModified = lastModified;
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Get the unlocked private key
+     *
+     * @return The private key
+     * @since 1.1.0
+     */
+    public PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    /**
+     * Get the certificate chain
+     *
+     * @return The chain
+     * @since 1.1.0
+     */
+    public Certificate[] getChain() {
+        return chain;
+    }
+
+    /**
+     * Get if the keystore file is the same that was loaded
+     *
+     * @param lastModified The keystore file last modified time
+     * @param fileSize     The keystore file size
+     * @return True if not changed
+     * @since 1.1.0
+     */
+    public boolean isCurrent(FileTime lastModified, long fileSize) {
+        return this.lastModified.equals(lastModified) && this.fileSize == fileSize;
+    }
+}
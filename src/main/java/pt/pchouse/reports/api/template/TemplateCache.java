@@ -0,0 +1,301 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.template;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.util.Digest;
+
+import java.io.ByteArrayInputStream;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of the loaded (deserialized) compiled templates,
+ * keyed by the hash of the template content.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class TemplateCache {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The maximum number of templates in the cache, zero disable the cache
+     * @since 1.1.0
+     */
+    @Value("${report.template.cache.size}")
+    private int maxSize;
+
+    /**
+     * The maximum sum of the template sizes in bytes
+     * @since 1.1.0
+     */
+    @Value("${report.template.cache.max.bytes}")
+    private long maxBytes;
+
+    /**
+     * The cached templates in access order, the eldest is the least recently used
+     * @since 1.1.0
+     */
+    private final LinkedHashMap<String, Entry> templates = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The sum of the cached template sizes
+     * @since 1.1.0
+     */
+    private long bytes = 0;
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * The compiled template cache
+     * @since 1.1.0
+     */
+    public TemplateCache() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Get the cache key of a base64 encoded template
+     *
+     * @param base64 The base64 encoded template
+     * @return The key
+     * @since 1.1.0
+     */
+    public static String key(String base64) {
+        return Digest.sha256Hex(base64);
+    }
+
+    /**
+     * Get the loaded template of the base64 encoded compiled template (.jasper),
+     * if not in the cache the template is decoded, loaded and cached.
+     *
+     * @param base64 The base64 encoded compiled template
+     * @return The loaded template
+     * @throws JRException If fail to load the template
+     * @since 1.1.0
+     */
+    public JasperReport getReport(String base64) throws JRException {
+        String key = key(base64);
+        JasperReport jasperReport = get(key);
+        if (jasperReport != null) {
+            return jasperReport;
+        }
+
+        byte[] decoded = Base64.getDecoder().decode(base64);
+        jasperReport = (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(decoded));
+        put(key, jasperReport, decoded.length);
+        return jasperReport;
+    }
+
+    /**
+     * Get a template from the cache
+     *
+     * @param key The template key
+     * @return The template or null if not cached
+     * @since 1.1.0
+     */
+    public JasperReport get(String key) {
+        Entry entry;
+        synchronized (templates) {
+            entry = templates.get(key);
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            logger.debug("Template cache miss for key '{}'", key);
+            return null;
+        }
+
+        hits.incrementAndGet();
+        logger.debug("Template cache hit for key '{}'", key);
+        return entry.jasperReport;
+    }
+
+    /**
+     * Put a template in the cache, evicting the least recently used templates
+     * if the size or the bytes limit is exceeded
+     *
+     * @param key          The template key
+     * @param jasperReport The loaded template
+     * @param size         The size in bytes of the compiled template
+     * @since 1.1.0
+     */
+    public void put(String key, JasperReport jasperReport, long size) {
+        if (maxSize <= 0 || size > maxBytes) {
+            return;
+        }
+
+        synchronized (templates) {
+            Entry old = templates.put(key, new Entry(jasperReport, size));
+            if (old != null) {
+                bytes -= old.size;
+            }
+            bytes += size;
+
+            Iterator<Map.Entry<String, Entry>> iterator = templates.entrySet().iterator();
+            while ((templates.size() > maxSize || bytes > maxBytes) && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                bytes -= eldest.getValue().size;
+                iterator.remove();
+                evictions.incrementAndGet();
+                logger.debug("Template with key '{}' evicted from cache", eldest.getKey());
+            }
+        }
+    }
+
+    /**
+     * Remove a template from the cache
+     *
+     * @param key The template key
+     * @since 1.1.0
+     */
+    public void remove(String key) {
+        synchronized (templates) {
+            Entry old = templates.remove(key);
+            if (old != null) {
+                bytes -= old.size;
+            }
+        }
+    }
+
+    /**
+     * Remove all templates from the cache
+     * @since 1.1.0
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Number of cache hits
+     *
+     * @return The hits
+     * @since 1.1.0
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of cache misses
+     *
+     * @return The misses
+     * @since 1.1.0
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of evicted templates
+     *
+     * @return The evictions
+     * @since 1.1.0
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Number of cached templates
+     *
+     * @return The size
+     * @since 1.1.0
+     */
+    public int getSize() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    /**
+     * The sum of the cached template sizes in bytes
+     *
+     * @return The bytes
+     * @since 1.1.0
+     */
+    public long getBytes() {
+        synchronized (templates) {
+            return bytes;
+        }
+    }
+
+    /**
+     * The cache entry
+     * @since 1.1.0
+     */
+    private static class Entry {
+
+        /**
+         * @since 1.1.0
+         */
+        private final JasperReport jasperReport;
+
+        /**
+         * @since 1.1.0
+         */
+        private final long size;
+
+        /**
+         * @param jasperReport The loaded template
+         * @param size         The compiled template size
+         * @since 1.1.0
+         */
+        private Entry(JasperReport jasperReport, long size) {
+            this.jasperReport = jasperReport;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.template;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.request.ReportResources;
+import pt.pchouse.reports.api.util.Digest;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compile the jrxml templates in the server. The compiled templates are kept in a bounded LRU
+ * in memory and in a store under the tmp dir, keyed by the jrxml hash and the JasperReports version,
+ * so a template version is compiled once and the store survives restarts.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class TemplateCompiler {
+
+    /**
+     * The compile timer name
+     * @since 1.1.0
+     */
+    public static final String COMPILE_TIMER = "reports.template.compile";
+
+    /**
+     * The compiled template file extension
+     * @since 1.1.0
+     */
+    public static final String JASPER = ".jasper";
+
+    /**
+     * The template source file extension
+     * @since 1.1.0
+     */
+    public static final String JRXML = ".jrxml";
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The tmp dir, the compiled store is created in it, if empty the system tmp dir is used
+     * @since 1.1.0
+     */
+    @Value("${report.tmpdir}")
+    private String configTmpDir;
+
+    /**
+     * The maximum number of compiled templates in memory, zero keep only in the store
+     * @since 1.1.0
+     */
+    @Value("${report.template.compile.cache.size}")
+    private int maxSize;
+
+    /**
+     * The compiled templates as base64 in access order, the eldest is the least recently used
+     * @since 1.1.0
+     */
+    private final LinkedHashMap<String, String> compiled = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Number of compiled templates found in memory or in the store
+     * @since 1.1.0
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of compiled templates found in the store
+     * @since 1.1.0
+     */
+    private final AtomicLong storeHits = new AtomicLong();
+
+    /**
+     * Number of compilations
+     * @since 1.1.0
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @since 1.1.0
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * The template compiler
+     * @since 1.1.0
+     */
+    public TemplateCompiler() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Register the compile cache meters
+     * @since 1.1.0
+     */
+    @PostConstruct
+    void registerMeters() {
+        FunctionCounter.builder("reports.template.compile.hits", this, TemplateCompiler::getHits)
+                .description("Compiled templates found in memory or in the store")
+                .register(meterRegistry);
+        FunctionCounter.builder("reports.template.compile.misses", this, TemplateCompiler::getMisses)
+                .description("Templates compiled in the server")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the JasperReports version of the compiled templates, the compiled templates
+     * can only be loaded by the same version
+     *
+     * @return The version
+     * @since 1.1.0
+     */
+    public static String jasperReportsVersion() {
+        String version = JasperCompileManager.class.getPackage().getImplementationVersion();
+        return StringUtils.isNotEmpty(version) ? version : String.valueOf(JRConstants.SERIAL_VERSION_UID);
+    }
+
+    /**
+     * Get the store key of a jrxml template
+     *
+     * @param jrxml The base64 encoded jrxml template
+     * @return The key
+     * @since 1.1.0
+     */
+    public static String key(String jrxml) {
+        return Digest.sha256Hex(jrxml) + "-" + jasperReportsVersion().replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Get the directory of the compiled templates store
+     *
+     * @return The directory
+     * @throws IOException If fail to create the directory
+     * @since 1.1.0
+     */
+    public Path getStoreDir() throws IOException {
+        Path dir = StringUtils.isNotEmpty(configTmpDir) ?
+                Paths.get(configTmpDir, "reports_compiled") :
+                Paths.get(System.getProperty("java.io.tmpdir"), "reports_compiled");
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * Get the compiled template of a jrxml template, from memory, from the store or compiled
+     *
+     * @param jrxml The base64 encoded jrxml template
+     * @return The base64 encoded compiled template (.jasper)
+     * @throws TemplateException If fail to compile
+     * @throws IOException       If fail to read or write the store
+     * @since 1.1.0
+     */
+    public String compile(String jrxml) throws TemplateException, IOException {
+        if (StringUtils.isBlank(jrxml)) {
+            throw new TemplateException("The jrxml template is empty");
+        }
+
+        String key = key(jrxml);
+        String jasper;
+        synchronized (compiled) {
+            jasper = compiled.get(key);
+        }
+        if (jasper != null) {
+            hits.incrementAndGet();
+            logger.debug("Compiled template '{}' found in memory", key);
+            return jasper;
+        }
+
+        Path file = getStoreDir().resolve(key + JASPER);
+        if (Files.isRegularFile(file)) {
+            hits.incrementAndGet();
+            storeHits.incrementAndGet();
+            logger.debug("Compiled template '{}' found in the store", key);
+            jasper = Base64.getEncoder().encodeToString(Files.readAllBytes(file));
+            put(key, jasper);
+            return jasper;
+        }
+
+        misses.incrementAndGet();
+        byte[] bytes = compileBytes(Base64.getDecoder().decode(jrxml));
+
+        Path staging = Files.createTempFile(getStoreDir(), key, ".tmp");
+        try {
+            Files.write(staging, bytes);
+            Files.move(staging, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+
+        jasper = Base64.getEncoder().encodeToString(bytes);
+        put(key, jasper);
+        return jasper;
+    }
+
+    /**
+     * Compile the jrxml template
+     *
+     * @param jrxml The jrxml template
+     * @return The compiled template
+     * @throws TemplateException If fail to compile
+     * @since 1.1.0
+     */
+    private byte[] compileBytes(byte[] jrxml) throws TemplateException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            ByteArrayOutputStream jasper = new ByteArrayOutputStream();
+            JasperCompileManager.compileReportToStream(new ByteArrayInputStream(jrxml), jasper);
+            return jasper.toByteArray();
+        } catch (JRException e) {
+            throw new TemplateException(String.format("Fail to compile the jrxml template: %s", e.getMessage()));
+        } finally {
+            long nanos = sample.stop(
+                    Timer.builder(COMPILE_TIMER)
+                            .description("Jrxml template compile latency")
+                            .register(meterRegistry)
+            );
+            logger.debug("Jrxml template compiled in {} ms", nanos / 1_000_000);
+        }
+    }
+
+    /**
+     * Compile the jrxml resources (sub reports), each one is replaced by the compiled
+     * resource with the same name and the .jasper extension
+     *
+     * @param reportResources The resources, can be null
+     * @return The resources with the jrxml compiled, null if null
+     * @throws TemplateException If fail to compile
+     * @throws IOException       If fail to read or write the store
+     * @since 1.1.0
+     */
+    public ArrayList<ReportResources> compileResources(List<ReportResources> reportResources)
+            throws TemplateException, IOException {
+        if (reportResources == null) {
+            return null;
+        }
+
+        ArrayList<ReportResources> resources = new ArrayList<>(reportResources.size());
+        for (ReportResources resource : reportResources) {
+            String name = resource.getName();
+            if (name == null || !name.toLowerCase().endsWith(JRXML) || resource.getResource() == null) {
+                resources.add(resource);
+                continue;
+            }
+            ReportResources compiledResource = new ReportResources();
+            compiledResource.setName(name.substring(0, name.length() - JRXML.length()) + JASPER);
+            compiledResource.setResource(compile(resource.getResource()));
+            resources.add(compiledResource);
+        }
+        return resources;
+    }
+
+    /**
+     * Compile the jrxml template and the jrxml resources of the request, the compiled template
+     * is set as the request report
+     *
+     * @param reportRequest The request
+     * @throws TemplateException If fail to compile
+     * @throws IOException       If fail to read or write the store
+     * @since 1.1.0
+     */
+    public void compileRequest(ReportRequest reportRequest) throws TemplateException, IOException {
+        if (StringUtils.isNotEmpty(reportRequest.getJrxml())) {
+            if (StringUtils.isNotEmpty(reportRequest.getReport())) {
+                throw new TemplateException("The request must have the report or the jrxml, not both");
+            }
+            reportRequest.setReport(compile(reportRequest.getJrxml()));
+            reportRequest.setJrxml(null);
+        }
+        reportRequest.setReportResources(compileResources(reportRequest.getReportResources()));
+    }
+
+    /**
+     * Put a compiled template in memory, evicting the least recently used
+     *
+     * @param key    The key
+     * @param jasper The base64 encoded compiled template
+     * @since 1.1.0
+     */
+    private void put(String key, String jasper) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (compiled) {
+            compiled.put(key, jasper);
+            while (compiled.size() > maxSize) {
+                Map.Entry<String, String> eldest = compiled.entrySet().iterator().next();
+                compiled.remove(eldest.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove all compiled templates from memory, the store is kept
+     * @since 1.1.0
+     */
+    public void clear() {
+        synchronized (compiled) {
+            compiled.clear();
+        }
+    }
+
+    /**
+     * Number of compiled templates found in memory or in the store
+     *
+     * @return The hits
+     * @since 1.1.0
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of compiled templates found in the store
+     *
+     * @return The store hits
+     * @since 1.1.0
+     */
+    public long getStoreHits() {
+        return storeHits.get();
+    }
+
+    /**
+     * Number of compilations
+     *
+     * @return The misses
+     * @since 1.1.0
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of compiled templates evicted from memory
+     *
+     * @return The evictions
+     * @since 1.1.0
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Number of compiled templates in memory
+     *
+     * @return The size
+     * @since 1.1.0
+     */
+    public int getSize() {
+        synchronized (compiled) {
+            return compiled.size();
+        }
+    }
+
+    /**
+     * The sum of the base64 compiled templates length in memory
+     *
+     * @return The bytes
+     * @since 1.1.0
+     */
+    public long getBytes() {
+        synchronized (compiled) {
+            return compiled.values().stream().mapToLong(String::length).sum();
+        }
+    }
+}
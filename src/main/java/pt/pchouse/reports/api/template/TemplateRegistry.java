@@ -0,0 +1,374 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.template;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.ReportResources;
+import pt.pchouse.reports.api.util.Digest;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Registry of the uploaded templates, each template and its resources (sub reports, images)
+ * is stored once in the registry directory and referenced by a stable id,
+ * the id is the hash of the template and resources content.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class TemplateRegistry {
+
+    /**
+     * The compiled template file name inside the template directory
+     * @since 1.1.0
+     */
+    public static final String REPORT_FILE = "report.jasper";
+
+    /**
+     * The valid template id
+     * @since 1.1.0
+     */
+    private static final Pattern ID_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The registry dir defined in the application.properties,
+     * if empty the system tmp dir is used
+     * @since 1.1.0
+     */
+    @Value("${report.template.dir}")
+    private String configTemplateDir;
+
+    /**
+     * The loaded compiled templates cache
+     * @since 1.1.0
+     */
+    @Autowired
+    private TemplateCache templateCache;
+
+    /**
+     * The temporary templates by id with the number of users, removed when the last user release them
+     * @since 1.1.0
+     */
+    private final Map<String, Integer> temporary = new HashMap<>();
+
+    /**
+     * The template registry
+     * @since 1.1.0
+     */
+    public TemplateRegistry() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Get the registry directory, created if not exists
+     *
+     * @return The registry directory
+     * @throws IOException If fail to create the directory
+     * @since 1.1.0
+     */
+    public Path getRegistryDir() throws IOException {
+        Path dir = StringUtils.isNotEmpty(configTemplateDir) ?
+                Paths.get(configTemplateDir) :
+                Paths.get(System.getProperty("java.io.tmpdir"), "reports_templates");
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * Calculate the template id of the template and resources
+     *
+     * @param report          The base64 encoded compiled template
+     * @param reportResources The template resources, can be null
+     * @return The template id
+     * @since 1.1.0
+     */
+    public static String templateId(String report, List<ReportResources> reportResources) {
+        MessageDigest messageDigest = Digest.newMessageDigest();
+        messageDigest.update(report.getBytes(StandardCharsets.UTF_8));
+        if (reportResources != null) {
+            for (ReportResources resource : reportResources) {
+                messageDigest.update((byte) 0);
+                messageDigest.update(resource.getName().getBytes(StandardCharsets.UTF_8));
+                messageDigest.update((byte) 0);
+                messageDigest.update(resource.getResource().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return Digest.toHex(messageDigest.digest());
+    }
+
+    /**
+     * Register a template, if the same template and resources are already registered
+     * the existing id is returned without writing again
+     *
+     * @param report          The base64 encoded compiled template
+     * @param reportResources The template resources, can be null
+     * @return The template id
+     * @throws TemplateException If the template or a resource is invalid
+     * @throws IOException       If fail to write the files
+     * @throws JRException       If fail to load the template
+     * @since 1.1.0
+     */
+    public String register(String report, List<ReportResources> reportResources) throws TemplateException, IOException, JRException {
+        if (StringUtils.isBlank(report)) {
+            throw new TemplateException("The template report is empty");
+        }
+
+        if (reportResources != null) {
+            for (ReportResources resource : reportResources) {
+                validateResourceName(resource.getName());
+                if (resource.getResource() == null) {
+                    throw new TemplateException(
+                            String.format("The resource '%s' is empty", resource.getName())
+                    );
+                }
+            }
+        }
+
+        String id = templateId(report, reportResources);
+        synchronized (temporary) {
+            // A template registered on purpose is no longer temporary
+            temporary.remove(id);
+        }
+        Path templateDir = getRegistryDir().resolve(id);
+        if (Files.exists(templateDir.resolve(REPORT_FILE))) {
+            logger.debug("Template '{}' already registered", id);
+            return id;
+        }
+
+        byte[] decoded = Base64.getDecoder().decode(report);
+        JasperReport jasperReport = (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(decoded));
+
+        Path staging = Files.createTempDirectory(getRegistryDir(), id);
+        try {
+            Files.write(staging.resolve(REPORT_FILE), decoded);
+            if (reportResources != null) {
+                for (ReportResources resource : reportResources) {
+                    Files.write(
+                            staging.resolve(resource.getName()),
+                            Base64.getDecoder().decode(resource.getResource())
+                    );
+                }
+            }
+            Files.move(staging, templateDir, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Template '{}' registered", id);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            logger.debug("Template '{}' registered by a concurrent request", id);
+        } finally {
+            deleteDir(staging);
+        }
+
+        templateCache.put(id, jasperReport, decoded.length);
+        return id;
+    }
+
+    /**
+     * Register a template while it is used, it must be released after use and it is removed when released
+     * by all users, unless it was already registered or it is registered during the use
+     *
+     * @param report          The base64 encoded compiled template
+     * @param reportResources The template resources, can be null
+     * @return The template id
+     * @throws TemplateException If the template or a resource is invalid
+     * @throws IOException       If fail to write the files
+     * @throws JRException       If fail to load the template
+     * @since 1.1.0
+     */
+    public String registerTemporary(String report, List<ReportResources> reportResources)
+            throws TemplateException, IOException, JRException {
+        synchronized (temporary) {
+            String id = StringUtils.isBlank(report) ? null : templateId(report, reportResources);
+            Integer users = id == null ? null : temporary.get(id);
+            boolean registered = users == null && exists(id);
+
+            // Registered again if removed while in use
+            id = register(report, reportResources);
+            if (!registered) {
+                temporary.put(id, users == null ? 1 : users + 1);
+                logger.debug("Template '{}' registered as temporary", id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Release a template registered as temporary, the template is removed when released by all users
+     *
+     * @param id The template id
+     * @since 1.1.0
+     */
+    public void releaseTemporary(String id) {
+        synchronized (temporary) {
+            Integer users = temporary.get(id);
+            if (users == null) {
+                return;
+            }
+            if (users > 1) {
+                temporary.put(id, users - 1);
+                return;
+            }
+            temporary.remove(id);
+            try {
+                remove(id);
+            } catch (IOException e) {
+                logger.debug("Fail to remove the temporary template '{}' with error: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the loaded template of a registered template
+     *
+     * @param id The template id
+     * @return The loaded template
+     * @throws TemplateException If the template is not registered
+     * @throws IOException       If fail to read the registry directory
+     * @throws JRException       If fail to load the template
+     * @since 1.1.0
+     */
+    public JasperReport getReport(String id) throws TemplateException, IOException, JRException {
+        JasperReport jasperReport = templateCache.get(id);
+        if (jasperReport != null) {
+            return jasperReport;
+        }
+
+        File file = getResourcesDir(id).resolve(REPORT_FILE).toFile();
+        jasperReport = (JasperReport) JRLoader.loadObject(file);
+        templateCache.put(id, jasperReport, file.length());
+        return jasperReport;
+    }
+
+    /**
+     * Get the directory of a registered template where the template resources are
+     *
+     * @param id The template id
+     * @return The template directory
+     * @throws TemplateException If the template is not registered
+     * @throws IOException       If fail to read the registry directory
+     * @since 1.1.0
+     */
+    public Path getResourcesDir(String id) throws TemplateException, IOException {
+        if (!exists(id)) {
+            throw new TemplateException(String.format("Template with id '%s' not found", id));
+        }
+        return getRegistryDir().resolve(id);
+    }
+
+    /**
+     * Check if a template is registered
+     *
+     * @param id The template id
+     * @return true if registered
+     * @throws IOException If fail to read the registry directory
+     * @since 1.1.0
+     */
+    public boolean exists(String id) throws IOException {
+        return isValidId(id) && Files.isRegularFile(getRegistryDir().resolve(id).resolve(REPORT_FILE));
+    }
+
+    /**
+     * Remove a registered template
+     *
+     * @param id The template id
+     * @return true if removed, false if not registered
+     * @throws IOException If fail to delete the files
+     * @since 1.1.0
+     */
+    public boolean remove(String id) throws IOException {
+        if (!exists(id)) {
+            return false;
+        }
+        templateCache.remove(id);
+        deleteDir(getRegistryDir().resolve(id));
+        logger.debug("Template '{}' removed", id);
+        return true;
+    }
+
+    /**
+     * Check if the string is a valid template id
+     *
+     * @param id The id
+     * @return true if valid
+     * @since 1.1.0
+     */
+    public static boolean isValidId(String id) {
+        return id != null && ID_PATTERN.matcher(id).matches();
+    }
+
+    /**
+     * Validate that the resource name is a plain file name, the resources
+     * can not be written outside the template directory or overwrite the template
+     *
+     * @param name The resource name
+     * @throws TemplateException If invalid
+     * @since 1.1.0
+     */
+    private void validateResourceName(String name) throws TemplateException {
+        if (StringUtils.isBlank(name)
+                || name.contains("/")
+                || name.contains("\\")
+                || name.equals(".")
+                || name.equals("..")
+                || name.equals(REPORT_FILE)) {
+            throw new TemplateException(String.format("Invalid resource name '%s'", name));
+        }
+    }
+
+    /**
+     * Delete a directory and all files inside
+     *
+     * @param dir The directory
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    private void deleteDir(Path dir) throws IOException {
+        if (!Files.exists(dir, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.util;
+
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * Decode base64 strings as a stream, without allocating the decoded content
+ *
+ * @since 1.1.0
+ */
+public final class Base64Stream {
+
+    /**
+     * @since 1.1.0
+     */
+    private Base64Stream() {
+    }
+
+    /**
+     * Get a stream that decodes the base64 string on the fly while read
+     *
+     * @param base64 The base64 encoded string
+     * @return The decoded stream
+     * @since 1.1.0
+     */
+    public static InputStream decode(String base64) {
+        return Base64.getDecoder().wrap(new AsciiInputStream(base64));
+    }
+
+    /**
+     * Read the chars of a string as ascii bytes, the base64 alphabet is ascii
+     * so the string is not copied to a byte array
+     *
+     * @since 1.1.0
+     */
+    private static class AsciiInputStream extends InputStream {
+
+        /**
+         * @since 1.1.0
+         */
+        private final String value;
+
+        /**
+         * The index of the next char to read
+         * @since 1.1.0
+         */
+        private int position = 0;
+
+        /**
+         * @param value The string to read
+         * @since 1.1.0
+         */
+        private AsciiInputStream(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int read() {
+            if (position >= value.length()) {
+                return -1;
+            }
+            return value.charAt(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= value.length()) {
+                return -1;
+            }
+            int count = Math.min(length, value.length() - position);
+            for (int i = 0; i < count; i++) {
+                bytes[offset + i] = (byte) value.charAt(position++);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return value.length() - position;
+        }
+    }
+}
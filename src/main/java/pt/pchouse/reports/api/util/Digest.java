@@ -0,0 +1,96 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content hashing helpers
+ *
+ * @since 1.1.0
+ */
+public final class Digest {
+
+    /**
+     * The hash algorithm
+     * @since 1.1.0
+     */
+    public static final String ALGORITHM = "SHA-256";
+
+    /**
+     * @since 1.1.0
+     */
+    private Digest() {
+    }
+
+    /**
+     * Create a new message digest instance
+     *
+     * @return The message digest
+     * @since 1.1.0
+     */
+    public static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every java platform must support SHA-256
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the SHA-256 of the bytes as hexadecimal string
+     *
+     * @param bytes The bytes to hash
+     * @return The hexadecimal hash
+     * @since 1.1.0
+     */
+    public static String sha256Hex(byte[] bytes) {
+        return toHex(newMessageDigest().digest(bytes));
+    }
+
+    /**
+     * Get the SHA-256 of the string (UTF-8) as hexadecimal string
+     *
+     * @param string The string to hash
+     * @return The hexadecimal hash
+     * @since 1.1.0
+     */
+    public static String sha256Hex(String string) {
+        return sha256Hex(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Convert a byte array to a lower case hexadecimal string
+     *
+     * @param bytes The bytes
+     * @return The hexadecimal string
+     * @since 1.1.0
+     */
+    public static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.virtualizer;
+
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The virtualizer of a report request, the swap files are in a directory of the request
+ * that is deleted when the virtualizer is closed
+ *
+ * @since 1.1.0
+ */
+public class ReportVirtualizer implements AutoCloseable {
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The JasperReports virtualizer
+     * @since 1.1.0
+     */
+    private final JRAbstractLRUVirtualizer virtualizer;
+
+    /**
+     * The directory of the swap files
+     * @since 1.1.0
+     */
+    private final Path directory;
+
+    /**
+     * The maximum number of pages kept in memory
+     * @since 1.1.0
+     */
+    private final int pages;
+
+    /**
+     * @since 1.1.0
+     */
+    private boolean closed = false;
+
+    /**
+     * @param virtualizer The JasperReports virtualizer
+     * @param directory   The directory of the swap files
+     * @param pages       The maximum number of pages kept in memory
+     * @since 1.1.0
+     */
+    public ReportVirtualizer(JRAbstractLRUVirtualizer virtualizer, Path directory, int pages) {
+        logger.debug("New instance of {}", this.getClass().getName());
+        this.virtualizer = virtualizer;
+        this.directory = directory;
+        this.pages = pages;
+    }
+
+    /**
+     * Get the JasperReports virtualizer to set as the report virtualizer parameter
+     *
+     * @return The virtualizer
+     * @since 1.1.0
+     */
+    public JRAbstractLRUVirtualizer getVirtualizer() {
+        return virtualizer;
+    }
+
+    /**
+     * Get the directory of the swap files
+     *
+     * @return The directory
+     * @since 1.1.0
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the maximum number of pages kept in memory
+     *
+     * @return The pages
+     * @since 1.1.0
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    /**
+     * Set the virtualizer to read only after the report is filled,
+     * the pages already swapped are not written again while exporting
+     * @since 1.1.0
+     */
+    public void setReadOnly() {
+        virtualizer.setReadOnly(true);
+    }
+
+    /**
+     * Release the virtualized pages and delete the swap files, can be invoked more than once
+     * @since 1.1.0
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        virtualizer.cleanup();
+
+        try {
+            for (File file : Objects.requireNonNull(directory.toFile().listFiles())) {
+                Files.deleteIfExists(file.toPath());
+            }
+            Files.deleteIfExists(directory);
+            logger.debug("Virtualizer directory '{}' deleted", directory);
+        } catch (IOException | NullPointerException e) {
+            logger.error("Fail to delete the virtualizer directory '{}': {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.virtualizer;
+
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRFileVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.api.request.Virtualizer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Create the virtualizer of the filled report pages, to bound the memory of large reports.
+ * The pages above the threshold are swapped to files in a directory under the report tmp dir.
+ * In the automatic mode the report is virtualized with the configured threshold if the file datasource
+ * is larger than the datasource limit, otherwise the pages are swapped only when the report
+ * crosses the automatic page limit, so small reports never touch the disk.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class VirtualizerFactory {
+
+    /**
+     * The swap file block size
+     * @since 1.1.0
+     */
+    static final int SWAP_BLOCK_SIZE = 4096;
+
+    /**
+     * The swap file minimum blocks to grow
+     * @since 1.1.0
+     */
+    static final int SWAP_MIN_GROW_COUNT = 256;
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The report tmp dir, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.tmpdir}")
+    private String configTmpDir;
+
+    /**
+     * The default virtualizer type (none, file, swap or auto)
+     * @since 1.1.0
+     */
+    @Value("${report.virtualizer.type}")
+    private String type;
+
+    /**
+     * The default maximum number of pages kept in memory of a virtualized report
+     * @since 1.1.0
+     */
+    @Value("${report.virtualizer.pages}")
+    private int pages;
+
+    /**
+     * The number of pages of the report that turn on the virtualizer in the automatic mode
+     * @since 1.1.0
+     */
+    @Value("${report.virtualizer.auto.pages}")
+    private int autoPages;
+
+    /**
+     * The size in bytes of the file datasource that turn on the virtualizer in the automatic mode
+     * @since 1.1.0
+     */
+    @Value("${report.virtualizer.auto.datasource.bytes}")
+    private long autoDataSourceBytes;
+
+    /**
+     * The virtualizer factory
+     * @since 1.1.0
+     */
+    public VirtualizerFactory() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * The pages of the last fill of each loaded template, the estimate of the next fill of the template,
+     * the entry is dropped when the template is evicted from the templates cache
+     * @since 1.1.0
+     */
+    private final Map<JasperReport, Integer> filledPages = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The virtualizer factory
+     * @since 1.1.0
+     */
+    public VirtualizerFactory() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * Create the virtualizer of a report request
+     *
+     * @param requested       The requested virtualizer, can be null to use the configured one
+     * @param dataSourceBytes The size of the file datasource, zero if unknown
+     * @return The virtualizer or null if the pages are kept in memory
+     * @throws IOException If fail to create the swap directory
+     * @since 1.1.0
+     */
+    public ReportVirtualizer create(Virtualizer requested, long dataSourceBytes) throws IOException {
+        return create(requested, dataSourceBytes, 0);
+    }
+
+    /**
+     * Create the virtualizer of a report request
+     *
+     * @param requested       The requested virtualizer, can be null to use the configured one
+     * @param dataSourceBytes The size of the file datasource, zero if unknown
+     * @param pagesEstimate   The estimated pages of the report, zero if unknown
+     * @return The virtualizer or null if the pages are kept in memory
+     * @throws IOException If fail to create the swap directory
+     * @since 1.1.0
+     */
+    public ReportVirtualizer create(Virtualizer requested, long dataSourceBytes, int pagesEstimate) throws IOException {
+        Virtualizer.Type virtualizerType = requested != null && requested.getType() != null
+                ? requested.getType()
+                : Virtualizer.Type.valueOf(type.trim().toUpperCase());
+
+        int maxPages = Math.max(1, requested != null && requested.getPages() != null
+                ? requested.getPages()
+                : pages
+        );
+
+        if (virtualizerType == Virtualizer.Type.AUTO) {
+            if (dataSourceBytes > autoDataSourceBytes) {
+                logger.debug("Datasource of {} bytes, virtualize the report pages", dataSourceBytes);
+                virtualizerType = Virtualizer.Type.SWAP;
+            } else if (autoPages > 0 && pagesEstimate > autoPages) {
+                logger.debug("Estimated {} pages, virtualize the report pages", pagesEstimate);
+                virtualizerType = Virtualizer.Type.SWAP;
+            } else {
+                // Small reports are kept in memory without a swap directory
+                return null;
+            }
+        }
+
+        if (virtualizerType == Virtualizer.Type.NONE) {
+            return null;
+        }
+
+        Path directory = createDirectory();
+        JRAbstractLRUVirtualizer virtualizer;
+        if (virtualizerType == Virtualizer.Type.SWAP) {
+            virtualizer = new JRSwapFileVirtualizer(
+                    maxPages,
+                    new JRSwapFile(directory.toFile().getAbsolutePath(), SWAP_BLOCK_SIZE, SWAP_MIN_GROW_COUNT),
+                    true
+            );
+        } else {
+            virtualizer = new JRFileVirtualizer(maxPages, directory.toFile().getAbsolutePath());
+        }
+
+        logger.debug("Created {} virtualizer of {} pages in '{}'", virtualizerType, maxPages, directory);
+        return new ReportVirtualizer(virtualizer, directory, maxPages);
+    }
+
+    /**
+     * Create the directory of the swap files under the report tmp dir
+     *
+     * @return The directory
+     * @throws IOException If fail
+     * @since 1.1.0
+     */
+    private Path createDirectory() throws IOException {
+        if (StringUtils.isNotEmpty(configTmpDir)) {
+            return Files.createTempDirectory(Paths.get(configTmpDir), "virtualizer");
+        }
+        return Files.createTempDirectory("virtualizer");
+    }
+
+    /**
+     * The estimated pages of the next fill of a loaded template, the pages of its last fill
+     *
+     * @param jasperReport The loaded template
+     * @return The estimated pages, zero if unknown
+     * @since 1.1.0
+     */
+    public int estimatePages(JasperReport jasperReport) {
+        if (jasperReport == null) {
+            return 0;
+        }
+        Integer filled = filledPages.get(jasperReport);
+        return filled == null ? 0 : filled;
+    }
+
+    /**
+     * Record the pages of a fill of a loaded template
+     *
+     * @param jasperReport The loaded template
+     * @param filled       The filled pages
+     * @since 1.1.0
+     */
+    public void recordPages(JasperReport jasperReport, int filled) {
+        if (jasperReport != null) {
+            filledPages.put(jasperReport, filled);
+        }
+    }
+}
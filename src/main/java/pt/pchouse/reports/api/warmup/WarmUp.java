@@ -0,0 +1,433 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.warmup;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.component.ComponentsBundle;
+import net.sf.jasperreports.engine.export.JRGraphics2DExporter;
+import net.sf.jasperreports.engine.export.JRPrintServiceExporter;
+import net.sf.jasperreports.engine.fonts.FontFamily;
+import net.sf.jasperreports.engine.fonts.FontUtil;
+import net.sf.jasperreports.engine.query.QueryExecuterFactoryBundle;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import pt.pchouse.reports.api.generator.IGenerator;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.request.datasource.JsonFile;
+import pt.pchouse.reports.api.template.TemplateCompiler;
+import pt.pchouse.reports.api.template.TemplateRegistry;
+
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Warm up the service at startup before it reports ready, so the first requests after
+ * a restart do not pay the font enumeration, the JasperReports extensions loading,
+ * the exporters class initialization and the JIT of the generation path.
+ * The warm up run as an application runner, the readiness state only changes to accepting traffic
+ * after the runners, and it is also the health indicator 'warmUp' of the readiness group.
+ * A failed step is logged and reported in the health details but does not block the readiness.
+ *
+ * @since 1.1.0
+ */
+@Component
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class WarmUp implements ApplicationRunner, HealthIndicator {
+
+    /**
+     * The bundled template used in the synthetic fills
+     * @since 1.1.0
+     */
+    public static final String TEMPLATE = "warmup/warmup.jrxml";
+
+    /**
+     * @since 1.1.0
+     */
+    public enum State {
+        PENDING,
+        RUNNING,
+        DONE,
+        DISABLED
+    }
+
+    /**
+     * @since 1.1.0
+     */
+    final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private ApplicationContext appContext;
+
+    /**
+     * @since 1.1.0
+     */
+    @Autowired
+    private TemplateRegistry templateRegistry;
+
+    /**
+     * Enable the warm up, defined in the application.properties
+     * @since 1.1.0
+     */
+    @Value("${report.warmup.enabled}")
+    private boolean enabled;
+
+    /**
+     * Number of synthetic fills of the bundled template
+     * @since 1.1.0
+     */
+    @Value("${report.warmup.iterations}")
+    private int iterations;
+
+    /**
+     * Number of datasource rows of each synthetic fill
+     * @since 1.1.0
+     */
+    @Value("${report.warmup.rows}")
+    private int rows;
+
+    /**
+     * Comma separated templates to fill, registered template ids or paths of .jasper or .jrxml files
+     * @since 1.1.0
+     */
+    @Value("${report.warmup.templates}")
+    private String templates;
+
+    /**
+     * The maximum time of the warm up, the steps not started when it pass are skipped, zero or less is unlimited
+     * @since 1.1.0
+     */
+    @Value("${report.warmup.timeout.ms}")
+    private long timeout;
+
+    /**
+     * @since 1.1.0
+     */
+    private volatile State state = State.PENDING;
+
+    /**
+     * The warm up duration in milliseconds
+     * @since 1.1.0
+     */
+    private volatile long duration = 0;
+
+    /**
+     * The failed or skipped steps
+     * @since 1.1.0
+     */
+    private final List<String> failures = new CopyOnWriteArrayList<>();
+
+    /**
+     * The startup warm up
+     * @since 1.1.0
+     */
+    public WarmUp() {
+        logger.debug("New instance of {}", this.getClass().getName());
+    }
+
+    /**
+     * @param args The application arguments
+     * @since 1.1.0
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    /**
+     * Run the warm up steps: fonts, extensions, exporters, the synthetic fills of the bundled template
+     * to every report type and the fills of the configured templates
+     *
+     * @since 1.1.0
+     */
+    public void warmUp() {
+        failures.clear();
+        if (!enabled) {
+            logger.debug("Warm up is disabled");
+            state = State.DISABLED;
+            return;
+        }
+
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        logger.info("Warm up started");
+
+        step("fonts", start, this::loadFonts);
+        step("extensions", start, this::loadExtensions);
+        step("exporters", start, this::loadExporters);
+
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            step("template " + TEMPLATE + " fill " + iteration, start, () -> fill(bundledRequest()));
+        }
+
+        for (String template : StringUtils.split(StringUtils.defaultString(templates), ',')) {
+            String trimmed = template.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            step("template " + trimmed, start, () -> fill(templateRequest(trimmed)));
+        }
+
+        duration = (System.nanoTime() - start) / 1_000_000;
+        state = State.DONE;
+        logger.info("Warm up done in {} ms with {} failed or skipped steps", duration, failures.size());
+    }
+
+    /**
+     * Run a warm up step, the failure is logged and the step is skipped if the warm up timeout passed
+     *
+     * @param name  The step name
+     * @param start The warm up start in nanoseconds
+     * @param step  The step
+     * @since 1.1.0
+     */
+    private void step(String name, long start, Step step) {
+        if (timeout > 0 && System.nanoTime() - start > timeout * 1_000_000) {
+            logger.warn("Warm up step '{}' skipped, the warm up timeout passed", name);
+            failures.add(name + ": skipped");
+            return;
+        }
+
+        long stepStart = System.nanoTime();
+        try {
+            step.run();
+            logger.debug("Warm up step '{}' done in {} ms", name, (System.nanoTime() - stepStart) / 1_000_000);
+        } catch (Throwable e) {
+            logger.warn("Warm up step '{}' failed with error: {}", name, e.getMessage());
+            failures.add(name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Enumerate the system fonts and the JasperReports font extensions
+     *
+     * @since 1.1.0
+     */
+    private void loadFonts() {
+        int system = GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames(Locale.ROOT).length;
+        int extensions = FontUtil.getInstance(DefaultJasperReportsContext.getInstance()).getFontFamilyNames().size();
+        logger.debug("Loaded {} system font families and {} font extensions", system, extensions);
+    }
+
+    /**
+     * Load the JasperReports extensions registries
+     *
+     * @since 1.1.0
+     */
+    private void loadExtensions() {
+        JasperReportsContext context = DefaultJasperReportsContext.getInstance();
+        context.getExtensions(FontFamily.class);
+        context.getExtensions(ComponentsBundle.class);
+        context.getExtensions(QueryExecuterFactoryBundle.class);
+    }
+
+    /**
+     * Instantiate the exporters that the bundled template fills do not run,
+     * the print service exporter and the graphics exporter of the raster print
+     *
+     * @since 1.1.0
+     */
+    private void loadExporters() throws Exception {
+        new JRPrintServiceExporter();
+        new JRGraphics2DExporter();
+    }
+
+    /**
+     * Generate a report and release it
+     *
+     * @param reportRequest The report request
+     * @throws Exception If fail
+     * @since 1.1.0
+     */
+    private void fill(ReportRequest reportRequest) throws Exception {
+        IGenerator generator = appContext.getBean(IGenerator.class, reportRequest);
+        try {
+            generator.generateOutput();
+        } finally {
+            generator.clean();
+        }
+    }
+
+    /**
+     * The request of the bundled template exported to every report type except print
+     *
+     * @return The request
+     * @throws IOException If fail to read the bundled template
+     * @since 1.1.0
+     */
+    ReportRequest bundledRequest() throws IOException {
+        String jrxml;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(TEMPLATE)) {
+            if (inputStream == null) {
+                throw new IOException(String.format("The bundled template '%s' does not exist", TEMPLATE));
+            }
+            jrxml = Base64.getEncoder().encodeToString(StreamUtils.copyToByteArray(inputStream));
+        }
+
+        ArrayList<ReportRequest.ReportType> reportTypes = new ArrayList<>();
+        for (ReportRequest.ReportType reportType : ReportRequest.ReportType.values()) {
+            if (reportType != ReportRequest.ReportType.PRINT) {
+                reportTypes.add(reportType);
+            }
+        }
+
+        ReportRequest reportRequest = syntheticRequest();
+        reportRequest.setJrxml(jrxml);
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+        reportRequest.setReportTypes(reportTypes);
+        return reportRequest;
+    }
+
+    /**
+     * The request of a configured template exported to pdf
+     *
+     * @param template The registered template id or the path of the .jasper or .jrxml file
+     * @return The request
+     * @throws IOException If fail to read the template file
+     * @since 1.1.0
+     */
+    ReportRequest templateRequest(String template) throws IOException {
+        ReportRequest reportRequest = syntheticRequest();
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+
+        if (TemplateRegistry.isValidId(template) && templateRegistry.exists(template)) {
+            reportRequest.setTemplateId(template);
+            return reportRequest;
+        }
+
+        String base64 = Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get(template)));
+        if (template.toLowerCase(Locale.ROOT).endsWith(TemplateCompiler.JRXML)) {
+            reportRequest.setJrxml(base64);
+        } else {
+            reportRequest.setReport(base64);
+        }
+        return reportRequest;
+    }
+
+    /**
+     * A request with a synthetic json datasource, not coalesced nor cached
+     *
+     * @return The request
+     * @since 1.1.0
+     */
+    private ReportRequest syntheticRequest() {
+        StringBuilder json = new StringBuilder("[");
+        for (int row = 1; row <= rows; row++) {
+            if (row > 1) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"Warm up row ").append(row).append("\",\"value\":").append(row * 1.25).append('}');
+        }
+        json.append(']');
+
+        JsonFile jsonFile = new JsonFile();
+        jsonFile.setJson(Base64.getEncoder().encodeToString(json.toString().getBytes(StandardCharsets.UTF_8)));
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setJsonFile(jsonFile);
+        reportRequest.setCoalesce(false);
+        reportRequest.setCache(ReportRequest.CacheMode.BYPASS);
+        return reportRequest;
+    }
+
+    /**
+     * The warm up health, out of service until the warm up is done
+     *
+     * @return The health
+     * @since 1.1.0
+     */
+    @Override
+    public Health health() {
+        Health.Builder builder = state == State.DONE || state == State.DISABLED ?
+                Health.up() : Health.outOfService();
+        return builder
+                .withDetail("state", state)
+                .withDetail("durationMs", duration)
+                .withDetail("failures", failures)
+                .build();
+    }
+
+    /**
+     * Get the warm up state
+     *
+     * @return The state
+     * @since 1.1.0
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the warm up duration in milliseconds
+     *
+     * @return The duration
+     * @since 1.1.0
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Get the failed or skipped steps
+     *
+     * @return The failures
+     * @since 1.1.0
+     */
+    public List<String> getFailures() {
+        return new ArrayList<>(failures);
+    }
+
+    /**
+     * A warm up step
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    private interface Step {
+
+        /**
+         * @throws Exception If fail
+         * @since 1.1.0
+         */
+        void run() throws Exception;
+    }
+}
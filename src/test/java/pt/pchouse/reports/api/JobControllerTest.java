@@ -0,0 +1,160 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import pt.pchouse.reports.api.auth.Auth;
+import pt.pchouse.reports.api.generator.Generator;
+import pt.pchouse.reports.api.job.Job;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.printer.Printer;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.response.JobResponse;
+import pt.pchouse.reports.api.response.ReportResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class JobControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockBean
+    private Generator generator;
+
+    @MockBean
+    private Auth auth;
+
+    @MockBean
+    private Printer printer;
+
+    private JobResponse awaitFinished(String url) throws InterruptedException {
+        long init = System.currentTimeMillis();
+        JobResponse response;
+        do {
+            response = restTemplate.getForObject(url, JobResponse.class);
+            if (response.getState() != Job.State.QUEUED && response.getState() != Job.State.RUNNING) {
+                return response;
+            }
+            //noinspection BusyWait
+            Thread.sleep(20);
+        } while (System.currentTimeMillis() - init < 5000);
+        return response;
+    }
+
+    @Test
+    void testSubmitAndDownload(@TempDir Path tmp) throws Exception {
+        byte[] document = "%PDF-1.4 the job document".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(generator.generateOutput()).thenReturn(
+                ReportOutput.ofFile(Files.write(tmp.resolve("output"), document))
+        );
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+
+        ResponseEntity<JobResponse> submitted = restTemplate.postForEntity(
+                "http://localhost:" + port + "/jobs", reportRequest, JobResponse.class
+        );
+
+        assertThat(submitted.getStatusCode().value()).isEqualTo(202);
+        assert submitted.getBody() != null;
+        String jobUrl = "http://localhost:" + port + "/jobs/" + submitted.getBody().getJobId();
+
+        JobResponse status = awaitFinished(jobUrl);
+        assertThat(status.getState()).isEqualTo(Job.State.DONE);
+        assertThat(status.getStatus()).isEqualTo(ReportResponse.Status.OK);
+        assertThat(status.getSize()).isEqualTo(document.length);
+
+        ResponseEntity<byte[]> result = restTemplate.getForEntity(jobUrl + "/result", byte[].class);
+        assertThat(result.getStatusCode().value()).isEqualTo(200);
+        assertThat(result.getBody()).isEqualTo(document);
+        assertThat(result.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PDF);
+
+        ResponseEntity<JobResponse> removed = restTemplate.exchange(jobUrl, HttpMethod.DELETE, null, JobResponse.class);
+        assertThat(removed.getStatusCode().value()).isEqualTo(200);
+        assertThat(restTemplate.getForEntity(jobUrl, JobResponse.class).getStatusCode().value()).isEqualTo(404);
+    }
+
+    @Test
+    void testFailedJobResult() throws Exception {
+        Mockito.when(generator.generateOutput()).thenThrow(new Exception("Test job exception"));
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        JobResponse submitted = restTemplate.postForObject(
+                "http://localhost:" + port + "/jobs", new ReportRequest(), JobResponse.class
+        );
+        String jobUrl = "http://localhost:" + port + "/jobs/" + submitted.getJobId();
+
+        JobResponse status = awaitFinished(jobUrl);
+        assertThat(status.getState()).isEqualTo(Job.State.FAILED);
+        assertThat(status.getStatus()).isEqualTo(ReportResponse.Status.ERROR);
+        assertThat(status.getMessage()).isEqualTo("Test job exception");
+
+        ResponseEntity<byte[]> result = restTemplate.getForEntity(jobUrl + "/result", byte[].class);
+        assertThat(result.getStatusCode().value()).isEqualTo(409);
+        assertThat(result.getHeaders().getFirst(ReportController.HEADER_STATUS))
+                .isEqualTo(ReportResponse.Status.ERROR.toString());
+    }
+
+    @Test
+    void testNotFound() {
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+        String jobUrl = "http://localhost:" + port + "/jobs/not-exists";
+
+        assertThat(restTemplate.getForEntity(jobUrl, JobResponse.class).getStatusCode().value()).isEqualTo(404);
+        assertThat(restTemplate.getForEntity(jobUrl + "/result", byte[].class).getStatusCode().value()).isEqualTo(404);
+        assertThat(
+                restTemplate.exchange(jobUrl, HttpMethod.DELETE, null, JobResponse.class).getStatusCode().value()
+        ).isEqualTo(404);
+    }
+
+    @Test
+    void testNotAuthorized() {
+        Mockito.when(auth.isAuthorized()).thenReturn(false);
+
+        ResponseEntity<JobResponse> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/jobs", new ReportRequest(), JobResponse.class
+        );
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assert response.getBody() != null;
+        assertThat(response.getBody().getMessage()).isEqualTo("Client not authorized");
+        assertThat(response.getBody().getJobId()).isNull();
+    }
+
+}
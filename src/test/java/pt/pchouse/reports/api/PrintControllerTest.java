@@ -0,0 +1,105 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import pt.pchouse.reports.api.auth.Auth;
+import pt.pchouse.reports.api.printer.PrintJob;
+import pt.pchouse.reports.api.printer.PrintQueue;
+import pt.pchouse.reports.api.printer.Printer;
+import pt.pchouse.reports.api.response.PrintJobResponse;
+import pt.pchouse.reports.api.response.ReportResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PrintControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PrintQueue printQueue;
+
+    @MockBean
+    private Auth auth;
+
+    @MockBean
+    private Printer printer;
+
+    @Test
+    void testGetPrintJob() throws Exception {
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        PrintJob job = printQueue.submit("POS-80", () -> {
+        });
+        job.await();
+
+        PrintJobResponse response = restTemplate.getForObject(
+                "http://localhost:" + port + "/print/jobs/" + job.getId(), PrintJobResponse.class
+        );
+
+        assertThat(response.getStatus()).isEqualTo(ReportResponse.Status.OK);
+        assertThat(response.getJobId()).isEqualTo(job.getId());
+        assertThat(response.getPrinter()).isEqualTo("POS-80");
+        assertThat(response.getState()).isEqualTo(PrintJob.State.DONE);
+    }
+
+    @Test
+    void testGetPrintJobFailed() throws Exception {
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        String msg = "Printer out of paper";
+        PrintJob job = printQueue.submit("POS-80", () -> {
+            throw new Exception(msg);
+        });
+        try {
+            job.await();
+        } catch (Exception ignore) {
+        }
+
+        PrintJobResponse response = restTemplate.getForObject(
+                "http://localhost:" + port + "/print/jobs/" + job.getId(), PrintJobResponse.class
+        );
+
+        assertThat(response.getStatus()).isEqualTo(ReportResponse.Status.ERROR);
+        assertThat(response.getState()).isEqualTo(PrintJob.State.FAILED);
+        assertThat(response.getMessage()).isEqualTo(msg);
+    }
+
+    @Test
+    void testGetPrintJobNotFound() {
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        ResponseEntity<PrintJobResponse> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/print/jobs/not-exist", PrintJobResponse.class
+        );
+
+        assertThat(response.getStatusCode().value()).isEqualTo(404);
+    }
+}
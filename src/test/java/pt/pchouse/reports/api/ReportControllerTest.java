@@ -1,6 +1,7 @@
 package pt.pchouse.reports.api;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,16 +9,30 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.api.admission.AdmissionControl;
 import pt.pchouse.reports.api.auth.Auth;
+import pt.pchouse.reports.api.coalesce.RequestCoalescer;
+import pt.pchouse.reports.api.deadline.DeadlineException;
 import pt.pchouse.reports.api.generator.Generator;
+import pt.pchouse.reports.api.memory.ReportOutput;
 import pt.pchouse.reports.api.printer.Printer;
 import pt.pchouse.reports.api.printer.PrinterException;
 import pt.pchouse.reports.api.request.ReportRequest;
 import pt.pchouse.reports.api.response.ReportResponse;
 import pt.pchouse.reports.api.response.Response;
+import pt.pchouse.reports.api.result.ResultCache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -44,6 +59,9 @@ class ReportControllerTest {
     @MockBean
     private Auth auth;
 
+    @MockBean
+    private ResultCache resultCache;
+
     @MockBean
     private Printer printer;
 
@@ -71,6 +89,55 @@ class ReportControllerTest {
         assertThat(reportResponse.getMessage()).isEqualTo("");
     }
 
+    @Test
+    void testGetReports() throws Exception {
+        String url = "http://localhost:" + port + "/report";
+
+        Map<ReportRequest.ReportType, String> reports = new LinkedHashMap<>();
+        reports.put(ReportRequest.ReportType.PDF, "The base64 encoded pdf");
+        reports.put(ReportRequest.ReportType.CSV, "The base64 encoded csv");
+        Mockito.when(generator.generateReports()).thenReturn(reports);
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+        reportRequest.setReportTypes(new ArrayList<>(reports.keySet()));
+
+        ReportResponse reportResponse = restTemplate.postForObject(
+                url,
+                reportRequest,
+                ReportResponse.class
+        );
+
+        assertThat(reportResponse.getStatus()).isEqualTo(ReportResponse.Status.OK);
+        assertThat(reportResponse.getReport()).isEqualTo(reports.get(ReportRequest.ReportType.PDF));
+        assertThat(reportResponse.getReports()).isEqualTo(reports);
+        Mockito.verify(generator, Mockito.never()).generate();
+    }
+
+    @Test
+    void testGetReportTimeout() throws Exception {
+        String url = "http://localhost:" + port + "/report";
+
+        String msg = "The request deadline of 60000 ms was exceeded in the stage 'fill'";
+        Mockito.when(generator.generate()).thenThrow(new DeadlineException(msg, "fill"));
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        RequestEntity<ReportRequest> request = RequestEntity.post(url)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(ReportController.HEADER_TIMEOUT, "60000")
+                .body(new ReportRequest());
+
+        ResponseEntity<ReportResponse> responseEntity = restTemplate.exchange(request, ReportResponse.class);
+        ReportResponse reportResponse = responseEntity.getBody();
+
+        assertThat(responseEntity.getStatusCode().value()).isEqualTo(504);
+        assert reportResponse != null;
+        assertThat(reportResponse.getStatus()).isEqualTo(ReportResponse.Status.TIMEOUT);
+        assertThat(reportResponse.getMessage()).isEqualTo(msg);
+        assertThat(reportResponse.getReport()).isNull();
+    }
+
     @Test
     void testGetReportAuthorized() {
 
@@ -123,6 +190,183 @@ class ReportControllerTest {
         assertThat(reportResponse.getMessage()).isEqualTo(msg);
     }
 
+    @Test
+    void testGetReportServiceUnavailable() throws Exception {
+        String url = "http://localhost:" + port + "/report";
+        Mockito.when(generator.generate()).thenReturn("report");
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        AdmissionControl admissionControl = applicationContext.getBean(AdmissionControl.class);
+        Object queueBudget = ReflectionTestUtils.getField(admissionControl, "queueBudget");
+        long rejected = admissionControl.getRejected();
+        // Any wait exceeds a negative budget
+        ReflectionTestUtils.setField(admissionControl, "queueBudget", -1L);
+
+        try {
+            RequestEntity<ReportRequest> request = RequestEntity.post(url)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .body(new ReportRequest());
+
+            ResponseEntity<ReportResponse> responseEntity = restTemplate.exchange(request, ReportResponse.class);
+            ReportResponse reportResponse = responseEntity.getBody();
+
+            assertThat(responseEntity.getStatusCode().value()).isEqualTo(503);
+            assertThat(responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            assert reportResponse != null;
+            assertThat(reportResponse.getStatus()).isEqualTo(ReportResponse.Status.ERROR);
+            assertThat(reportResponse.getMessage()).contains("exceeds the queue budget");
+            assertThat(reportResponse.getReport()).isNull();
+            assertThat(admissionControl.getRejected()).isEqualTo(rejected + 1);
+            Mockito.verify(generator, Mockito.never()).generate();
+        } finally {
+            ReflectionTestUtils.setField(admissionControl, "queueBudget", queueBudget);
+        }
+    }
+
+    @Test
+    void testGetReportNotModified() throws Exception {
+        String url = "http://localhost:" + port + "/report";
+        String eTag = "\"9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08\"";
+
+        ResultCache.Entry entry = Mockito.mock(ResultCache.Entry.class);
+        Mockito.when(entry.getETag()).thenReturn(eTag);
+        Mockito.when(entry.matches(eTag)).thenReturn(true);
+        Mockito.when(resultCache.isCacheable(Mockito.any())).thenReturn(true);
+        Mockito.when(resultCache.peek(Mockito.anyString())).thenReturn(entry);
+        Mockito.when(generator.generate()).thenReturn("A base64 string encoded from report generator");
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+
+        ResponseEntity<ReportResponse> responseEntity = restTemplate.exchange(
+                RequestEntity.post(url).accept(MediaType.APPLICATION_JSON).body(reportRequest),
+                ReportResponse.class
+        );
+        assertThat(responseEntity.getStatusCode().value()).isEqualTo(200);
+        assertThat(responseEntity.getHeaders().getETag()).isEqualTo(eTag);
+        Mockito.verify(generator).setResultKey(RequestCoalescer.key(reportRequest));
+
+        responseEntity = restTemplate.exchange(
+                RequestEntity.post(url)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .body(reportRequest),
+                ReportResponse.class
+        );
+        assertThat(responseEntity.getStatusCode().value()).isEqualTo(304);
+        assertThat(responseEntity.getHeaders().getETag()).isEqualTo(eTag);
+        assertThat(responseEntity.getBody()).isNull();
+        Mockito.verify(generator, Mockito.times(1)).generate();
+    }
+
+    @Test
+    void testGetReportStream(@TempDir Path tmp) throws Exception {
+        String url = "http://localhost:" + port + "/report";
+
+        byte[] document = "%PDF-1.4 the raw document".getBytes(StandardCharsets.UTF_8);
+        Path output = Files.write(tmp.resolve("output"), document);
+
+        Mockito.when(generator.generateOutput()).thenReturn(ReportOutput.ofFile(output));
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+
+        RequestEntity<ReportRequest> request = RequestEntity.post(url)
+                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .body(reportRequest);
+
+        ResponseEntity<byte[]> responseEntity = restTemplate.exchange(request, byte[].class);
+
+        assertThat(responseEntity.getStatusCode().value()).isEqualTo(200);
+        assertThat(responseEntity.getBody()).isEqualTo(document);
+        assertThat(responseEntity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PDF);
+        assertThat(responseEntity.getHeaders().getContentLength()).isEqualTo(document.length);
+        assertThat(responseEntity.getHeaders().getFirst(ReportController.HEADER_STATUS))
+                .isEqualTo(ReportResponse.Status.OK.toString());
+        assertThat(responseEntity.getHeaders().getFirst(ReportController.HEADER_DURATION)).isNotEmpty();
+        Mockito.verify(generator, Mockito.timeout(1000)).clean();
+    }
+
+    @Test
+    void testGetReportStreamException() throws Exception {
+        String url = "http://localhost:" + port + "/report";
+        String msg = "Test throw exception";
+        Mockito.when(generator.generateOutput()).thenThrow(new Exception(msg));
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        RequestEntity<ReportRequest> request = RequestEntity.post(url)
+                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .body(new ReportRequest());
+
+        ResponseEntity<byte[]> responseEntity = restTemplate.exchange(request, byte[].class);
+
+        assertThat(responseEntity.getStatusCode().value()).isEqualTo(400);
+        assertThat(responseEntity.getHeaders().getFirst(ReportController.HEADER_STATUS))
+                .isEqualTo(ReportResponse.Status.ERROR.toString());
+        assertThat(responseEntity.getHeaders().getFirst(ReportController.HEADER_MESSAGE)).isEqualTo(msg);
+        Mockito.verify(generator).clean();
+    }
+
+    @Test
+    void testGetReportStreamReportTypes() throws Exception {
+        String url = "http://localhost:" + port + "/report";
+        Mockito.when(auth.isAuthorized()).thenReturn(true);
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+        ArrayList<ReportRequest.ReportType> reportTypes = new ArrayList<>();
+        reportTypes.add(ReportRequest.ReportType.PDF);
+        reportTypes.add(ReportRequest.ReportType.CSV);
+        reportRequest.setReportTypes(reportTypes);
+
+        RequestEntity<ReportRequest> request = RequestEntity.post(url)
+                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .body(reportRequest);
+
+        ResponseEntity<byte[]> responseEntity = restTemplate.exchange(request, byte[].class);
+
+        assertThat(responseEntity.getStatusCode().value()).isEqualTo(400);
+        assertThat(responseEntity.getHeaders().getFirst(ReportController.HEADER_STATUS))
+                .isEqualTo(ReportResponse.Status.ERROR.toString());
+        Mockito.verify(generator, Mockito.never()).generateOutput();
+    }
+
+    @Test
+    void testHasOtherReportTypes() {
+        ReportRequest reportRequest = new ReportRequest();
+        assertThat(ReportController.hasOtherReportTypes(reportRequest)).isFalse();
+
+        ArrayList<ReportRequest.ReportType> reportTypes = new ArrayList<>();
+        reportTypes.add(ReportRequest.ReportType.CSV);
+        reportTypes.add(null);
+        reportRequest.setReportTypes(reportTypes);
+        assertThat(ReportController.hasOtherReportTypes(reportRequest)).isFalse();
+
+        reportRequest.setReportType(ReportRequest.ReportType.CSV);
+        reportTypes.add(ReportRequest.ReportType.CSV);
+        assertThat(ReportController.hasOtherReportTypes(reportRequest)).isFalse();
+
+        reportTypes.add(ReportRequest.ReportType.PDF);
+        assertThat(ReportController.hasOtherReportTypes(reportRequest)).isTrue();
+
+        reportRequest.setReportType(null);
+        assertThat(ReportController.hasOtherReportTypes(reportRequest)).isTrue();
+    }
+
+    @Test
+    void testContentType() {
+        assertThat(ReportController.contentType(ReportRequest.ReportType.PDF, "UTF-8"))
+                .isEqualTo(MediaType.APPLICATION_PDF);
+        assertThat(ReportController.contentType(ReportRequest.ReportType.CSV, "UTF-8").toString())
+                .isEqualTo("text/csv;charset=UTF-8");
+        assertThat(ReportController.contentType(ReportRequest.ReportType.PRINT, "UTF-8"))
+                .isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(ReportController.contentType(null, null))
+                .isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
     @Test
     void testErrorHandler() {
 
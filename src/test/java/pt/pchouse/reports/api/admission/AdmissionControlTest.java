@@ -0,0 +1,207 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class AdmissionControlTest extends Generic<AdmissionControl> {
+
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        if (taskExecutor != null) {
+            taskExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                AdmissionControl.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private AdmissionControl admissionControl(int queue, long budget, int clientMaxConcurrent) {
+        taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(1);
+        taskExecutor.setMaxPoolSize(1);
+        taskExecutor.setQueueCapacity(queue);
+        taskExecutor.initialize();
+
+        AdmissionControl admissionControl = new AdmissionControl();
+        ReflectionTestUtils.setField(admissionControl, "executor", taskExecutor);
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        ReflectionTestUtils.setField(admissionControl, "queueBudget", budget);
+        ReflectionTestUtils.setField(admissionControl, "clientMaxConcurrent", clientMaxConcurrent);
+        return admissionControl;
+    }
+
+    private void block(int tasks) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        for (int i = 0; i < tasks; i++) {
+            taskExecutor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testClientConcurrency() throws Exception {
+        AdmissionControl admissionControl = admissionControl(10, 10000, 2);
+
+        AdmissionControl.Permit first = admissionControl.acquire("10.0.0.1");
+        AdmissionControl.Permit second = admissionControl.acquire("10.0.0.1");
+        assertThat(admissionControl.getClientConcurrent("10.0.0.1")).isEqualTo(2);
+
+        AdmissionException exception = Assertions.assertThrows(
+                AdmissionException.class, () -> admissionControl.acquire("10.0.0.1")
+        );
+        assertThat(exception.getRetryAfter()).isGreaterThanOrEqualTo(1);
+        assertThat(admissionControl.getRejected()).isEqualTo(1);
+
+        // Other clients are not limited
+        admissionControl.acquire("10.0.0.2").close();
+
+        first.close();
+        first.close();
+        assertThat(admissionControl.getClientConcurrent("10.0.0.1")).isEqualTo(1);
+        admissionControl.acquire("10.0.0.1").close();
+
+        second.close();
+        assertThat(admissionControl.getClientConcurrent("10.0.0.1")).isEqualTo(0);
+    }
+
+    @Test
+    void testQueueBudget() throws Exception {
+        AdmissionControl admissionControl = admissionControl(10, 1000, 0);
+        admissionControl.recordService(TimeUnit.SECONDS.toNanos(1));
+
+        block(3);
+        assertThat(admissionControl.getQueued()).isEqualTo(2);
+        assertThat(admissionControl.estimateQueueWait()).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+
+        AdmissionException exception = Assertions.assertThrows(
+                AdmissionException.class, () -> admissionControl.acquire("10.0.0.1")
+        );
+        assertThat(exception.getRetryAfter()).isEqualTo(4);
+        assertThat(admissionControl.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void testExecutorFull() throws Exception {
+        AdmissionControl admissionControl = admissionControl(1, 10000, 0);
+
+        block(2);
+        assertThat(admissionControl.getActive()).isEqualTo(1);
+        assertThat(admissionControl.getQueued()).isEqualTo(1);
+        assertThat(admissionControl.getMaxPoolSize()).isEqualTo(1);
+        assertThat(admissionControl.getQueueCapacity()).isEqualTo(1);
+
+        AdmissionException exception = Assertions.assertThrows(
+                AdmissionException.class, () -> admissionControl.acquire(null)
+        );
+        assertThat(exception.getMessage()).isEqualTo("The server is full, try again later");
+    }
+
+    @Test
+    void testStartAfterQueueBudget() throws Exception {
+        AdmissionControl admissionControl = admissionControl(10, 10, 1);
+
+        AdmissionControl.Permit permit = admissionControl.acquire("10.0.0.1");
+        Thread.sleep(50);
+
+        Assertions.assertThrows(AdmissionException.class, permit::start);
+        assertThat(admissionControl.getClientConcurrent("10.0.0.1")).isEqualTo(0);
+        assertThat(admissionControl.getServiceNanos()).isEqualTo(0);
+    }
+
+    @Test
+    void testServiceTime() throws Exception {
+        AdmissionControl admissionControl = admissionControl(10, 10000, 0);
+
+        AdmissionControl.Permit permit = admissionControl.acquire("10.0.0.1");
+        permit.start();
+        Thread.sleep(20);
+        permit.close();
+
+        assertThat(admissionControl.getServiceNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void testLongPermitNotRecorded() throws Exception {
+        AdmissionControl admissionControl = admissionControl(10, 50, 0);
+        admissionControl.recordService(TimeUnit.MILLISECONDS.toNanos(1));
+
+        // A batch holds the permit while all the items are generated
+        AdmissionControl.Permit batch = admissionControl.acquire("10.0.0.1", false);
+        batch.start();
+        Thread.sleep(200);
+        batch.close();
+        assertThat(admissionControl.getServiceNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+
+        block(3);
+        Assertions.assertDoesNotThrow(() -> admissionControl.acquire("10.0.0.2").close());
+        assertThat(admissionControl.getRejected()).isEqualTo(0);
+    }
+
+    @Test
+    void testDisabled() throws Exception {
+        AdmissionControl admissionControl = admissionControl(1, -1, 1);
+        ReflectionTestUtils.setField(admissionControl, "enabled", false);
+
+        block(2);
+        AdmissionControl.Permit permit = admissionControl.acquire("10.0.0.1");
+        admissionControl.acquire("10.0.0.1");
+        permit.start();
+        permit.close();
+        assertThat(admissionControl.getRejected()).isEqualTo(0);
+    }
+
+    @Test
+    void testMeters() {
+        MeterRegistry registry = appContext.getBean(MeterRegistry.class);
+        assertThat(registry.find("reports.executor.active").tag("executor", "task").gauge()).isNotNull();
+        assertThat(registry.find("reports.executor.queued").tag("executor", "task").gauge()).isNotNull();
+        assertThat(registry.find("reports.executor.rejected").tag("executor", "task").functionCounter()).isNotNull();
+    }
+}
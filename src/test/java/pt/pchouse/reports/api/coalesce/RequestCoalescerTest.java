@@ -0,0 +1,208 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.coalesce;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.deadline.DeadlineException;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class RequestCoalescerTest extends Generic<RequestCoalescer> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                RequestCoalescer.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private ReportRequest request(String report) {
+        ReportRequest request = new ReportRequest();
+        request.setReport(report);
+        request.setReportType(ReportRequest.ReportType.PDF);
+        request.setParameters(new ArrayList<>());
+        return request;
+    }
+
+    private RequestCoalescer coalescer() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        return coalescer;
+    }
+
+    @Test
+    void testKey() throws Exception {
+        String key = RequestCoalescer.key(request("report"));
+        assertThat(key).hasSize(64);
+        assertThat(RequestCoalescer.key(request("report"))).isEqualTo(key);
+
+        ReportRequest timeout = request("report");
+        timeout.setTimeout(1000L);
+        timeout.setCoalesce(true);
+        timeout.setCache(ReportRequest.CacheMode.BYPASS);
+        assertThat(RequestCoalescer.key(timeout)).isEqualTo(key);
+
+        assertThat(RequestCoalescer.key(request("other report"))).isNotEqualTo(key);
+
+        ReportRequest csv = request("report");
+        csv.setReportType(ReportRequest.ReportType.CSV);
+        assertThat(RequestCoalescer.key(csv)).isNotEqualTo(key);
+    }
+
+    @Test
+    void testIsCoalesced() {
+        RequestCoalescer coalescer = coalescer();
+        ReportRequest request = request("report");
+        assertThat(coalescer.isCoalesced(request)).isTrue();
+
+        request.setCoalesce(false);
+        assertThat(coalescer.isCoalesced(request)).isFalse();
+
+        ReportRequest print = request("report");
+        print.setReportType(ReportRequest.ReportType.PRINT);
+        assertThat(coalescer.isCoalesced(print)).isFalse();
+
+        print.setCoalesce(true);
+        assertThat(coalescer.isCoalesced(print)).isTrue();
+
+        ReportRequest printTypes = request("report");
+        printTypes.setReportTypes(new ArrayList<>(Collections.singletonList(ReportRequest.ReportType.PRINT)));
+        assertThat(coalescer.isCoalesced(printTypes)).isFalse();
+
+        ReflectionTestUtils.setField(coalescer, "enabled", false);
+        assertThat(coalescer.isCoalesced(request("report"))).isFalse();
+    }
+
+    @Test
+    void testIdenticalRequestsShareTheGeneration() throws Exception {
+        RequestCoalescer coalescer = coalescer();
+        AtomicInteger generations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return coalescer.execute(request("report"), null, () -> {
+                    generations.incrementAndGet();
+                    started.countDown();
+                    assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+                    return "generated";
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(coalescer.getInFlight()).isEqualTo(1);
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return coalescer.execute(request("report"), null, () -> {
+                    generations.incrementAndGet();
+                    return "generated again";
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        long init = System.currentTimeMillis();
+        while (coalescer.getCoalesced() == 0 && System.currentTimeMillis() - init < 10000) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("generated");
+        assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo("generated");
+        assertThat(generations.get()).isEqualTo(1);
+        assertThat(coalescer.getCoalesced()).isEqualTo(1);
+        assertThat(coalescer.getInFlight()).isEqualTo(0);
+
+        // Not concurrent, generated again
+        assertThat(coalescer.execute(request("report"), null, () -> "new")).isEqualTo("new");
+    }
+
+    @Test
+    void testNotCoalescedRunsTheWork() throws Exception {
+        RequestCoalescer coalescer = coalescer();
+        ReportRequest request = request("report");
+        request.setCoalesce(false);
+        assertThat(coalescer.execute(request, null, () -> "generated")).isEqualTo("generated");
+        assertThat(coalescer.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    void testLeaderException() {
+        RequestCoalescer coalescer = coalescer();
+        Exception e = Assertions.assertThrows(Exception.class, () -> coalescer.execute(
+                request("report"), null, () -> {
+                    throw new Exception("Fail");
+                }
+        ));
+        assertThat(e.getMessage()).isEqualTo("Fail");
+        assertThat(coalescer.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    void testFollowerDeadlineWhileWaiting() throws Exception {
+        RequestCoalescer coalescer = coalescer();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return coalescer.execute(request("report"), null, () -> {
+                    started.countDown();
+                    assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+                    return "generated";
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        try {
+            DeadlineException e = Assertions.assertThrows(DeadlineException.class, () -> coalescer.execute(
+                    request("report"), new Deadline(50, System.nanoTime()), () -> "generated again"
+            ));
+            assertThat(e.getStage()).isEqualTo(RequestCoalescer.STAGE_COALESCE);
+        } finally {
+            release.countDown();
+        }
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("generated");
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.datasource;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonStreamDataSourceTest {
+
+    private static JRField field(String name, String description, Class<?> valueClass) {
+        JRDesignField field = new JRDesignField();
+        field.setName(name);
+        field.setDescription(description);
+        field.setValueClass(valueClass);
+        return field;
+    }
+
+    private static JsonStreamDataSource dataSource(String json) throws JRException {
+        return new JsonStreamDataSource(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testArray() throws Exception {
+        String json = "[{\"name\":\"João\",\"age\":49,\"total\":\"9.99\",\"address\":{\"city\":\"Lisbon\"},"
+                + "\"lines\":[{\"code\":\"A1\"}],\"active\":true},{\"name\":\"Rebelo\",\"age\":\"9\"}]";
+
+        JRField name = field("name", null, String.class);
+        JRField age = field("age", null, Integer.class);
+        JRField total = field("total", null, BigDecimal.class);
+        JRField city = field("city", "address.city", String.class);
+        JRField code = field("code", "lines[0].code", String.class);
+        JRField active = field("active", null, Boolean.class);
+
+        List<Object[]> records = new ArrayList<>();
+        try (JsonStreamDataSource dataSource = dataSource(json)) {
+            while (dataSource.next()) {
+                records.add(new Object[]{
+                        dataSource.getFieldValue(name),
+                        dataSource.getFieldValue(age),
+                        dataSource.getFieldValue(total),
+                        dataSource.getFieldValue(city),
+                        dataSource.getFieldValue(code),
+                        dataSource.getFieldValue(active)
+                });
+            }
+        }
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0)).containsExactly("João", 49, new BigDecimal("9.99"), "Lisbon", "A1", true);
+        assertThat(records.get(1)).containsExactly("Rebelo", 9, null, null, null, null);
+    }
+
+    @Test
+    void testObject() throws Exception {
+        try (JsonStreamDataSource dataSource = dataSource("{\"name\":\"João\"}")) {
+            assertThat(dataSource.next()).isTrue();
+            assertThat(dataSource.getFieldValue(field("name", null, String.class))).isEqualTo("João");
+            assertThat(dataSource.next()).isFalse();
+        }
+    }
+
+    @Test
+    void testFieldExpressionProperty() throws Exception {
+        JRDesignField field = (JRDesignField) field("street", "street", String.class);
+        field.getPropertiesMap().setProperty(JsonStreamDataSource.PROPERTY_FIELD_EXPRESSION, "address.street");
+
+        try (JsonStreamDataSource dataSource = dataSource("[{\"address\":{\"street\":\"Rua\"}}]")) {
+            assertThat(dataSource.next()).isTrue();
+            assertThat(dataSource.getFieldValue(field)).isEqualTo("Rua");
+        }
+    }
+
+    @Test
+    void testEmpty() throws Exception {
+        try (JsonStreamDataSource dataSource = dataSource("[]")) {
+            assertThat(dataSource.next()).isFalse();
+        }
+        try (JsonStreamDataSource dataSource = dataSource("")) {
+            assertThat(dataSource.next()).isFalse();
+        }
+    }
+
+    @Test
+    void testInvalid() throws Exception {
+        try (JsonStreamDataSource dataSource = dataSource("[{\"name\": }]")) {
+            assertThrows(JRException.class, dataSource::next);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.datasource;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class XmlStreamDataSourceTest {
+
+    private static JRField field(String name, String description, Class<?> valueClass) {
+        JRDesignField field = new JRDesignField();
+        field.setName(name);
+        field.setDescription(description);
+        field.setValueClass(valueClass);
+        return field;
+    }
+
+    private static XmlStreamDataSource dataSource(String xml) throws JRException {
+        return new XmlStreamDataSource(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testRecords() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<customers>\n"
+                + "  <customer id=\"1\"><name>João</name><address zip=\"1000\"><city>Lisbon</city></address><age>49</age></customer>\n"
+                + "  <customer id=\"2\"><name><![CDATA[Rebelo]]></name></customer>\n"
+                + "</customers>";
+
+        JRField id = field("id", "@id", Integer.class);
+        JRField name = field("name", null, String.class);
+        JRField city = field("city", "address/city", String.class);
+        JRField zip = field("zip", "./address/@zip", String.class);
+        JRField age = field("age", "age/text()", Integer.class);
+
+        List<Object[]> records = new ArrayList<>();
+        try (XmlStreamDataSource dataSource = dataSource(xml)) {
+            while (dataSource.next()) {
+                records.add(new Object[]{
+                        dataSource.getFieldValue(id),
+                        dataSource.getFieldValue(name),
+                        dataSource.getFieldValue(city),
+                        dataSource.getFieldValue(zip),
+                        dataSource.getFieldValue(age)
+                });
+            }
+            assertThat(dataSource.next()).isFalse();
+        }
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0)).containsExactly(1, "João", "Lisbon", "1000", 49);
+        assertThat(records.get(1)).containsExactly(2, "Rebelo", null, null, null);
+    }
+
+    @Test
+    void testEmpty() throws Exception {
+        try (XmlStreamDataSource dataSource = dataSource("<customers/>")) {
+            assertThat(dataSource.next()).isFalse();
+        }
+    }
+
+    @Test
+    void testExternalEntityNotResolved() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE c [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+                + "<c><r><name>&xxe;</name></r></c>";
+        try (XmlStreamDataSource dataSource = dataSource(xml)) {
+            Object name = null;
+            try {
+                if (dataSource.next()) {
+                    name = dataSource.getFieldValue(field("name", null, String.class));
+                }
+            } catch (JRException e) {
+                return;
+            }
+            assertThat(name == null || !name.toString().contains("root:")).isTrue();
+        }
+    }
+
+    @Test
+    void testInvalid() throws Exception {
+        try (XmlStreamDataSource dataSource = dataSource("<c><r><name>x</r></c>")) {
+            assertThrows(JRException.class, () -> {
+                while (dataSource.next()) {
+                    dataSource.getFieldValue(field("name", null, String.class));
+                }
+            });
+        }
+    }
+
+}
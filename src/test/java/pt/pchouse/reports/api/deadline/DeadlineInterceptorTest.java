@@ -0,0 +1,73 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.deadline;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import pt.pchouse.reports.Generic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class DeadlineInterceptorTest extends Generic<DeadlineInterceptor> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                DeadlineInterceptor.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    @Test
+    void testCancelOnError() {
+        DeadlineInterceptor interceptor = appContext.getBean(DeadlineInterceptor.class);
+        Deadline deadline = new Deadline(0, System.nanoTime());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(Deadline.ATTRIBUTE, deadline);
+
+        assertThat(interceptor.handleError(
+                new ServletWebRequest(request), new DeferredResult<>(), new RuntimeException("Broken pipe")
+        )).isTrue();
+        assertThat(deadline.isCancelled()).isTrue();
+    }
+
+    @Test
+    void testCancelOnTimeout() {
+        DeadlineInterceptor interceptor = appContext.getBean(DeadlineInterceptor.class);
+        Deadline deadline = new Deadline(0, System.nanoTime());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(Deadline.ATTRIBUTE, deadline);
+
+        assertThat(interceptor.handleTimeout(new ServletWebRequest(request), new DeferredResult<>())).isTrue();
+        assertThat(deadline.isCancelled()).isTrue();
+    }
+
+    @Test
+    void testWithoutDeadline() {
+        DeadlineInterceptor interceptor = appContext.getBean(DeadlineInterceptor.class);
+        assertThat(interceptor.handleTimeout(
+                new ServletWebRequest(new MockHttpServletRequest()), new DeferredResult<>()
+        )).isTrue();
+    }
+
+}
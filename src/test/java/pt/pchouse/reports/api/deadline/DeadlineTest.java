@@ -0,0 +1,82 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.deadline;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeadlineTest {
+
+    @Test
+    void testNoTimeLimit() throws Exception {
+        Deadline deadline = new Deadline(0, System.nanoTime() - TimeUnit.HOURS.toNanos(1));
+        assertThat(deadline.isExpired()).isFalse();
+        assertThat(deadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+        deadline.check("fill");
+    }
+
+    @Test
+    void testRemaining() throws Exception {
+        Deadline deadline = new Deadline(60000, System.nanoTime());
+        assertThat(deadline.isExpired()).isFalse();
+        assertThat(deadline.remainingNanos())
+                .isGreaterThan(0)
+                .isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(60000));
+        deadline.check("fill");
+    }
+
+    @Test
+    void testExpired() {
+        Deadline deadline = new Deadline(100, System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+        assertThat(deadline.isExpired()).isTrue();
+        assertThat(deadline.remainingNanos()).isEqualTo(0);
+
+        DeadlineException e = Assertions.assertThrows(DeadlineException.class, () -> deadline.check("export"));
+        assertThat(e.getStage()).isEqualTo("export");
+        assertThat(e.getMessage()).contains("100 ms").contains("export");
+    }
+
+    @Test
+    void testCancel() {
+        Deadline deadline = new Deadline(0, System.nanoTime());
+        AtomicInteger cancelled = new AtomicInteger();
+        Runnable removed = cancelled::incrementAndGet;
+
+        deadline.addCancelListener(cancelled::incrementAndGet);
+        deadline.addCancelListener(removed);
+        deadline.removeCancelListener(removed);
+
+        deadline.cancel();
+        deadline.cancel();
+        assertThat(deadline.isCancelled()).isTrue();
+        assertThat(cancelled.get()).isEqualTo(1);
+
+        // Added after the cancel is invoked immediately
+        deadline.addCancelListener(cancelled::incrementAndGet);
+        assertThat(cancelled.get()).isEqualTo(2);
+
+        DeadlineException e = Assertions.assertThrows(DeadlineException.class, () -> deadline.check("fill"));
+        assertThat(e.getMessage()).contains("disconnected");
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.BatchItem;
+import pt.pchouse.reports.api.request.BatchRequest;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.request.datasource.JsonFile;
+import pt.pchouse.reports.api.template.TemplateRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class BatchGeneratorTest extends Generic<BatchGenerator> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                BatchGenerator.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    private BatchRequest batchRequest() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+
+        ReportRequest request = new ReportRequest();
+        request.setReportType(ReportRequest.ReportType.PDF);
+        request.setParameters(new ArrayList<>());
+        request.setReport(Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get(
+                Objects.requireNonNull(classLoader.getResource("jsondatasource/report_json_file.jasper")).toURI()
+        ))));
+
+        ArrayList<BatchItem> items = new ArrayList<>();
+        for (String name : new String[]{"João Rebelo", "PChouse"}) {
+            JsonFile jsonFile = new JsonFile();
+            jsonFile.setJson(Base64.getEncoder().encodeToString(
+                    String.format("{\"name\": \"%s\", \"address\": {\"street\": \"Rua\", \"city\": \"Lisbon\"}}", name)
+                            .getBytes(StandardCharsets.UTF_8)
+            ));
+            BatchItem item = new BatchItem();
+            item.setId(name.equals("PChouse") ? "pchouse" : "../invalid id");
+            item.setJsonFile(jsonFile);
+            items.add(item);
+        }
+
+        JsonFile invalid = new JsonFile();
+        invalid.setJson("not base64 *");
+        BatchItem failed = new BatchItem();
+        failed.setId("failed");
+        failed.setJsonFile(invalid);
+        items.add(failed);
+
+        BatchRequest batchRequest = new BatchRequest();
+        batchRequest.setRequest(request);
+        batchRequest.setItems(items);
+        return batchRequest;
+    }
+
+    @Test
+    void testPrepare() throws Exception {
+        BatchRequest batchRequest = batchRequest();
+        String templateId = TemplateRegistry.templateId(batchRequest.getRequest().getReport(), null);
+
+        BatchGenerator batchGenerator = appContext.getBean(BatchGenerator.class, batchRequest);
+        batchGenerator.prepare();
+
+        assertThat(batchRequest.getRequest().getTemplateId()).isEqualTo(templateId);
+        assertThat(batchRequest.getRequest().getReport()).isNull();
+        assertThat(appContext.getBean(TemplateRegistry.class).exists(templateId)).isTrue();
+        batchGenerator.release();
+    }
+
+    @Test
+    void testReleaseTemplate() throws Exception {
+        BatchRequest batchRequest = batchRequest();
+        String templateId = TemplateRegistry.templateId(batchRequest.getRequest().getReport(), null);
+        TemplateRegistry templateRegistry = appContext.getBean(TemplateRegistry.class);
+        templateRegistry.remove(templateId);
+
+        BatchGenerator batchGenerator = appContext.getBean(BatchGenerator.class, batchRequest);
+        batchGenerator.prepare();
+        assertThat(templateRegistry.exists(templateId)).isTrue();
+
+        batchGenerator.release();
+        assertThat(templateRegistry.exists(templateId)).isFalse();
+        batchGenerator.release();
+    }
+
+    @Test
+    void testPrepareInvalid() throws Exception {
+        BatchRequest print = batchRequest();
+        print.getRequest().setReportType(ReportRequest.ReportType.PRINT);
+        assertThrows(ParseException.class, () -> appContext.getBean(BatchGenerator.class, print).prepare());
+
+        BatchRequest empty = batchRequest();
+        empty.setItems(new ArrayList<>());
+        assertThrows(ParseException.class, () -> appContext.getBean(BatchGenerator.class, empty).prepare());
+    }
+
+    @Test
+    void testWriteZip() throws Exception {
+        BatchGenerator batchGenerator = appContext.getBean(BatchGenerator.class, batchRequest());
+        batchGenerator.prepare();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        batchGenerator.writeZip(outputStream);
+        batchGenerator.release();
+
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = zip.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                }
+                entries.put(entry.getName(), content.toByteArray());
+            }
+        }
+
+        assertThat(entries.keySet()).containsExactlyInAnyOrder("0.pdf", "pchouse.pdf", "failed.error.txt");
+        assertThat(new String(entries.get("0.pdf"), 0, 4, StandardCharsets.US_ASCII)).isEqualTo("%PDF");
+        assertThat(new String(entries.get("pchouse.pdf"), 0, 4, StandardCharsets.US_ASCII)).isEqualTo("%PDF");
+        assertThat(entries.get("failed.error.txt")).isNotEmpty();
+    }
+
+    @Test
+    void testWriteZipDuplicateIds() throws Exception {
+        BatchRequest batchRequest = batchRequest();
+        List<BatchItem> items = batchRequest.getItems();
+        BatchItem noId = new BatchItem();
+        noId.setJsonFile(items.get(0).getJsonFile());
+        items.add(noId);
+        // The same id and an id equal to the index of the item without id
+        for (int index = 0; index < 3; index++) {
+            items.get(index).setId("3");
+        }
+
+        BatchGenerator batchGenerator = appContext.getBean(BatchGenerator.class, batchRequest);
+        batchGenerator.prepare();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        batchGenerator.writeZip(outputStream);
+        batchGenerator.release();
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+
+        assertThat(names).hasSize(4).doesNotHaveDuplicates().contains("3.pdf", "3.error.txt");
+        assertThat(names.stream().filter(name -> name.endsWith(".pdf"))).hasSize(3);
+    }
+
+    @Test
+    void testUniqueName() {
+        Set<String> names = new HashSet<>();
+        assertThat(BatchGenerator.uniqueName("3.pdf", 0, names)).isEqualTo("3.pdf");
+        assertThat(BatchGenerator.uniqueName("3.pdf", 1, names)).isEqualTo("1_3.pdf");
+        assertThat(BatchGenerator.uniqueName("1_3.pdf", 2, names)).isEqualTo("2_1_3.pdf");
+        assertThat(BatchGenerator.uniqueName("3.pdf", 1, names)).isEqualTo("1_1_3.pdf");
+    }
+
+    @Test
+    void testWriteNdjson() throws Exception {
+        BatchGenerator batchGenerator = appContext.getBean(BatchGenerator.class, batchRequest());
+        batchGenerator.prepare();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        batchGenerator.writeNdjson(outputStream);
+        batchGenerator.release();
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertThat(lines).hasSize(3);
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<Integer, JsonNode> results = new HashMap<>();
+        for (String line : lines) {
+            JsonNode node = mapper.readTree(line);
+            results.put(node.get("index").asInt(), node);
+        }
+
+        for (int index : new int[]{0, 1}) {
+            JsonNode node = results.get(index);
+            assertThat(node.get("status").asText()).isEqualTo("OK");
+            byte[] report = Base64.getDecoder().decode(node.get("report").asText());
+            assertThat(new String(report, 0, 4, StandardCharsets.US_ASCII)).isEqualTo("%PDF");
+        }
+
+        JsonNode failed = results.get(2);
+        assertThat(failed.get("id").asText()).isEqualTo("failed");
+        assertThat(failed.get("status").asText()).isEqualTo("ERROR");
+        assertThat(failed.get("message").asText()).isNotEmpty();
+        assertThat(failed.has("report")).isFalse();
+    }
+
+}
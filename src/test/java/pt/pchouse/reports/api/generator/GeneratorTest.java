@@ -29,12 +29,19 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
+import org.springframework.test.util.ReflectionTestUtils;
 import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.coalesce.RequestCoalescer;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.deadline.DeadlineException;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.metrics.GeneratorMetrics;
 import pt.pchouse.reports.api.request.*;
 import pt.pchouse.reports.api.request.datasource.Database;
 import pt.pchouse.reports.api.request.datasource.HttpType;
 import pt.pchouse.reports.api.request.datasource.JsonFile;
 import pt.pchouse.reports.api.request.datasource.JsonHttps;
+import pt.pchouse.reports.api.result.ResultCache;
 import rebelo.reports.core.NullNotAllowedException;
 import rebelo.reports.core.RRPdfProperties;
 import rebelo.reports.core.RRProperties;
@@ -50,6 +57,7 @@ import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -801,6 +809,200 @@ public class GeneratorTest extends Generic<Generator> {
         }
     }
 
+    @Test
+    void testGenerateInMemory() throws Exception {
+
+        Field tmpDirField = Generator.class.getDeclaredField("tmpDir");
+        tmpDirField.setAccessible(true);
+
+        for (ReportRequest.ReportType type : new ReportRequest.ReportType[]{
+                ReportRequest.ReportType.PDF, ReportRequest.ReportType.CSV, ReportRequest.ReportType.XLSX
+        }) {
+            ReportRequest request = getBaseReportRequestForTest();
+            request.setReportType(type);
+
+            Generator generator = appContext.getBean(Generator.class, request);
+            ReflectionTestUtils.setField(generator, "memoryEnabled", true);
+
+            ReportOutput output = generator.generateOutput();
+            try {
+                assertThat(output.isInMemory()).isTrue();
+                assertThat(output.size()).isGreaterThan(0);
+                assertThat(output.toByteArray()).hasSize((int) output.size());
+                assertThat(tmpDirField.get(generator)).isNull();
+            } finally {
+                generator.clean();
+            }
+        }
+    }
+
+    @Test
+    void testGenerateInMemorySpill() throws Exception {
+        ReportRequest request = getBaseReportRequestForTest();
+        request.setReportType(ReportRequest.ReportType.PDF);
+
+        Generator generator = appContext.getBean(Generator.class, request);
+        ReflectionTestUtils.setField(generator, "memoryEnabled", true);
+        ReflectionTestUtils.setField(generator, "memoryMaxOutputBytes", 16L);
+
+        ReportOutput output = generator.generateOutput();
+        Path spill = output.getFile();
+
+        assertThat(output.isInMemory()).isFalse();
+        assertThat(Files.size(spill)).isEqualTo(output.size());
+        assertThat(new String(output.toByteArray(), 0, 4, StandardCharsets.US_ASCII)).isEqualTo("%PDF");
+
+        generator.clean();
+        assertThat(Files.exists(spill)).isFalse();
+    }
+
+    @Test
+    void testGenerateReports() throws Exception {
+
+        for (boolean inMemory : new boolean[]{false, true}) {
+            ReportRequest request = getBaseReportRequestForTest();
+            request.setReportType(null);
+            request.setReportTypes(new ArrayList<>(Arrays.asList(
+                    ReportRequest.ReportType.PDF,
+                    ReportRequest.ReportType.XLSX,
+                    ReportRequest.ReportType.CSV,
+                    ReportRequest.ReportType.XLSX
+            )));
+
+            Generator generator = appContext.getBean(Generator.class, request);
+            ReflectionTestUtils.setField(generator, "memoryEnabled", inMemory);
+
+            Map<ReportRequest.ReportType, String> reports = generator.generateReports();
+
+            assertThat(request.getReportType()).isEqualTo(ReportRequest.ReportType.PDF);
+            assertThat(reports.keySet()).containsExactly(
+                    ReportRequest.ReportType.PDF, ReportRequest.ReportType.XLSX, ReportRequest.ReportType.CSV
+            );
+            assertThat(new String(Base64.getDecoder().decode(reports.get(ReportRequest.ReportType.PDF)), 0, 4, StandardCharsets.US_ASCII))
+                    .isEqualTo("%PDF");
+            assertThat(new String(Base64.getDecoder().decode(reports.get(ReportRequest.ReportType.XLSX)), 0, 2, StandardCharsets.US_ASCII))
+                    .isEqualTo("PK");
+            assertThat(Base64.getDecoder().decode(reports.get(ReportRequest.ReportType.CSV))).isNotEmpty();
+        }
+    }
+
+    @Test
+    void testGenerateFromResultCache() throws Exception {
+
+        ResultCache resultCache = appContext.getBean(ResultCache.class);
+        ReflectionTestUtils.setField(resultCache, "enabled", true);
+        Field tmpDirField = Generator.class.getDeclaredField("tmpDir");
+        tmpDirField.setAccessible(true);
+
+        try {
+            ReportRequest request = getBaseReportRequestForTest();
+            request.setReportType(ReportRequest.ReportType.PDF);
+            String key = RequestCoalescer.key(request);
+
+            Generator generator = appContext.getBean(Generator.class, request);
+            generator.setResultKey(key);
+            String report = generator.generate();
+            ResultCache.Entry cached = resultCache.peek(key);
+            assertThat(cached).isNotNull();
+
+            long hits = resultCache.getHits();
+            Generator fromCache = appContext.getBean(Generator.class, request);
+            fromCache.setResultKey(key);
+            assertThat(fromCache.generate()).isEqualTo(report);
+            assertThat(resultCache.getHits()).isEqualTo(hits + 1);
+            assertThat(tmpDirField.get(fromCache)).isNull();
+
+            request.setCache(ReportRequest.CacheMode.REFRESH);
+            Generator refresh = appContext.getBean(Generator.class, request);
+            refresh.setResultKey(key);
+            assertThat(refresh.generate()).isNotEmpty();
+            assertThat(resultCache.getHits()).isEqualTo(hits + 1);
+            assertThat(resultCache.peek(key)).isNotSameAs(cached);
+        } finally {
+            ReflectionTestUtils.setField(resultCache, "enabled", false);
+            resultCache.clear();
+        }
+    }
+
+    @Test
+    void testGenerateVirtualized() throws Exception {
+
+        for (Virtualizer.Type type : new Virtualizer.Type[]{Virtualizer.Type.FILE, Virtualizer.Type.SWAP}) {
+            Virtualizer virtualizer = new Virtualizer();
+            virtualizer.setType(type);
+            virtualizer.setPages(1);
+
+            ReportRequest request = getBaseReportRequestForTest();
+            request.setReportType(null);
+            request.setReportTypes(new ArrayList<>(Arrays.asList(
+                    ReportRequest.ReportType.PDF, ReportRequest.ReportType.CSV
+            )));
+            request.setVirtualizer(virtualizer);
+
+            Generator generator = appContext.getBean(Generator.class, request);
+            Map<ReportRequest.ReportType, String> reports = generator.generateReports();
+
+            assertThat(new String(Base64.getDecoder().decode(reports.get(ReportRequest.ReportType.PDF)), 0, 4, StandardCharsets.US_ASCII))
+                    .isEqualTo("%PDF");
+            assertThat(Base64.getDecoder().decode(reports.get(ReportRequest.ReportType.CSV))).isNotEmpty();
+        }
+    }
+
+    @Test
+    void testGenerateWithDeadline() throws Exception {
+        ReportRequest request = getBaseReportRequestForTest();
+        request.setReportType(ReportRequest.ReportType.PDF);
+
+        Generator generator = appContext.getBean(Generator.class, request);
+        generator.setDeadline(new Deadline(60000, System.nanoTime()));
+
+        ReportOutput output = generator.generateOutput();
+        try {
+            assertThat(new String(output.toByteArray(), 0, 4, StandardCharsets.US_ASCII)).isEqualTo("%PDF");
+        } finally {
+            generator.clean();
+        }
+    }
+
+    @Test
+    void testGenerateDeadlineExpired() throws Exception {
+        ReportRequest request = getBaseReportRequestForTest();
+        request.setReportType(ReportRequest.ReportType.PDF);
+
+        Generator generator = appContext.getBean(Generator.class, request);
+        generator.setDeadline(new Deadline(1, System.nanoTime() - 1000000000L));
+
+        DeadlineException e = Assertions.assertThrows(DeadlineException.class, generator::generate);
+        assertThat(e.getStage()).isEqualTo(GeneratorMetrics.STAGE_GENERATE);
+    }
+
+    @Test
+    void testGenerateDeadlineCancelled() throws Exception {
+        ReportRequest request = getBaseReportRequestForTest();
+        request.setReportType(ReportRequest.ReportType.PDF);
+
+        Deadline deadline = new Deadline(0, System.nanoTime());
+        deadline.cancel();
+
+        Generator generator = appContext.getBean(Generator.class, request);
+        generator.setDeadline(deadline);
+
+        DeadlineException e = Assertions.assertThrows(DeadlineException.class, generator::generate);
+        assertThat(e.getMessage()).contains("disconnected");
+    }
+
+    @Test
+    void testGenerateReportsPrintNotAllowed() throws Exception {
+        ReportRequest request = getBaseReportRequestForTest();
+        request.setReportType(ReportRequest.ReportType.PRINT);
+        request.setReportTypes(new ArrayList<>(Arrays.asList(
+                ReportRequest.ReportType.PRINT, ReportRequest.ReportType.PDF
+        )));
+
+        Generator generator = appContext.getBean(Generator.class, request);
+        Assertions.assertThrows(ParseException.class, generator::generateReports);
+    }
+
     @SuppressWarnings("StatementWithEmptyBody")
     @Test
     void testInvokeReportExporterPdfSign() throws Exception {
@@ -1065,6 +1267,48 @@ public class GeneratorTest extends Generic<Generator> {
 
     }
 
+    @Test
+    void testJsonFileDatasourceStreaming() throws Exception {
+
+        ClassLoader classLoader = getClass().getClassLoader();
+
+        Field tmpDirField = Generator.class.getDeclaredField("tmpDir");
+        tmpDirField.setAccessible(true);
+
+        String jasperFile = Base64.getEncoder().encodeToString(
+                Files.readAllBytes(Paths.get(
+                        Objects.requireNonNull(classLoader.getResource("jsondatasource/report_json_file.jasper")).toURI()
+                ))
+        );
+
+        JsonFile jsonFile = new JsonFile();
+        jsonFile.setJson(
+                Base64.getEncoder().encodeToString(
+                        Files.readAllBytes(Paths.get(
+                                Objects.requireNonNull(classLoader.getResource("jsondatasource/json_datasource.json")).toURI()
+                        ))
+                )
+        );
+
+        ReportRequest request = appContext.getBean(ReportRequest.class);
+        request.setJsonFile(jsonFile);
+        request.setReportType(ReportRequest.ReportType.PDF);
+        request.setParameters(new ArrayList<>());
+        request.setReport(jasperFile);
+
+        Generator generator = appContext.getBean(Generator.class, request);
+        ReflectionTestUtils.setField(generator, "dataSourceStreaming", true);
+
+        ReportOutput output = generator.generateOutput();
+        try {
+            Path tmpDir = (Path) tmpDirField.get(generator);
+            assertThat(Files.exists(Paths.get(tmpDir.toFile().getAbsolutePath(), "datasource.json"))).isFalse();
+            assertThat(new String(output.toByteArray(), 0, 4, StandardCharsets.US_ASCII)).isEqualTo("%PDF");
+        } finally {
+            generator.clean();
+        }
+    }
+
     @Test
     void testJsonHttpsDatasource() throws Exception {
 
@@ -0,0 +1,147 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.generator;
+
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.export.Exporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import rebelo.reports.core.RRProperties;
+import rebelo.reports.core.Report;
+import rebelo.reports.core.datasource.RRDsFileJson;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ReportExporterTest {
+
+    /**
+     * The types with an output without creation dates or generated ids
+     */
+    private static final List<RRProperties.Types> TEXT_TYPES = Arrays.asList(
+            RRProperties.Types.csv,
+            RRProperties.Types.json,
+            RRProperties.Types.text,
+            RRProperties.Types.xml
+    );
+
+    @Autowired
+    protected ApplicationContext appContext;
+
+    @Test
+    public void testAnnotations() {
+        assertThat(ReportExporter.class.isAnnotationPresent(Component.class)).isTrue();
+        assertThat(
+                ReportExporter.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    private File resource(String name) throws Exception {
+        return Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource(name)).toURI()).toFile();
+    }
+
+    private RRProperties properties(RRProperties.Types type, Path output) throws Exception {
+        RRDsFileJson dsFileJson = appContext.getBean(RRDsFileJson.class);
+        dsFileJson.setDatePattern("yyyy-MM-dd");
+        dsFileJson.setNumberPattern("#.##");
+        dsFileJson.setFile(resource("jsondatasource/json_datasource.json"));
+
+        RRProperties properties = appContext.getBean(RRProperties.class);
+        properties.setType(type);
+        properties.setCopies(1);
+        properties.setEncoding("UTF-8");
+        properties.setJasperFile(resource("jsondatasource/report_json_file.jasper").getAbsolutePath());
+        properties.setDataSourceProperties(dsFileJson);
+        properties.setOutputFile(output.toFile().getAbsolutePath());
+        return properties;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Object configuration(Exporter exporter, String name) throws Exception {
+        Class<?> parent = exporter.getClass();
+        while (parent != null) {
+            try {
+                Field field = parent.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(exporter);
+            } catch (NoSuchFieldException e) {
+                parent = parent.getSuperclass();
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void testParityWithCoreReport(@TempDir Path tmpDir) throws Exception {
+        JasperReport jasperReport = (JasperReport) JRLoader.loadObject(
+                resource("jsondatasource/report_json_file.jasper")
+        );
+
+        for (RRProperties.Types type : RRProperties.Types.values()) {
+
+            if (type.equals(RRProperties.Types.print)) {
+                continue;
+            }
+
+            Path coreFile = tmpDir.resolve("core." + type);
+            Report report = new Report(properties(type, coreFile));
+            report.exportReport();
+
+            Path apiFile = tmpDir.resolve("api." + type);
+            RRProperties properties = properties(type, apiFile);
+            JasperPrint jasperPrint = appContext.getBean(
+                    ReportFiller.class, properties, jasperReport, null
+            ).fill();
+            ReportExporter reportExporter = appContext.getBean(ReportExporter.class, properties, jasperPrint);
+            reportExporter.exportReport();
+
+            assertThat(reportExporter.getExporter().getClass()).as(type.name())
+                    .isEqualTo(report.getExporter().getClass());
+
+            for (String name : new String[]{"exporterConfiguration", "itemConfiguration"}) {
+                assertThat(configuration(reportExporter.getExporter(), name)).as(type + " " + name)
+                        .usingRecursiveComparison()
+                        .isEqualTo(configuration(report.getExporter(), name));
+            }
+
+            assertThat(Files.size(apiFile)).as(type.name()).isPositive();
+
+            if (TEXT_TYPES.contains(type)) {
+                assertThat(apiFile.toFile()).as(type.name()).hasSameTextualContentAs(coreFile.toFile());
+            }
+        }
+    }
+}
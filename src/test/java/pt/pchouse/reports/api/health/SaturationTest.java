@@ -0,0 +1,139 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.health;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.admission.AdmissionControl;
+import pt.pchouse.reports.api.printer.PrintQueue;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class SaturationTest extends Generic<Saturation> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                Saturation.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private Saturation saturation(Path tmpDir, int queued, int printerQueued) {
+        AdmissionControl admissionControl = Mockito.mock(AdmissionControl.class);
+        Mockito.when(admissionControl.getActive()).thenReturn(2);
+        Mockito.when(admissionControl.getMaxPoolSize()).thenReturn(2);
+        Mockito.when(admissionControl.getQueued()).thenReturn(queued);
+        Mockito.when(admissionControl.getQueueCapacity()).thenReturn(10);
+
+        PrintQueue printQueue = Mockito.mock(PrintQueue.class);
+        Mockito.when(printQueue.getQueued()).thenReturn(Collections.singletonMap("ticket", printerQueued));
+        Mockito.when(printQueue.getQueueCapacity()).thenReturn(10);
+
+        Saturation saturation = new Saturation();
+        ReflectionTestUtils.setField(saturation, "admissionControl", admissionControl);
+        ReflectionTestUtils.setField(saturation, "printQueue", printQueue);
+        ReflectionTestUtils.setField(saturation, "configTmpDir", tmpDir.toString());
+        ReflectionTestUtils.setField(saturation, "executorQueueMaxRatio", 0.8);
+        ReflectionTestUtils.setField(saturation, "tmpDirMinFreeBytes", 1L);
+        ReflectionTestUtils.setField(saturation, "heapMinFreeRatio", 0D);
+        ReflectionTestUtils.setField(saturation, "printQueueMaxRatio", 0.8);
+        return saturation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> saturated(Health health) {
+        return (List<String>) health.getDetails().get("saturated");
+    }
+
+    @Test
+    void testUp(@TempDir Path tmpDir) {
+        Health health = saturation(tmpDir, 7, 7).health();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(saturated(health)).isEmpty();
+        assertThat(health.getDetails()).containsKeys("executor", "tmpDir", "heap", "printQueue");
+    }
+
+    @Test
+    void testExecutorSaturated(@TempDir Path tmpDir) {
+        Health health = saturation(tmpDir, 8, 0).health();
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(saturated(health)).containsExactly("executor queue 8 of 10");
+    }
+
+    @Test
+    void testPrintQueueSaturated(@TempDir Path tmpDir) {
+        Health health = saturation(tmpDir, 0, 10).health();
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(saturated(health)).containsExactly("print queue of 'ticket' 10 of 10");
+    }
+
+    @Test
+    void testTmpDirSaturated(@TempDir Path tmpDir) {
+        Saturation saturation = saturation(tmpDir, 0, 0);
+        ReflectionTestUtils.setField(saturation, "tmpDirMinFreeBytes", Long.MAX_VALUE);
+        Health health = saturation.health();
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(saturated(health)).hasSize(1);
+        assertThat(saturated(health).get(0)).startsWith("tmp dir free");
+    }
+
+    @Test
+    void testHeapSaturated(@TempDir Path tmpDir) {
+        Saturation saturation = saturation(tmpDir, 0, 0);
+        ReflectionTestUtils.setField(saturation, "heapMinFreeRatio", 1D);
+        Health health = saturation.health();
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(saturated(health).get(0)).startsWith("heap headroom");
+    }
+
+    @Test
+    void testDisabledThresholds(@TempDir Path tmpDir) {
+        Saturation saturation = saturation(tmpDir, 10, 10);
+        ReflectionTestUtils.setField(saturation, "executorQueueMaxRatio", 0D);
+        ReflectionTestUtils.setField(saturation, "tmpDirMinFreeBytes", 0L);
+        ReflectionTestUtils.setField(saturation, "printQueueMaxRatio", 0D);
+        assertThat(saturation.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void testExceeds() {
+        assertThat(Saturation.exceeds(8, 10, 0.8)).isTrue();
+        assertThat(Saturation.exceeds(7, 10, 0.8)).isFalse();
+        assertThat(Saturation.exceeds(10, 10, 0)).isFalse();
+        assertThat(Saturation.exceeds(0, 0, 0.8)).isFalse();
+    }
+
+    @Test
+    void testHeapLive() {
+        assertThat(Saturation.getHeapLive()).isPositive().isLessThanOrEqualTo(Runtime.getRuntime().maxMemory());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import rebelo.reports.core.datasource.ARRDsHttp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class HttpDatasourceClientTest extends Generic<HttpDatasourceClient> {
+
+    private static final String BODY = "[{\"name\":\"The catalogue\"}]";
+
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private HttpDatasourceClient client;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/max-age", exchange -> respond(exchange, "max-age=60"));
+        server.createContext("/no-cache", exchange -> respond(exchange, "no-cache"));
+        server.createContext("/no-store", exchange -> respond(exchange, "no-store"));
+        server.createContext("/error", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+
+        client = new HttpDatasourceClient();
+        ReflectionTestUtils.setField(client, "maxTotal", 10);
+        ReflectionTestUtils.setField(client, "maxPerRoute", 2);
+        ReflectionTestUtils.setField(client, "idleTimeout", 30000L);
+        ReflectionTestUtils.setField(client, "connectTimeout", 5000);
+        ReflectionTestUtils.setField(client, "socketTimeout", 5000);
+        ReflectionTestUtils.setField(client, "cacheEnabled", true);
+        ReflectionTestUtils.setField(client, "cacheMaxEntries", 10);
+        ReflectionTestUtils.setField(client, "cacheMaxObjectBytes", 1024L);
+        client.init();
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange, String cacheControl) throws IOException {
+        requests.incrementAndGet();
+        exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private String read(URL url) throws IOException {
+        try (InputStream inputStream = client.open(url, ARRDsHttp.Type.GET)) {
+            byte[] bytes = new byte[1024];
+            int length = 0;
+            int read;
+            while ((read = inputStream.read(bytes, length, bytes.length - length)) > 0) {
+                length += read;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                HttpDatasourceClient.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    @Test
+    void testFreshResponseServedFromCache() throws Exception {
+        assertThat(read(url("/max-age"))).isEqualTo(BODY);
+        assertThat(read(url("/max-age"))).isEqualTo(BODY);
+        assertThat(read(url("/max-age"))).isEqualTo(BODY);
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(client.getMisses()).isEqualTo(1);
+        assertThat(client.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void testRevalidateWithETag() throws Exception {
+        assertThat(read(url("/no-cache"))).isEqualTo(BODY);
+        assertThat(read(url("/no-cache"))).isEqualTo(BODY);
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(notModified.get()).isEqualTo(1);
+        assertThat(client.getValidated()).isEqualTo(1);
+    }
+
+    @Test
+    void testNoStore() throws Exception {
+        assertThat(read(url("/no-store"))).isEqualTo(BODY);
+        assertThat(read(url("/no-store"))).isEqualTo(BODY);
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(notModified.get()).isEqualTo(0);
+    }
+
+    @Test
+    void testErrorStatus() throws Exception {
+        URL url = url("/error");
+        IOException exception = assertThrows(IOException.class, () -> client.open(url, ARRDsHttp.Type.GET));
+        assertThat(exception.getMessage()).contains("500");
+    }
+
+}
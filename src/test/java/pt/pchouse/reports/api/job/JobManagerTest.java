@@ -0,0 +1,206 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.deadline.Deadline;
+import pt.pchouse.reports.api.generator.Generator;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class JobManagerTest extends Generic<JobManager> {
+
+    @MockBean
+    private Generator generator;
+
+    private ReportRequest reportRequest() {
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setReportType(ReportRequest.ReportType.PDF);
+        return reportRequest;
+    }
+
+    private static void await(Job job, Job.State state) throws InterruptedException {
+        long init = System.currentTimeMillis();
+        while (job.getState() != state && System.currentTimeMillis() - init < 5000) {
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        assertThat(job.getState()).isEqualTo(state);
+    }
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                JobManager.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    @Test
+    void testSubmitDone(@TempDir Path tmp) throws Exception {
+        byte[] document = "%PDF-1.4 the job document".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(generator.generateOutput()).thenReturn(
+                ReportOutput.ofFile(Files.write(tmp.resolve("output"), document))
+        );
+
+        JobManager jobManager = appContext.getBean(JobManager.class);
+        Job job = jobManager.submit(reportRequest());
+
+        assertThat(jobManager.get(job.getId())).isSameAs(job);
+        await(job, Job.State.DONE);
+
+        assertThat(job.getSize()).isEqualTo(document.length);
+        assertThat(job.getResult().getFileName().toString()).isEqualTo(job.getId() + ".pdf");
+        assertThat(Files.readAllBytes(job.getResult())).isEqualTo(document);
+        Mockito.verify(generator, Mockito.timeout(1000)).clean();
+
+        Path result = job.getResult();
+        assertThat(jobManager.cancel(job.getId())).isTrue();
+        assertThat(jobManager.get(job.getId())).isNull();
+        assertThat(Files.exists(result)).isFalse();
+    }
+
+    @Test
+    void testSubmitFail() throws Exception {
+        Mockito.when(generator.generateOutput()).thenThrow(new Exception("Test job exception"));
+
+        JobManager jobManager = appContext.getBean(JobManager.class);
+        Job job = jobManager.submit(reportRequest());
+
+        await(job, Job.State.FAILED);
+        assertThat(job.getMessage()).isEqualTo("Test job exception");
+        assertThat(job.getResult()).isNull();
+    }
+
+    @Test
+    void testCancelRunning(@TempDir Path tmp) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Path output = Files.write(tmp.resolve("output"), "%PDF".getBytes(StandardCharsets.UTF_8));
+
+        Mockito.when(generator.generateOutput()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ReportOutput.ofFile(output);
+        });
+
+        JobManager jobManager = appContext.getBean(JobManager.class);
+        Job job = jobManager.submit(reportRequest());
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.getState()).isEqualTo(Job.State.RUNNING);
+
+        ArgumentCaptor<Deadline> deadline = ArgumentCaptor.forClass(Deadline.class);
+        Mockito.verify(generator).setDeadline(deadline.capture());
+        assertThat(deadline.getValue()).isSameAs(job.getDeadline());
+        assertThat(deadline.getValue().getTimeout()).isZero();
+        assertThat(deadline.getValue().isCancelled()).isFalse();
+
+        assertThat(jobManager.cancel(job.getId())).isTrue();
+        assertThat(job.getState()).isEqualTo(Job.State.CANCELLED);
+        assertThat(deadline.getValue().isCancelled()).isTrue();
+        release.countDown();
+
+        Mockito.verify(generator, Mockito.timeout(1000)).clean();
+        assertThat(job.getState()).isEqualTo(Job.State.CANCELLED);
+        assertThat(job.getResult()).isNull();
+        assertThat(jobManager.cancel("not-exists")).isFalse();
+    }
+
+    @Test
+    void testQueueFull(@TempDir Path tmp) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Path output = Files.write(tmp.resolve("output"), "%PDF".getBytes(StandardCharsets.UTF_8));
+
+        Mockito.when(generator.generateOutput()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ReportOutput.ofFile(output);
+        });
+
+        JobManager jobManager = new JobManager();
+        ReflectionTestUtils.setField(jobManager, "appContext", appContext);
+        ReflectionTestUtils.setField(jobManager, "poolSize", 1);
+        ReflectionTestUtils.setField(jobManager, "queueCapacity", 1);
+        ReflectionTestUtils.setField(jobManager, "configResultDir", tmp.resolve("jobs").toString());
+        ReflectionTestUtils.setField(jobManager, "resultTtl", 3600000L);
+        ReflectionTestUtils.setField(jobManager, "purgeInterval", 60000L);
+        jobManager.init();
+
+        try {
+            Job running = jobManager.submit(reportRequest());
+            await(running, Job.State.RUNNING);
+            Job queued = jobManager.submit(reportRequest());
+
+            assertThat(jobManager.getQueued()).isEqualTo(1);
+            assertThrows(JobException.class, () -> jobManager.submit(reportRequest()));
+            assertThat(jobManager.getSize()).isEqualTo(2);
+
+            release.countDown();
+            await(running, Job.State.DONE);
+            await(queued, Job.State.DONE);
+        } finally {
+            release.countDown();
+            jobManager.close();
+        }
+    }
+
+    @Test
+    void testPurge(@TempDir Path tmp) throws Exception {
+        Mockito.when(generator.generateOutput()).thenReturn(
+                ReportOutput.ofFile(Files.write(tmp.resolve("output"), "%PDF".getBytes(StandardCharsets.UTF_8)))
+        );
+
+        JobManager jobManager = appContext.getBean(JobManager.class);
+        Job job = jobManager.submit(reportRequest());
+        await(job, Job.State.DONE);
+
+        jobManager.purge();
+        assertThat(jobManager.get(job.getId())).isSameAs(job);
+
+        Object ttl = ReflectionTestUtils.getField(jobManager, "resultTtl");
+        ReflectionTestUtils.setField(jobManager, "resultTtl", -1L);
+        try {
+            jobManager.purge();
+        } finally {
+            ReflectionTestUtils.setField(jobManager, "resultTtl", ttl);
+        }
+
+        assertThat(jobManager.get(job.getId())).isNull();
+        assertThat(Files.exists(job.getResult())).isFalse();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.memory;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryRepositoryServiceTest {
+
+    @Test
+    void testGetInputStream() throws Exception {
+        InMemoryRepositoryService repository = new InMemoryRepositoryService(DefaultJasperReportsContext.getInstance());
+        byte[] content = "sub report".getBytes(StandardCharsets.UTF_8);
+        repository.put("subreport_1.jasper", content);
+
+        assertThat(repository.contains("subreport_1.jasper")).isTrue();
+        assertThat(repository.contains("./subreport_1.jasper")).isTrue();
+        assertThat(repository.contains("subreport_2.jasper")).isFalse();
+
+        try (InputStream inputStream = repository.getInputStream("./subreport_1.jasper")) {
+            assertThat(inputStream).hasBinaryContent(content);
+        }
+
+        assertThat(repository.getInputStream("subreport_2.jasper")).isNull();
+        assertThat(repository.getOutputStream("subreport_1.jasper")).isNull();
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.memory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class OutputBufferPoolTest extends Generic<OutputBufferPool> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                OutputBufferPool.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private OutputBufferPool newPool(int size, int retain) {
+        OutputBufferPool pool = new OutputBufferPool(size);
+        ReflectionTestUtils.setField(pool, "initialBytes", 64);
+        ReflectionTestUtils.setField(pool, "retainBytes", retain);
+        return pool;
+    }
+
+    @Test
+    void testBorrowAndGiveBack() {
+        OutputBufferPool pool = newPool(2, 1024);
+
+        ByteArrayOutputStream buffer = pool.borrow();
+        buffer.write(1);
+        pool.giveBack(buffer);
+
+        assertThat(pool.getIdle()).isEqualTo(1);
+        ByteArrayOutputStream reused = pool.borrow();
+        assertThat(reused).isSameAs(buffer);
+        assertThat(reused.size()).isEqualTo(0);
+        assertThat(pool.getIdle()).isEqualTo(0);
+    }
+
+    @Test
+    void testDiscard() {
+        OutputBufferPool pool = newPool(1, 4);
+
+        ByteArrayOutputStream big = pool.borrow();
+        big.write(new byte[8], 0, 8);
+        pool.giveBack(big);
+        assertThat(pool.getIdle()).isEqualTo(0);
+
+        pool.giveBack(pool.borrow());
+        pool.giveBack(new ByteArrayOutputStream());
+        assertThat(pool.getIdle()).isEqualTo(1);
+    }
+
+}
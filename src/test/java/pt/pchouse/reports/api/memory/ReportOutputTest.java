@@ -0,0 +1,103 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportOutputTest {
+
+    @TempDir
+    Path tmp;
+
+    private OutputBufferPool newPool() {
+        OutputBufferPool pool = new OutputBufferPool(2);
+        ReflectionTestUtils.setField(pool, "initialBytes", 64);
+        ReflectionTestUtils.setField(pool, "retainBytes", 1024);
+        return pool;
+    }
+
+    @Test
+    void testInMemory() throws Exception {
+        OutputBufferPool pool = newPool();
+        byte[] content = "The report".getBytes(StandardCharsets.UTF_8);
+
+        ReportOutput output = new ReportOutput(pool, 1024, tmp);
+        output.write(content);
+        output.close();
+
+        assertThat(output.isInMemory()).isTrue();
+        assertThat(output.getFile()).isNull();
+        assertThat(output.size()).isEqualTo(content.length);
+        assertThat(output.toByteArray()).isEqualTo(content);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        output.writeTo(stream);
+        assertThat(stream.toByteArray()).isEqualTo(content);
+
+        output.release();
+        assertThat(pool.getIdle()).isEqualTo(1);
+    }
+
+    @Test
+    void testSpill() throws Exception {
+        OutputBufferPool pool = newPool();
+
+        ReportOutput output = new ReportOutput(pool, 8, tmp);
+        output.write("12345".getBytes(StandardCharsets.UTF_8));
+        assertThat(output.isInMemory()).isTrue();
+        output.write("67890".getBytes(StandardCharsets.UTF_8));
+        output.close();
+
+        assertThat(output.isInMemory()).isFalse();
+        Path file = output.getFile();
+        assertThat(file.getParent()).isEqualTo(tmp);
+        assertThat(output.size()).isEqualTo(10);
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("1234567890");
+        assertThat(pool.getIdle()).isEqualTo(1);
+
+        output.release();
+        assertThat(Files.exists(file)).isFalse();
+    }
+
+    @Test
+    void testOfFile() throws Exception {
+        byte[] content = "The file report".getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(tmp.resolve("output"), content);
+
+        ReportOutput output = ReportOutput.ofFile(file);
+
+        assertThat(output.isInMemory()).isFalse();
+        assertThat(output.size()).isEqualTo(content.length);
+        assertThat(output.toByteArray()).isEqualTo(content);
+
+        output.release();
+        // The generated file is deleted with the tmp dir not by the output
+        assertThat(Files.exists(file)).isTrue();
+    }
+
+}
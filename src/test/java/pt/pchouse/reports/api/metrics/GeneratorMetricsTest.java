@@ -0,0 +1,142 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.generator.IGenerator;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.request.datasource.Database;
+import pt.pchouse.reports.api.request.datasource.JsonFile;
+import pt.pchouse.reports.api.request.datasource.XmlFile;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class GeneratorMetricsTest extends Generic<GeneratorMetrics> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                GeneratorMetrics.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    @Test
+    void testDatasourceKind() {
+        ReportRequest request = new ReportRequest();
+        assertThat(GeneratorMetrics.datasourceKind(request)).isEqualTo("none");
+
+        request.setXmlFile(new XmlFile());
+        assertThat(GeneratorMetrics.datasourceKind(request)).isEqualTo("xml_file");
+
+        request.setJsonFile(new JsonFile());
+        assertThat(GeneratorMetrics.datasourceKind(request)).isEqualTo("json_file");
+
+        request.setDatabase(new Database());
+        assertThat(GeneratorMetrics.datasourceKind(request)).isEqualTo("database");
+    }
+
+    @Test
+    void testStageTimer() {
+        GeneratorMetrics metrics = appContext.getBean(GeneratorMetrics.class);
+        ReportRequest request = new ReportRequest();
+        request.setReportType(ReportRequest.ReportType.CSV);
+        request.setJsonFile(new JsonFile());
+
+        StageTimer stageTimer = metrics.stageTimer(request);
+        assertThat(stageTimer.getType()).isEqualTo("csv");
+        assertThat(stageTimer.getDatasource()).isEqualTo("json_file");
+
+        Timer timer = metrics.stage("test", "csv", "json_file");
+        long count = timer.count();
+
+        long nanos = stageTimer.stop(stageTimer.start(), "test");
+
+        assertThat(nanos).isGreaterThanOrEqualTo(0);
+        assertThat(timer.count()).isEqualTo(count + 1);
+    }
+
+    @Test
+    void testRecordQueueWait() {
+        GeneratorMetrics metrics = appContext.getBean(GeneratorMetrics.class);
+        Timer timer = metrics.getMeterRegistry().timer(GeneratorMetrics.QUEUE_WAIT_TIMER, "executor", "test");
+        long count = timer.count();
+
+        metrics.recordQueueWait("test", TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(timer.count()).isEqualTo(count + 1);
+        assertThat(timer.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void testGeneratorStages() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        GeneratorMetrics metrics = appContext.getBean(GeneratorMetrics.class);
+
+        JsonFile jsonFile = new JsonFile();
+        jsonFile.setJson(Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get(
+                Objects.requireNonNull(classLoader.getResource("jsondatasource/json_datasource.json")).toURI()
+        ))));
+
+        ReportRequest request = new ReportRequest();
+        request.setJsonFile(jsonFile);
+        request.setReportType(ReportRequest.ReportType.PDF);
+        request.setParameters(new ArrayList<>());
+        request.setReport(Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get(
+                Objects.requireNonNull(classLoader.getResource("jsondatasource/report_json_file.jasper")).toURI()
+        ))));
+
+        String[] stages = {
+                GeneratorMetrics.STAGE_PARSE_PARAMETERS,
+                GeneratorMetrics.STAGE_PARSE_DATASOURCE,
+                GeneratorMetrics.STAGE_PARSE_RESOURCES,
+                GeneratorMetrics.STAGE_PARSE_EXPORTER,
+                GeneratorMetrics.STAGE_TEMPLATE,
+                GeneratorMetrics.STAGE_DATASOURCE,
+                GeneratorMetrics.STAGE_FILL,
+                GeneratorMetrics.STAGE_EXPORT,
+                GeneratorMetrics.STAGE_ENCODE,
+                GeneratorMetrics.STAGE_GENERATE,
+        };
+        long[] counts = new long[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            counts[i] = metrics.stage(stages[i], "pdf", "json_file").count();
+        }
+
+        String report = appContext.getBean(IGenerator.class, request).generate();
+        assertThat(report).isNotEmpty();
+
+        for (int i = 0; i < stages.length; i++) {
+            assertThat(metrics.stage(stages[i], "pdf", "json_file").count())
+                    .as(stages[i])
+                    .isEqualTo(counts[i] + 1);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StageTimerTest {
+
+    @Test
+    void testStopRecordsTheTaggedStage() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GeneratorMetrics metrics = new GeneratorMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+
+        StageTimer stageTimer = new StageTimer(metrics, "pdf", "database");
+        Timer.Sample sample = stageTimer.start();
+        Thread.sleep(10);
+        long nanos = stageTimer.stop(sample, GeneratorMetrics.STAGE_FILL);
+
+        Timer timer = registry.find(GeneratorMetrics.STAGE_TIMER)
+                .tag("stage", GeneratorMetrics.STAGE_FILL)
+                .tag("type", "pdf")
+                .tag("datasource", "database")
+                .timer();
+
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(nanos).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(timer.totalTime(TimeUnit.NANOSECONDS)).isEqualTo(nanos);
+    }
+
+    @Test
+    void testStagesAreSeparatedTimers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GeneratorMetrics metrics = new GeneratorMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+
+        StageTimer stageTimer = new StageTimer(metrics, "csv", "none");
+        stageTimer.stop(stageTimer.start(), GeneratorMetrics.STAGE_EXPORT);
+        stageTimer.stop(stageTimer.start(), GeneratorMetrics.STAGE_EXPORT);
+        stageTimer.stop(stageTimer.start(), GeneratorMetrics.STAGE_ENCODE);
+
+        assertThat(registry.find(GeneratorMetrics.STAGE_TIMER).tag("stage", GeneratorMetrics.STAGE_EXPORT).timer().count())
+                .isEqualTo(2);
+        assertThat(registry.find(GeneratorMetrics.STAGE_TIMER).tag("stage", GeneratorMetrics.STAGE_ENCODE).timer().count())
+                .isEqualTo(1);
+    }
+}
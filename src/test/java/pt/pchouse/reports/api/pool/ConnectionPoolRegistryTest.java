@@ -0,0 +1,207 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.pool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ConnectionPoolRegistryTest extends Generic<ConnectionPoolRegistry> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                ConnectionPoolRegistry.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private ConnectionPoolRegistry newRegistry(int maxPools) {
+        ConnectionPoolRegistry registry = new ConnectionPoolRegistry();
+        ReflectionTestUtils.setField(registry, "enabled", true);
+        ReflectionTestUtils.setField(registry, "maxSize", 2);
+        ReflectionTestUtils.setField(registry, "minIdle", 0);
+        ReflectionTestUtils.setField(registry, "idleTimeout", 60000L);
+        ReflectionTestUtils.setField(registry, "maxLifetime", 1800000L);
+        ReflectionTestUtils.setField(registry, "connectionTimeout", 30000L);
+        ReflectionTestUtils.setField(registry, "validationTimeout", 5000L);
+        ReflectionTestUtils.setField(registry, "maxPools", maxPools);
+        return registry;
+    }
+
+    private Properties dbProperties() throws Exception {
+        Properties dbProp = new Properties();
+        dbProp.load(getClass().getClassLoader().getResourceAsStream("sakila/mysql.properties"));
+        return dbProp;
+    }
+
+    @Test
+    void testBorrowAndReturn() throws Exception {
+        Properties dbProp = dbProperties();
+        ConnectionPoolRegistry registry = newRegistry(5);
+
+        try {
+            Connection first = registry.getConnection(
+                    dbProp.getProperty("connection"),
+                    dbProp.getProperty("driver"),
+                    dbProp.getProperty("user"),
+                    dbProp.getProperty("password")
+            );
+
+            List<PoolStats> stats = registry.getStats();
+            assertThat(stats).hasSize(1);
+            assertThat(stats.get(0).getActive()).isEqualTo(1);
+            assertThat(stats.get(0).getUser()).isEqualTo(dbProp.getProperty("user"));
+
+            first.close();
+
+            try (Connection second = registry.getConnection(
+                    dbProp.getProperty("connection"),
+                    dbProp.getProperty("driver"),
+                    dbProp.getProperty("user"),
+                    dbProp.getProperty("password")
+            )) {
+                assertThat(second.isValid(5)).isTrue();
+            }
+
+            stats = registry.getStats();
+            assertThat(registry.getSize()).isEqualTo(1);
+            assertThat(stats.get(0).getActive()).isEqualTo(0);
+            assertThat(stats.get(0).getTotal()).isEqualTo(1);
+        } finally {
+            registry.close();
+        }
+
+        assertThat(registry.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    void testBusyPoolNotClosed() throws Exception {
+        Properties dbProp = dbProperties();
+        ConnectionPoolRegistry registry = newRegistry(1);
+        String connection = dbProp.getProperty("connection");
+        String other = connection + (connection.contains("?") ? "&" : "?") + "connectTimeout=5000";
+
+        try {
+            Connection first = registry.getConnection(
+                    connection,
+                    dbProp.getProperty("driver"),
+                    dbProp.getProperty("user"),
+                    dbProp.getProperty("password")
+            );
+
+            try (Connection second = registry.getConnection(
+                    other,
+                    dbProp.getProperty("driver"),
+                    dbProp.getProperty("user"),
+                    dbProp.getProperty("password")
+            )) {
+                assertThat(registry.getSize()).isEqualTo(2);
+                assertThat(first.isValid(5)).isTrue();
+                assertThat(second.isValid(5)).isTrue();
+            }
+
+            registry.housekeeping();
+            assertThat(registry.getSize()).isEqualTo(2);
+            assertThat(first.isValid(5)).isTrue();
+
+            first.close();
+            registry.housekeeping();
+            assertThat(registry.getSize()).isEqualTo(1);
+            assertThat(registry.getStats().get(0).getConnectionString())
+                    .isEqualTo(ConnectionPoolRegistry.maskPassword(other));
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    void testHousekeepingExpired() throws Exception {
+        Properties dbProp = dbProperties();
+        ConnectionPoolRegistry registry = newRegistry(5);
+        ReflectionTestUtils.setField(registry, "idleTimeout", 0L);
+
+        try {
+            registry.getConnection(
+                    dbProp.getProperty("connection"),
+                    dbProp.getProperty("driver"),
+                    dbProp.getProperty("user"),
+                    dbProp.getProperty("password")
+            ).close();
+
+            assertThat(registry.getSize()).isEqualTo(1);
+            Thread.sleep(5);
+            registry.housekeeping();
+            assertThat(registry.getSize()).isEqualTo(0);
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    void testEvictConnection() throws Exception {
+        Properties dbProp = dbProperties();
+        ConnectionPoolRegistry registry = newRegistry(5);
+
+        try {
+            Connection busy = registry.getConnection(
+                    dbProp.getProperty("connection"),
+                    dbProp.getProperty("driver"),
+                    dbProp.getProperty("user"),
+                    dbProp.getProperty("password")
+            );
+            registry.evictConnection(busy);
+            registry.evictConnection(busy);
+            busy.close();
+
+            try (Connection next = registry.getConnection(
+                    dbProp.getProperty("connection"),
+                    dbProp.getProperty("driver"),
+                    dbProp.getProperty("user"),
+                    dbProp.getProperty("password")
+            )) {
+                assertThat(next.isValid(5)).isTrue();
+            }
+            assertThat(registry.getStats().get(0).getTotal()).isLessThanOrEqualTo(1);
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    void testMaskPassword() {
+        assertThat(ConnectionPoolRegistry.maskPassword("jdbc:mysql://localhost/sakila?user=a&password=secret&ssl=true"))
+                .isEqualTo("jdbc:mysql://localhost/sakila?user=a&password=***&ssl=true");
+        assertThat(ConnectionPoolRegistry.maskPassword("jdbc:sqlserver://localhost;Password=secret;db=x"))
+                .isEqualTo("jdbc:sqlserver://localhost;Password=***;db=x");
+        assertThat(ConnectionPoolRegistry.maskPassword("jdbc:mysql://localhost/sakila"))
+                .isEqualTo("jdbc:mysql://localhost/sakila");
+        assertThat(ConnectionPoolRegistry.maskPassword(null)).isNull();
+    }
+
+}
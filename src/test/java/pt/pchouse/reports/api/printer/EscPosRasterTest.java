@@ -0,0 +1,126 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.printer;
+
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.base.JRBasePrintPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class EscPosRasterTest extends Generic<EscPosRaster> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                EscPosRaster.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    @Test
+    void testWriteRaster() throws Exception {
+        BufferedImage image = new BufferedImage(10, 4, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 10, 4);
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, 1, 1);
+        graphics.fillRect(9, 1, 1, 1);
+        graphics.dispose();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        EscPosRaster.writeRaster(image, outputStream);
+
+        // The two blank rows at the bottom are trimmed
+        assertThat(outputStream.toByteArray()).containsExactly(
+                0x1D, 0x76, 0x30, 0x00, 2, 0, 2, 0,
+                0x80, 0x00,
+                0x00, 0x40
+        );
+    }
+
+    @Test
+    void testWriteRasterBands() throws Exception {
+        int height = EscPosRaster.BAND_ROWS + 10;
+        BufferedImage image = new BufferedImage(8, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, 8, height);
+        graphics.dispose();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        EscPosRaster.writeRaster(image, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        assertThat(bytes).hasSize(8 + EscPosRaster.BAND_ROWS + 8 + 10);
+        assertThat(bytes[6]).isEqualTo((byte) (EscPosRaster.BAND_ROWS & 0xFF));
+        assertThat(bytes[7]).isEqualTo((byte) (EscPosRaster.BAND_ROWS >> 8));
+        int second = 8 + EscPosRaster.BAND_ROWS;
+        assertThat(bytes[second]).isEqualTo((byte) 0x1D);
+        assertThat(bytes[second + 6]).isEqualTo((byte) 10);
+        assertThat(bytes[second + 7]).isEqualTo((byte) 0);
+        assertThat(bytes[bytes.length - 1]).isEqualTo((byte) 0xFF);
+    }
+
+    @Test
+    void testRender() throws Exception {
+        JasperPrint jasperPrint = new JasperPrint();
+        jasperPrint.setPageWidth(226);
+        jasperPrint.setPageHeight(100);
+        jasperPrint.addPage(new JRBasePrintPage());
+
+        BufferedImage image = EscPosRaster.render(jasperPrint, 0, 576);
+        assertThat(image.getWidth()).isEqualTo(576);
+        assertThat(image.getHeight()).isEqualTo((int) Math.ceil(100 * (576f / 226)));
+        assertThat(image.getRaster().getSample(0, 0, 0)).isEqualTo(255);
+    }
+
+    @Test
+    void testToBytes() throws Exception {
+        PrinterConfig printerConfig = appContext.getBean(PrinterConfig.class);
+        JasperPrint jasperPrint = new JasperPrint();
+        jasperPrint.setPageWidth(226);
+        jasperPrint.setPageHeight(100);
+        jasperPrint.addPage(new JRBasePrintPage());
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(printerConfig.getInitBytes());
+        expected.write(printerConfig.getCutBytes());
+        expected.write(printerConfig.getCashDrawerBytes());
+
+        // A blank page has no raster rows
+        assertThat(appContext.getBean(EscPosRaster.class).toBytes(
+                jasperPrint,
+                ReportRequest.AFTER_PRINT_CUT_PAPER | ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER
+        )).containsExactly(expected.toByteArray());
+
+        assertThat(appContext.getBean(EscPosRaster.class).toBytes(jasperPrint, 0))
+                .containsExactly(printerConfig.getInitBytes());
+    }
+
+}
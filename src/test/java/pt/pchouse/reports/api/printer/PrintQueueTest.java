@@ -0,0 +1,162 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.printer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest
+public class PrintQueueTest extends Generic<PrintQueue> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                PrintQueue.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private PrintQueue printQueue(int queueCapacity, long jobTtl) {
+        PrintQueue printQueue = new PrintQueue();
+        ReflectionTestUtils.setField(printQueue, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(printQueue, "jobTtl", jobTtl);
+        return printQueue;
+    }
+
+    @Test
+    void testSerializedInSubmitOrder() throws Exception {
+        PrintQueue printQueue = printQueue(100, 60000);
+        List<Integer> printed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger printing = new AtomicInteger();
+        AtomicInteger maxPrinting = new AtomicInteger();
+
+        List<PrintJob> jobs = new ArrayList<>();
+        for (int index = 0; index < 10; index++) {
+            int ticket = index;
+            jobs.add(printQueue.submit("POS-80", () -> {
+                maxPrinting.accumulateAndGet(printing.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                printed.add(ticket);
+                printing.decrementAndGet();
+            }));
+        }
+        for (PrintJob job : jobs) {
+            job.await();
+            assertThat(job.getState()).isEqualTo(PrintJob.State.DONE);
+            assertThat(printQueue.get(job.getId())).isSameAs(job);
+        }
+
+        assertThat(printed).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(maxPrinting.get()).isEqualTo(1);
+        printQueue.close();
+    }
+
+    @Test
+    void testPrintersInParallel() throws Exception {
+        PrintQueue printQueue = printQueue(100, 60000);
+        CountDownLatch bothPrinting = new CountDownLatch(2);
+
+        PrintJob first = printQueue.submit("POS-80", () -> {
+            bothPrinting.countDown();
+            assertThat(bothPrinting.await(5, TimeUnit.SECONDS)).isTrue();
+        });
+        PrintJob second = printQueue.submit("Kitchen", () -> {
+            bothPrinting.countDown();
+            assertThat(bothPrinting.await(5, TimeUnit.SECONDS)).isTrue();
+        });
+
+        first.await();
+        second.await();
+        assertThat(first.getPrinter()).isEqualTo("POS-80");
+        assertThat(second.getPrinter()).isEqualTo("Kitchen");
+        printQueue.close();
+    }
+
+    @Test
+    void testFailed() {
+        PrintQueue printQueue = printQueue(100, 60000);
+        String msg = "Printer out of paper";
+
+        PrintJob job = Assertions.assertDoesNotThrow(() -> printQueue.submit("POS-80", () -> {
+            throw new PrinterException(msg);
+        }));
+
+        PrinterException exception = Assertions.assertThrows(PrinterException.class, job::await);
+        assertThat(exception.getMessage()).isEqualTo(msg);
+        assertThat(job.getState()).isEqualTo(PrintJob.State.FAILED);
+        assertThat(job.getMessage()).isEqualTo(msg);
+        printQueue.close();
+    }
+
+    @Test
+    void testQueueFull() throws Exception {
+        PrintQueue printQueue = printQueue(1, 60000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        PrintJob printing = printQueue.submit("POS-80", () -> {
+            started.countDown();
+            release.await();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        PrintJob queued = printQueue.submit("POS-80", () -> {
+        });
+        assertThat(queued.getState()).isEqualTo(PrintJob.State.QUEUED);
+        assertThat(printQueue.getQueued("POS-80")).isEqualTo(1);
+        assertThat(printQueue.getQueued()).containsExactly(entry("POS-80", 1));
+        assertThat(printQueue.getPrinting()).isEqualTo(1);
+        assertThat(printQueue.getQueueCapacity()).isEqualTo(1);
+
+        Assertions.assertThrows(PrinterException.class, () -> printQueue.submit("POS-80", () -> {
+        }));
+
+        release.countDown();
+        printing.await();
+        queued.await();
+        assertThat(printQueue.getSize()).isEqualTo(2);
+        printQueue.close();
+    }
+
+    @Test
+    void testPurge() throws Exception {
+        PrintQueue printQueue = printQueue(100, 0);
+        PrintJob job = printQueue.submit(null, () -> {
+        });
+        job.await();
+        Thread.sleep(5);
+
+        printQueue.purge();
+        assertThat(printQueue.get(job.getId())).isNull();
+        assertThat(printQueue.getSize()).isZero();
+        printQueue.close();
+    }
+}
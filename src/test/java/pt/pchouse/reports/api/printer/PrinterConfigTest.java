@@ -51,6 +51,9 @@ public class PrinterConfigTest extends Generic<PrinterConfig> {
         String feed = "99";
         String cut = "10,20";
         String cashDrawer = "20,30,40";
+        String mode = "raster";
+        int dotWidth = 384;
+        String capture = "/tmp/capture.bin";
 
         PrinterConfig printerConfig = new PrinterConfig();
         printerConfig.setName(name);
@@ -58,12 +61,31 @@ public class PrinterConfigTest extends Generic<PrinterConfig> {
         printerConfig.setFeed(feed);
         printerConfig.setCut(cut);
         printerConfig.setCashDrawer(cashDrawer);
+        printerConfig.setMode(mode);
+        printerConfig.setDotWidth(dotWidth);
+        printerConfig.setCapture(capture);
+        printerConfig.setHost("192.168.1.100");
+        printerConfig.setPort(9100);
+        printerConfig.setConnectTimeout(3000);
+        printerConfig.setWriteTimeout(5000L);
+        printerConfig.setReconnectBackoff(500L);
+        printerConfig.setReconnectBackoffMax(30000L);
 
         assertThat(printerConfig.getName()).isEqualTo(name);
         assertThat(printerConfig.getInit()).isEqualTo(init);
         assertThat(printerConfig.getFeed()).isEqualTo(feed);
         assertThat(printerConfig.getCut()).isEqualTo(cut);
         assertThat(printerConfig.getCashDrawer()).isEqualTo(cashDrawer);
+        assertThat(printerConfig.getMode()).isEqualTo(mode);
+        assertThat(printerConfig.getDotWidth()).isEqualTo(dotWidth);
+        assertThat(printerConfig.getCapture()).isEqualTo(capture);
+        assertThat(printerConfig.getHost()).isEqualTo("192.168.1.100");
+        assertThat(printerConfig.isNetwork()).isTrue();
+        assertThat(printerConfig.getPort()).isEqualTo(9100);
+        assertThat(printerConfig.getConnectTimeout()).isEqualTo(3000);
+        assertThat(printerConfig.getWriteTimeout()).isEqualTo(5000L);
+        assertThat(printerConfig.getReconnectBackoff()).isEqualTo(500L);
+        assertThat(printerConfig.getReconnectBackoffMax()).isEqualTo(30000L);
 
         assertThat(printerConfig.getInitBytes()).isEqualTo(convert(init));
         assertThat(printerConfig.getFeedBytes()).isEqualTo(convert(feed));
@@ -80,6 +102,10 @@ public class PrinterConfigTest extends Generic<PrinterConfig> {
         assertThat(printerConfig.getFeed()).isNotEmpty();
         assertThat(printerConfig.getCut()).isNotEmpty();
         assertThat(printerConfig.getCashDrawer()).isNotEmpty();
+        assertThat(printerConfig.getMode()).isEqualTo("service");
+        assertThat(printerConfig.getDotWidth()).isPositive();
+        assertThat(printerConfig.isNetwork()).isFalse();
+        assertThat(printerConfig.getPort()).isEqualTo(9100);
     }
 
 
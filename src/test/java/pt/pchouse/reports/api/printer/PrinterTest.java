@@ -19,9 +19,16 @@
 package pt.pchouse.reports.api.printer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
 import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.ReportRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 
 @SpringBootTest
@@ -60,4 +67,61 @@ public class PrinterTest extends Generic<Printer> {
         }
     }
 
+    @Test
+    void testAfterPrintBytes() throws Exception {
+        Printer printer = appContext.getBean(Printer.class);
+        PrinterConfig printerConfig = appContext.getBean(PrinterConfig.class);
+        ByteArrayOutputStream cut = new ByteArrayOutputStream();
+        cut.write(printerConfig.getInitBytes());
+        cut.write(printerConfig.getCutBytes());
+        ByteArrayOutputStream cashDrawer = new ByteArrayOutputStream();
+        cashDrawer.write(printerConfig.getInitBytes());
+        cashDrawer.write(printerConfig.getCashDrawerBytes());
+        ByteArrayOutputStream both = new ByteArrayOutputStream();
+        both.write(cut.toByteArray());
+        both.write(printerConfig.getCashDrawerBytes());
+
+        assertThat(printer.afterPrintBytes(0)).isNull();
+        assertThat(printer.afterPrintBytes(ReportRequest.AFTER_PRINT_CUT_PAPER))
+                .containsExactly(cut.toByteArray());
+        assertThat(printer.afterPrintBytes(ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER))
+                .containsExactly(cashDrawer.toByteArray());
+        assertThat(printer.afterPrintBytes(
+                ReportRequest.AFTER_PRINT_CUT_PAPER | ReportRequest.AFTER_PRINT_OPEN_CASH_DRAWER
+        )).containsExactly(both.toByteArray());
+    }
+
+    @Test
+    void testIsRaster() {
+        Printer printer = appContext.getBean(Printer.class);
+        PrinterConfig printerConfig = appContext.getBean(PrinterConfig.class);
+        String mode = printerConfig.getMode();
+        try {
+            printerConfig.setMode("service");
+            assertThat(printer.isRaster(null)).isFalse();
+            assertThat(printer.isRaster(ReportRequest.PrintMode.RASTER)).isTrue();
+            printerConfig.setMode("raster");
+            assertThat(printer.isRaster(null)).isTrue();
+            assertThat(printer.isRaster(ReportRequest.PrintMode.SERVICE)).isFalse();
+        } finally {
+            printerConfig.setMode(mode);
+        }
+    }
+
+    @Test
+    void testPrintRawCapture(@TempDir Path tempDir) throws Exception {
+        Printer printer = appContext.getBean(Printer.class);
+        PrinterConfig printerConfig = appContext.getBean(PrinterConfig.class);
+        String capture = printerConfig.getCapture();
+        Path file = tempDir.resolve("capture.bin");
+        try {
+            printerConfig.setCapture(file.toString());
+            printer.printRaw(new byte[]{1, 2});
+            printer.printRaw(new byte[]{3});
+            assertThat(Files.readAllBytes(file)).containsExactly(1, 2, 3);
+        } finally {
+            printerConfig.setCapture(capture);
+        }
+    }
+
 }
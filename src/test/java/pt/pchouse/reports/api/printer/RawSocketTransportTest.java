@@ -0,0 +1,183 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.printer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class RawSocketTransportTest extends Generic<RawSocketTransport> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                RawSocketTransport.class.getAnnotation(Scope.class).value()
+                        .equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    /**
+     * Printer stub, accept the connections and keep the received bytes,
+     * the connection is closed after reading closeAfter bytes if greater than zero
+     */
+    private static class PrinterStub implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+        private final AtomicInteger connections = new AtomicInteger();
+
+        private PrinterStub(int closeAfter) throws IOException {
+            serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+            Thread thread = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try (Socket socket = serverSocket.accept()) {
+                        connections.incrementAndGet();
+                        InputStream inputStream = socket.getInputStream();
+                        int read;
+                        int count = 0;
+                        while ((read = inputStream.read()) != -1) {
+                            synchronized (received) {
+                                received.write(read);
+                            }
+                            if (closeAfter > 0 && ++count == closeAfter) {
+                                break;
+                            }
+                        }
+                    } catch (IOException ignore) {
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private byte[] awaitReceived(int size) throws InterruptedException {
+            long until = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            while (System.currentTimeMillis() < until) {
+                synchronized (received) {
+                    if (received.size() >= size) {
+                        return received.toByteArray();
+                    }
+                }
+                Thread.sleep(10);
+            }
+            synchronized (received) {
+                return received.toByteArray();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+
+    private RawSocketTransport transport(int port) {
+        PrinterConfig printerConfig = new PrinterConfig();
+        printerConfig.setHost(InetAddress.getLoopbackAddress().getHostAddress());
+        printerConfig.setPort(port);
+        printerConfig.setConnectTimeout(1000);
+        printerConfig.setWriteTimeout(1000);
+        printerConfig.setReconnectBackoff(60000);
+        printerConfig.setReconnectBackoffMax(60000);
+        RawSocketTransport transport = new RawSocketTransport();
+        ReflectionTestUtils.setField(transport, "printerConfig", printerConfig);
+        return transport;
+    }
+
+    @Test
+    void testConnectionReused() throws Exception {
+        try (PrinterStub stub = new PrinterStub(0)) {
+            RawSocketTransport transport = transport(stub.getPort());
+            try {
+                transport.send(new byte[]{27, 64});
+                transport.send(new byte[]{29, 86, 65, 4});
+                assertThat(stub.awaitReceived(6)).containsExactly(27, 64, 29, 86, 65, 4);
+                assertThat(transport.isConnected()).isTrue();
+                assertThat(stub.connections.get()).isEqualTo(1);
+            } finally {
+                transport.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testReconnectWhenClosedByPrinter() throws Exception {
+        try (PrinterStub stub = new PrinterStub(2)) {
+            RawSocketTransport transport = transport(stub.getPort());
+            try {
+                transport.send(new byte[]{1, 2});
+                assertThat(stub.awaitReceived(2)).containsExactly(1, 2);
+                // Wait for the printer to close the connection
+                Thread.sleep(100);
+                transport.send(new byte[]{3, 4});
+                assertThat(stub.awaitReceived(4)).containsExactly(1, 2, 3, 4);
+                assertThat(stub.connections.get()).isEqualTo(2);
+            } finally {
+                transport.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testBackoff() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = serverSocket.getLocalPort();
+        }
+
+        RawSocketTransport transport = transport(port);
+        try {
+            PrinterException connect = Assertions.assertThrows(
+                    PrinterException.class, () -> transport.send(new byte[]{1})
+            );
+            assertThat(connect.getMessage()).startsWith("Fail to connect");
+
+            PrinterException backoff = Assertions.assertThrows(
+                    PrinterException.class, () -> transport.send(new byte[]{1})
+            );
+            assertThat(backoff.getMessage()).contains("reconnect in");
+            assertThat(transport.isConnected()).isFalse();
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.datasource.JsonFile;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class BatchItemTest extends Generic<BatchItem> {
+
+    @Test
+    @Override
+    public void testAnnotations() {
+
+        assertThat(BatchItem.class.isAnnotationPresent(Component.class)).isTrue();
+        assertThat(BatchItem.class.isAnnotationPresent(Scope.class)).isTrue();
+
+        assertThat(
+                BatchItem.class.getAnnotation(Scope.class)
+                        .value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+
+        assertThat(
+                BatchItem.class.getAnnotation(JsonIgnoreProperties.class).ignoreUnknown()
+        ).isTrue();
+    }
+
+    @Test
+    void testBean() {
+
+        BatchItem item = appContext.getBean(BatchItem.class);
+        assertThat(item.hasDatasource()).isFalse();
+
+        ArrayList<Parameter> parameters = new ArrayList<>();
+        parameters.add(new Parameter(Parameter.Types.P_STRING, "P_NAME", "The name"));
+        JsonFile jsonFile = new JsonFile();
+
+        item.setId("invoice-1");
+        item.setParameters(parameters);
+        item.setJsonFile(jsonFile);
+
+        assertThat(item.getId()).isEqualTo("invoice-1");
+        assertThat(item.getParameters()).isSameAs(parameters);
+        assertThat(item.getJsonFile()).isSameAs(jsonFile);
+        assertThat(item.hasDatasource()).isTrue();
+    }
+
+}
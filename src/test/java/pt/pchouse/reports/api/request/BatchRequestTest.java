@@ -0,0 +1,106 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.datasource.JsonFile;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class BatchRequestTest extends Generic<BatchRequest> {
+
+    @Test
+    @Override
+    public void testAnnotations() {
+
+        assertThat(BatchRequest.class.isAnnotationPresent(Component.class)).isTrue();
+        assertThat(BatchRequest.class.isAnnotationPresent(Scope.class)).isTrue();
+
+        assertThat(
+                BatchRequest.class.getAnnotation(Scope.class)
+                        .value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+
+        assertThat(
+                BatchRequest.class.getAnnotation(JsonIgnoreProperties.class).ignoreUnknown()
+        ).isTrue();
+    }
+
+    @Test
+    void testItemRequest() {
+
+        JsonFile sharedJson = new JsonFile();
+        sharedJson.setJson("c2hhcmVk");
+
+        ArrayList<Parameter> sharedParameters = new ArrayList<>();
+        sharedParameters.add(new Parameter(Parameter.Types.P_STRING, "P_COMPANY", "PChouse"));
+        sharedParameters.add(new Parameter(Parameter.Types.P_STRING, "P_NAME", "Shared name"));
+
+        ReportRequest request = new ReportRequest();
+        request.setTemplateId("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        request.setReportType(ReportRequest.ReportType.PDF);
+        request.setParameters(sharedParameters);
+        request.setJsonFile(sharedJson);
+
+        ArrayList<Parameter> itemParameters = new ArrayList<>();
+        itemParameters.add(new Parameter(Parameter.Types.P_STRING, "P_NAME", "Item name"));
+
+        JsonFile itemJson = new JsonFile();
+        itemJson.setJson("aXRlbQ==");
+
+        BatchItem first = new BatchItem();
+        first.setParameters(itemParameters);
+        first.setJsonFile(itemJson);
+
+        BatchItem second = new BatchItem();
+
+        ArrayList<BatchItem> items = new ArrayList<>();
+        items.add(first);
+        items.add(second);
+
+        BatchRequest batchRequest = appContext.getBean(BatchRequest.class);
+        batchRequest.setRequest(request);
+        batchRequest.setItems(items);
+
+        ReportRequest firstRequest = batchRequest.itemRequest(0);
+        assertThat(firstRequest).isNotSameAs(request);
+        assertThat(firstRequest.getTemplateId()).isEqualTo(request.getTemplateId());
+        assertThat(firstRequest.getReportType()).isEqualTo(ReportRequest.ReportType.PDF);
+        assertThat(firstRequest.getJsonFile()).isSameAs(itemJson);
+        assertThat(firstRequest.getParameters()).hasSize(2);
+        assertThat(firstRequest.getParameters().get(0).getValue()).isEqualTo("PChouse");
+        assertThat(firstRequest.getParameters().get(1).getValue()).isEqualTo("Item name");
+
+        ReportRequest secondRequest = batchRequest.itemRequest(1);
+        assertThat(secondRequest.getJsonFile()).isSameAs(sharedJson);
+        assertThat(secondRequest.getParameters()).hasSize(2);
+        assertThat(secondRequest.getParameters().get(1).getValue()).isEqualTo("Shared name");
+        assertThat(request.getParameters()).isSameAs(sharedParameters);
+    }
+
+}
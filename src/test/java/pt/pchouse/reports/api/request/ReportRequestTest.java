@@ -69,6 +69,10 @@ public class ReportRequestTest extends Generic<ReportRequest> {
         int afterPrint = 3;
         Metadata metadata = new Metadata();
         PdfProperties pdfProperties = new PdfProperties();
+        ArrayList<ReportRequest.ReportType> reportTypes = new ArrayList<>();
+        reportTypes.add(ReportRequest.ReportType.PDF);
+        reportTypes.add(ReportRequest.ReportType.XLSX);
+        Virtualizer virtualizer = new Virtualizer();
 
         @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
         ArrayList<Parameter> parameters = new ArrayList<>();
@@ -91,6 +95,14 @@ public class ReportRequestTest extends Generic<ReportRequest> {
         reportRequest.setAfterPrintOperations(afterPrint);
         reportRequest.setMetadata(metadata);
         reportRequest.setPdfProperties(pdfProperties);
+        reportRequest.setReportTypes(reportTypes);
+        reportRequest.setVirtualizer(virtualizer);
+        reportRequest.setTimeout(30000L);
+        reportRequest.setCoalesce(true);
+        reportRequest.setCache(ReportRequest.CacheMode.REFRESH);
+        reportRequest.setPrintMode(ReportRequest.PrintMode.RASTER);
+        reportRequest.setJrxml("PGphc3BlclJlcG9ydC8+");
+        reportRequest.setTemplateId("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
 
         assertThat(reportRequest.getReport()).isEqualTo(report);
         assertThat(reportRequest.getReportType()).isEqualTo(reportType);
@@ -108,6 +120,14 @@ public class ReportRequestTest extends Generic<ReportRequest> {
         assertThat(reportRequest.getAfterPrintOperations()).isEqualTo(afterPrint);
         assertThat(reportRequest.getMetadata()).isEqualTo(metadata);
         assertThat(reportRequest.getPdfProperties()).isEqualTo(pdfProperties);
+        assertThat(reportRequest.getReportTypes()).isEqualTo(reportTypes);
+        assertThat(reportRequest.getVirtualizer()).isEqualTo(virtualizer);
+        assertThat(reportRequest.getTimeout()).isEqualTo(30000L);
+        assertThat(reportRequest.getCoalesce()).isTrue();
+        assertThat(reportRequest.getCache()).isEqualTo(ReportRequest.CacheMode.REFRESH);
+        assertThat(reportRequest.getPrintMode()).isEqualTo(ReportRequest.PrintMode.RASTER);
+        assertThat(reportRequest.getJrxml()).isEqualTo("PGphc3BlclJlcG9ydC8+");
+        assertThat(reportRequest.getTemplateId()).isEqualTo("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
     }
 
 }
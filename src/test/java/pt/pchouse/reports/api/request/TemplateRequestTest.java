@@ -0,0 +1,71 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.Generic;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class TemplateRequestTest extends Generic<TemplateRequest> {
+
+    @Test
+    @Override
+    public void testAnnotations() {
+
+        assertThat(TemplateRequest.class.isAnnotationPresent(Component.class)).isTrue();
+        assertThat(TemplateRequest.class.isAnnotationPresent(Scope.class)).isTrue();
+
+        assertThat(
+                TemplateRequest.class.getAnnotation(Scope.class)
+                        .value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+
+        assertThat(
+                TemplateRequest.class.getAnnotation(JsonIgnoreProperties.class).ignoreUnknown()
+        ).isTrue();
+    }
+
+    @Test
+    void testBean() {
+
+        TemplateRequest templateRequest = appContext.getBean(TemplateRequest.class);
+
+        String report = "VGhlIHJlcG9ydA==";
+        ArrayList<ReportResources> resources = new ArrayList<>();
+        resources.add(appContext.getBean(ReportResources.class));
+
+        templateRequest.setReport(report);
+        templateRequest.setReportResources(resources);
+        templateRequest.setJrxml("PGphc3BlclJlcG9ydC8+");
+
+        assertThat(templateRequest.getReport()).isEqualTo(report);
+        assertThat(templateRequest.getReportResources()).isSameAs(resources);
+        assertThat(templateRequest.getJrxml()).isEqualTo("PGphc3BlclJlcG9ydC8+");
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.pchouse.reports.Generic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class VirtualizerTest extends Generic<Virtualizer> {
+
+    @Test
+    @Override
+    public void testAnnotations() {
+        assertThat(Virtualizer.class.isAnnotationPresent(Component.class)).isTrue();
+        assertThat(Virtualizer.class.isAnnotationPresent(Scope.class)).isTrue();
+        assertThat(
+                Virtualizer.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    @Test
+    public void testBean() {
+        Virtualizer virtualizer = appContext.getBean(Virtualizer.class);
+
+        assertThat(virtualizer.getType()).isNull();
+        assertThat(virtualizer.getPages()).isNull();
+
+        virtualizer.setType(Virtualizer.Type.SWAP);
+        virtualizer.setPages(10);
+
+        assertThat(virtualizer.getType()).isEqualTo(Virtualizer.Type.SWAP);
+        assertThat(virtualizer.getPages()).isEqualTo(10);
+
+        Virtualizer other = new Virtualizer();
+        other.setType(Virtualizer.Type.SWAP);
+        other.setPages(10);
+        assertThat(other).isEqualTo(virtualizer);
+        assertThat(other.hashCode()).isEqualTo(virtualizer.hashCode());
+    }
+
+}
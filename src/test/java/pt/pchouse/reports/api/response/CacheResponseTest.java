@@ -0,0 +1,58 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class CacheResponseTest extends Generic<CacheResponse> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                CacheResponse.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    @Test
+    void testBean() {
+        CacheResponse response = appContext.getBean(CacheResponse.class);
+
+        response.setStatus(CacheResponse.Status.OK);
+        response.setHits(9);
+        response.setMisses(3);
+        response.setEvictions(1);
+        response.setSize(2);
+        response.setBytes(999);
+
+        assertThat(response.getStatus()).isEqualTo(CacheResponse.Status.OK);
+        assertThat(response.getHits()).isEqualTo(9);
+        assertThat(response.getMisses()).isEqualTo(3);
+        assertThat(response.getEvictions()).isEqualTo(1);
+        assertThat(response.getSize()).isEqualTo(2);
+        assertThat(response.getBytes()).isEqualTo(999);
+    }
+
+}
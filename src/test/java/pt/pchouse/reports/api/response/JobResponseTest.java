@@ -0,0 +1,54 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.job.Job;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class JobResponseTest extends Generic<JobResponse> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                JobResponse.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    @Test
+    void testBean() {
+        JobResponse response = appContext.getBean(JobResponse.class);
+
+        response.setStatus(JobResponse.Status.OK);
+        response.setJob(new Job("b0a3c6b4-5f5c-4a57-9f3a-6f1d1f3f5e2a", ReportRequest.ReportType.PDF, "UTF-8"));
+
+        assertThat(response.getStatus()).isEqualTo(JobResponse.Status.OK);
+        assertThat(response.getJobId()).isEqualTo("b0a3c6b4-5f5c-4a57-9f3a-6f1d1f3f5e2a");
+        assertThat(response.getState()).isEqualTo(Job.State.QUEUED);
+        assertThat(response.getSize()).isEqualTo(0);
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.pool.PoolStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class PoolResponseTest extends Generic<PoolResponse> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                PoolResponse.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    @Test
+    void testBean() {
+        PoolResponse response = appContext.getBean(PoolResponse.class);
+        assertThat(response.getPools()).isEmpty();
+
+        PoolStats stats = new PoolStats();
+        stats.setConnectionString("jdbc:mysql://localhost/sakila");
+        stats.setUser("user");
+        stats.setDriver("com.mysql.jdbc.Driver");
+        stats.setActive(1);
+        stats.setIdle(2);
+        stats.setTotal(3);
+        stats.setWaiting(4);
+
+        List<PoolStats> pools = new ArrayList<>();
+        pools.add(stats);
+
+        response.setStatus(PoolResponse.Status.OK);
+        response.setPools(pools);
+
+        assertThat(response.getStatus()).isEqualTo(PoolResponse.Status.OK);
+        assertThat(response.getPools()).containsExactly(stats);
+        assertThat(response.getPools().get(0).getTotal()).isEqualTo(3);
+    }
+
+}
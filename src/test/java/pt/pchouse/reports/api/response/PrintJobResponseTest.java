@@ -0,0 +1,52 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.printer.PrintJob;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class PrintJobResponseTest extends Generic<PrintJobResponse> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                PrintJobResponse.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    @Test
+    void testBean() {
+        PrintJobResponse response = appContext.getBean(PrintJobResponse.class);
+
+        response.setStatus(PrintJobResponse.Status.OK);
+        response.setJob(new PrintJob("b0a3c6b4-5f5c-4a57-9f3a-6f1d1f3f5e2a", "POS-80"));
+
+        assertThat(response.getStatus()).isEqualTo(PrintJobResponse.Status.OK);
+        assertThat(response.getJobId()).isEqualTo("b0a3c6b4-5f5c-4a57-9f3a-6f1d1f3f5e2a");
+        assertThat(response.getPrinter()).isEqualTo("POS-80");
+        assertThat(response.getState()).isEqualTo(PrintJob.State.QUEUED);
+    }
+
+}
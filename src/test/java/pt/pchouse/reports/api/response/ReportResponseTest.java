@@ -23,6 +23,10 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Scope;
 import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -45,16 +49,22 @@ public class ReportResponseTest extends Generic<ReportResponse> {
         String message = "The error message";
         String report = "A base64 encoded string";
         String duration = "1s";
+        Map<ReportRequest.ReportType, String> reports = new LinkedHashMap<>();
+        reports.put(ReportRequest.ReportType.PDF, report);
 
         reportResponse.setStatus(status);
         reportResponse.setMessage(message);
         reportResponse.setReport(report);
         reportResponse.setDuration(duration);
+        reportResponse.setReports(reports);
+        reportResponse.setPrintJobId("b0a3c6b4-5f5c-4a57-9f3a-6f1d1f3f5e2a");
 
         assertThat(reportResponse.getStatus()).isEqualTo(status);
         assertThat(reportResponse.getMessage()).isEqualTo(message);
         assertThat(reportResponse.getReport()).isEqualTo(report);
         assertThat(reportResponse.getDuration()).isEqualTo(duration);
+        assertThat(reportResponse.getReports()).isEqualTo(reports);
+        assertThat(reportResponse.getPrintJobId()).isEqualTo("b0a3c6b4-5f5c-4a57-9f3a-6f1d1f3f5e2a");
 
     }
 
@@ -0,0 +1,51 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class TemplateResponseTest extends Generic<TemplateResponse> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                TemplateResponse.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    @Test
+    void testBean() {
+        TemplateResponse response = appContext.getBean(TemplateResponse.class);
+
+        String id = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+        response.setStatus(TemplateResponse.Status.OK);
+        response.setTemplateId(id);
+
+        assertThat(response.getStatus()).isEqualTo(TemplateResponse.Status.OK);
+        assertThat(response.getTemplateId()).isEqualTo(id);
+    }
+
+}
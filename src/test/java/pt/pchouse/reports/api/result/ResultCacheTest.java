@@ -0,0 +1,226 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.result;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.memory.OutputBufferPool;
+import pt.pchouse.reports.api.memory.ReportOutput;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.util.Digest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ResultCacheTest extends Generic<ResultCache> {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                ResultCache.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private ResultCache cache(long ttlMs, long maxBytes, long memoryEntryBytes) {
+        ResultCache cache = new ResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlMs", ttlMs);
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        ReflectionTestUtils.setField(cache, "memoryEntryBytes", memoryEntryBytes);
+        ReflectionTestUtils.setField(cache, "configTmpDir", tmp.toString());
+        return cache;
+    }
+
+    private ReportOutput output(String content) throws Exception {
+        OutputBufferPool pool = new OutputBufferPool(2);
+        ReflectionTestUtils.setField(pool, "initialBytes", 64);
+        ReflectionTestUtils.setField(pool, "retainBytes", 1024);
+        ReportOutput output = new ReportOutput(pool, 1024, tmp);
+        output.write(content.getBytes(StandardCharsets.UTF_8));
+        return output;
+    }
+
+    @Test
+    void testHitAndMiss() throws Exception {
+        ResultCache cache = cache(60000, 1024, 1024);
+
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.getMisses()).isEqualTo(1);
+
+        ResultCache.Entry put = cache.put("key", output("report"));
+        assertThat(put.isInMemory()).isTrue();
+        assertThat(put.getETag()).isEqualTo("\"" + Digest.sha256Hex("report".getBytes(StandardCharsets.UTF_8)) + "\"");
+
+        ResultCache.Entry entry = cache.get("key");
+        assertThat(entry).isSameAs(put);
+        assertThat(new String(entry.getContent(), StandardCharsets.UTF_8)).isEqualTo("report");
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(1);
+        assertThat(cache.getBytes()).isEqualTo(6);
+
+        cache.remove("key");
+        assertThat(cache.peek("key")).isNull();
+        assertThat(cache.getBytes()).isZero();
+    }
+
+    @Test
+    void testExpired() throws Exception {
+        ResultCache cache = cache(0, 1024, 1024);
+        cache.put("key", output("report"));
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getSize()).isZero();
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() throws Exception {
+        ResultCache cache = cache(60000, 12, 1024);
+        cache.put("first", output("123456"));
+        cache.put("second", output("123456"));
+        cache.get("first");
+        cache.put("third", output("123456"));
+
+        assertThat(cache.peek("first")).isNotNull();
+        assertThat(cache.peek("second")).isNull();
+        assertThat(cache.peek("third")).isNotNull();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getBytes()).isEqualTo(12);
+
+        assertThat(cache.put("big", output("1234567890123"))).isNull();
+        assertThat(cache.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void testSpillToFile() throws Exception {
+        ResultCache cache = cache(60000, 1024, 4);
+        ResultCache.Entry entry = cache.put("key", output("report"));
+
+        assertThat(entry.isInMemory()).isFalse();
+        assertThat(entry.getFile()).exists();
+        assertThat(entry.getETag()).isEqualTo("\"" + Digest.sha256Hex("report".getBytes(StandardCharsets.UTF_8)) + "\"");
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ReportOutput output = ReportOutput.ofFile(entry.getFile());
+        output.writeTo(stream);
+        output.release();
+        assertThat(stream.toString("UTF-8")).isEqualTo("report");
+        assertThat(entry.getFile()).exists();
+
+        cache.clear();
+        assertThat(Files.exists(entry.getFile())).isFalse();
+    }
+
+    @Test
+    void testEvictWhileRead() throws Exception {
+        ResultCache cache = cache(60000, 12, 4);
+        cache.put("key", output("report"));
+
+        ResultCache.Entry entry = cache.get("key");
+        ReportOutput output = ReportOutput.ofFile(entry.getFile(), entry::release);
+
+        // Evicted by a bigger result and by the clear while the hit is read
+        cache.put("other", output("1234567"));
+        assertThat(cache.peek("key")).isNull();
+        assertThat(entry.getFile()).exists();
+        cache.clear();
+        assertThat(entry.getFile()).exists();
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        output.writeTo(stream);
+        assertThat(stream.toString("UTF-8")).isEqualTo("report");
+
+        output.release();
+        assertThat(Files.exists(entry.getFile())).isFalse();
+        output.release();
+    }
+
+    @Test
+    void testReleaseNotRemoved() throws Exception {
+        ResultCache cache = cache(60000, 1024, 4);
+        cache.put("key", output("report"));
+
+        ResultCache.Entry entry = cache.get("key");
+        entry.release();
+        assertThat(entry.getFile()).exists();
+
+        cache.remove("key");
+        assertThat(Files.exists(entry.getFile())).isFalse();
+    }
+
+    @Test
+    void testMatches() throws Exception {
+        ResultCache.Entry entry = cache(60000, 1024, 1024).put("key", output("report"));
+        String eTag = entry.getETag();
+
+        assertThat(entry.matches(eTag)).isTrue();
+        assertThat(entry.matches("\"other\", W/" + eTag)).isTrue();
+        assertThat(entry.matches("*")).isTrue();
+        assertThat(entry.matches("\"other\"")).isFalse();
+        assertThat(entry.matches(null)).isFalse();
+    }
+
+    @Test
+    void testCacheMode() {
+        assertThat(ResultCache.cacheMode(null)).isNull();
+        assertThat(ResultCache.cacheMode("max-age=60")).isNull();
+        assertThat(ResultCache.cacheMode("no-cache")).isEqualTo(ReportRequest.CacheMode.REFRESH);
+        assertThat(ResultCache.cacheMode("max-age=0")).isEqualTo(ReportRequest.CacheMode.REFRESH);
+        assertThat(ResultCache.cacheMode("no-cache, no-store")).isEqualTo(ReportRequest.CacheMode.BYPASS);
+    }
+
+    @Test
+    void testIsCacheable() {
+        ResultCache cache = cache(60000, 1024, 1024);
+        ReportRequest request = new ReportRequest();
+        request.setReportType(ReportRequest.ReportType.PDF);
+        assertThat(cache.isCacheable(request)).isTrue();
+
+        request.setCache(ReportRequest.CacheMode.REFRESH);
+        assertThat(cache.isCacheable(request)).isTrue();
+
+        request.setCache(ReportRequest.CacheMode.BYPASS);
+        assertThat(cache.isCacheable(request)).isFalse();
+
+        request.setCache(null);
+        request.setReportTypes(new ArrayList<>(Arrays.asList(ReportRequest.ReportType.PDF, ReportRequest.ReportType.CSV)));
+        assertThat(cache.isCacheable(request)).isFalse();
+
+        request.setReportTypes(null);
+        request.setReportType(ReportRequest.ReportType.PRINT);
+        assertThat(cache.isCacheable(request)).isFalse();
+
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        request.setReportType(ReportRequest.ReportType.PDF);
+        assertThat(cache.isCacheable(request)).isFalse();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.sign;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.Sign;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class BatchSignerTest extends Generic<BatchSigner> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                BatchSigner.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        ).isTrue();
+    }
+
+    private Sign sign() {
+        Sign sign = new Sign();
+        sign.setLocation("Lisbon");
+        sign.setLevel(Sign.Level.CERTIFIED_NO_CHANGES_ALLOWED);
+        sign.setCertificateType(Sign.CertificateType.SELF);
+        sign.setCertificateName("rreports");
+        sign.setCertificatePassword("password");
+        sign.setKeyStorePassword("password");
+        sign.setReason("Batch test");
+        return sign;
+    }
+
+    private byte[] pdf() throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.save(pdf);
+        }
+        return pdf.toByteArray();
+    }
+
+    private Map<String, byte[]> unzip(byte[] zip) throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = zipInputStream.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                entries.put(entry.getName(), bytes.toByteArray());
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void testUniqueName() {
+        Set<String> names = new HashSet<>();
+        assertThat(BatchSigner.uniqueName("dir/invoice.pdf", 0, names)).isEqualTo("invoice.pdf");
+        assertThat(BatchSigner.uniqueName("other\\invoice.pdf", 1, names)).isEqualTo("1_invoice.pdf");
+        assertThat(BatchSigner.uniqueName(null, 2, names)).isEqualTo("2.pdf");
+        assertThat(BatchSigner.uniqueName("dir/", 3, names)).isEqualTo("3.pdf");
+    }
+
+    @Test
+    void testPrepareWithoutSign() {
+        BatchSigner batchSigner = appContext.getBean(BatchSigner.class, (Sign) null);
+        Assertions.assertThrows(SignException.class, batchSigner::prepare);
+    }
+
+    @Test
+    void testPrepareWrongPassword() {
+        Sign sign = sign();
+        sign.setCertificatePassword("wrong");
+        BatchSigner batchSigner = appContext.getBean(BatchSigner.class, sign);
+        Assertions.assertThrows(SignException.class, batchSigner::prepare);
+    }
+
+    @Test
+    void testWriteZipFromZipSource() throws Exception {
+        byte[] pdf = pdf();
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(input)) {
+            zip.putNextEntry(new ZipEntry("invoices/"));
+            zip.closeEntry();
+            for (String name : new String[]{"invoices/a.pdf", "invoices/b.pdf", "invoices/c.pdf"}) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(pdf);
+                zip.closeEntry();
+            }
+            zip.putNextEntry(new ZipEntry("invoices/bad.pdf"));
+            zip.write("not a pdf".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        BatchSigner batchSigner = appContext.getBean(BatchSigner.class, sign());
+        ReflectionTestUtils.setField(batchSigner, "parallelism", 2);
+        batchSigner.prepare();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        batchSigner.writeZip(batchSigner.zipSource(new ByteArrayInputStream(input.toByteArray())), output);
+
+        Map<String, byte[]> entries = unzip(output.toByteArray());
+        assertThat(entries.keySet()).containsExactlyInAnyOrder("a.pdf", "b.pdf", "c.pdf", "bad.pdf.error.txt");
+
+        for (String name : new String[]{"a.pdf", "b.pdf", "c.pdf"}) {
+            try (PDDocument document = PDDocument.load(entries.get(name))) {
+                assertThat(document.getSignatureDictionaries()).hasSize(1);
+            }
+        }
+    }
+
+    @Test
+    void testMaxDocumentBytes() throws Exception {
+        byte[] pdf = pdf();
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(input)) {
+            zip.putNextEntry(new ZipEntry("a.pdf"));
+            zip.write(pdf);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("large.pdf"));
+            zip.write(new byte[pdf.length * 4 + 10000]);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("b.pdf"));
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        BatchSigner batchSigner = appContext.getBean(BatchSigner.class, sign());
+        ReflectionTestUtils.setField(batchSigner, "maxDocumentBytes", (long) pdf.length * 2);
+        batchSigner.prepare();
+
+        assertThat(batchSigner.isTooLarge(pdf.length)).isFalse();
+        assertThat(batchSigner.isTooLarge(pdf.length * 2L + 1)).isTrue();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        batchSigner.writeZip(batchSigner.zipSource(new ByteArrayInputStream(input.toByteArray())), output);
+
+        Map<String, byte[]> entries = unzip(output.toByteArray());
+        assertThat(entries.keySet()).containsExactlyInAnyOrder("a.pdf", "b.pdf", "large.pdf.error.txt");
+        assertThat(new String(entries.get("large.pdf.error.txt"), StandardCharsets.UTF_8))
+                .contains(String.valueOf(pdf.length * 2));
+
+        ReflectionTestUtils.setField(batchSigner, "maxDocumentBytes", 0L);
+        assertThat(batchSigner.isTooLarge(Long.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    void testMaxDocuments() throws Exception {
+        byte[] pdf = pdf();
+        BatchSigner batchSigner = appContext.getBean(BatchSigner.class, sign());
+        ReflectionTestUtils.setField(batchSigner, "maxDocuments", 1);
+        batchSigner.prepare();
+
+        int[] next = {0};
+        Assertions.assertThrows(SignException.class, () -> batchSigner.writeZip(
+                () -> next[0]++ < 2 ? new BatchSigner.Document("doc.pdf", pdf) : null,
+                new ByteArrayOutputStream()
+        ));
+    }
+
+    @Test
+    void testWriteZipNotPrepared() {
+        BatchSigner batchSigner = appContext.getBean(BatchSigner.class, sign());
+        Assertions.assertThrows(
+                SignException.class,
+                () -> batchSigner.writeZip(() -> null, new ByteArrayOutputStream())
+        );
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.sign;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import pt.pchouse.reports.Generic;
+import rebelo.reports.core.sign.RRSignPdfProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class SignServiceTest extends Generic<SignService> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                SignService.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private String keyStore() throws Exception {
+        return Paths.get(
+                Objects.requireNonNull(SignServiceTest.class.getClassLoader().getResource("keystore.ks")).toURI()
+        ).toString();
+    }
+
+    @Test
+    void testKeyNotContainsPasswords() {
+        String key = SignService.key("keystore.ks", "rreports", "storeSecret", "certSecret");
+        assertThat(key).startsWith("keystore.ks\nrreports\n");
+        assertThat(key).doesNotContain("storeSecret").doesNotContain("certSecret");
+        assertThat(key).isNotEqualTo(SignService.key("keystore.ks", "rreports", "storeSecret", "other"));
+    }
+
+    @Test
+    void testSigningKeyCached() throws Exception {
+        SignService signService = new SignService();
+        SigningKey signingKey = signService.getSigningKey(keyStore(), "rreports", "password", "password");
+
+        assertThat(signingKey.getPrivateKey()).isNotNull();
+        assertThat(signingKey.getChain()).isNotEmpty();
+        assertThat(signService.getSigningKey(keyStore(), "rreports", "password", "password")).isSameAs(signingKey);
+        assertThat(signService.getSize()).isEqualTo(1);
+
+        signService.clear();
+        assertThat(signService.getSize()).isZero();
+    }
+
+    @Test
+    void testReloadWhenFileChanges(@TempDir Path tempDir) throws Exception {
+        Path copy = tempDir.resolve("keystore.ks");
+        Files.copy(Paths.get(keyStore()), copy);
+
+        SignService signService = new SignService();
+        SigningKey signingKey = signService.getSigningKey(copy.toString(), "rreports", "password", "password");
+
+        Files.setLastModifiedTime(
+                copy, FileTime.fromMillis(Files.getLastModifiedTime(copy).toMillis() + 10000)
+        );
+
+        SigningKey reloaded = signService.getSigningKey(copy.toString(), "rreports", "password", "password");
+        assertThat(reloaded).isNotSameAs(signingKey);
+        assertThat(signService.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void testWrongPassword() throws Exception {
+        SignService signService = new SignService();
+        String keyStore = keyStore();
+        Assertions.assertThrows(
+                SignException.class,
+                () -> signService.getSigningKey(keyStore, "rreports", "wrong", "password")
+        );
+        assertThat(signService.getSize()).isZero();
+    }
+
+    @Test
+    void testUnknownCertificate() throws Exception {
+        SignService signService = new SignService();
+        String keyStore = keyStore();
+        SignException exception = Assertions.assertThrows(
+                SignException.class,
+                () -> signService.getSigningKey(keyStore, "not_exist", "password", "password")
+        );
+        assertThat(exception.getMessage()).contains("not_exist");
+    }
+
+    @Test
+    void testKeyStoreNotFound(@TempDir Path tempDir) {
+        SignService signService = new SignService();
+        Assertions.assertThrows(
+                SignException.class,
+                () -> signService.getSigningKey(
+                        tempDir.resolve("keystore.ks").toString(), "rreports", "password", "password"
+                )
+        );
+    }
+
+    @Test
+    void testSign() throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.save(pdf);
+        }
+
+        RRSignPdfProperties signProperties = appContext.getBean(RRSignPdfProperties.class);
+        signProperties.setJavaKeyStorePath(keyStore());
+        signProperties.setJavaKeyStorePassword("password");
+        signProperties.setCertificateName("rreports");
+        signProperties.setCertificatePassword("password");
+        signProperties.setLevel(RRSignPdfProperties.Level.CERTIFIED_NO_CHANGES_ALLOWED);
+        signProperties.setLocation("Lisbon");
+        signProperties.setReazon("Reports API test");
+        signProperties.setContact("The contact");
+
+        SignService signService = appContext.getBean(SignService.class);
+        ByteArrayOutputStream signed = new ByteArrayOutputStream();
+        signService.sign(signProperties, pdf.toByteArray(), signed);
+
+        try (PDDocument document = PDDocument.load(signed.toByteArray())) {
+            assertThat(document.getSignatureDictionaries()).hasSize(1);
+            assertThat(document.getSignatureDictionaries().get(0).getLocation()).isEqualTo("Lisbon");
+        }
+    }
+
+    @Test
+    void testCertificationLevel() {
+        assertThat(SignService.certificationLevel(RRSignPdfProperties.Level.CERTIFIED_FORM_FILLING))
+                .isNotEqualTo(SignService.certificationLevel(RRSignPdfProperties.Level.CERTIFIED_NO_CHANGES_ALLOWED));
+    }
+
+}
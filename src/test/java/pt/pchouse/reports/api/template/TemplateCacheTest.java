@@ -0,0 +1,113 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.template;
+
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class TemplateCacheTest extends Generic<TemplateCache> {
+
+    @BeforeEach
+    void beforeEach() {
+        appContext.getBean(TemplateCache.class).clear();
+    }
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                TemplateCache.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private String readBase64(String resource) throws Exception {
+        URL url = Objects.requireNonNull(getClass().getClassLoader().getResource(resource));
+        return Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get(url.toURI())));
+    }
+
+    @Test
+    void testHitAndMiss() throws Exception {
+        TemplateCache cache = appContext.getBean(TemplateCache.class);
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+
+        String base64 = readBase64("sakila/sakila.jasper");
+
+        JasperReport first = cache.getReport(base64);
+        JasperReport second = cache.getReport(base64);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getMisses() - misses).isEqualTo(1);
+        assertThat(cache.getHits() - hits).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(1);
+        assertThat(cache.getBytes()).isEqualTo(Base64.getDecoder().decode(base64).length);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() throws Exception {
+        TemplateCache cache = new TemplateCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "maxBytes", Long.MAX_VALUE);
+
+        JasperReport sakila = cache.getReport(readBase64("sakila/sakila.jasper"));
+        JasperReport ticket = cache.getReport(readBase64("ticket/ticket.jasper"));
+
+        // Touch sakila so ticket is the least recently used
+        assertThat(cache.get(TemplateCache.key(readBase64("sakila/sakila.jasper")))).isSameAs(sakila);
+
+        cache.getReport(readBase64("testsubreport/subreport_1.jasper"));
+
+        assertThat(cache.getSize()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.get(TemplateCache.key(readBase64("ticket/ticket.jasper")))).isNull();
+        assertThat(cache.get(TemplateCache.key(readBase64("sakila/sakila.jasper")))).isSameAs(sakila);
+        assertThat(ticket).isNotNull();
+    }
+
+    @Test
+    void testBytesEviction() throws Exception {
+        String base64 = readBase64("sakila/sakila.jasper");
+        long size = Base64.getDecoder().decode(base64).length;
+
+        TemplateCache cache = new TemplateCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        ReflectionTestUtils.setField(cache, "maxBytes", size - 1);
+
+        cache.getReport(base64);
+
+        assertThat(cache.getSize()).isEqualTo(0);
+        assertThat(cache.getBytes()).isEqualTo(0);
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.template;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.ReportRequest;
+import pt.pchouse.reports.api.request.ReportResources;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class TemplateCompilerTest extends Generic<TemplateCompiler> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                TemplateCompiler.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private TemplateCompiler templateCompiler(Path tmpDir, int maxSize) {
+        TemplateCompiler templateCompiler = new TemplateCompiler();
+        ReflectionTestUtils.setField(templateCompiler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(templateCompiler, "configTmpDir", tmpDir.toString());
+        ReflectionTestUtils.setField(templateCompiler, "maxSize", maxSize);
+        return templateCompiler;
+    }
+
+    private String jrxml() throws Exception {
+        return Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get(
+                Objects.requireNonNull(getClass().getClassLoader().getResource("ticket/ticket.jrxml")).toURI()
+        )));
+    }
+
+    @Test
+    void testKey() {
+        String key = TemplateCompiler.key("PGphc3BlclJlcG9ydC8+");
+        assertThat(key).matches("^[0-9a-f]{64}-[A-Za-z0-9._-]+$");
+        assertThat(key).isNotEqualTo(TemplateCompiler.key("PGphc3BlclJlcG9ydD4="));
+    }
+
+    @Test
+    void testCompileOnce(@TempDir Path tmpDir) throws Exception {
+        String jrxml = jrxml();
+        TemplateCompiler templateCompiler = templateCompiler(tmpDir, 10);
+
+        String jasper = templateCompiler.compile(jrxml);
+        JasperReport jasperReport = (JasperReport) JRLoader.loadObject(
+                new ByteArrayInputStream(Base64.getDecoder().decode(jasper))
+        );
+        assertThat(jasperReport.getName()).isNotEmpty();
+        assertThat(templateCompiler.getMisses()).isEqualTo(1);
+        assertThat(templateCompiler.getSize()).isEqualTo(1);
+        assertThat(Files.isRegularFile(
+                templateCompiler.getStoreDir().resolve(TemplateCompiler.key(jrxml) + TemplateCompiler.JASPER)
+        )).isTrue();
+
+        assertThat(templateCompiler.compile(jrxml)).isEqualTo(jasper);
+        assertThat(templateCompiler.getHits()).isEqualTo(1);
+        assertThat(templateCompiler.getMisses()).isEqualTo(1);
+
+        // A new instance, as after a restart, reads the store
+        TemplateCompiler restarted = templateCompiler(tmpDir, 10);
+        assertThat(restarted.compile(jrxml)).isEqualTo(jasper);
+        assertThat(restarted.getStoreHits()).isEqualTo(1);
+        assertThat(restarted.getMisses()).isZero();
+    }
+
+    @Test
+    void testMemoryDisabled(@TempDir Path tmpDir) throws Exception {
+        String jrxml = jrxml();
+        TemplateCompiler templateCompiler = templateCompiler(tmpDir, 0);
+        templateCompiler.compile(jrxml);
+        templateCompiler.compile(jrxml);
+        assertThat(templateCompiler.getSize()).isZero();
+        assertThat(templateCompiler.getStoreHits()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidJrxml(@TempDir Path tmpDir) {
+        TemplateCompiler templateCompiler = templateCompiler(tmpDir, 10);
+        String invalid = Base64.getEncoder().encodeToString("<jasperReport>".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertThrows(TemplateException.class, () -> templateCompiler.compile(invalid));
+        Assertions.assertThrows(TemplateException.class, () -> templateCompiler.compile(""));
+    }
+
+    @Test
+    void testCompileResources(@TempDir Path tmpDir) throws Exception {
+        TemplateCompiler templateCompiler = templateCompiler(tmpDir, 10);
+
+        ReportResources subReport = new ReportResources();
+        subReport.setName("sub.jrxml");
+        subReport.setResource(jrxml());
+        ReportResources image = new ReportResources();
+        image.setName("logo.png");
+        image.setResource("aW1hZ2U=");
+
+        List<ReportResources> resources = new ArrayList<>();
+        resources.add(subReport);
+        resources.add(image);
+
+        List<ReportResources> compiled = templateCompiler.compileResources(resources);
+        assertThat(compiled).hasSize(2);
+        assertThat(compiled.get(0).getName()).isEqualTo("sub.jasper");
+        assertThat(compiled.get(0).getResource()).isEqualTo(templateCompiler.compile(jrxml()));
+        assertThat(compiled.get(1)).isSameAs(image);
+        assertThat(templateCompiler.compileResources(null)).isNull();
+    }
+
+    @Test
+    void testCompileRequest(@TempDir Path tmpDir) throws Exception {
+        TemplateCompiler templateCompiler = templateCompiler(tmpDir, 10);
+
+        ReportRequest reportRequest = new ReportRequest();
+        reportRequest.setJrxml(jrxml());
+        templateCompiler.compileRequest(reportRequest);
+        assertThat(reportRequest.getJrxml()).isNull();
+        assertThat(reportRequest.getReport()).isEqualTo(templateCompiler.compile(jrxml()));
+
+        ReportRequest both = new ReportRequest();
+        both.setJrxml(jrxml());
+        both.setReport("VGhlIHJlcG9ydA==");
+        Assertions.assertThrows(TemplateException.class, () -> templateCompiler.compileRequest(both));
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.template;
+
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.ReportResources;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class TemplateRegistryTest extends Generic<TemplateRegistry> {
+
+    @TempDir
+    Path registryDir;
+
+    private TemplateRegistry registry;
+
+    private TemplateCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new TemplateCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        ReflectionTestUtils.setField(cache, "maxBytes", Long.MAX_VALUE);
+
+        registry = new TemplateRegistry();
+        ReflectionTestUtils.setField(registry, "templateCache", cache);
+        ReflectionTestUtils.setField(registry, "configTemplateDir", registryDir.toString());
+    }
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                TemplateRegistry.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private String readBase64(String resource) throws Exception {
+        URL url = Objects.requireNonNull(getClass().getClassLoader().getResource(resource));
+        return Base64.getEncoder().encodeToString(Files.readAllBytes(Paths.get(url.toURI())));
+    }
+
+    private ArrayList<ReportResources> subReports() throws Exception {
+        ArrayList<ReportResources> resources = new ArrayList<>();
+        for (String name : new String[]{"subreport_1.jasper", "subreport_2.jasper"}) {
+            ReportResources resource = new ReportResources();
+            resource.setName(name);
+            resource.setResource(readBase64("testsubreport/" + name));
+            resources.add(resource);
+        }
+        return resources;
+    }
+
+    @Test
+    void testRegister() throws Exception {
+        String report = readBase64("testsubreport/teste_subreport.jasper");
+        ArrayList<ReportResources> resources = subReports();
+
+        String id = registry.register(report, resources);
+
+        assertThat(TemplateRegistry.isValidId(id)).isTrue();
+        assertThat(id).isEqualTo(TemplateRegistry.templateId(report, resources));
+        assertThat(registry.exists(id)).isTrue();
+
+        Path dir = registry.getResourcesDir(id);
+        assertThat(dir.resolve(TemplateRegistry.REPORT_FILE)).exists();
+        assertThat(dir.resolve("subreport_1.jasper")).exists();
+        assertThat(dir.resolve("subreport_2.jasper")).exists();
+
+        // Same content same id
+        assertThat(registry.register(report, resources)).isEqualTo(id);
+        // Different resources different id
+        assertThat(registry.register(report, null)).isNotEqualTo(id);
+    }
+
+    @Test
+    void testGetReport() throws Exception {
+        String id = registry.register(readBase64("ticket/ticket.jasper"), null);
+
+        JasperReport first = registry.getReport(id);
+        assertThat(first).isNotNull();
+        assertThat(registry.getReport(id)).isSameAs(first);
+
+        cache.clear();
+        long misses = cache.getMisses();
+        JasperReport loaded = registry.getReport(id);
+        assertThat(loaded).isNotNull();
+        assertThat(cache.getMisses() - misses).isEqualTo(1);
+        assertThat(registry.getReport(id)).isSameAs(loaded);
+    }
+
+    @Test
+    void testRemove() throws Exception {
+        String id = registry.register(readBase64("ticket/ticket.jasper"), null);
+
+        assertThat(registry.remove(id)).isTrue();
+        assertThat(registry.exists(id)).isFalse();
+        assertThat(cache.getSize()).isEqualTo(0);
+        assertThat(registry.remove(id)).isFalse();
+        assertThrows(TemplateException.class, () -> registry.getReport(id));
+    }
+
+    @Test
+    void testRegisterTemporary() throws Exception {
+        String report = readBase64("ticket/ticket.jasper");
+
+        String id = registry.registerTemporary(report, null);
+        assertThat(registry.registerTemporary(report, null)).isEqualTo(id);
+        assertThat(registry.exists(id)).isTrue();
+
+        // Removed when released by all users
+        registry.releaseTemporary(id);
+        assertThat(registry.exists(id)).isTrue();
+        registry.releaseTemporary(id);
+        assertThat(registry.exists(id)).isFalse();
+        registry.releaseTemporary(id);
+    }
+
+    @Test
+    void testRegisterTemporaryKeepRegistered() throws Exception {
+        String report = readBase64("ticket/ticket.jasper");
+
+        // Already registered
+        String id = registry.register(report, null);
+        registry.releaseTemporary(registry.registerTemporary(report, null));
+        assertThat(registry.exists(id)).isTrue();
+
+        // Registered while in use
+        registry.remove(id);
+        registry.registerTemporary(report, null);
+        registry.register(report, null);
+        registry.releaseTemporary(id);
+        assertThat(registry.exists(id)).isTrue();
+    }
+
+    @Test
+    void testInvalidId() throws Exception {
+        assertThat(TemplateRegistry.isValidId(null)).isFalse();
+        assertThat(TemplateRegistry.isValidId("../etc")).isFalse();
+        assertThat(registry.exists("../etc")).isFalse();
+        assertThrows(TemplateException.class, () -> registry.getResourcesDir("../etc"));
+    }
+
+    @Test
+    void testInvalidResourceName() throws Exception {
+        String report = readBase64("ticket/ticket.jasper");
+        for (String name : new String[]{"../evil.jasper", "dir/sub.jasper", "..", TemplateRegistry.REPORT_FILE, ""}) {
+            ArrayList<ReportResources> resources = new ArrayList<>();
+            ReportResources resource = new ReportResources();
+            resource.setName(name);
+            resource.setResource("VGhlIHJlcG9ydA==");
+            resources.add(resource);
+            assertThrows(TemplateException.class, () -> registry.register(report, resources));
+        }
+        assertThrows(TemplateException.class, () -> registry.register("", null));
+    }
+
+}
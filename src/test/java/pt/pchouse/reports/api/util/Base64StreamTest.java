@@ -0,0 +1,64 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class Base64StreamTest {
+
+    private byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    void testDecode() throws IOException {
+        byte[] content = "[{\"name\":\"João Rebelo\"},{\"name\":\"PChouse\"}]".getBytes(StandardCharsets.UTF_8);
+        try (InputStream inputStream = Base64Stream.decode(Base64.getEncoder().encodeToString(content))) {
+            assertThat(readAll(inputStream)).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void testDecodeEmpty() throws IOException {
+        try (InputStream inputStream = Base64Stream.decode("")) {
+            assertThat(inputStream.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void testDecodeInvalid() {
+        assertThrows(IOException.class, () -> readAll(Base64Stream.decode("not*base64")));
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package pt.pchouse.reports.api.virtualizer;
+
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRFileVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.Virtualizer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class VirtualizerFactoryTest extends Generic<VirtualizerFactory> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                VirtualizerFactory.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private VirtualizerFactory factory(String type) {
+        VirtualizerFactory factory = new VirtualizerFactory();
+        ReflectionTestUtils.setField(factory, "configTmpDir", "");
+        ReflectionTestUtils.setField(factory, "type", type);
+        ReflectionTestUtils.setField(factory, "pages", 10);
+        ReflectionTestUtils.setField(factory, "autoPages", 50);
+        ReflectionTestUtils.setField(factory, "autoDataSourceBytes", 1024L);
+        return factory;
+    }
+
+    @Test
+    void testNone() throws Exception {
+        assertThat(factory("none").create(null, 0)).isNull();
+
+        Virtualizer requested = new Virtualizer();
+        requested.setType(Virtualizer.Type.NONE);
+        assertThat(factory("swap").create(requested, 0)).isNull();
+    }
+
+    @Test
+    void testConfiguredType() throws Exception {
+        try (ReportVirtualizer virtualizer = factory("swap").create(null, 0)) {
+            assertThat(virtualizer.getVirtualizer()).isInstanceOf(JRSwapFileVirtualizer.class);
+            assertThat(virtualizer.getPages()).isEqualTo(10);
+        }
+
+        try (ReportVirtualizer virtualizer = factory("FILE").create(null, 0)) {
+            assertThat(virtualizer.getVirtualizer()).isInstanceOf(JRFileVirtualizer.class);
+            assertThat(virtualizer.getPages()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void testRequested() throws Exception {
+        Virtualizer requested = new Virtualizer();
+        requested.setType(Virtualizer.Type.FILE);
+        requested.setPages(3);
+
+        try (ReportVirtualizer virtualizer = factory("none").create(requested, 0)) {
+            assertThat(virtualizer.getVirtualizer()).isInstanceOf(JRFileVirtualizer.class);
+            assertThat(virtualizer.getPages()).isEqualTo(3);
+        }
+
+        requested.setType(null);
+        requested.setPages(0);
+        try (ReportVirtualizer virtualizer = factory("swap").create(requested, 0)) {
+            assertThat(virtualizer.getVirtualizer()).isInstanceOf(JRSwapFileVirtualizer.class);
+            assertThat(virtualizer.getPages()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testAuto() throws Exception {
+        assertThat(factory("auto").create(null, 1024)).isNull();
+        assertThat(factory("auto").create(null, 0, 50)).isNull();
+
+        try (ReportVirtualizer virtualizer = factory("auto").create(null, 1025)) {
+            assertThat(virtualizer.getVirtualizer()).isInstanceOf(JRSwapFileVirtualizer.class);
+            assertThat(virtualizer.getPages()).isEqualTo(10);
+        }
+
+        try (ReportVirtualizer virtualizer = factory("auto").create(null, 0, 51)) {
+            assertThat(virtualizer.getVirtualizer()).isInstanceOf(JRSwapFileVirtualizer.class);
+            assertThat(virtualizer.getPages()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void testEstimatePages() {
+        VirtualizerFactory factory = factory("auto");
+        JasperReport jasperReport = Mockito.mock(JasperReport.class);
+
+        assertThat(factory.estimatePages(null)).isZero();
+        assertThat(factory.estimatePages(jasperReport)).isZero();
+
+        factory.recordPages(jasperReport, 99);
+        assertThat(factory.estimatePages(jasperReport)).isEqualTo(99);
+        assertThat(factory.estimatePages(Mockito.mock(JasperReport.class))).isZero();
+    }
+
+    @Test
+    void testDirectoryDeletedOnClose() throws Exception {
+        Path tmpDir = Files.createTempDirectory("virtualizer_test");
+        VirtualizerFactory factory = factory("swap");
+        ReflectionTestUtils.setField(factory, "configTmpDir", tmpDir.toFile().getAbsolutePath());
+
+        ReportVirtualizer virtualizer = factory.create(null, 0);
+        Path directory = virtualizer.getDirectory();
+        assertThat(directory.getParent()).isEqualTo(tmpDir);
+        assertThat(Files.isDirectory(directory)).isTrue();
+
+        virtualizer.close();
+        virtualizer.close();
+        assertThat(Files.exists(directory)).isFalse();
+        Files.delete(tmpDir);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright (C) 2022  PChouse - Reflexão Estudos e Sistemas Informáticos, lda
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package pt.pchouse.reports.api.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.pchouse.reports.Generic;
+import pt.pchouse.reports.api.request.ReportRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class WarmUpTest extends Generic<WarmUp> {
+
+    @Test
+    public void testSpecificAnnotations() {
+        assertThat(
+                WarmUp.class.getAnnotation(Scope.class).value().equals(ConfigurableBeanFactory.SCOPE_SINGLETON)
+        ).isTrue();
+    }
+
+    private WarmUp warmUp(boolean enabled, int iterations, String templates) {
+        WarmUp warmUp = appContext.getBean(WarmUp.class);
+        ReflectionTestUtils.setField(warmUp, "enabled", enabled);
+        ReflectionTestUtils.setField(warmUp, "iterations", iterations);
+        ReflectionTestUtils.setField(warmUp, "rows", 10);
+        ReflectionTestUtils.setField(warmUp, "templates", templates);
+        ReflectionTestUtils.setField(warmUp, "timeout", 0L);
+        return warmUp;
+    }
+
+    @Test
+    void testWarmUpAtStartup() {
+        WarmUp warmUp = appContext.getBean(WarmUp.class);
+        assertThat(warmUp.getState()).isIn(WarmUp.State.DONE, WarmUp.State.DISABLED);
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void testWarmUp() {
+        WarmUp warmUp = warmUp(true, 1, "");
+        warmUp.warmUp();
+        assertThat(warmUp.getState()).isEqualTo(WarmUp.State.DONE);
+        assertThat(warmUp.getFailures()).isEmpty();
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmUp.health().getDetails()).containsKeys("state", "durationMs", "failures");
+    }
+
+    @Test
+    void testDisabled() {
+        WarmUp warmUp = warmUp(false, 1, "");
+        warmUp.warmUp();
+        assertThat(warmUp.getState()).isEqualTo(WarmUp.State.DISABLED);
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void testTemplateFailureDoesNotBlock() {
+        WarmUp warmUp = warmUp(true, 0, " ,/not/exist/report.jasper");
+        warmUp.warmUp();
+        assertThat(warmUp.getState()).isEqualTo(WarmUp.State.DONE);
+        assertThat(warmUp.getFailures()).hasSize(1);
+        assertThat(warmUp.getFailures().get(0)).startsWith("template /not/exist/report.jasper");
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void testBundledRequest() throws Exception {
+        ReportRequest reportRequest = warmUp(true, 0, "").bundledRequest();
+        assertThat(reportRequest.getJrxml()).isNotEmpty();
+        assertThat(reportRequest.getReport()).isNull();
+        assertThat(reportRequest.getJsonFile()).isNotNull();
+        assertThat(reportRequest.getReportTypes())
+                .hasSize(ReportRequest.ReportType.values().length - 1)
+                .doesNotContain(ReportRequest.ReportType.PRINT);
+    }
+
+    @Test
+    void testTemplateRequest() throws Exception {
+        WarmUp warmUp = warmUp(true, 0, "");
+        Path file = Files.createTempFile("warmup", ".jrxml");
+        try {
+            Files.write(file, new byte[]{1, 2, 3});
+            ReportRequest reportRequest = warmUp.templateRequest(file.toString());
+            assertThat(reportRequest.getJrxml()).isEqualTo(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3}));
+            assertThat(reportRequest.getReport()).isNull();
+            assertThat(reportRequest.getReportType()).isEqualTo(ReportRequest.ReportType.PDF);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}